@@ -0,0 +1,175 @@
+package com.mycompany.basesdedatospproyecto.benchmarks;
+
+import com.mycompany.basesdedatospproyecto.Contacto;
+import com.mycompany.basesdedatospproyecto.MYSQL;
+import com.mycompany.basesdedatospproyecto.ModeloTablaResultados;
+import com.mycompany.basesdedatospproyecto.ResultadoInsercionMasiva;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mediciones de rendimiento de las operaciones más usadas de {@link MYSQL} y
+ * del llenado de la tabla de la interfaz.
+ *
+ * Cada medición se ejecuta contra la base de datos indicada por el parámetro
+ * `motor` (`h2` en memoria o `mysql` local), llena con `tamanoDatos`
+ * contactos generados. Ambos parámetros se cambian desde la línea de
+ * comandos, por ejemplo `-p motor=mysql -p tamanoDatos=10000,1000000`.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactosBenchmark {
+
+    // Columnas de la tabla de resultados de la interfaz
+    private static final String[] COLUMNAS = {"ID", "Nombre", "A Paterno", "A Materno", "Telefono", "Grupo"};
+    // Textos buscados por nombre, en rotación
+    private static final String[] BUSQUEDAS = {"gar", "juan", "pérez", "mar", "lo"};
+    private static final int TAMANO_PAGINA = 200;
+    private static final int TAMANO_LOTE = 100;
+
+    /**
+     * La base de datos, sembrada una vez por ejecución y compartida por todos
+     * los hilos.
+     */
+    @State(Scope.Benchmark)
+    public static class Base {
+
+        @Param({"h2"})
+        public String motor;
+
+        @Param({"1000", "100000"})
+        public int tamanoDatos;
+
+        MYSQL db;
+        int[] ids;
+        List<Contacto> lote;
+
+        @Setup(Level.Trial)
+        public void preparar() throws SQLException {
+            db = DatosBenchmark.abrir(motor);
+            ids = DatosBenchmark.sembrar(db, tamanoDatos);
+            lote = DatosBenchmark.generar(TAMANO_LOTE, 7);
+            db.obtenerEstadisticas().reconciliar();
+            db.obtenerIndiceNombres().construir(db);
+        }
+
+        /**
+         * Quita los contactos insertados por las mediciones de inserción, para
+         * que cada iteración trabaje con el mismo número de contactos.
+         */
+        @TearDown(Level.Iteration)
+        public void restaurar() throws SQLException {
+            DatosBenchmark.ejecutar(db, "DELETE FROM contactos WHERE idContacto > " + ids[ids.length - 1]);
+            db.obtenerEstadisticas().reconciliar();
+            db.obtenerIndiceNombres().construir(db);
+        }
+
+        @TearDown(Level.Trial)
+        public void cerrar() {
+            db.cerrar();
+        }
+
+        int idAlAzar() {
+            return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        }
+
+        String busquedaAlAzar() {
+            return BUSQUEDAS[ThreadLocalRandom.current().nextInt(BUSQUEDAS.length)];
+        }
+    }
+
+    @Benchmark
+    public Contacto obtenerContactoPorId(Base base) {
+        return base.db.obtenerContactoPorId(base.idAlAzar());
+    }
+
+    @Benchmark
+    public List<Contacto> obtenerContactos(Base base) {
+        return base.db.obtenerContactos();
+    }
+
+    @Benchmark
+    public List<Contacto> buscarPorNombreConIndice(Base base) {
+        return base.db.buscarContactosPorNombre(base.busquedaAlAzar(), 1_000);
+    }
+
+    @Benchmark
+    public List<Contacto> buscarPorNombreConLike(Base base) {
+        return base.db.obtenerContactosConGrupoPorNombre(base.busquedaAlAzar());
+    }
+
+    @Benchmark
+    public int refrescarConteosPorGrupo(Base base) {
+        base.db.obtenerEstadisticas().reconciliar();
+        return base.db.obtenerEstadisticas().contarContactos();
+    }
+
+    @Benchmark
+    public int insertarUno(Base base) throws SQLException {
+        return base.db.insertarValores("Benchmark", "Paterno", "Materno", "5500000000", 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TAMANO_LOTE)
+    public ResultadoInsercionMasiva insertarLote(Base base) {
+        return base.db.insertarContactos(base.lote);
+    }
+
+    /**
+     * Carga una página del listado completo, como lo hace el modelo paginado
+     * de la tabla al desplazarse.
+     */
+    @Benchmark
+    public List<Contacto> cargarPaginaListado(Base base) {
+        List<Contacto> pagina = new ArrayList<>(TAMANO_PAGINA);
+        base.db.obtenerPaginaContactosConGrupo(base.idAlAzar() - 1, TAMANO_PAGINA, pagina);
+        return pagina;
+    }
+
+    /**
+     * Llena el modelo de la tabla de resultados con todos los contactos de un
+     * grupo, como lo hace la interfaz al mostrar una búsqueda.
+     */
+    @Benchmark
+    public ModeloTablaResultados poblarModeloResultados(Base base) {
+        ModeloTablaResultados modelo = new ModeloTablaResultados();
+        modelo.reemplazarContactos(base.db.obtenerContactosConGrupoPorIdGrupo(1));
+        return modelo;
+    }
+
+    /**
+     * Igual que {@link #poblarModeloResultados(Base)}, pero con un
+     * `DefaultTableModel` llenado fila por fila, como se hacía antes, para
+     * comparar.
+     */
+    @Benchmark
+    public DefaultTableModel poblarModeloPorFilas(Base base) {
+        DefaultTableModel modelo = new DefaultTableModel(COLUMNAS, 0);
+        for (Contacto contacto : base.db.obtenerContactosConGrupoPorIdGrupo(1)) {
+            modelo.addRow(new Object[]{contacto.idContacto(), contacto.nombre(), contacto.apellidoPaterno(),
+                contacto.apellidoMaterno(), contacto.telefono(), contacto.nombreGrupo()});
+        }
+        return modelo;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mycompany.basesdedatospproyecto.benchmarks;
+
+import com.mycompany.basesdedatospproyecto.Contacto;
+import com.mycompany.basesdedatospproyecto.MYSQL;
+import com.mycompany.basesdedatospproyecto.ResultadoInsercionMasiva;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prepara la base de datos sobre la que se ejecutan las mediciones: abre la
+ * conexión, crea las tablas `grupos` y `contactos` si no existen y las llena
+ * con contactos generados.
+ *
+ * Se admiten dos motores:
+ * <ul>
+ * <li>`h2`: una base de datos H2 en memoria en modo MySQL, que no necesita
+ * ningún servidor.</li>
+ * <li>`mysql`: un servidor MySQL local. La URL, el usuario y la contraseña se
+ * leen de las propiedades del sistema `benchmark.mysql.url`,
+ * `benchmark.mysql.usuario` y `benchmark.mysql.contrasena`. Conviene usar una
+ * base de datos exclusiva para las mediciones, porque sus tablas se
+ * vacían.</li>
+ * </ul>
+ */
+final class DatosBenchmark {
+
+    // Con DATABASE_TO_UPPER=FALSE, H2 conserva las mayúsculas de los nombres de columna como en MySQL
+    private static final String URL_H2 = "jdbc:h2:mem:contactosdb_benchmark;MODE=MySQL;DATABASE_TO_UPPER=FALSE;"
+            + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String URL_MYSQL = "jdbc:mysql://localhost:3306/contactosdb_benchmark"
+            + "?rewriteBatchedStatements=true&useServerPrepStmts=true";
+
+    private static final String[] NOMBRES = {"Juan", "María", "José", "Ana", "Luis", "Carmen", "Carlos", "Lucía",
+        "Jorge", "Sofía", "Miguel", "Elena", "Pedro", "Laura", "Diego", "Paula", "Andrés", "Isabel", "Raúl", "Marta"};
+    private static final String[] APELLIDOS = {"García", "Hernández", "López", "Martínez", "González", "Pérez",
+        "Rodríguez", "Sánchez", "Ramírez", "Cruz", "Flores", "Gómez", "Morales", "Vázquez", "Reyes", "Jiménez",
+        "Torres", "Díaz", "Gutiérrez", "Ruiz", "Mendoza", "Aguilar", "Ortiz", "Castillo", "Romero"};
+    private static final String[] GRUPOS = {"Familia", "Amigos", "Escuela", "Otros"};
+
+    private DatosBenchmark() {
+    }
+
+    /**
+     * Abre la base de datos del motor indicado.
+     *
+     * @param motor `h2` o `mysql`.
+     * @return El acceso a la base de datos.
+     */
+    static MYSQL abrir(String motor) {
+        return switch (motor) {
+            case "h2" -> new MYSQL(URL_H2, "sa", "");
+            case "mysql" -> new MYSQL(System.getProperty("benchmark.mysql.url", URL_MYSQL),
+                    System.getProperty("benchmark.mysql.usuario", "root"),
+                    System.getProperty("benchmark.mysql.contrasena", ""));
+            default -> throw new IllegalArgumentException("Motor desconocido: " + motor);
+        };
+    }
+
+    /**
+     * Crea las tablas si no existen, las vacía y las llena con los cuatro
+     * grupos y `cantidad` contactos generados.
+     *
+     * @param db La base de datos.
+     * @param cantidad El número de contactos a insertar.
+     * @return Los `idContacto` generados, en orden ascendente.
+     *
+     * @throws SQLException Si ocurre un error al preparar las tablas.
+     */
+    static int[] sembrar(MYSQL db, int cantidad) throws SQLException {
+        ejecutar(db,
+                "CREATE TABLE IF NOT EXISTS grupos (idGrupo INT AUTO_INCREMENT PRIMARY KEY, nombreGrupo VARCHAR(50) NOT NULL)",
+                "CREATE TABLE IF NOT EXISTS contactos (idContacto INT AUTO_INCREMENT PRIMARY KEY, nombre VARCHAR(50) NOT NULL, "
+                + "telefono VARCHAR(15), idGrupo INT, apellidoPaterno VARCHAR(50) NOT NULL, apellidoMaterno VARCHAR(50) NOT NULL, "
+                + "FOREIGN KEY (idGrupo) REFERENCES grupos(idGrupo))",
+                "DELETE FROM contactos",
+                "DELETE FROM grupos");
+        for (int i = 0; i < GRUPOS.length; i++) {
+            ejecutar(db, "INSERT INTO grupos (idGrupo, nombreGrupo) VALUES (" + (i + 1) + ", '" + GRUPOS[i] + "')");
+        }
+
+        ResultadoInsercionMasiva resultado = db.insertarContactos(generar(cantidad, 42));
+        if (!resultado.fallos().isEmpty()) {
+            throw new SQLException("No se pudieron insertar " + resultado.fallos().size() + " contactos de prueba: "
+                    + resultado.fallos().get(0).mensaje());
+        }
+        int[] ids = resultado.idsGenerados();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Genera contactos con nombres, apellidos, teléfonos y grupos al azar, de
+     * forma reproducible.
+     *
+     * @param cantidad El número de contactos.
+     * @param semilla La semilla del generador de números aleatorios.
+     * @return Los contactos generados, sin `idContacto`.
+     */
+    static List<Contacto> generar(int cantidad, long semilla) {
+        Random azar = new Random(semilla);
+        List<Contacto> contactos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            contactos.add(new Contacto(0,
+                    NOMBRES[azar.nextInt(NOMBRES.length)],
+                    APELLIDOS[azar.nextInt(APELLIDOS.length)],
+                    APELLIDOS[azar.nextInt(APELLIDOS.length)],
+                    String.format("55%08d", azar.nextInt(100_000_000)),
+                    azar.nextInt(GRUPOS.length) + 1));
+        }
+        return contactos;
+    }
+
+    /**
+     * Ejecuta sentencias SQL sin parámetros, en orden.
+     *
+     * @param db La base de datos.
+     * @param sentencias Las sentencias a ejecutar.
+     *
+     * @throws SQLException Si alguna sentencia falla.
+     */
+    static void ejecutar(MYSQL db, String... sentencias) throws SQLException {
+        Connection conexion = db.conectar();
+        if (conexion == null) {
+            throw new SQLException("No se pudo conectar con la base de datos");
+        }
+        try (Statement statement = conexion.createStatement()) {
+            for (String sql : sentencias) {
+                statement.execute(sql);
+            }
+        } finally {
+            db.cerrarConexion(conexion);
+        }
+    }
+}
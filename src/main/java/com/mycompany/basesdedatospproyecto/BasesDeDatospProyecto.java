@@ -3,6 +3,10 @@
  */
 package com.mycompany.basesdedatospproyecto;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Clase principal del proyecto "Bases de Datos PProyecto".
  *
@@ -23,14 +27,124 @@ public class BasesDeDatospProyecto {
      * instancia de la clase `Interfaz`, le asigna un título a la ventana y la
      * hace visible para el usuario.
      *
-     * @param args Argumentos de línea de comandos (no utilizados en este caso).
+     * La ventana se crea y se muestra en el hilo de la interfaz sin esperar a
+     * la base de datos: mientras tanto, otro hilo carga el driver JDBC, abre
+     * el repositorio y precalienta las conexiones. La ventana recibe el
+     * repositorio en cuanto está abierto. La duración de cada fase se informa
+     * con {@link TiemposInicio}.
+     *
+     * Con los argumentos `--exportar <archivo>` no se muestra la interfaz:
+     * se exportan todos los contactos al archivo y la aplicación termina. El
+     * formato se elige por la extensión (`.csv` o `.jsonl`), y si termina en
+     * `.gz` el archivo se comprime.
+     *
+     * Con los argumentos `--duplicados <archivo>` tampoco se muestra: se
+     * buscan los contactos duplicados con {@link DetectorDuplicados} y las
+     * sugerencias de fusión se guardan en el archivo, en CSV.
+     *
+     * @param args Argumentos de línea de comandos.
      */
     public static void main(String[] args) {
-        // Crear una nueva instancia de la interfaz
-        Interfaz interfaz = new Interfaz();
-        // Establecer el título de la ventana
-        interfaz.setTitle("Proyecto Bases de Datos");
-        // Hacer visible la interfaz
-        interfaz.setVisible(true);
+        if (args.length == 2 && args[0].equals("--exportar")) {
+            System.exit(exportar(Path.of(args[1])) ? 0 : 1);
+        }
+        if (args.length == 2 && args[0].equals("--duplicados")) {
+            System.exit(buscarDuplicados(Path.of(args[1])) ? 0 : 1);
+        }
+
+        TiemposInicio.arrancar();
+        CompletableFuture<RepositorioContactos> repositorio = abrirEnSegundoPlano();
+        java.awt.EventQueue.invokeLater(() -> {
+            long inicio = System.nanoTime();
+            // Crear una nueva instancia de la interfaz
+            Interfaz interfaz = new Interfaz(repositorio);
+            // Establecer el título de la ventana
+            interfaz.setTitle("Proyecto Bases de Datos");
+            // Hacer visible la interfaz
+            interfaz.setVisible(true);
+            TiemposInicio.registrar("mostrar la ventana", inicio);
+        });
+    }
+
+    /**
+     * Abre el repositorio en un hilo aparte y, una vez abierto, precalienta
+     * sus conexiones en ese mismo hilo. El repositorio se entrega antes de
+     * precalentar, para que las primeras consultas no esperen a que terminen
+     * todas las conexiones.
+     *
+     * @return El repositorio, que se completa al abrirse o con la excepción
+     * que impidió abrirlo.
+     */
+    private static CompletableFuture<RepositorioContactos> abrirEnSegundoPlano() {
+        CompletableFuture<RepositorioContactos> repositorio = new CompletableFuture<>();
+        Thread hilo = new Thread(() -> {
+            long inicio = System.nanoTime();
+            RepositorioContactos db;
+            try {
+                // Con MySQL, abrirlo carga el driver JDBC
+                db = RepositorioContactos.abrir();
+            } catch (RuntimeException e) {
+                repositorio.completeExceptionally(e);
+                return;
+            }
+            TiemposInicio.registrar("abrir el repositorio", inicio);
+            repositorio.complete(db);
+            inicio = System.nanoTime();
+            db.precalentar();
+            TiemposInicio.registrar("precalentar las conexiones", inicio);
+        }, "inicio-repositorio");
+        hilo.setDaemon(true);
+        hilo.start();
+        return repositorio;
+    }
+
+    /**
+     * Exporta todos los contactos a un archivo con {@link ExportadorContactos}.
+     *
+     * @param archivo El archivo de destino.
+     * @return {@code true} si la exportación terminó bien.
+     */
+    private static boolean exportar(Path archivo) {
+        RepositorioContactos db = RepositorioContactos.abrir();
+        try {
+            long inicio = System.nanoTime();
+            long filas = new ExportadorContactos(db).exportar(archivo, ExportadorContactos.Formato.deArchivo(archivo),
+                    archivo.getFileName().toString().toLowerCase().endsWith(".gz"));
+            Registro.info("Se exportaron " + filas + " contactos a " + archivo + " en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+            return true;
+        } catch (Exception e) {
+            Registro.error("Error al exportar los contactos: " + e.getMessage());
+            return false;
+        } finally {
+            db.cerrar();
+            Registro.vaciar();
+        }
+    }
+
+    /**
+     * Busca los contactos duplicados con {@link DetectorDuplicados} y guarda
+     * las sugerencias de fusión en un archivo CSV.
+     *
+     * @param archivo El archivo de destino.
+     * @return {@code true} si la búsqueda terminó bien.
+     */
+    private static boolean buscarDuplicados(Path archivo) {
+        RepositorioContactos db = RepositorioContactos.abrir();
+        try {
+            List<DetectorDuplicados.Sugerencia> sugerencias = new DetectorDuplicados(db).detectar();
+            DetectorDuplicados.guardar(sugerencias, archivo);
+            Registro.info("Se guardaron " + sugerencias.size() + " sugerencias de fusión en " + archivo + ".");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            Registro.error("Error al buscar contactos duplicados: " + e.getMessage());
+            return false;
+        } finally {
+            db.cerrar();
+            Registro.vaciar();
+        }
     }
 }
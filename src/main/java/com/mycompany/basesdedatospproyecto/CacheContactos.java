@@ -0,0 +1,180 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Caché de lectura (read-through) de contactos por `idContacto`, con
+ * desalojo LRU.
+ *
+ * Las búsquedas por ID consultan primero la caché; si el contacto no está, se
+ * lee de la base de datos y se guarda. Al superar la capacidad se descarta el
+ * contacto usado hace más tiempo. Como {@link OyenteCambiosContactos}, la
+ * caché guarda la nueva versión del contacto que se actualiza y quita el que
+ * se elimina a través de {@link MYSQL}, de modo que nunca devuelve una versión
+ * reemplazada por esta aplicación. La nueva versión se guarda en lugar de
+ * solo invalidar la anterior porque el siguiente fallo podría leerse de una
+ * réplica atrasada, que todavía tiene la versión anterior, y esta quedaría en
+ * la caché indefinidamente.
+ *
+ * Para que una lectura lenta no guarde una versión que otra escritura acaba de
+ * invalidar, cada lectura recuerda el número de invalidaciones al empezar y
+ * solo guarda el contacto si ese número no cambió.
+ */
+public class CacheContactos implements OyenteCambiosContactos {
+
+    private final int capacidad;
+    // Contactos en orden de uso (el primero es el usado hace más tiempo). Protegido por this.
+    private final LinkedHashMap<Integer, Contacto> contactos;
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    // ESTADÍSTICAS
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    /**
+     * Crea una caché vacía.
+     *
+     * @param capacidad Número máximo de contactos que se conservan.
+     */
+    public CacheContactos(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.capacidad = capacidad;
+        this.contactos = new LinkedHashMap<>(Math.min(capacidad, 1024) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Contacto> eldest) {
+                if (size() <= CacheContactos.this.capacidad) {
+                    return false;
+                }
+                desalojos.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Obtiene un contacto de la caché o, si no está, lo lee con `cargar` y lo
+     * guarda.
+     *
+     * @param idContacto El ID del contacto.
+     * @param cargar Lee el contacto de la base de datos; devuelve {@code null}
+     * si no existe.
+     * @return El contacto, o {@code null} si no existe.
+     */
+    public Contacto obtener(int idContacto, IntFunction<Contacto> cargar) {
+        synchronized (this) {
+            Contacto contacto = contactos.get(idContacto);
+            if (contacto != null) {
+                aciertos.increment();
+                return contacto;
+            }
+        }
+        fallos.increment();
+        long invalidacionesAlLeer = invalidaciones.get();
+        Contacto contacto = cargar.apply(idContacto);
+        if (contacto != null) {
+            synchronized (this) {
+                if (invalidaciones.get() == invalidacionesAlLeer) {
+                    contactos.put(idContacto, contacto);
+                }
+            }
+        }
+        return contacto;
+    }
+
+    /**
+     * Quita un contacto de la caché.
+     *
+     * @param idContacto El ID del contacto.
+     */
+    public void invalidar(int idContacto) {
+        invalidaciones.incrementAndGet();
+        synchronized (this) {
+            contactos.remove(idContacto);
+        }
+    }
+
+    /**
+     * Guarda la versión actual de un contacto, reemplazando la que hubiera.
+     * Las lecturas que estaban en curso no la sobrescriben.
+     *
+     * @param contacto La versión actual del contacto.
+     */
+    public void actualizar(Contacto contacto) {
+        invalidaciones.incrementAndGet();
+        synchronized (this) {
+            contactos.put(contacto.idContacto(), contacto);
+        }
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    public void limpiar() {
+        invalidaciones.incrementAndGet();
+        synchronized (this) {
+            contactos.clear();
+        }
+    }
+
+    @Override
+    public void contactoInsertado(Contacto nuevo) {
+        // Los contactos que no existían no se guardan en la caché, así que no hay nada que invalidar
+    }
+
+    @Override
+    public void contactoActualizado(Contacto anterior, Contacto nuevo) {
+        // Se guarda sin el nombre del grupo, igual que los contactos que se leen de la tabla `contactos`
+        actualizar(new Contacto(nuevo.idContacto(), nuevo.nombre(), nuevo.apellidoPaterno(), nuevo.apellidoMaterno(),
+                nuevo.telefono(), nuevo.idGrupo()));
+    }
+
+    @Override
+    public void contactoEliminado(Contacto anterior) {
+        invalidar(anterior.idContacto());
+    }
+
+    /**
+     * Obtiene una fotografía de las estadísticas de la caché.
+     *
+     * @return Las estadísticas de la caché en este instante.
+     */
+    public EstadisticasCache obtenerEstadisticas() {
+        int tamano;
+        synchronized (this) {
+            tamano = contactos.size();
+        }
+        return new EstadisticasCache(tamano, capacidad, aciertos.sum(), fallos.sum(), desalojos.sum(),
+                invalidaciones.get());
+    }
+
+    /**
+     * Estadísticas de la caché en un instante dado.
+     *
+     * @param tamano Contactos guardados en este momento.
+     * @param capacidad Número máximo de contactos.
+     * @param aciertos Búsquedas respondidas desde la caché.
+     * @param fallos Búsquedas que tuvieron que leer la base de datos.
+     * @param desalojos Contactos descartados por falta de espacio.
+     * @param invalidaciones Contactos quitados o reemplazados por una
+     * actualización o eliminación.
+     */
+    public record EstadisticasCache(int tamano, int capacidad, long aciertos, long fallos, long desalojos,
+            long invalidaciones) {
+
+        @Override
+        public String toString() {
+            long busquedas = aciertos + fallos;
+            return String.format("Caché de contactos: %d/%d, %d aciertos, %d fallos (%.1f%% aciertos), "
+                    + "%d desalojos, %d invalidaciones",
+                    tamano, capacidad, aciertos, fallos, busquedas == 0 ? 0.0 : 100.0 * aciertos / busquedas,
+                    desalojos, invalidaciones);
+        }
+    }
+}
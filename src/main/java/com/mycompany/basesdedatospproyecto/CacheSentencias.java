@@ -0,0 +1,108 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de sentencias preparadas de una conexión del pool.
+ *
+ * Preparar una sentencia obliga al driver (y, con sentencias preparadas en el
+ * servidor, también a MySQL) a analizar el SQL. Como las conexiones del pool se
+ * reutilizan, cada conexión guarda las sentencias que ya preparó, por texto
+ * SQL, y las devuelve en los siguientes préstamos. La caché tiene un tamaño
+ * máximo: al superarlo se cierra la sentencia usada hace más tiempo.
+ *
+ * Una conexión solo la usa un hilo a la vez (el que la tiene prestada), por lo
+ * que la caché no necesita sincronización propia. Los contadores de aciertos,
+ * fallos y desalojos son del pool y se comparten entre todas las conexiones.
+ */
+final class CacheSentencias {
+
+    private final Connection conexion;
+    private final LinkedHashMap<Clave, PreparedStatement> sentencias;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+
+    /**
+     * Identifica una sentencia: el mismo SQL preparado con y sin claves
+     * generadas son sentencias distintas.
+     */
+    private record Clave(String sql, int clavesGeneradas) {
+    }
+
+    /**
+     * Crea la caché vacía de una conexión.
+     *
+     * @param conexion La conexión con la que se preparan las sentencias.
+     * @param maximoSentencias Número máximo de sentencias que se conservan.
+     * @param aciertos Contador de sentencias obtenidas de la caché.
+     * @param fallos Contador de sentencias que hubo que preparar.
+     * @param desalojos Contador de sentencias cerradas por falta de espacio.
+     */
+    CacheSentencias(Connection conexion, int maximoSentencias, LongAdder aciertos, LongAdder fallos,
+            LongAdder desalojos) {
+        this.conexion = conexion;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.sentencias = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, PreparedStatement> eldest) {
+                if (size() <= maximoSentencias) {
+                    return false;
+                }
+                desalojos.increment();
+                cerrarSentencia(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Obtiene la sentencia preparada de un SQL, preparándola solo si no está
+     * en la caché. La sentencia no debe cerrarse: sigue perteneciendo a la
+     * caché.
+     *
+     * @param sql El texto SQL de la sentencia.
+     * @param clavesGeneradas {@link java.sql.Statement#RETURN_GENERATED_KEYS}
+     * o {@link java.sql.Statement#NO_GENERATED_KEYS}.
+     * @return La sentencia, lista para asignarle parámetros.
+     *
+     * @throws SQLException Si ocurre un error al preparar la sentencia.
+     */
+    PreparedStatement obtener(String sql, int clavesGeneradas) throws SQLException {
+        Clave clave = new Clave(sql, clavesGeneradas);
+        PreparedStatement sentencia = sentencias.get(clave);
+        if (sentencia != null && !sentencia.isClosed()) {
+            aciertos.increment();
+            // Un lote que quedó a medias por un error no debe mezclarse con el siguiente uso
+            sentencia.clearBatch();
+            return sentencia;
+        }
+        fallos.increment();
+        sentencia = conexion.prepareStatement(sql, clavesGeneradas);
+        sentencias.put(clave, sentencia);
+        return sentencia;
+    }
+
+    /**
+     * Cierra todas las sentencias de la caché.
+     */
+    void cerrar() {
+        for (PreparedStatement sentencia : sentencias.values()) {
+            cerrarSentencia(sentencia);
+        }
+        sentencias.clear();
+    }
+
+    private static void cerrarSentencia(PreparedStatement sentencia) {
+        try {
+            sentencia.close();
+        } catch (SQLException e) {
+            Registro.error("Error al cerrar una sentencia: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.basesdedatospproyecto;
+
+/**
+ * Cambio registrado en la tabla `cambios_contactos` por los disparadores de
+ * `contactos`, junto con la versión actual del contacto.
+ *
+ * Las versiones crecen con cada inserción, actualización o eliminación, sin
+ * importar qué cliente la hizo. Las eliminaciones se conservan como lápidas,
+ * para que los clientes que leen los cambios después sepan que el contacto ya
+ * no existe.
+ *
+ * @param version La versión del cambio.
+ * @param tipo El tipo de cambio.
+ * @param idContacto El ID del contacto modificado.
+ * @param idGrupoAnterior El grupo del contacto antes del cambio (0 en las
+ * inserciones o si no tenía grupo).
+ * @param idGrupoNuevo El grupo del contacto después del cambio (0 en las
+ * eliminaciones o si no tiene grupo).
+ * @param propio {@code true} si el cambio lo hizo esta misma instancia de
+ * {@link MYSQL}, que ya lo aplicó en memoria.
+ * @param contacto La versión actual del contacto, con el nombre de su grupo;
+ * {@code null} si ya no existe.
+ */
+public record CambioContacto(long version, Tipo tipo, int idContacto, int idGrupoAnterior, int idGrupoNuevo,
+        boolean propio, Contacto contacto) {
+
+    /**
+     * Tipo de un cambio. Se guarda en la columna `operacion` con una sola
+     * letra.
+     */
+    public enum Tipo {
+        INSERCION('I'), ACTUALIZACION('U'), ELIMINACION('D');
+
+        private final char codigo;
+
+        Tipo(char codigo) {
+            this.codigo = codigo;
+        }
+
+        /**
+         * Obtiene el tipo de cambio que corresponde a la letra guardada en la
+         * base de datos.
+         *
+         * @param codigo La letra de la columna `operacion`.
+         * @return El tipo de cambio.
+         */
+        public static Tipo deCodigo(char codigo) {
+            for (Tipo tipo : values()) {
+                if (tipo.codigo == codigo) {
+                    return tipo;
+                }
+            }
+            throw new IllegalArgumentException("Operación de cambio desconocida: " + codigo);
+        }
+    }
+}
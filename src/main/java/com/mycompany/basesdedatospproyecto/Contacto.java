@@ -0,0 +1,37 @@
+package com.mycompany.basesdedatospproyecto;
+
+/**
+ * Registro de la tabla `contactos`.
+ *
+ * Los identificadores se guardan como enteros primitivos para no tener que
+ * convertirlos desde cadenas cada vez que se usan. El nombre del grupo solo
+ * está disponible cuando el contacto se obtuvo con una consulta que une
+ * `contactos` con `grupos`; en otro caso es {@code null}.
+ *
+ * @param idContacto El ID del contacto.
+ * @param nombre El nombre del contacto.
+ * @param apellidoPaterno El apellido paterno del contacto.
+ * @param apellidoMaterno El apellido materno del contacto.
+ * @param telefono El número de teléfono del contacto; puede ser {@code null}.
+ * @param idGrupo El ID del grupo al que pertenece el contacto (0 si no tiene
+ * grupo).
+ * @param nombreGrupo El nombre del grupo, o {@code null} si no se consultó.
+ */
+public record Contacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno,
+        String telefono, int idGrupo, String nombreGrupo) {
+
+    /**
+     * Crea un contacto sin el nombre de su grupo.
+     *
+     * @param idContacto El ID del contacto.
+     * @param nombre El nombre del contacto.
+     * @param apellidoPaterno El apellido paterno del contacto.
+     * @param apellidoMaterno El apellido materno del contacto.
+     * @param telefono El número de teléfono del contacto.
+     * @param idGrupo El ID del grupo al que pertenece el contacto.
+     */
+    public Contacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno,
+            String telefono, int idGrupo) {
+        this(idContacto, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo, null);
+    }
+}
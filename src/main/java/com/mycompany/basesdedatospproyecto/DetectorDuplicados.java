@@ -0,0 +1,499 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca contactos duplicados, es decir, registros de la misma persona que
+ * difieren en acentos, mayúsculas, el formato del teléfono o alguna letra, y
+ * propone cuáles fusionar.
+ *
+ * Comparar cada contacto con todos los demás no termina con millones de
+ * contactos, así que solo se comparan los contactos que comparten alguna
+ * {@link Clave}: el mismo teléfono normalizado, el mismo nombre completo
+ * normalizado (sin importar el orden de las palabras) o el mismo apellido
+ * paterno con las mismas iniciales. Cada grupo de contactos con la misma clave
+ * es un bloque, y dentro de cada bloque se comparan todos los pares con
+ * {@link #puntuar(String, String, String, String)}.
+ *
+ * Los contactos se leen en flujo con
+ * {@link RepositorioContactos#recorrerContactosConGrupo(java.util.function.Consumer)}
+ * y se normalizan por lotes en paralelo mientras llegan los siguientes; de
+ * cada uno solo se guarda su ID, su nombre y teléfono normalizados y el hash
+ * de sus claves. Los bloques se forman ordenando los hashes, sin mapas, y se
+ * puntúan en paralelo en todos los procesadores.
+ */
+public class DetectorDuplicados {
+
+    /**
+     * Claves por las que se agrupan los contactos que se comparan entre sí.
+     */
+    public enum Clave {
+        /**
+         * El teléfono normalizado con {@link IndiceTelefonos}.
+         */
+        TELEFONO,
+        /**
+         * El nombre completo sin acentos ni mayúsculas y con las palabras
+         * ordenadas.
+         */
+        NOMBRE,
+        /**
+         * El apellido paterno y las iniciales del nombre y del apellido
+         * materno, para los nombres abreviados ("Ma." y "María") o con una
+         * letra distinta en el apellido materno.
+         */
+        APELLIDOS
+    }
+
+    /**
+     * Una propuesta de fusionar dos contactos.
+     *
+     * @param idConservar El contacto que se conserva: el más antiguo, es
+     * decir, el de menor ID.
+     * @param idDuplicado El contacto que se fusionaría con el anterior.
+     * @param puntuacion La similitud de los dos contactos, de 0 a 1.
+     * @param clave La clave por la que se compararon.
+     */
+    public record Sugerencia(int idConservar, int idDuplicado, double puntuacion, Clave clave) {
+    }
+
+    // Propiedad del sistema con la puntuación mínima de una sugerencia (-Dcontactos.duplicados.umbral=0.8)
+    static final String PROPIEDAD_UMBRAL = "contactos.duplicados.umbral";
+    private static final double UMBRAL_PREDETERMINADO = 0.8;
+    // Peso del nombre en la puntuación; el resto es del teléfono
+    private static final double PESO_NOMBRE = 0.65;
+    // Dígitos finales que bastan para considerar parecidos dos teléfonos distintos
+    private static final int DIGITOS_TERMINACION = 7;
+    // Los bloques más grandes (un teléfono de oficina, un nombre muy común) no se comparan
+    private static final int TAMANO_MAXIMO_BLOQUE = 200;
+    // Contactos que se normalizan juntos en una tarea
+    private static final int TAMANO_LOTE = 8192;
+    // Cada entrada de los bloques guarda el hash de la clave y la posición del contacto en un long
+    private static final int BITS_POSICION = 26;
+    private static final long MASCARA_POSICION = (1L << BITS_POSICION) - 1;
+    // Tareas de puntuación por hilo, para repartir mejor los bloques grandes
+    private static final int TAREAS_POR_HILO = 8;
+
+    private final RepositorioContactos db;
+    private final double umbral;
+    // Solo se usa para normalizar los teléfonos, con el país configurado
+    private final IndiceTelefonos telefonos = new IndiceTelefonos();
+
+    /**
+     * Crea un detector de los contactos de una base de datos, con la
+     * puntuación mínima de la propiedad {@value #PROPIEDAD_UMBRAL}.
+     *
+     * @param db El repositorio de contactos.
+     */
+    public DetectorDuplicados(RepositorioContactos db) {
+        this(db, Double.parseDouble(System.getProperty(PROPIEDAD_UMBRAL, Double.toString(UMBRAL_PREDETERMINADO))));
+    }
+
+    /**
+     * Crea un detector de los contactos de una base de datos.
+     *
+     * @param db El repositorio de contactos.
+     * @param umbral La puntuación mínima, de 0 a 1, de los pares que se
+     * sugieren fusionar.
+     */
+    public DetectorDuplicados(RepositorioContactos db, double umbral) {
+        this.db = db;
+        this.umbral = umbral;
+    }
+
+    /**
+     * Contactos leídos juntos. Primero se guardan tal como llegan y después
+     * una tarea los normaliza y descarta los originales.
+     */
+    private final class Lote {
+
+        private Contacto[] contactos = new Contacto[TAMANO_LOTE];
+        private int tamano;
+        private final int[] ids = new int[TAMANO_LOTE];
+        private final String[] nombres = new String[TAMANO_LOTE];
+        private final String[] telefonosNormalizados = new String[TAMANO_LOTE];
+        // Hash de cada clave de cada contacto, en el orden de Clave; 0 si el contacto no la tiene
+        private final long[] claves = new long[TAMANO_LOTE * Clave.values().length];
+
+        void preparar() {
+            int numeroClaves = Clave.values().length;
+            for (int i = 0; i < tamano; i++) {
+                Contacto contacto = contactos[i];
+                String nombre = IndiceNombres.normalizar(contacto.nombre());
+                String paterno = IndiceNombres.normalizar(contacto.apellidoPaterno());
+                String materno = IndiceNombres.normalizar(contacto.apellidoMaterno());
+                String nombreCompleto = unirPalabras(nombre, paterno, materno);
+                String telefono = telefonos.normalizar(contacto.telefono());
+
+                ids[i] = contacto.idContacto();
+                nombres[i] = nombreCompleto;
+                telefonosNormalizados[i] = telefono;
+                claves[i * numeroClaves + Clave.TELEFONO.ordinal()] = telefono == null ? 0 : hash(telefono);
+                claves[i * numeroClaves + Clave.NOMBRE.ordinal()] = nombreCompleto.isEmpty() ? 0 : hash(ordenarPalabras(nombreCompleto));
+                claves[i * numeroClaves + Clave.APELLIDOS.ordinal()] = paterno.isEmpty() ? 0
+                        : hash(paterno + " " + inicial(nombre) + inicial(materno));
+            }
+            contactos = null;
+        }
+    }
+
+    /**
+     * Puntuaciones de una tarea.
+     */
+    private record ResultadoTarea(List<Sugerencia> sugerencias, long paresComparados) {
+    }
+
+    /**
+     * Lee todos los contactos y busca los duplicados.
+     *
+     * @return Las sugerencias de fusión, de la más a la menos parecida. Cada
+     * par de contactos aparece una sola vez.
+     *
+     * @throws SQLException Si ocurre un error al leer los contactos.
+     * @throws InterruptedException Si se interrumpe el hilo mientras se
+     * espera a las tareas.
+     */
+    public List<Sugerencia> detectar() throws SQLException, InterruptedException {
+        long inicio = System.nanoTime();
+        int numeroHilos = Runtime.getRuntime().availableProcessors();
+        // Si las tareas no dan abasto, el hilo que las envía ejecuta la siguiente: así no se acumulan lotes sin normalizar
+        ThreadPoolExecutor hilos = new ThreadPoolExecutor(numeroHilos, numeroHilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(numeroHilos * 2), tarea -> {
+                    Thread hilo = new Thread(tarea, "detector-duplicados");
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            Lote[] lotes = leer(hilos);
+            int contactos = lotes.length == 0 ? 0 : (lotes.length - 1) * TAMANO_LOTE + lotes[lotes.length - 1].tamano;
+
+            List<Future<ResultadoTarea>> tareas = new ArrayList<>();
+            int bloques = 0;
+            int omitidos = 0;
+            for (Clave clave : Clave.values()) {
+                long[] entradas = ordenarPorClave(lotes, clave);
+                // Cada bloque es un tramo [inicio, fin) de entradas con el mismo hash
+                List<int[]> tramos = new ArrayList<>();
+                for (int desde = 0; desde < entradas.length;) {
+                    int hasta = desde + 1;
+                    while (hasta < entradas.length && (entradas[hasta] >>> BITS_POSICION) == (entradas[desde] >>> BITS_POSICION)) {
+                        hasta++;
+                    }
+                    if (hasta - desde > TAMANO_MAXIMO_BLOQUE) {
+                        omitidos++;
+                    } else if (hasta - desde > 1) {
+                        tramos.add(new int[]{desde, hasta});
+                    }
+                    desde = hasta;
+                }
+                bloques += tramos.size();
+                int porTarea = Math.max(1, tramos.size() / (numeroHilos * TAREAS_POR_HILO));
+                for (int i = 0; i < tramos.size(); i += porTarea) {
+                    List<int[]> parte = tramos.subList(i, Math.min(i + porTarea, tramos.size()));
+                    tareas.add(hilos.submit(() -> puntuarBloques(lotes, entradas, parte, clave)));
+                }
+            }
+
+            // El mismo par puede compartir varias claves; se queda la primera, porque la puntuación es la misma
+            Map<Long, Sugerencia> sugerencias = new HashMap<>();
+            long pares = 0;
+            for (Future<ResultadoTarea> tarea : tareas) {
+                ResultadoTarea resultado = esperar(tarea);
+                pares += resultado.paresComparados();
+                for (Sugerencia sugerencia : resultado.sugerencias()) {
+                    sugerencias.putIfAbsent(((long) sugerencia.idConservar() << 32) | (sugerencia.idDuplicado() & 0xFFFFFFFFL), sugerencia);
+                }
+            }
+            List<Sugerencia> ordenadas = new ArrayList<>(sugerencias.values());
+            ordenadas.sort(Comparator.comparingDouble(Sugerencia::puntuacion).reversed()
+                    .thenComparingInt(Sugerencia::idConservar).thenComparingInt(Sugerencia::idDuplicado));
+
+            if (omitidos > 0) {
+                Registro.aviso("Detección de duplicados: se omitieron " + omitidos + " bloques de más de "
+                        + TAMANO_MAXIMO_BLOQUE + " contactos.");
+            }
+            Registro.info("Detección de duplicados: " + contactos + " contactos, " + bloques + " bloques, " + pares
+                    + " pares comparados y " + ordenadas.size() + " sugerencias en "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+            return ordenadas;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    /**
+     * Lee todos los contactos en lotes y envía cada lote a normalizar en
+     * cuanto se llena.
+     */
+    private Lote[] leer(ThreadPoolExecutor hilos) throws SQLException, InterruptedException {
+        List<Lote> lotes = new ArrayList<>();
+        List<Future<?>> preparaciones = new ArrayList<>();
+        lotes.add(new Lote());
+        db.recorrerContactosConGrupo(contacto -> {
+            Lote lote = lotes.get(lotes.size() - 1);
+            lote.contactos[lote.tamano++] = contacto;
+            if (lote.tamano == TAMANO_LOTE) {
+                if ((long) lotes.size() * TAMANO_LOTE > MASCARA_POSICION) {
+                    throw new IllegalStateException("Hay demasiados contactos para buscar duplicados");
+                }
+                preparaciones.add(hilos.submit(lote::preparar));
+                lotes.add(new Lote());
+            }
+        });
+        Lote ultimo = lotes.get(lotes.size() - 1);
+        if (ultimo.tamano == 0) {
+            lotes.remove(lotes.size() - 1);
+        } else {
+            preparaciones.add(hilos.submit(ultimo::preparar));
+        }
+        for (Future<?> preparacion : preparaciones) {
+            esperar(preparacion);
+        }
+        return lotes.toArray(Lote[]::new);
+    }
+
+    /**
+     * Obtiene las entradas de los contactos que tienen una clave, ordenadas
+     * por su hash: los contactos con la misma clave quedan juntos. Cada
+     * entrada es el hash en los bits altos y la posición del contacto en los
+     * bajos.
+     */
+    private static long[] ordenarPorClave(Lote[] lotes, Clave clave) {
+        int numeroClaves = Clave.values().length;
+        long[] entradas = new long[lotes.length * TAMANO_LOTE];
+        int tamano = 0;
+        for (int l = 0; l < lotes.length; l++) {
+            Lote lote = lotes[l];
+            for (int i = 0; i < lote.tamano; i++) {
+                long hash = lote.claves[i * numeroClaves + clave.ordinal()];
+                if (hash != 0) {
+                    entradas[tamano++] = (hash << BITS_POSICION) | ((long) l * TAMANO_LOTE + i);
+                }
+            }
+        }
+        entradas = Arrays.copyOf(entradas, tamano);
+        Arrays.parallelSort(entradas);
+        return entradas;
+    }
+
+    /**
+     * Compara todos los pares de contactos de cada bloque.
+     */
+    private ResultadoTarea puntuarBloques(Lote[] lotes, long[] entradas, List<int[]> tramos, Clave clave) {
+        List<Sugerencia> sugerencias = new ArrayList<>();
+        long pares = 0;
+        for (int[] tramo : tramos) {
+            for (int i = tramo[0]; i < tramo[1]; i++) {
+                int posicionA = (int) (entradas[i] & MASCARA_POSICION);
+                Lote loteA = lotes[posicionA / TAMANO_LOTE];
+                int a = posicionA % TAMANO_LOTE;
+                for (int j = i + 1; j < tramo[1]; j++) {
+                    int posicionB = (int) (entradas[j] & MASCARA_POSICION);
+                    Lote loteB = lotes[posicionB / TAMANO_LOTE];
+                    int b = posicionB % TAMANO_LOTE;
+                    pares++;
+                    double puntuacion = puntuar(loteA.nombres[a], loteA.telefonosNormalizados[a],
+                            loteB.nombres[b], loteB.telefonosNormalizados[b]);
+                    if (puntuacion >= umbral) {
+                        int idA = loteA.ids[a];
+                        int idB = loteB.ids[b];
+                        sugerencias.add(new Sugerencia(Math.min(idA, idB), Math.max(idA, idB), puntuacion, clave));
+                    }
+                }
+            }
+        }
+        return new ResultadoTarea(sugerencias, pares);
+    }
+
+    /**
+     * Espera una tarea y devuelve su resultado. Las excepciones de la tarea
+     * se lanzan tal cual.
+     */
+    private static <T> T esperar(Future<T> tarea) throws SQLException, InterruptedException {
+        try {
+            return tarea.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException error) {
+                throw error;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new SQLException("Error al buscar duplicados", e.getCause());
+        }
+    }
+
+    /**
+     * Puntúa qué tan parecidos son dos contactos, a partir de sus nombres y
+     * teléfonos ya normalizados. Dos contactos con el mismo nombre y teléfono
+     * obtienen 1; con el mismo nombre y uno de ellos sin teléfono, 0.825; con
+     * el mismo nombre y teléfonos distintos, 0.65.
+     *
+     * @return La similitud, de 0 a 1.
+     */
+    static double puntuar(String nombreA, String telefonoA, String nombreB, String telefonoB) {
+        return PESO_NOMBRE * similitudNombres(nombreA, nombreB) + (1 - PESO_NOMBRE) * similitudTelefonos(telefonoA, telefonoB);
+    }
+
+    /**
+     * Similitud de dos nombres completos normalizados: la mayor entre la de
+     * Jaro-Winkler de los nombres y la de sus palabras ordenadas, para los
+     * nombres escritos en otro orden.
+     */
+    static double similitudNombres(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        return Math.max(jaroWinkler(a, b), jaroWinkler(ordenarPalabras(a), ordenarPalabras(b)));
+    }
+
+    /**
+     * Similitud de dos teléfonos normalizados: 1 si son iguales, 0.7 si solo
+     * coinciden los últimos {@value #DIGITOS_TERMINACION} dígitos, 0.5 si a
+     * alguno le falta el teléfono y 0 si son distintos.
+     */
+    static double similitudTelefonos(String a, String b) {
+        if (a == null || b == null) {
+            return 0.5;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        if (a.length() >= DIGITOS_TERMINACION && b.length() >= DIGITOS_TERMINACION
+                && a.regionMatches(a.length() - DIGITOS_TERMINACION, b, b.length() - DIGITOS_TERMINACION, DIGITOS_TERMINACION)) {
+            return 0.7;
+        }
+        return 0;
+    }
+
+    /**
+     * Similitud de Jaro-Winkler de dos textos, de 0 a 1. Favorece a los
+     * textos que empiezan igual.
+     */
+    static double jaroWinkler(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.isEmpty() && b.isEmpty() ? 1 : 0;
+        }
+        int ventana = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] usadosA = new boolean[a.length()];
+        boolean[] usadosB = new boolean[b.length()];
+        int coincidencias = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int hasta = Math.min(b.length(), i + ventana + 1);
+            for (int j = Math.max(0, i - ventana); j < hasta; j++) {
+                if (!usadosB[j] && a.charAt(i) == b.charAt(j)) {
+                    usadosA[i] = true;
+                    usadosB[j] = true;
+                    coincidencias++;
+                    break;
+                }
+            }
+        }
+        if (coincidencias == 0) {
+            return 0;
+        }
+        int transposiciones = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (usadosA[i]) {
+                while (!usadosB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transposiciones++;
+                }
+                j++;
+            }
+        }
+        double m = coincidencias;
+        double jaro = (m / a.length() + m / b.length() + (m - transposiciones / 2.0) / m) / 3;
+        int prefijo = 0;
+        while (prefijo < 4 && prefijo < a.length() && prefijo < b.length() && a.charAt(prefijo) == b.charAt(prefijo)) {
+            prefijo++;
+        }
+        return jaro + prefijo * 0.1 * (1 - jaro);
+    }
+
+    /**
+     * Obtiene la primera letra de un texto, o un espacio si está vacío.
+     */
+    private static char inicial(String texto) {
+        return texto.isEmpty() ? ' ' : texto.charAt(0);
+    }
+
+    /**
+     * Une con un espacio las partes de un nombre que no están vacías.
+     */
+    private static String unirPalabras(String... partes) {
+        StringBuilder texto = new StringBuilder();
+        for (String parte : partes) {
+            if (!parte.isEmpty()) {
+                if (texto.length() > 0) {
+                    texto.append(' ');
+                }
+                texto.append(parte);
+            }
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Ordena alfabéticamente las palabras de un texto.
+     */
+    private static String ordenarPalabras(String texto) {
+        String[] palabras = texto.split(" ");
+        Arrays.sort(palabras);
+        return String.join(" ", palabras);
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits de una clave, reducido a los bits que caben
+     * junto a la posición en una entrada. Nunca es 0, que indica "sin clave".
+     * Dos claves distintas con el mismo hash solo añaden comparaciones.
+     */
+    private static long hash(String clave) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            hash ^= clave.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash >>>= BITS_POSICION + 1;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Guarda las sugerencias en un archivo CSV con las columnas
+     * `idConservar,idDuplicado,puntuacion,clave`.
+     *
+     * @param sugerencias Las sugerencias.
+     * @param archivo El archivo de destino; se reemplaza si existe.
+     *
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     */
+    public static void guardar(Collection<Sugerencia> sugerencias, Path archivo) throws IOException {
+        try (BufferedWriter salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            salida.write("idConservar,idDuplicado,puntuacion,clave\n");
+            for (Sugerencia sugerencia : sugerencias) {
+                salida.write(sugerencia.idConservar() + "," + sugerencia.idDuplicado() + ","
+                        + String.format(Locale.ROOT, "%.3f", sugerencia.puntuacion()) + "," + sugerencia.clave() + "\n");
+            }
+        }
+    }
+}
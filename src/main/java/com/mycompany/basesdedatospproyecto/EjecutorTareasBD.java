@@ -0,0 +1,208 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Ejecuta el trabajo con la base de datos fuera del hilo de eventos de Swing
+ * (EDT) y entrega los resultados de vuelta en el EDT.
+ *
+ * Las lecturas se ejecutan en un grupo de hilos y pueden llevar una clave:
+ * enviar una lectura nueva con la misma clave cancela la anterior y descarta
+ * su resultado aunque ya estuviera en curso, de modo que una búsqueda antigua
+ * nunca sobrescribe a una más reciente. Las escrituras se ejecutan de una en
+ * una y en el orden en que se enviaron, para que, por ejemplo, una
+ * actualización y una eliminación del mismo contacto no se inviertan.
+ *
+ * Mientras haya tareas pendientes se avisa al indicador de ocupado, que la
+ * interfaz usa para mostrar que está trabajando.
+ */
+public class EjecutorTareasBD {
+
+    // Hilos para lecturas simultáneas; no conviene superar el tamaño del pool de conexiones
+    private static final int HILOS_LECTURA = 4;
+
+    private final ExecutorService lecturas;
+    private final ExecutorService escrituras;
+    // Última tarea enviada con cada clave
+    private final Map<String, Tarea<?>> vigentes = new ConcurrentHashMap<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final Consumer<Boolean> indicadorOcupado;
+
+    /**
+     * Crea el ejecutor.
+     *
+     * @param indicadorOcupado Se invoca en el EDT con {@code true} cuando
+     * empieza a haber tareas pendientes y con {@code false} cuando terminan
+     * todas. Puede ser {@code null}.
+     */
+    public EjecutorTareasBD(Consumer<Boolean> indicadorOcupado) {
+        this.indicadorOcupado = indicadorOcupado;
+        this.lecturas = Executors.newFixedThreadPool(HILOS_LECTURA, crearFabrica("tareas-bd-lectura"));
+        this.escrituras = Executors.newSingleThreadExecutor(crearFabrica("tareas-bd-escritura"));
+    }
+
+    /**
+     * Ejecuta una lectura en segundo plano.
+     *
+     * @param <T> El tipo del resultado.
+     * @param clave Identifica la lectura; si ya había una lectura pendiente con
+     * la misma clave, se cancela y su resultado se descarta. Con {@code null}
+     * la lectura no reemplaza a ninguna otra.
+     * @param trabajo El trabajo a ejecutar fuera del EDT.
+     * @param alTerminar Recibe el resultado en el EDT. Puede ser {@code null}.
+     * @param alFallar Recibe en el EDT la excepción lanzada por el trabajo.
+     * Con {@code null} solo se informa en consola.
+     * @return El {@link Future} de la tarea.
+     */
+    public <T> Future<T> ejecutarLectura(String clave, Callable<T> trabajo, Consumer<? super T> alTerminar,
+            Consumer<? super Exception> alFallar) {
+        Tarea<T> tarea = new Tarea<>(clave, trabajo, alTerminar, alFallar);
+        if (clave != null) {
+            Tarea<?> anterior = vigentes.put(clave, tarea);
+            if (anterior != null) {
+                // No se interrumpe el hilo: una consulta JDBC interrumpida puede dejar la conexión inservible
+                anterior.cancel(false);
+            }
+        }
+        iniciar();
+        lecturas.execute(tarea);
+        return tarea;
+    }
+
+    /**
+     * Ejecuta una escritura en segundo plano. Las escrituras se ejecutan de
+     * una en una, en el orden en que se enviaron, y nunca se cancelan.
+     *
+     * @param <T> El tipo del resultado.
+     * @param trabajo El trabajo a ejecutar fuera del EDT.
+     * @param alTerminar Recibe el resultado en el EDT. Puede ser {@code null}.
+     * @param alFallar Recibe en el EDT la excepción lanzada por el trabajo.
+     * Con {@code null} solo se informa en consola.
+     * @return El {@link Future} de la tarea.
+     */
+    public <T> Future<T> ejecutarEscritura(Callable<T> trabajo, Consumer<? super T> alTerminar,
+            Consumer<? super Exception> alFallar) {
+        Tarea<T> tarea = new Tarea<>(null, trabajo, alTerminar, alFallar);
+        iniciar();
+        escrituras.execute(tarea);
+        return tarea;
+    }
+
+    /**
+     * Cancela la lectura pendiente con la clave indicada, si la hay. Su
+     * resultado se descarta.
+     *
+     * @param clave La clave de la lectura.
+     */
+    public void cancelar(String clave) {
+        Tarea<?> tarea = vigentes.remove(clave);
+        if (tarea != null) {
+            tarea.cancel(false);
+        }
+    }
+
+    /**
+     * Deja de aceptar tareas. Las escrituras ya enviadas terminan de
+     * ejecutarse.
+     */
+    public void cerrar() {
+        lecturas.shutdownNow();
+        escrituras.shutdown();
+    }
+
+    /**
+     * Cuenta una tarea pendiente más y avisa si es la primera.
+     */
+    private void iniciar() {
+        if (pendientes.getAndIncrement() == 0) {
+            avisarOcupado(true);
+        }
+    }
+
+    /**
+     * Cuenta una tarea pendiente menos y avisa si era la última.
+     */
+    private void finalizar() {
+        if (pendientes.decrementAndGet() == 0) {
+            avisarOcupado(false);
+        }
+    }
+
+    private void avisarOcupado(boolean ocupado) {
+        if (indicadorOcupado != null) {
+            SwingUtilities.invokeLater(() -> indicadorOcupado.accept(ocupado));
+        }
+    }
+
+    private static ThreadFactory crearFabrica(String nombre) {
+        AtomicInteger numero = new AtomicInteger();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, nombre + "-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    /**
+     * Tarea que, al terminar o cancelarse, entrega su resultado en el EDT.
+     */
+    private final class Tarea<T> extends FutureTask<T> {
+
+        private final String clave;
+        private final Consumer<? super T> alTerminar;
+        private final Consumer<? super Exception> alFallar;
+
+        Tarea(String clave, Callable<T> trabajo, Consumer<? super T> alTerminar, Consumer<? super Exception> alFallar) {
+            super(trabajo);
+            this.clave = clave;
+            this.alTerminar = alTerminar;
+            this.alFallar = alFallar;
+        }
+
+        @Override
+        protected void done() {
+            SwingUtilities.invokeLater(this::entregar);
+        }
+
+        /**
+         * Entrega el resultado en el EDT, salvo que la tarea se haya cancelado
+         * o reemplazado por otra con la misma clave.
+         */
+        private void entregar() {
+            finalizar();
+            if (isCancelled()) {
+                return;
+            }
+            if (clave != null && !vigentes.remove(clave, this)) {
+                // Una tarea más reciente con la misma clave ocupa su lugar
+                return;
+            }
+            try {
+                T resultado = get();
+                if (alTerminar != null) {
+                    alTerminar.accept(resultado);
+                }
+            } catch (ExecutionException e) {
+                Exception causa = e.getCause() instanceof Exception excepcion ? excepcion : e;
+                if (alFallar != null) {
+                    alFallar.accept(causa);
+                } else {
+                    Registro.error("Error en una tarea de base de datos: " + causa.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
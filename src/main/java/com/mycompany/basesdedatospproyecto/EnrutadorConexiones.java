@@ -0,0 +1,318 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reparte las conexiones entre un servidor principal y sus réplicas de solo
+ * lectura.
+ *
+ * Las escrituras se hacen siempre en el principal
+ * ({@link #obtenerEscritura()}). Las lecturas ({@link #obtenerLectura()}) se
+ * reparten entre las réplicas sanas, eligiendo la que tiene menos conexiones
+ * prestadas en ese momento; si ninguna está sana, se leen del principal. Cada
+ * servidor tiene su propio {@link PoolConexiones}.
+ *
+ * Un hilo de fondo comprueba periódicamente que cada réplica responda; una
+ * réplica que falla al prestar una conexión se marca como no sana de
+ * inmediato y vuelve a usarse cuando la comprobación la encuentra sana.
+ *
+ * Como las réplicas se actualizan con retraso, después de una escritura las
+ * lecturas se hacen en el principal durante una ventana configurable, de modo
+ * que esta aplicación siempre lee sus propias escrituras.
+ */
+public class EnrutadorConexiones {
+
+    // Segundos que se concede a una réplica para responder a la comprobación
+    private static final int SEGUNDOS_COMPROBACION = 2;
+
+    private final PoolConexiones principal;
+    private final List<Replica> replicas;
+    private final long ventanaLecturaPropiaNanos;
+    private final ScheduledExecutorService comprobaciones;
+
+    // Conexiones del principal prestadas para escribir, y cuándo terminó la última
+    private final Set<Connection> deEscritura = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger escriturasEnCurso = new AtomicInteger();
+    private volatile long ultimaEscrituraNanos;
+    private volatile boolean huboEscritura;
+
+    // Desempata entre réplicas con las mismas conexiones prestadas
+    private final AtomicInteger turno = new AtomicInteger();
+
+    // ESTADÍSTICAS
+    private final LongAdder lecturasPrincipal = new LongAdder();
+
+    /**
+     * Réplica con su pool y su estado.
+     */
+    private static final class Replica {
+
+        final String nombre;
+        final PoolConexiones pool;
+        volatile boolean sana = true;
+        final LongAdder lecturas = new LongAdder();
+
+        Replica(String nombre, PoolConexiones pool) {
+            this.nombre = nombre;
+            this.pool = pool;
+        }
+    }
+
+    /**
+     * Crea el enrutador. Si hay réplicas, inicia la comprobación periódica de
+     * su estado.
+     *
+     * @param principal El pool del servidor principal.
+     * @param replicas Los pools de las réplicas, por nombre (por ejemplo su
+     * URL), en el orden del mapa; puede estar vacío.
+     * @param ventanaLecturaPropiaMs Tiempo, en milisegundos, durante el que
+     * las lecturas se hacen en el principal después de una escritura; 0 para
+     * leer siempre de las réplicas.
+     * @param intervaloComprobacionMs Tiempo entre comprobaciones de las
+     * réplicas, en milisegundos.
+     */
+    public EnrutadorConexiones(PoolConexiones principal, Map<String, PoolConexiones> replicas,
+            long ventanaLecturaPropiaMs, long intervaloComprobacionMs) {
+        this.principal = principal;
+        this.replicas = new ArrayList<>(replicas.size());
+        replicas.forEach((nombre, pool) -> this.replicas.add(new Replica(nombre, pool)));
+        this.ventanaLecturaPropiaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaLecturaPropiaMs);
+        if (this.replicas.isEmpty()) {
+            this.comprobaciones = null;
+        } else {
+            this.comprobaciones = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "enrutador-comprobacion-replicas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            this.comprobaciones.scheduleWithFixedDelay(this::comprobarReplicas, intervaloComprobacionMs,
+                    intervaloComprobacionMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Presta una conexión del servidor principal para escribir. Mientras no
+     * se devuelva, y durante la ventana de lectura propia después, las
+     * lecturas también se hacen en el principal.
+     *
+     * @return Una conexión del principal.
+     *
+     * @throws SQLException Si no se pudo obtener la conexión.
+     */
+    public Connection obtenerEscritura() throws SQLException {
+        escriturasEnCurso.incrementAndGet();
+        try {
+            Connection conexion = principal.obtenerConexion();
+            deEscritura.add(conexion);
+            return conexion;
+        } catch (SQLException | RuntimeException e) {
+            escriturasEnCurso.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Presta una conexión del servidor principal para leer. A diferencia de
+     * {@link #obtenerEscritura()}, no cuenta como escritura: no abre la
+     * ventana de lectura propia ni desvía las demás lecturas al principal.
+     * Sirve para las lecturas que no pueden tolerar el retraso de una réplica.
+     *
+     * @return Una conexión del principal.
+     *
+     * @throws SQLException Si no se pudo obtener la conexión.
+     */
+    public Connection obtenerLecturaPrincipal() throws SQLException {
+        Connection conexion = principal.obtenerConexion();
+        lecturasPrincipal.increment();
+        return conexion;
+    }
+
+    /**
+     * Presta una conexión para leer: de la réplica sana con menos conexiones
+     * prestadas o, si no hay ninguna o hay una escritura reciente, del
+     * principal.
+     *
+     * @return Una conexión de una réplica o del principal.
+     *
+     * @throws SQLException Si no se pudo obtener una conexión del principal.
+     */
+    public Connection obtenerLectura() throws SQLException {
+        if (!replicas.isEmpty() && !leerDelPrincipal()) {
+            int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+            // Se prueba primero la réplica menos ocupada; si falla, la siguiente
+            for (int intento = 0; intento < replicas.size(); intento++) {
+                Replica elegida = null;
+                for (int i = 0; i < replicas.size(); i++) {
+                    Replica replica = replicas.get((inicio + i) % replicas.size());
+                    if (replica.sana && (elegida == null || replica.pool.contarPrestadas() < elegida.pool.contarPrestadas())) {
+                        elegida = replica;
+                    }
+                }
+                if (elegida == null) {
+                    break;
+                }
+                try {
+                    Connection conexion = elegida.pool.obtenerConexion();
+                    elegida.lecturas.increment();
+                    return conexion;
+                } catch (SQLException e) {
+                    elegida.sana = false;
+                    Registro.aviso("Réplica " + elegida.nombre + " no disponible: " + e.getMessage());
+                }
+            }
+        }
+        lecturasPrincipal.increment();
+        return principal.obtenerConexion();
+    }
+
+    /**
+     * Devuelve una conexión al pool del que salió. Si era una conexión de
+     * escritura, a partir de aquí corre la ventana de lectura propia.
+     *
+     * @param conexion La conexión. Puede ser {@code null}.
+     */
+    public void devolver(Connection conexion) {
+        if (conexion == null) {
+            return;
+        }
+        if (deEscritura.remove(conexion)) {
+            ultimaEscrituraNanos = System.nanoTime();
+            huboEscritura = true;
+            escriturasEnCurso.decrementAndGet();
+        }
+        poolDe(conexion).devolverConexion(conexion);
+    }
+
+    /**
+     * Obtiene una sentencia preparada sobre una conexión prestada por este
+     * enrutador, usando la caché de sentencias de su pool.
+     *
+     * @see PoolConexiones#prepararSentencia(Connection, String, int)
+     */
+    public PreparedStatement prepararSentencia(Connection conexion, String sql, int clavesGeneradas) throws SQLException {
+        return poolDe(conexion).prepararSentencia(conexion, sql, clavesGeneradas);
+    }
+
+    /**
+     * Obtiene el estado de cada réplica.
+     *
+     * @return Una entrada por réplica, en el orden en que se configuraron.
+     */
+    public List<EstadoReplica> obtenerEstadoReplicas() {
+        List<EstadoReplica> estados = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            estados.add(new EstadoReplica(replica.nombre, replica.sana, replica.lecturas.sum(),
+                    replica.pool.obtenerEstadisticas()));
+        }
+        return estados;
+    }
+
+    /**
+     * Obtiene las estadísticas del pool del principal sumadas con las de los
+     * pools de todas las réplicas.
+     *
+     * @return Las estadísticas combinadas de todos los pools.
+     */
+    public PoolConexiones.EstadisticasPool obtenerEstadisticasPools() {
+        PoolConexiones.EstadisticasPool total = principal.obtenerEstadisticas();
+        for (Replica replica : replicas) {
+            total = total.sumar(replica.pool.obtenerEstadisticas());
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene el número de lecturas hechas en el principal, por no haber
+     * réplicas sanas, por caer en la ventana de lectura propia o por pedirse
+     * con {@link #obtenerLecturaPrincipal()}.
+     *
+     * @return Las lecturas hechas en el principal.
+     */
+    public long obtenerLecturasPrincipal() {
+        return lecturasPrincipal.sum();
+    }
+
+    /**
+     * Detiene las comprobaciones y cierra los pools del principal y de las
+     * réplicas.
+     */
+    public void cerrar() {
+        if (comprobaciones != null) {
+            comprobaciones.shutdownNow();
+        }
+        principal.cerrar();
+        for (Replica replica : replicas) {
+            replica.pool.cerrar();
+        }
+    }
+
+    /**
+     * Indica si las lecturas deben hacerse en el principal para ver las
+     * escrituras propias.
+     */
+    private boolean leerDelPrincipal() {
+        if (escriturasEnCurso.get() > 0) {
+            return true;
+        }
+        return huboEscritura && System.nanoTime() - ultimaEscrituraNanos < ventanaLecturaPropiaNanos;
+    }
+
+    /**
+     * Obtiene el pool que prestó una conexión. Las conexiones desconocidas se
+     * atribuyen al principal, cuyo pool las ignora o rechaza.
+     */
+    private PoolConexiones poolDe(Connection conexion) {
+        for (Replica replica : replicas) {
+            if (replica.pool.esPrestada(conexion)) {
+                return replica.pool;
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Comprueba que cada réplica preste una conexión válida y actualiza su
+     * estado. Se ejecuta en el hilo de fondo.
+     */
+    private void comprobarReplicas() {
+        for (Replica replica : replicas) {
+            boolean sana;
+            Connection conexion = null;
+            try {
+                conexion = replica.pool.obtenerConexion();
+                sana = conexion.isValid(SEGUNDOS_COMPROBACION);
+            } catch (SQLException | RuntimeException e) {
+                sana = false;
+            } finally {
+                replica.pool.devolverConexion(conexion);
+            }
+            if (sana != replica.sana) {
+                Registro.aviso("Réplica " + replica.nombre + (sana ? " disponible de nuevo." : " no disponible."));
+            }
+            replica.sana = sana;
+        }
+    }
+
+    /**
+     * Estado de una réplica en un instante dado.
+     *
+     * @param nombre El nombre de la réplica (su URL).
+     * @param sana {@code true} si respondió en la última comprobación.
+     * @param lecturas Conexiones de lectura que prestó.
+     * @param pool Las estadísticas de su pool de conexiones.
+     */
+    public record EstadoReplica(String nombre, boolean sana, long lecturas, PoolConexiones.EstadisticasPool pool) {
+    }
+}
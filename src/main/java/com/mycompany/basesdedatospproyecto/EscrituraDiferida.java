@@ -0,0 +1,334 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de escritura diferida (write-behind) para las actualizaciones de
+ * contactos.
+ *
+ * En lugar de ejecutar un `UPDATE` por cada edición, las actualizaciones se
+ * guardan en memoria y un hilo de fondo las escribe en lotes, cada uno en una
+ * sola transacción, cuando se juntan `tamanoLote` actualizaciones o cuando la
+ * más antigua lleva `intervaloMs` esperando. Si un contacto se edita varias
+ * veces antes de escribirse, solo se escribe su última versión.
+ *
+ * Mientras una actualización no se ha escrito, {@link #obtenerPendiente(int)}
+ * devuelve su versión nueva, para que quien la hizo lea su propio cambio. Si
+ * la cola llega a `capacidad` contactos, quien encola espera a que el hilo de
+ * fondo libere espacio. Si la base de datos no responde, el lote se devuelve a
+ * la cola y se reintenta más tarde. Al cerrar la cola (también al terminar la
+ * aplicación) se escriben todas las actualizaciones pendientes.
+ */
+public class EscrituraDiferida {
+
+    // Tiempo máximo que se espera a que haya espacio en la cola antes de rechazar una actualización
+    private static final long ESPERA_MAXIMA_COLA_MS = 5_000;
+    // Tiempo máximo que se espera al cerrar a que se escriban las actualizaciones pendientes
+    private static final long ESPERA_MAXIMA_CIERRE_MS = 10_000;
+
+    private final MYSQL db;
+    private final int capacidad;
+    private final int tamanoLote;
+    private final long intervaloNanos;
+
+    // Actualizaciones por escribir, por idContacto, en orden de llegada. Protegidas por this.
+    private final LinkedHashMap<Integer, Contacto> pendientes = new LinkedHashMap<>();
+    // Actualizaciones que el hilo de fondo está escribiendo en este momento
+    private final Map<Integer, Contacto> enEscritura = new LinkedHashMap<>();
+    private long primeraPendienteNanos;
+    private long reintentarDesdeNanos;
+    private boolean vaciando;
+    private boolean cerrado;
+    private final Thread escritor;
+
+    // ESTADÍSTICAS (protegidas por this)
+    private long encoladas;
+    private long combinadas;
+    private long escritas;
+    private long lotes;
+    private long rechazadas;
+    private long lotesFallidos;
+
+    /**
+     * Crea la cola y arranca su hilo de fondo. También registra un gancho de
+     * cierre de la JVM que escribe las actualizaciones pendientes.
+     *
+     * @param db La base de datos en la que se escriben las actualizaciones.
+     * @param capacidad Número máximo de contactos distintos en la cola.
+     * @param tamanoLote Número de actualizaciones que provoca una escritura y
+     * número máximo de actualizaciones por transacción.
+     * @param intervaloMs Tiempo máximo, en milisegundos, que una actualización
+     * espera antes de escribirse.
+     */
+    public EscrituraDiferida(MYSQL db, int capacidad, int tamanoLote, long intervaloMs) {
+        if (capacidad <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("La capacidad y el tamaño de lote deben ser mayores que cero");
+        }
+        this.db = db;
+        this.capacidad = capacidad;
+        this.tamanoLote = tamanoLote;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+
+        this.escritor = new Thread(this::escribirPeriodicamente, "escritura-diferida");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::cerrar, "escritura-diferida-cierre"));
+    }
+
+    /**
+     * Encola la nueva versión de un contacto. Si ya había una actualización
+     * pendiente del mismo contacto, se reemplaza.
+     *
+     * @param contacto La versión nueva del contacto.
+     * @return {@code true} si se encoló; {@code false} si la cola siguió llena
+     * durante el tiempo máximo de espera o si está cerrada.
+     *
+     * @throws InterruptedException Si se interrumpe la espera por espacio.
+     */
+    public synchronized boolean encolar(Contacto contacto) throws InterruptedException {
+        int idContacto = contacto.idContacto();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_MAXIMA_COLA_MS);
+        // Reemplazar una actualización pendiente no ocupa espacio nuevo
+        while (!cerrado && !pendientes.containsKey(idContacto) && pendientes.size() >= capacidad) {
+            long restante = limite - System.nanoTime();
+            if (restante <= 0) {
+                rechazadas++;
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, restante);
+        }
+        if (cerrado) {
+            rechazadas++;
+            return false;
+        }
+        boolean primera = pendientes.isEmpty();
+        if (primera) {
+            primeraPendienteNanos = System.nanoTime();
+        }
+        if (pendientes.put(idContacto, contacto) != null) {
+            combinadas++;
+        }
+        encoladas++;
+        if (primera || pendientes.size() >= tamanoLote) {
+            // El hilo de fondo recalcula cuándo escribir: al cumplirse el intervalo o ya mismo
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Obtiene la versión pendiente de escribirse de un contacto, si la hay.
+     *
+     * @param idContacto El ID del contacto.
+     * @return La última versión encolada del contacto, o {@code null} si no
+     * tiene actualizaciones pendientes.
+     */
+    public synchronized Contacto obtenerPendiente(int idContacto) {
+        Contacto pendiente = pendientes.get(idContacto);
+        return pendiente != null ? pendiente : enEscritura.get(idContacto);
+    }
+
+    /**
+     * Descarta la actualización pendiente de un contacto, por ejemplo porque
+     * se va a eliminar.
+     *
+     * @param idContacto El ID del contacto.
+     */
+    public synchronized void descartar(int idContacto) {
+        pendientes.remove(idContacto);
+        notifyAll();
+    }
+
+    /**
+     * Escribe en este momento todas las actualizaciones pendientes y espera a
+     * que terminen.
+     *
+     * @param tiempoMaximoMs Tiempo máximo de espera, en milisegundos.
+     * @return {@code true} si no quedó ninguna actualización pendiente.
+     *
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    public synchronized boolean vaciar(long tiempoMaximoMs) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tiempoMaximoMs);
+        vaciando = true;
+        notifyAll();
+        try {
+            while (!pendientes.isEmpty() || !enEscritura.isEmpty()) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0 || !escritor.isAlive()) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, restante);
+            }
+            return true;
+        } finally {
+            vaciando = false;
+        }
+    }
+
+    /**
+     * Cierra la cola: deja de aceptar actualizaciones, escribe las pendientes
+     * y detiene el hilo de fondo. Llamarlo más de una vez no tiene efecto.
+     */
+    public void cerrar() {
+        synchronized (this) {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            notifyAll();
+        }
+        try {
+            escritor.join(ESPERA_MAXIMA_CIERRE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            int perdidas = pendientes.size() + enEscritura.size();
+            if (perdidas > 0) {
+                Registro.error("No se pudieron escribir " + perdidas + " actualizaciones pendientes.");
+            }
+        }
+    }
+
+    /**
+     * Obtiene una fotografía de las estadísticas de la cola.
+     *
+     * @return Las estadísticas de la cola en este instante.
+     */
+    public synchronized EstadisticasEscritura obtenerEstadisticas() {
+        return new EstadisticasEscritura(pendientes.size() + enEscritura.size(), encoladas, combinadas, escritas,
+                lotes, lotesFallidos, rechazadas);
+    }
+
+    /**
+     * Bucle del hilo de fondo: espera a que haya un lote listo, lo escribe y
+     * repite hasta que la cola se cierra y queda vacía.
+     */
+    private void escribirPeriodicamente() {
+        while (true) {
+            List<Contacto> lote;
+            synchronized (this) {
+                try {
+                    long espera;
+                    while ((espera = esperaHastaLote()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, espera);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pendientes.isEmpty()) {
+                    // Solo se sale del bucle de espera con la cola vacía si está cerrada
+                    return;
+                }
+                lote = tomarLote();
+            }
+            escribir(lote);
+        }
+    }
+
+    /**
+     * Calcula cuánto falta para que haya un lote listo para escribirse.
+     *
+     * @return 0 si hay que escribir ya (o salir, si la cola está cerrada y
+     * vacía); en otro caso, los nanosegundos que conviene esperar.
+     */
+    private long esperaHastaLote() {
+        long ahora = System.nanoTime();
+        if (pendientes.isEmpty()) {
+            return cerrado ? 0 : Long.MAX_VALUE;
+        }
+        if (reintentarDesdeNanos - ahora > 0) {
+            // La base de datos falló hace poco; se espera antes de reintentar
+            return reintentarDesdeNanos - ahora;
+        }
+        if (cerrado || vaciando || pendientes.size() >= tamanoLote) {
+            return 0;
+        }
+        return Math.max(0, primeraPendienteNanos + intervaloNanos - ahora);
+    }
+
+    /**
+     * Pasa hasta `tamanoLote` actualizaciones, las más antiguas, de la cola a
+     * las que se están escribiendo.
+     */
+    private List<Contacto> tomarLote() {
+        List<Contacto> lote = new ArrayList<>(Math.min(tamanoLote, pendientes.size()));
+        Iterator<Contacto> iterador = pendientes.values().iterator();
+        while (iterador.hasNext() && lote.size() < tamanoLote) {
+            Contacto contacto = iterador.next();
+            iterador.remove();
+            enEscritura.put(contacto.idContacto(), contacto);
+            lote.add(contacto);
+        }
+        primeraPendienteNanos = System.nanoTime();
+        // Quien espera por espacio en la cola ya puede encolar
+        notifyAll();
+        return lote;
+    }
+
+    /**
+     * Escribe un lote. Si falla la conexión, devuelve a la cola las
+     * actualizaciones que no tengan ya una versión más reciente.
+     */
+    private void escribir(List<Contacto> lote) {
+        boolean escrito;
+        int actualizados = 0;
+        try {
+            actualizados = db.escribirActualizaciones(lote);
+            escrito = true;
+        } catch (SQLException e) {
+            Registro.error("Error al escribir las actualizaciones pendientes: " + e.getMessage());
+            escrito = false;
+        }
+        synchronized (this) {
+            for (Contacto contacto : lote) {
+                enEscritura.remove(contacto.idContacto());
+                if (!escrito) {
+                    pendientes.putIfAbsent(contacto.idContacto(), contacto);
+                }
+            }
+            if (escrito) {
+                escritas += actualizados;
+                lotes++;
+            } else {
+                lotesFallidos++;
+                reintentarDesdeNanos = System.nanoTime() + Math.max(intervaloNanos, TimeUnit.SECONDS.toNanos(1));
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Estadísticas de la cola de escritura diferida en un instante dado.
+     *
+     * @param pendientes Actualizaciones que todavía no se han escrito.
+     * @param encoladas Actualizaciones recibidas.
+     * @param combinadas Actualizaciones que reemplazaron a otra pendiente del
+     * mismo contacto.
+     * @param escritas Actualizaciones escritas en la base de datos (sin
+     * contar las que la base de datos rechazó ni las de contactos que ya no
+     * existían).
+     * @param lotes Lotes escritos.
+     * @param lotesFallidos Lotes que fallaron por un error de conexión y se
+     * reintentaron.
+     * @param rechazadas Actualizaciones rechazadas por tener la cola llena o
+     * cerrada.
+     */
+    public record EstadisticasEscritura(int pendientes, long encoladas, long combinadas, long escritas, long lotes,
+            long lotesFallidos, long rechazadas) {
+
+        @Override
+        public String toString() {
+            return String.format("Escritura diferida: %d pendientes, %d encoladas, %d combinadas, %d escritas "
+                    + "en %d lotes, %d lotes fallidos, %d rechazadas",
+                    pendientes, encoladas, combinadas, escritas, lotes, lotesFallidos, rechazadas);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mantiene en memoria el número de contactos total y por grupo.
+ *
+ * Al iniciarse carga todos los conteos con una sola consulta `GROUP BY
+ * idGrupo`. A partir de ahí, cada inserción, actualización o eliminación hecha
+ * a través del {@link RepositorioContactos} se recibe como {@link OyenteCambiosContactos} y
+ * ajusta los contadores, que son {@link LongAdder} para que los hilos que
+ * escriben no compitan entre sí. Así, leer los contadores no cuesta ninguna
+ * consulta a la base de datos.
+ *
+ * Como otros clientes pueden modificar la tabla `contactos` por su cuenta, los
+ * conteos se reconcilian periódicamente con la base de datos. Los cambios
+ * propios avisados mientras se leen los conteos se guardan y se vuelven a
+ * aplicar sobre los conteos leídos, para que reemplazarlos no los pierda.
+ * Con el registro de cambios, la reconciliación la hace el
+ * {@link SincronizadorCambios}, que lee los conteos junto con los cambios
+ * que ya incluyen y aplica aquí los cambios ajenos con
+ * {@link #aplicarCambioExterno(CambioContacto)}; sin él, se hace aquí con
+ * {@link #reconciliar()}.
+ */
+public class EstadisticasContactos implements OyenteCambiosContactos {
+
+    // Cada cuánto se vuelven a leer los conteos reales de la base de datos
+    static final long PERIODO_RECONCILIACION_MINUTOS = 5;
+
+    private final RepositorioContactos db;
+    // Se reemplaza por completo en cada reconciliación, nunca se modifica su conjunto de claves desde fuera
+    private volatile Conteos conteos = new Conteos();
+    private ScheduledExecutorService reconciliacion;
+    // Los cambios toman el bloqueo de lectura (pueden ser simultáneos); reemplazar los conteos, el de escritura
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    // Cambios propios avisados mientras se leen los conteos de la base de datos; null si no se están leyendo
+    private List<CambioContacto> cambiosDuranteLectura;
+
+    /**
+     * Contadores de un instante: el total y uno por cada grupo.
+     */
+    private static final class Conteos {
+
+        private final LongAdder total = new LongAdder();
+        private final Map<Integer, LongAdder> porGrupo = new ConcurrentHashMap<>();
+
+        private void sumar(int idGrupo, long cantidad) {
+            total.add(cantidad);
+            porGrupo.computeIfAbsent(idGrupo, clave -> new LongAdder()).add(cantidad);
+        }
+
+        private void aplicar(CambioContacto cambio) {
+            if (cambio.tipo() != CambioContacto.Tipo.INSERCION) {
+                sumar(cambio.idGrupoAnterior(), -1);
+            }
+            if (cambio.tipo() != CambioContacto.Tipo.ELIMINACION) {
+                sumar(cambio.idGrupoNuevo(), 1);
+            }
+        }
+    }
+
+    /**
+     * Crea el componente de estadísticas. Los conteos quedan en cero hasta que
+     * se llama a {@link #iniciar()}.
+     *
+     * @param db El repositorio del que se leen los conteos.
+     */
+    public EstadisticasContactos(RepositorioContactos db) {
+        this.db = db;
+    }
+
+    /**
+     * Carga los conteos desde la base de datos y programa su reconciliación
+     * periódica. Llamarlo más de una vez solo vuelve a cargar los conteos. No
+     * debe llamarse si un {@link SincronizadorCambios} se encarga de la
+     * reconciliación.
+     */
+    public synchronized void iniciar() {
+        reconciliar();
+        if (reconciliacion == null) {
+            reconciliacion = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "estadisticas-reconciliacion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            reconciliacion.scheduleWithFixedDelay(this::reconciliar, PERIODO_RECONCILIACION_MINUTOS,
+                    PERIODO_RECONCILIACION_MINUTOS, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Detiene la reconciliación periódica.
+     */
+    public synchronized void detener() {
+        if (reconciliacion != null) {
+            reconciliacion.shutdownNow();
+            reconciliacion = null;
+        }
+    }
+
+    /**
+     * Vuelve a leer los conteos reales con una consulta `GROUP BY` y
+     * reemplaza los contadores en memoria, volviendo a aplicar los cambios
+     * propios avisados durante la consulta. Si la consulta falla se conservan
+     * los contadores actuales.
+     *
+     * Sin el registro de cambios no se sabe si un cambio avisado durante la
+     * consulta ya estaba confirmado al leer, así que en el caso raro de que
+     * se confirme justo antes de la consulta se cuenta dos veces, hasta la
+     * siguiente reconciliación.
+     */
+    public void reconciliar() {
+        empezarLectura();
+        terminarLectura(db.contarContactosAgrupados(), List.of());
+    }
+
+    /**
+     * Empieza a guardar los cambios propios avisados, porque se van a leer
+     * los conteos de la base de datos. Debe seguirle
+     * {@link #terminarLectura(Map, Collection)}.
+     */
+    void empezarLectura() {
+        candado.writeLock().lock();
+        try {
+            cambiosDuranteLectura = new ArrayList<>();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza los contadores por los leídos de la base de datos y les
+     * aplica los cambios propios avisados desde
+     * {@link #empezarLectura()}, salvo los que la lectura ya incluía.
+     *
+     * @param conteosBD El número de contactos de cada grupo leído, o
+     * {@code null} si la lectura falló; en ese caso se conservan los
+     * contadores actuales.
+     * @param incluidos Los cambios propios que ya estaban confirmados al leer
+     * los conteos, según el registro de cambios.
+     */
+    void terminarLectura(Map<Integer, Integer> conteosBD, Collection<CambioContacto> incluidos) {
+        candado.writeLock().lock();
+        try {
+            List<CambioContacto> pendientes = cambiosDuranteLectura;
+            cambiosDuranteLectura = null;
+            if (conteosBD == null) {
+                return;
+            }
+            // Cuántos cambios de cada contacto y tipo ya están en los conteos leídos
+            Map<Long, Integer> yaContados = new HashMap<>();
+            for (CambioContacto cambio : incluidos) {
+                yaContados.merge(clave(cambio), 1, Integer::sum);
+            }
+            Conteos nuevos = new Conteos();
+            conteosBD.forEach(nuevos::sumar);
+            for (CambioContacto cambio : pendientes) {
+                Integer restantes = yaContados.get(clave(cambio));
+                if (restantes == null) {
+                    nuevos.aplicar(cambio);
+                } else if (restantes == 1) {
+                    yaContados.remove(clave(cambio));
+                } else {
+                    yaContados.put(clave(cambio), restantes - 1);
+                }
+            }
+            this.conteos = nuevos;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Identifica el contacto y el tipo de un cambio, para reconocer un cambio
+     * propio en el registro de cambios.
+     */
+    private static long clave(CambioContacto cambio) {
+        return ((long) cambio.idContacto() << 2) | cambio.tipo().ordinal();
+    }
+
+    /**
+     * Reemplaza los contadores en memoria por los indicados, sin consultar la
+     * base de datos; por ejemplo, los de una {@link InstantaneaContactos}
+     * mientras todavía no se leen los reales.
+     *
+     * @param conteosPorGrupo El número de contactos de cada grupo, por
+     * idGrupo.
+     */
+    public void cargar(Map<Integer, Integer> conteosPorGrupo) {
+        Conteos nuevos = new Conteos();
+        conteosPorGrupo.forEach(nuevos::sumar);
+        candado.writeLock().lock();
+        try {
+            this.conteos = nuevos;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica un cambio hecho por otro cliente, con los grupos anterior y
+     * nuevo que registró la base de datos. Solo lo llama el
+     * {@link SincronizadorCambios}, en su hilo.
+     *
+     * @param cambio El cambio, tal como está en el registro de cambios.
+     */
+    void aplicarCambioExterno(CambioContacto cambio) {
+        candado.readLock().lock();
+        try {
+            conteos.aplicar(cambio);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void contactoInsertado(Contacto nuevo) {
+        aplicarPropio(new CambioContacto(0, CambioContacto.Tipo.INSERCION, nuevo.idContacto(), 0, nuevo.idGrupo(), true, null));
+    }
+
+    @Override
+    public void contactoActualizado(Contacto anterior, Contacto nuevo) {
+        // Solo cambian los conteos si el contacto cambió de grupo
+        if (anterior.idGrupo() != nuevo.idGrupo()) {
+            aplicarPropio(new CambioContacto(0, CambioContacto.Tipo.ACTUALIZACION, nuevo.idContacto(),
+                    anterior.idGrupo(), nuevo.idGrupo(), true, null));
+        }
+    }
+
+    @Override
+    public void contactoEliminado(Contacto anterior) {
+        aplicarPropio(new CambioContacto(0, CambioContacto.Tipo.ELIMINACION, anterior.idContacto(),
+                anterior.idGrupo(), 0, true, null));
+    }
+
+    /**
+     * Aplica un cambio propio a los contadores y, si se están leyendo los
+     * conteos, lo guarda para volver a aplicarlo sobre los leídos.
+     */
+    private void aplicarPropio(CambioContacto cambio) {
+        candado.readLock().lock();
+        try {
+            conteos.aplicar(cambio);
+            List<CambioContacto> pendientes = cambiosDuranteLectura;
+            if (pendientes != null) {
+                synchronized (pendientes) {
+                    pendientes.add(cambio);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número total de contactos, sin consultar la base de datos.
+     *
+     * @return El número total de contactos.
+     */
+    public int contarContactos() {
+        return conteos.total.intValue();
+    }
+
+    /**
+     * Obtiene el número de contactos de un grupo, sin consultar la base de
+     * datos.
+     *
+     * @param idGrupo El ID del grupo.
+     * @return El número de contactos del grupo, o 0 si no tiene ninguno.
+     */
+    public int contarContactosPorGrupo(int idGrupo) {
+        LongAdder contador = conteos.porGrupo.get(idGrupo);
+        return contador == null ? 0 : contador.intValue();
+    }
+}
@@ -0,0 +1,278 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta todos los contactos, con el nombre de su grupo, a CSV o a JSON
+ * Lines (un objeto JSON por línea), opcionalmente comprimidos con gzip.
+ *
+ * Los contactos se leen en flujo con
+ * {@link RepositorioContactos#recorrerContactosConGrupo(java.util.function.Consumer)} y cada
+ * fila se escribe en cuanto llega, a través de un búfer de tamaño fijo, sin
+ * guardar los contactos en una lista. Por eso la memoria usada es la misma
+ * sin importar cuántos contactos haya, y se pueden exportar decenas de
+ * millones de filas.
+ */
+public class ExportadorContactos {
+
+    /**
+     * Formatos de exportación.
+     */
+    public enum Formato {
+        /**
+         * Valores separados por comas, con una fila de encabezado. Los campos
+         * con comas, comillas o saltos de línea se encierran entre comillas.
+         */
+        CSV,
+        /**
+         * Un objeto JSON por línea. Los campos vacíos se escriben como
+         * `null`.
+         */
+        JSON_LINES;
+
+        /**
+         * Obtiene el formato que corresponde a la extensión de un archivo:
+         * `.csv` o `.jsonl` (también `.ndjson`), seguida o no de `.gz`.
+         *
+         * @param archivo El archivo.
+         * @return El formato.
+         *
+         * @throws IllegalArgumentException Si la extensión no es de ningún
+         * formato.
+         */
+        public static Formato deArchivo(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase();
+            if (nombre.endsWith(".gz")) {
+                nombre = nombre.substring(0, nombre.length() - 3);
+            }
+            if (nombre.endsWith(".csv")) {
+                return CSV;
+            }
+            if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Extensión de exportación desconocida: " + archivo.getFileName());
+        }
+    }
+
+    // Tamaño de los búferes de caracteres y de compresión
+    private static final int TAMANO_BUFER = 64 * 1024;
+    private static final String[] COLUMNAS = {"idContacto", "nombre", "apellidoPaterno", "apellidoMaterno", "telefono", "idGrupo", "nombreGrupo"};
+
+    private final RepositorioContactos db;
+
+    /**
+     * Crea un exportador de los contactos de una base de datos.
+     *
+     * @param db El repositorio de contactos.
+     */
+    public ExportadorContactos(RepositorioContactos db) {
+        this.db = db;
+    }
+
+    /**
+     * Exporta todos los contactos a un archivo.
+     *
+     * Se escribe primero un archivo temporal junto al destino, que reemplaza
+     * al destino solo si la exportación termina bien; así un error nunca deja
+     * un archivo a medias con el nombre final. El temporal se fuerza al disco
+     * antes de moverlo, para que tampoco lo deje una caída del sistema.
+     *
+     * @param archivo El archivo de destino; se reemplaza si existe.
+     * @param formato El formato de exportación.
+     * @param comprimir {@code true} para comprimir con gzip.
+     * @return El número de contactos exportados.
+     *
+     * @throws IOException Si ocurre un error al escribir el archivo.
+     * @throws SQLException Si ocurre un error al leer los contactos.
+     */
+    public long exportar(Path archivo, Formato formato, boolean comprimir) throws IOException, SQLException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long filas;
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            filas = exportar(canal, formato, comprimir);
+            // Sin forzar el disco, tras una caída el renombrado podría quedar escrito antes que los datos
+            canal.force(true);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return filas;
+    }
+
+    /**
+     * Exporta todos los contactos a un canal. El canal no se cierra.
+     *
+     * @param canal El canal de destino, por ejemplo un archivo o un socket.
+     * @param formato El formato de exportación.
+     * @param comprimir {@code true} para comprimir con gzip.
+     * @return El número de contactos exportados.
+     *
+     * @throws IOException Si ocurre un error al escribir en el canal.
+     * @throws SQLException Si ocurre un error al leer los contactos.
+     */
+    public long exportar(WritableByteChannel canal, Formato formato, boolean comprimir) throws IOException, SQLException {
+        GZIPOutputStream gzip = null;
+        Writer codificador;
+        if (comprimir) {
+            gzip = new GZIPOutputStream(Channels.newOutputStream(canal), TAMANO_BUFER);
+            codificador = new OutputStreamWriter(gzip, StandardCharsets.UTF_8);
+        } else {
+            codificador = Channels.newWriter(canal, StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE), TAMANO_BUFER);
+        }
+        BufferedWriter salida = new BufferedWriter(codificador, TAMANO_BUFER);
+
+        if (formato == Formato.CSV) {
+            salida.write(String.join(",", COLUMNAS));
+            salida.newLine();
+        }
+        int filas;
+        try {
+            filas = db.recorrerContactosConGrupo(contacto -> {
+                try {
+                    if (formato == Formato.CSV) {
+                        escribirCsv(salida, contacto);
+                    } else {
+                        escribirJson(salida, contacto);
+                    }
+                } catch (IOException e) {
+                    // El recorrido solo admite excepciones no comprobadas; se recupera abajo
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        salida.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        return filas;
+    }
+
+    /**
+     * Escribe un contacto como una fila CSV.
+     */
+    private static void escribirCsv(Writer salida, Contacto contacto) throws IOException {
+        salida.write(Integer.toString(contacto.idContacto()));
+        salida.write(',');
+        escribirCampoCsv(salida, contacto.nombre());
+        salida.write(',');
+        escribirCampoCsv(salida, contacto.apellidoPaterno());
+        salida.write(',');
+        escribirCampoCsv(salida, contacto.apellidoMaterno());
+        salida.write(',');
+        escribirCampoCsv(salida, contacto.telefono());
+        salida.write(',');
+        if (contacto.idGrupo() != 0) {
+            salida.write(Integer.toString(contacto.idGrupo()));
+        }
+        salida.write(',');
+        escribirCampoCsv(salida, contacto.nombreGrupo());
+        salida.write('\n');
+    }
+
+    /**
+     * Escribe un campo CSV, entre comillas si contiene comas, comillas o
+     * saltos de línea. Los valores nulos se escriben vacíos.
+     */
+    private static void escribirCampoCsv(Writer salida, String valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            salida.write(valor);
+            return;
+        }
+        salida.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                salida.write('"');
+            }
+            salida.write(c);
+        }
+        salida.write('"');
+    }
+
+    /**
+     * Escribe un contacto como un objeto JSON en una línea.
+     */
+    private static void escribirJson(Writer salida, Contacto contacto) throws IOException {
+        salida.write("{\"idContacto\":");
+        salida.write(Integer.toString(contacto.idContacto()));
+        salida.write(",\"nombre\":");
+        escribirTextoJson(salida, contacto.nombre());
+        salida.write(",\"apellidoPaterno\":");
+        escribirTextoJson(salida, contacto.apellidoPaterno());
+        salida.write(",\"apellidoMaterno\":");
+        escribirTextoJson(salida, contacto.apellidoMaterno());
+        salida.write(",\"telefono\":");
+        escribirTextoJson(salida, contacto.telefono());
+        salida.write(",\"idGrupo\":");
+        salida.write(contacto.idGrupo() == 0 ? "null" : Integer.toString(contacto.idGrupo()));
+        salida.write(",\"nombreGrupo\":");
+        escribirTextoJson(salida, contacto.nombreGrupo());
+        salida.write("}\n");
+    }
+
+    /**
+     * Escribe un texto JSON entre comillas, escapando comillas, barras
+     * invertidas y caracteres de control. Los valores nulos se escriben como
+     * `null`.
+     */
+    private static void escribirTextoJson(Writer salida, String valor) throws IOException {
+        if (valor == null) {
+            salida.write("null");
+            return;
+        }
+        salida.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> salida.write("\\\"");
+                case '\\' -> salida.write("\\\\");
+                case '\n' -> salida.write("\\n");
+                case '\r' -> salida.write("\\r");
+                case '\t' -> salida.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        salida.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.write(c);
+                    }
+                }
+            }
+        }
+        salida.write('"');
+    }
+}
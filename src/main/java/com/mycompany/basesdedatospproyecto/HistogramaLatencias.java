@@ -0,0 +1,122 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en nanosegundos, de tamaño fijo y sin bloqueos.
+ *
+ * Las latencias se cuentan en intervalos logarítmicos: cada potencia de dos
+ * se divide en {@value #SUBINTERVALOS} intervalos iguales, de modo que un
+ * percentil se conoce con un error relativo menor al 7 % sin importar si la
+ * operación tarda microsegundos o segundos. Registrar una latencia cuesta un
+ * cálculo de bits y un incremento atómico, sin crear objetos, así que se
+ * puede usar en cada operación de la base de datos. Las latencias mayores a
+ * unos 18 minutos se cuentan en el último intervalo.
+ */
+public class HistogramaLatencias {
+
+    // Bits de la subdivisión de cada potencia de dos
+    private static final int BITS_SUBINTERVALO = 4;
+    private static final int SUBINTERVALOS = 1 << BITS_SUBINTERVALO;
+    // Mayor potencia de dos con intervalos propios (2^40 ns, unos 18 minutos)
+    private static final int EXPONENTE_MAXIMO = 40;
+    private static final int NUMERO_INTERVALOS = (EXPONENTE_MAXIMO - BITS_SUBINTERVALO + 2) * SUBINTERVALOS;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(NUMERO_INTERVALOS);
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos La latencia en nanosegundos; los valores negativos se
+     * cuentan como 0.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        conteos.incrementAndGet(intervalo(valor));
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    /**
+     * Obtiene el valor por debajo del cual está la fracción indicada de las
+     * latencias registradas, redondeado al límite superior de su intervalo.
+     *
+     * @param fraccion La fracción, entre 0 y 1 (por ejemplo 0.99 para el
+     * percentil 99).
+     * @return La latencia en nanosegundos, o 0 si no hay registros.
+     */
+    public long percentil(double fraccion) {
+        long[] copia = new long[NUMERO_INTERVALOS];
+        long total = 0;
+        for (int i = 0; i < NUMERO_INTERVALOS; i++) {
+            copia[i] = conteos.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long posicion = Math.max(1, (long) Math.ceil(fraccion * total));
+        long acumulado = 0;
+        for (int i = 0; i < NUMERO_INTERVALOS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= posicion) {
+                // Ningún percentil supera a la mayor latencia observada
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Obtiene la mayor latencia registrada.
+     *
+     * @return La latencia máxima en nanosegundos, o 0 si no hay registros.
+     */
+    public long maximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Descarta todas las latencias registradas.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < NUMERO_INTERVALOS; i++) {
+            conteos.set(i, 0);
+        }
+        maximo.set(0);
+    }
+
+    /**
+     * Obtiene el intervalo en el que se cuenta una latencia. Los valores
+     * menores a {@value #SUBINTERVALOS} tienen un intervalo cada uno; los
+     * demás se ubican por su bit más alto y los {@value #BITS_SUBINTERVALO}
+     * bits siguientes.
+     */
+    private static int intervalo(long valor) {
+        if (valor < SUBINTERVALOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return NUMERO_INTERVALOS - 1;
+        }
+        int desplazamiento = exponente - BITS_SUBINTERVALO;
+        int subintervalo = (int) (valor >>> desplazamiento) & (SUBINTERVALOS - 1);
+        return (desplazamiento + 1) * SUBINTERVALOS + subintervalo;
+    }
+
+    /**
+     * Obtiene la mayor latencia que se cuenta en un intervalo.
+     */
+    private static long limiteSuperior(int intervalo) {
+        if (intervalo < SUBINTERVALOS) {
+            return intervalo;
+        }
+        int desplazamiento = intervalo / SUBINTERVALOS - 1;
+        long inicio = (long) (SUBINTERVALOS + intervalo % SUBINTERVALOS) << desplazamiento;
+        return inicio + (1L << desplazamiento) - 1;
+    }
+}
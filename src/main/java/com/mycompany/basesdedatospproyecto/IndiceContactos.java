@@ -0,0 +1,227 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Base de los índices en memoria de contactos ({@link IndiceNombres},
+ * {@link IndiceTelefonos}): su construcción a partir de todos los contactos y
+ * su mantenimiento como {@link OyenteCambiosContactos}.
+ *
+ * El índice se construye con {@link #construir(RepositorioContactos)} o
+ * {@link #construir(InstantaneaContactos)}. Los cambios que llegan mientras
+ * se construye se guardan y se aplican al terminar, para que no se pierdan ni
+ * queden sobrescritos por las filas leídas antes del cambio. Las subclases
+ * guardan sus estructuras protegidas por {@link #candado}: las consultas
+ * toman el bloqueo de lectura y comprueban {@link #estaConstruido()}.
+ */
+public abstract class IndiceContactos implements OyenteCambiosContactos {
+
+    protected final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    // Nombre del índice en los mensajes del registro, en minúsculas
+    private final String descripcion;
+    private boolean listo;
+    // Cambios recibidos durante la construcción; null cuando no se está construyendo
+    private List<Runnable> cambiosPendientes;
+
+    /**
+     * @param descripcion El nombre del índice en los mensajes del registro,
+     * por ejemplo "índice de nombres".
+     */
+    protected IndiceContactos(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Construye el índice leyendo todos los contactos de la base de datos. Si
+     * ya estaba construido, lo reemplaza. Mientras se construye, las búsquedas
+     * devuelven {@code null}.
+     *
+     * @param db El repositorio del que se leen los contactos.
+     * @return {@code true} si el índice quedó construido, {@code false} si
+     * ocurrió un error al leer los contactos.
+     */
+    public boolean construir(RepositorioContactos db) {
+        return construir(db::recorrerContactosConGrupo);
+    }
+
+    /**
+     * Construye el índice a partir de una instantánea de los contactos, sin
+     * consultar la base de datos. Los cambios posteriores a la instantánea se
+     * aplican al recibirse como {@link OyenteCambiosContactos}.
+     *
+     * @param instantanea La instantánea de la que se leen los contactos.
+     * @return {@code true} si el índice quedó construido.
+     */
+    public boolean construir(InstantaneaContactos instantanea) {
+        return construir(instantanea::recorrer);
+    }
+
+    /**
+     * Origen de los contactos con los que se construye el índice.
+     */
+    @FunctionalInterface
+    private interface OrigenContactos {
+
+        int recorrer(Consumer<? super Contacto> accion) throws SQLException;
+    }
+
+    private synchronized boolean construir(OrigenContactos origen) {
+        candado.writeLock().lock();
+        try {
+            listo = false;
+            vaciar();
+            cambiosPendientes = new ArrayList<>();
+        } finally {
+            candado.writeLock().unlock();
+        }
+
+        // Mientras no está listo nadie más lee ni modifica las estructuras, así que se llenan sin bloquear
+        boolean construido;
+        try {
+            int filas = origen.recorrer(this::indexar);
+            Registro.info(Character.toUpperCase(descripcion.charAt(0)) + descripcion.substring(1)
+                    + " construido con " + filas + " contactos.");
+            construido = true;
+        } catch (SQLException | RuntimeException e) {
+            Registro.error("Error al construir el " + descripcion + ": " + e.getMessage());
+            construido = false;
+        }
+
+        candado.writeLock().lock();
+        try {
+            if (construido) {
+                cambiosPendientes.forEach(Runnable::run);
+            } else {
+                vaciar();
+            }
+            cambiosPendientes = null;
+            listo = construido;
+        } finally {
+            candado.writeLock().unlock();
+        }
+        return construido;
+    }
+
+    /**
+     * Indica si el índice está construido y puede responder búsquedas.
+     *
+     * @return {@code true} si el índice está listo.
+     */
+    public boolean estaListo() {
+        candado.readLock().lock();
+        try {
+            return listo;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el índice está construido. Debe llamarse con el bloqueo de
+     * {@link #candado} tomado.
+     *
+     * @return {@code true} si el índice está listo.
+     */
+    protected final boolean estaConstruido() {
+        return listo;
+    }
+
+    @Override
+    public void contactoInsertado(Contacto nuevo) {
+        aplicar(() -> indexar(nuevo));
+    }
+
+    @Override
+    public void contactoActualizado(Contacto anterior, Contacto nuevo) {
+        aplicar(() -> indexar(nuevo));
+    }
+
+    @Override
+    public void contactoEliminado(Contacto anterior) {
+        aplicar(() -> desindexar(anterior.idContacto()));
+    }
+
+    /**
+     * Aplica un cambio al índice, o lo guarda para después si el índice se
+     * está construyendo. Si el índice no está construido ni en construcción,
+     * el cambio se ignora: se verá al construirlo.
+     */
+    private void aplicar(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            if (cambiosPendientes != null) {
+                cambiosPendientes.add(cambio);
+            } else if (listo) {
+                cambio.run();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega un contacto al índice, reemplazando su versión anterior si ya
+     * estaba indexado.
+     *
+     * @param contacto El contacto.
+     */
+    protected abstract void indexar(Contacto contacto);
+
+    /**
+     * Quita un contacto del índice, si estaba indexado.
+     *
+     * @param idContacto El ID del contacto.
+     */
+    protected abstract void desindexar(int idContacto);
+
+    /**
+     * Descarta todos los contactos indexados.
+     */
+    protected abstract void vaciar();
+
+    /**
+     * Lista ordenada de idContacto sin repetidos. Los IDs nuevos suelen ser
+     * los mayores, así que agregar casi siempre es añadir al final.
+     */
+    static final class ListaIds {
+
+        int[] ids = new int[4];
+        int tamano;
+
+        void agregar(int idContacto) {
+            int posicion = tamano;
+            if (tamano > 0 && ids[tamano - 1] >= idContacto) {
+                posicion = Arrays.binarySearch(ids, 0, tamano, idContacto);
+                if (posicion >= 0) {
+                    return;
+                }
+                posicion = -posicion - 1;
+            }
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = idContacto;
+            tamano++;
+        }
+
+        boolean quitar(int idContacto) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, idContacto);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            tamano--;
+            return true;
+        }
+
+        boolean contiene(int idContacto) {
+            return Arrays.binarySearch(ids, 0, tamano, idContacto) >= 0;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para buscar contactos por una parte de su nombre o de sus
+ * apellidos sin consultar la base de datos.
+ *
+ * El texto de cada contacto (nombre, apellido paterno y apellido materno) se
+ * normaliza (minúsculas, sin acentos, espacios simples) y se parte en
+ * trigramas: todas sus subcadenas de tres caracteres. Para cada trigrama se
+ * guarda la lista ordenada de los `idContacto` que lo contienen. Una búsqueda
+ * de tres o más caracteres solo revisa los contactos que contienen todos los
+ * trigramas del texto buscado, empezando por la lista más corta, y confirma la
+ * coincidencia sobre el texto normalizado. Para las búsquedas de uno o dos
+ * caracteres, que no tienen trigramas, se guarda además la lista de los
+ * contactos con una palabra que empieza por cada uno o dos caracteres: solo
+ * si esos no llenan el límite se recorren los demás contactos en busca de
+ * coincidencias en medio de una palabra.
+ *
+ * Los resultados se ordenan por relevancia: primero las palabras completas,
+ * después los inicios de palabra y al final las coincidencias en medio de una
+ * palabra; a igualdad, las que están en el nombre y los textos más cortos.
+ * Solo se conservan los mejores en un montículo del tamaño del límite, así
+ * que una búsqueda con muchas coincidencias no las ordena todas.
+ *
+ * El índice se construye con {@link #construir(RepositorioContactos)} y se mantiene al día
+ * como {@link OyenteCambiosContactos}; ver {@link IndiceContactos}.
+ */
+public class IndiceNombres extends IndiceContactos {
+
+    private static final int TAMANO_GRAMA = 3;
+    // Marca de las claves de inicio de palabra, para distinguirlas de los trigramas
+    private static final long MARCA_PREFIJO = 1L << 48;
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    // Orden de relevancia de los resultados
+    private static final Comparator<Coincidencia> POR_RELEVANCIA = Comparator
+            .comparingInt(Coincidencia::rango)
+            .thenComparingInt(coincidencia -> coincidencia.entrada().texto().length())
+            .thenComparingInt(coincidencia -> coincidencia.entrada().contacto().idContacto());
+
+    // Contactos indexados, por idContacto
+    private final Map<Integer, Entrada> entradas = new HashMap<>();
+    // Para cada trigrama y cada inicio de palabra de uno o dos caracteres, los idContacto que lo contienen
+    private final Map<Long, ListaIds> publicaciones = new HashMap<>();
+
+    /**
+     * Crea un índice vacío; se llena con {@link #construir(RepositorioContactos)}.
+     */
+    public IndiceNombres() {
+        super("índice de nombres");
+    }
+
+    /**
+     * Un contacto indexado y su texto normalizado.
+     */
+    private record Entrada(Contacto contacto, String texto) {
+    }
+
+    /**
+     * Un contacto que coincide con la búsqueda y la calidad de la coincidencia
+     * (menor es mejor).
+     */
+    private record Coincidencia(int rango, Entrada entrada) {
+    }
+
+    /**
+     * Copia todos los contactos indexados, en cualquier orden, al contenedor
+     * indicado. Sirve para guardar una {@link InstantaneaContactos} sin
+     * consultar la base de datos.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos copiados, o -1 si el índice no está
+     * construido.
+     */
+    public int copiarContactos(Collection<? super Contacto> destino) {
+        candado.readLock().lock();
+        try {
+            if (!estaConstruido()) {
+                return -1;
+            }
+            for (Entrada entrada : entradas.values()) {
+                destino.add(entrada.contacto());
+            }
+            return entradas.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los contactos cuyo nombre o apellidos contienen el texto indicado,
+     * sin distinguir mayúsculas ni acentos.
+     *
+     * @param texto El texto a buscar.
+     * @param limite El número máximo de contactos a devolver.
+     * @return Los contactos encontrados, ordenados por relevancia, o
+     * {@code null} si el índice todavía no está construido.
+     */
+    public List<Contacto> buscar(String texto, int limite) {
+        String patron = normalizar(texto);
+        if (limite <= 0) {
+            return new ArrayList<>();
+        }
+        // Los mejores resultados hasta ahora, con el peor en la cima
+        PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(Math.min(limite, 64) + 1, POR_RELEVANCIA.reversed());
+        candado.readLock().lock();
+        try {
+            if (!estaConstruido()) {
+                return null;
+            }
+            if (patron.isEmpty()) {
+                for (Entrada entrada : entradas.values()) {
+                    evaluar(entrada, patron, mejores, limite);
+                }
+            } else if (patron.length() < TAMANO_GRAMA) {
+                // Los inicios de palabra siempre son mejores que las coincidencias en medio de una palabra
+                ListaIds iniciales = publicaciones.get(prefijo(patron));
+                int encontrados = 0;
+                if (iniciales != null) {
+                    for (int k = 0; k < iniciales.tamano; k++) {
+                        evaluar(entradas.get(iniciales.ids[k]), patron, mejores, limite);
+                    }
+                    encontrados = iniciales.tamano;
+                }
+                if (encontrados < limite) {
+                    for (Entrada entrada : entradas.values()) {
+                        if (iniciales == null || !iniciales.contiene(entrada.contacto().idContacto())) {
+                            evaluar(entrada, patron, mejores, limite);
+                        }
+                    }
+                }
+            } else {
+                long[] gramas = gramas(patron);
+                ListaIds[] listas = new ListaIds[gramas.length];
+                for (int i = 0; i < gramas.length; i++) {
+                    listas[i] = publicaciones.get(gramas[i]);
+                    if (listas[i] == null) {
+                        // Ningún contacto contiene este trigrama
+                        return new ArrayList<>();
+                    }
+                }
+                Arrays.sort(listas, Comparator.comparingInt(lista -> lista.tamano));
+                ListaIds menor = listas[0];
+                candidatos:
+                for (int k = 0; k < menor.tamano; k++) {
+                    int idContacto = menor.ids[k];
+                    for (int i = 1; i < listas.length; i++) {
+                        if (!listas[i].contiene(idContacto)) {
+                            continue candidatos;
+                        }
+                    }
+                    evaluar(entradas.get(idContacto), patron, mejores, limite);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+
+        Contacto[] resultado = new Contacto[mejores.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            resultado[i] = mejores.poll().entrada().contacto();
+        }
+        return new ArrayList<>(Arrays.asList(resultado));
+    }
+
+    @Override
+    protected void vaciar() {
+        entradas.clear();
+        publicaciones.clear();
+    }
+
+    @Override
+    protected void indexar(Contacto contacto) {
+        desindexar(contacto.idContacto());
+        Entrada entrada = new Entrada(contacto, textoIndexado(contacto));
+        entradas.put(contacto.idContacto(), entrada);
+        for (long grama : claves(entrada.texto())) {
+            publicaciones.computeIfAbsent(grama, clave -> new ListaIds()).agregar(contacto.idContacto());
+        }
+    }
+
+    @Override
+    protected void desindexar(int idContacto) {
+        Entrada entrada = entradas.remove(idContacto);
+        if (entrada == null) {
+            return;
+        }
+        for (long grama : claves(entrada.texto())) {
+            ListaIds lista = publicaciones.get(grama);
+            if (lista != null && lista.quitar(idContacto) && lista.tamano == 0) {
+                publicaciones.remove(grama);
+            }
+        }
+    }
+
+    /**
+     * Comprueba si el texto de un contacto contiene el patrón y, si es así,
+     * agrega la coincidencia con el rango de su mejor aparición a los mejores
+     * resultados, sin pasar del límite.
+     */
+    private static void evaluar(Entrada entrada, String patron, PriorityQueue<Coincidencia> mejores, int limite) {
+        String texto = entrada.texto();
+        int rango = Integer.MAX_VALUE;
+        for (int posicion = texto.indexOf(patron); posicion >= 0 && rango > 0; posicion = texto.indexOf(patron, posicion + 1)) {
+            int fin = posicion + patron.length();
+            boolean inicioPalabra = posicion == 0 || texto.charAt(posicion - 1) == ' ';
+            boolean finPalabra = fin == texto.length() || texto.charAt(fin) == ' ';
+            int tipo = inicioPalabra ? (finPalabra ? 0 : 1) : 2;
+            // A igualdad de tipo, primero las coincidencias al inicio del texto (el nombre)
+            rango = Math.min(rango, tipo * 2 + (posicion == 0 ? 0 : 1));
+        }
+        if (rango == Integer.MAX_VALUE) {
+            return;
+        }
+        Coincidencia coincidencia = new Coincidencia(rango, entrada);
+        if (mejores.size() < limite) {
+            mejores.add(coincidencia);
+        } else if (POR_RELEVANCIA.compare(coincidencia, mejores.peek()) < 0) {
+            mejores.poll();
+            mejores.add(coincidencia);
+        }
+    }
+
+    /**
+     * Obtiene las claves con las que se indexa un texto normalizado: sus
+     * trigramas y los uno y dos primeros caracteres de cada palabra.
+     */
+    private static long[] claves(String texto) {
+        long[] trigramas = gramas(texto);
+        long[] claves = Arrays.copyOf(trigramas, trigramas.length + texto.length() * 2);
+        int tamano = trigramas.length;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) != ' ' && (i == 0 || texto.charAt(i - 1) == ' ')) {
+                claves[tamano++] = prefijo(texto.substring(i, i + 1));
+                if (i + 1 < texto.length() && texto.charAt(i + 1) != ' ') {
+                    claves[tamano++] = prefijo(texto.substring(i, i + 2));
+                }
+            }
+        }
+        Arrays.sort(claves, trigramas.length, tamano);
+        int distintos = trigramas.length;
+        for (int i = trigramas.length; i < tamano; i++) {
+            if (i == trigramas.length || claves[i] != claves[i - 1]) {
+                claves[distintos++] = claves[i];
+            }
+        }
+        return Arrays.copyOf(claves, distintos);
+    }
+
+    /**
+     * Empaqueta en un {@code long} el inicio de palabra de uno o dos
+     * caracteres indicado.
+     */
+    private static long prefijo(String inicio) {
+        return MARCA_PREFIJO | ((long) inicio.charAt(0) << 16) | (inicio.length() > 1 ? inicio.charAt(1) : 0);
+    }
+
+    /**
+     * Obtiene los trigramas distintos de un texto normalizado, cada uno
+     * empaquetado en un {@code long} (16 bits por carácter).
+     */
+    private static long[] gramas(String texto) {
+        int cantidad = texto.length() - TAMANO_GRAMA + 1;
+        if (cantidad <= 0) {
+            return new long[0];
+        }
+        long[] gramas = new long[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            gramas[i] = ((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2);
+        }
+        Arrays.sort(gramas);
+        int distintos = 0;
+        for (int i = 0; i < gramas.length; i++) {
+            if (i == 0 || gramas[i] != gramas[i - 1]) {
+                gramas[distintos++] = gramas[i];
+            }
+        }
+        return Arrays.copyOf(gramas, distintos);
+    }
+
+    /**
+     * Obtiene el texto con el que se indexa un contacto: su nombre completo
+     * normalizado.
+     */
+    static String textoIndexado(Contacto contacto) {
+        return normalizar(Objects.toString(contacto.nombre(), "") + " "
+                + Objects.toString(contacto.apellidoPaterno(), "") + " " + Objects.toString(contacto.apellidoMaterno(), ""));
+    }
+
+    /**
+     * Indica si un contacto aparecería en una búsqueda, es decir, si su nombre
+     * completo contiene el texto buscado. Sirve para filtrar en memoria
+     * resultados ya obtenidos.
+     *
+     * @param contacto El contacto.
+     * @param textoNormalizado El texto buscado, ya pasado por
+     * {@link #normalizar(String)}.
+     */
+    static boolean coincide(Contacto contacto, String textoNormalizado) {
+        return textoIndexado(contacto).contains(textoNormalizado);
+    }
+
+    /**
+     * Normaliza un texto para compararlo: minúsculas, sin acentos ni
+     * diéresis y con los espacios reducidos a uno solo.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
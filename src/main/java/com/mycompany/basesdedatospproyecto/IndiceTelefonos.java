@@ -0,0 +1,260 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice en memoria para encontrar los contactos de un número de teléfono
+ * sin consultar la base de datos, por ejemplo para identificar una llamada
+ * entrante.
+ *
+ * Como `telefono` es texto libre, cada número se normaliza antes de
+ * indexarlo ({@link #normalizar(String)}): se quedan solo los dígitos y se
+ * quita el prefijo del país propio ({@value #CODIGO_PAIS_PREDETERMINADO}, o el
+ * de la propiedad {@value #PROPIEDAD_CODIGO_PAIS}) y los prefijos de marcación
+ * nacionales, así que `+52 (55) 1234-5678`, `0052 55 1234 5678` y
+ * `55 1234 5678` se guardan igual. Los números de otros países conservan su
+ * código precedido de `+`.
+ *
+ * Se admiten dos búsquedas: por número exacto ({@link #buscar(String)}), con
+ * una tabla hash, y por terminación ({@link #buscarPorTerminacion(String, int)}),
+ * para cuando el número llega incompleto o con un prefijo distinto. Para la
+ * segunda, los números se guardan además con sus dígitos invertidos en un
+ * árbol ordenado, de modo que los que terminan igual quedan juntos y se
+ * encuentran con una búsqueda de rango.
+ *
+ * El índice se construye con {@link #construir(RepositorioContactos)} y se
+ * mantiene al día como {@link OyenteCambiosContactos}; ver
+ * {@link IndiceContactos}.
+ */
+public class IndiceTelefonos extends IndiceContactos {
+
+    // Propiedades del sistema con el país propio (-Dcontactos.telefonos.codigoPais=52)
+    static final String PROPIEDAD_CODIGO_PAIS = "contactos.telefonos.codigoPais";
+    static final String PROPIEDAD_LONGITUD_NACIONAL = "contactos.telefonos.longitudNacional";
+    private static final String CODIGO_PAIS_PREDETERMINADO = "52";
+    private static final int LONGITUD_NACIONAL_PREDETERMINADA = 10;
+    // Prefijos que se marcan antes de un número nacional y no forman parte de él
+    // (larga distancia, celular y el "1" de los celulares marcados desde el extranjero)
+    private static final String[] PREFIJOS_MARCACION = {"044", "045", "01", "1", "0"};
+    // Dígitos mínimos de una búsqueda por terminación, para no recorrer medio índice
+    private static final int DIGITOS_MINIMOS_TERMINACION = 4;
+
+    private final String codigoPais;
+    private final int longitudNacional;
+
+    // Contactos indexados, por idContacto
+    private final Map<Integer, Contacto> contactos = new HashMap<>();
+    // Para cada número normalizado, los idContacto que lo tienen
+    private final Map<String, ListaIds> porNumero = new HashMap<>();
+    // Los mismos números, con los dígitos invertidos, para buscar por terminación
+    private final TreeMap<String, ListaIds> porTerminacion = new TreeMap<>();
+
+    /**
+     * Crea un índice vacío con el país indicado en las propiedades del
+     * sistema; se llena con {@link #construir(RepositorioContactos)}.
+     */
+    public IndiceTelefonos() {
+        this(System.getProperty(PROPIEDAD_CODIGO_PAIS, CODIGO_PAIS_PREDETERMINADO),
+                Integer.getInteger(PROPIEDAD_LONGITUD_NACIONAL, LONGITUD_NACIONAL_PREDETERMINADA));
+    }
+
+    /**
+     * Crea un índice vacío.
+     *
+     * @param codigoPais El código del país propio, sin `+`.
+     * @param longitudNacional El número de dígitos de un número nacional del
+     * país propio.
+     */
+    public IndiceTelefonos(String codigoPais, int longitudNacional) {
+        super("índice de teléfonos");
+        this.codigoPais = codigoPais;
+        this.longitudNacional = longitudNacional;
+    }
+
+    /**
+     * Busca los contactos cuyo teléfono es el mismo número que el indicado,
+     * aunque esté escrito de otra forma.
+     *
+     * @param telefono El número, en cualquier formato.
+     * @return Los contactos con ese número, ordenados por ID, o {@code null}
+     * si el índice todavía no está construido.
+     */
+    public List<Contacto> buscar(String telefono) {
+        String numero = normalizar(telefono);
+        candado.readLock().lock();
+        try {
+            if (!estaConstruido()) {
+                return null;
+            }
+            List<Contacto> resultado = new ArrayList<>(1);
+            if (numero != null) {
+                agregarContactos(porNumero.get(numero), resultado, Integer.MAX_VALUE);
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los contactos cuyo teléfono termina en los dígitos indicados. Se
+     * ignora cualquier carácter que no sea un dígito.
+     *
+     * @param digitos Los últimos dígitos del número; al menos
+     * {@value #DIGITOS_MINIMOS_TERMINACION}.
+     * @param limite El número máximo de contactos a devolver.
+     * @return Los contactos encontrados, agrupados por número, o {@code null}
+     * si el índice todavía no está construido.
+     */
+    public List<Contacto> buscarPorTerminacion(String digitos, int limite) {
+        String invertido = new StringBuilder(soloDigitos(digitos)).reverse().toString();
+        candado.readLock().lock();
+        try {
+            if (!estaConstruido()) {
+                return null;
+            }
+            List<Contacto> resultado = new ArrayList<>();
+            if (invertido.length() < DIGITOS_MINIMOS_TERMINACION) {
+                return resultado;
+            }
+            // Los números que terminan en los dígitos buscados empiezan, invertidos, por ellos
+            NavigableMap<String, ListaIds> rango = porTerminacion.subMap(invertido, true,
+                    invertido + Character.MAX_VALUE, false);
+            for (ListaIds ids : rango.values()) {
+                if (resultado.size() >= limite) {
+                    break;
+                }
+                agregarContactos(ids, resultado, limite);
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega al resultado los contactos de una lista de IDs, sin pasar del
+     * límite.
+     */
+    private void agregarContactos(ListaIds ids, List<Contacto> resultado, int limite) {
+        if (ids == null) {
+            return;
+        }
+        for (int i = 0; i < ids.tamano && resultado.size() < limite; i++) {
+            resultado.add(contactos.get(ids.ids[i]));
+        }
+    }
+
+    @Override
+    protected void vaciar() {
+        contactos.clear();
+        porNumero.clear();
+        porTerminacion.clear();
+    }
+
+    @Override
+    protected void indexar(Contacto contacto) {
+        desindexar(contacto.idContacto());
+        String numero = normalizar(contacto.telefono());
+        if (numero == null) {
+            return; // Sin teléfono, o sin ningún dígito
+        }
+        contactos.put(contacto.idContacto(), contacto);
+        porNumero.computeIfAbsent(numero, clave -> new ListaIds()).agregar(contacto.idContacto());
+        porTerminacion.computeIfAbsent(invertir(numero), clave -> new ListaIds()).agregar(contacto.idContacto());
+    }
+
+    @Override
+    protected void desindexar(int idContacto) {
+        Contacto contacto = contactos.remove(idContacto);
+        if (contacto == null) {
+            return;
+        }
+        String numero = normalizar(contacto.telefono());
+        quitar(porNumero, numero, idContacto);
+        quitar(porTerminacion, invertir(numero), idContacto);
+    }
+
+    private static void quitar(Map<String, ListaIds> mapa, String clave, int idContacto) {
+        ListaIds ids = mapa.get(clave);
+        if (ids != null && ids.quitar(idContacto) && ids.tamano == 0) {
+            mapa.remove(clave);
+        }
+    }
+
+    /**
+     * Invierte los dígitos de un número normalizado, sin el `+` de los
+     * números extranjeros.
+     */
+    private static String invertir(String numero) {
+        int inicio = numero.startsWith("+") ? 1 : 0;
+        return new StringBuilder(numero.length() - inicio).append(numero, inicio, numero.length()).reverse().toString();
+    }
+
+    /**
+     * Normaliza un número de teléfono escrito en cualquier formato.
+     *
+     * Se quitan los espacios, guiones, paréntesis y cualquier otro carácter
+     * que no sea un dígito. Un número que empieza con `+` o `00` es
+     * internacional: si es del país propio se le quita el código del país, y
+     * si es de otro país se devuelve con `+` y todos sus dígitos. Un número
+     * nacional que tiene más dígitos de los normales se recorta si lo que
+     * sobra al principio es el código del país o un prefijo de marcación
+     * (`01`, `044`, `045`, `1`, `0`).
+     *
+     * @param telefono El número.
+     * @return El número normalizado, o {@code null} si no tiene dígitos.
+     */
+    String normalizar(String telefono) {
+        if (telefono == null) {
+            return null;
+        }
+        String digitos = soloDigitos(telefono);
+        boolean internacional = telefono.strip().startsWith("+");
+        if (!internacional && digitos.startsWith("00")) {
+            internacional = true;
+            digitos = digitos.substring(2);
+        }
+        if (digitos.isEmpty()) {
+            return null;
+        }
+        if (internacional) {
+            if (!digitos.startsWith(codigoPais)) {
+                return "+" + digitos;
+            }
+            digitos = digitos.substring(codigoPais.length());
+        } else if (digitos.length() == codigoPais.length() + longitudNacional && digitos.startsWith(codigoPais)) {
+            digitos = digitos.substring(codigoPais.length());
+        }
+        if (digitos.length() > longitudNacional) {
+            for (String prefijo : PREFIJOS_MARCACION) {
+                if (digitos.length() - prefijo.length() == longitudNacional && digitos.startsWith(prefijo)) {
+                    return digitos.substring(prefijo.length());
+                }
+            }
+        }
+        return digitos;
+    }
+
+    /**
+     * Obtiene solo los dígitos de un texto.
+     */
+    private static String soloDigitos(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder digitos = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char caracter = texto.charAt(i);
+            if (caracter >= '0' && caracter <= '9') {
+                digitos.append(caracter);
+            }
+        }
+        return digitos.toString();
+    }
+}
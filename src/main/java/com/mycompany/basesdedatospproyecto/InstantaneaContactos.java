@@ -0,0 +1,377 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Copia binaria de todos los contactos y grupos, guardada en un archivo que
+ * se lee de una vez a memoria.
+ *
+ * Sirve para que la ventana se muestre con datos al iniciar sin esperar a la
+ * base de datos: la tabla y los contadores se pintan desde la instantánea, y
+ * después se aplican en segundo plano solo los cambios registrados en
+ * `cambios_contactos` desde su versión ({@link #versionCambios()}).
+ *
+ * El archivo tiene una cabecera con la versión de los cambios, la fecha de
+ * creación y los grupos con su número de contactos; después, un índice con el
+ * `idContacto` y la posición de cada contacto, ordenado por `idContacto`, y al
+ * final los datos de los contactos. Abrirlo copia los bytes del archivo y
+ * solo interpreta la cabecera: cada contacto se decodifica cuando se pide por
+ * su posición, así que no se crea ningún objeto por contacto al abrirlo.
+ *
+ * El archivo no se mapea en memoria: un mapeo solo se libera cuando el
+ * recolector de basura lo descarta, y en Windows un archivo mapeado no se
+ * puede reemplazar, así que la instantánea guardada al cerrar fallaría.
+ *
+ * La instantánea se escribe en un archivo temporal y se pone en lugar de la
+ * anterior con un renombrado atómico, de modo que nunca queda a medias. Un
+ * archivo que no se reconoce o está truncado se ignora.
+ */
+public final class InstantaneaContactos {
+
+    // Propiedad del sistema con la ruta del archivo (-Dcontactos.instantanea=/ruta/instantanea.bin)
+    static final String PROPIEDAD_ARCHIVO = "contactos.instantanea";
+
+    private static final int MAGICO = 0x494E5354; // "INST"
+    private static final int FORMATO = 1;
+    // Bytes de cada entrada del índice: idContacto y posición de sus datos
+    private static final int TAMANO_ENTRADA = 8;
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+
+    private final ByteBuffer datos;
+    private final long versionCambios;
+    private final long creada;
+    private final Map<Integer, String> nombresGrupo;
+    private final Map<Integer, Integer> conteosPorGrupo;
+    private final int numeroContactos;
+    private final int inicioIndice;
+    private final int inicioDatos;
+
+    private InstantaneaContactos(ByteBuffer datos) {
+        this.datos = datos;
+        if (datos.getInt() != MAGICO || datos.getInt() != FORMATO) {
+            throw new IllegalArgumentException("el archivo no es una instantánea de contactos");
+        }
+        if (datos.getLong() != datos.capacity()) {
+            throw new IllegalArgumentException("el archivo está incompleto");
+        }
+        this.versionCambios = datos.getLong();
+        this.creada = datos.getLong();
+        int numeroGrupos = datos.getInt();
+        Map<Integer, String> nombres = new LinkedHashMap<>();
+        Map<Integer, Integer> conteos = new LinkedHashMap<>();
+        for (int i = 0; i < numeroGrupos; i++) {
+            int idGrupo = datos.getInt();
+            conteos.put(idGrupo, datos.getInt());
+            nombres.put(idGrupo, leerTexto(datos, datos.position()));
+            datos.position(datos.position() + 4 + Math.max(0, datos.getInt(datos.position())));
+        }
+        this.nombresGrupo = Collections.unmodifiableMap(nombres);
+        this.conteosPorGrupo = Collections.unmodifiableMap(conteos);
+        this.numeroContactos = datos.getInt();
+        this.inicioIndice = datos.position();
+        this.inicioDatos = Math.addExact(inicioIndice, Math.multiplyExact(numeroContactos, TAMANO_ENTRADA));
+        if (numeroContactos < 0 || inicioDatos > datos.capacity()) {
+            throw new IllegalArgumentException("el índice de contactos está dañado");
+        }
+    }
+
+    /**
+     * Obtiene la ruta de la instantánea: la indicada en la propiedad
+     * {@value #PROPIEDAD_ARCHIVO}, o `instantanea.bin` en la carpeta
+     * `.contactos` del usuario.
+     *
+     * @return La ruta del archivo.
+     */
+    public static Path archivoPredeterminado() {
+        String ruta = System.getProperty(PROPIEDAD_ARCHIVO);
+        return ruta != null ? Path.of(ruta)
+                : Path.of(System.getProperty("user.home"), ".contactos", "instantanea.bin");
+    }
+
+    /**
+     * Abre una instantánea leyendo su archivo completo a memoria. El archivo
+     * se cierra antes de volver, así que después se puede reemplazar. Solo se
+     * interpreta la cabecera.
+     *
+     * @param archivo El archivo de la instantánea.
+     * @return La instantánea, o {@code null} si el archivo no existe o no es
+     * una instantánea válida.
+     */
+    public static InstantaneaContactos abrir(Path archivo) {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("el archivo es demasiado grande");
+            }
+            ByteBuffer leidos = ByteBuffer.allocate((int) canal.size());
+            while (leidos.hasRemaining()) {
+                if (canal.read(leidos) < 0) {
+                    throw new IllegalArgumentException("el archivo está incompleto");
+                }
+            }
+            return new InstantaneaContactos(leidos.flip());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            Registro.aviso("Se ignora la instantánea de contactos " + archivo + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda una instantánea de los contactos. Se escribe primero en un
+     * archivo temporal que luego reemplaza al anterior, así que una
+     * instantánea abierta nunca ve un archivo a medias.
+     *
+     * @param archivo El archivo de la instantánea.
+     * @param versionCambios La versión de `cambios_contactos` hasta la que
+     * los contactos están al día; al iniciar se aplican los cambios
+     * posteriores.
+     * @param contactos Todos los contactos, en cualquier orden.
+     * @param nombreGrupo Obtiene el nombre de un grupo cuando un contacto no
+     * lo incluye.
+     * @return {@code true} si se guardó la instantánea.
+     */
+    public static boolean guardar(Path archivo, long versionCambios, Collection<Contacto> contactos,
+            IntFunction<String> nombreGrupo) {
+        List<Contacto> ordenados = new ArrayList<>(contactos);
+        ordenados.sort(Comparator.comparingInt(Contacto::idContacto));
+        Map<Integer, String> nombres = new TreeMap<>();
+        Map<Integer, Integer> conteos = new TreeMap<>();
+        for (Contacto contacto : ordenados) {
+            conteos.merge(contacto.idGrupo(), 1, Integer::sum);
+            if (contacto.nombreGrupo() != null) {
+                nombres.putIfAbsent(contacto.idGrupo(), contacto.nombreGrupo());
+            }
+        }
+        for (Integer idGrupo : conteos.keySet()) {
+            nombres.computeIfAbsent(idGrupo, nombreGrupo::apply);
+        }
+
+        long inicio = System.nanoTime();
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + EXTENSION_TEMPORAL);
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                escribir(canal, versionCambios, ordenados, nombres, conteos);
+                canal.force(true);
+            }
+            try {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            Registro.error("Error al guardar la instantánea de contactos: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignorada) {
+                // El temporal se sobrescribe en el siguiente intento
+            }
+            return false;
+        }
+        Registro.info("Instantánea de " + ordenados.size() + " contactos guardada en "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+        return true;
+    }
+
+    /**
+     * Escribe la instantánea completa: la cabecera, luego los datos de los
+     * contactos a continuación del espacio del índice, y al final el índice,
+     * que ya conoce la posición de cada contacto.
+     */
+    private static void escribir(FileChannel canal, long versionCambios, List<Contacto> contactos,
+            Map<Integer, String> nombres, Map<Integer, Integer> conteos) throws IOException {
+        // La longitud total se completa al terminar
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+        salida.writeInt(MAGICO);
+        salida.writeInt(FORMATO);
+        salida.writeLong(0);
+        salida.writeLong(versionCambios);
+        salida.writeLong(System.currentTimeMillis());
+        salida.writeInt(conteos.size());
+        for (Map.Entry<Integer, Integer> conteo : conteos.entrySet()) {
+            salida.writeInt(conteo.getKey());
+            salida.writeInt(conteo.getValue());
+            escribirTexto(salida, nombres.get(conteo.getKey()));
+        }
+        salida.writeInt(contactos.size());
+        long inicioIndice = salida.size();
+        long inicioDatos = inicioIndice + (long) contactos.size() * TAMANO_ENTRADA;
+        salida.flush();
+
+        canal.position(inicioDatos);
+        salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+        ByteBuffer indice = ByteBuffer.allocate(contactos.size() * TAMANO_ENTRADA);
+        for (Contacto contacto : contactos) {
+            indice.putInt(contacto.idContacto());
+            indice.putInt(Math.toIntExact(inicioDatos + salida.size()));
+            salida.writeInt(contacto.idGrupo());
+            escribirTexto(salida, contacto.nombre());
+            escribirTexto(salida, contacto.apellidoPaterno());
+            escribirTexto(salida, contacto.apellidoMaterno());
+            escribirTexto(salida, contacto.telefono());
+        }
+        salida.flush();
+        long longitud = Math.addExact(inicioDatos, salida.size());
+
+        indice.flip();
+        canal.write(indice, inicioIndice);
+        canal.write(ByteBuffer.allocate(Long.BYTES).putLong(0, longitud), 8);
+    }
+
+    /**
+     * Escribe un texto como su longitud en bytes UTF-8 (-1 si es
+     * {@code null}) seguida de los bytes.
+     */
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        if (texto == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    /**
+     * Lee un texto escrito con {@link #escribirTexto}, a partir de una
+     * posición absoluta.
+     */
+    private static String leerTexto(ByteBuffer buffer, int posicion) {
+        int longitud = buffer.getInt(posicion);
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        buffer.get(posicion + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return La versión de `cambios_contactos` hasta la que la instantánea
+     * está al día.
+     */
+    public long versionCambios() {
+        return versionCambios;
+    }
+
+    /**
+     * @return El instante en que se guardó la instantánea, en milisegundos
+     * desde la época.
+     */
+    public long creada() {
+        return creada;
+    }
+
+    /**
+     * @return El número de contactos de la instantánea.
+     */
+    public int numeroContactos() {
+        return numeroContactos;
+    }
+
+    /**
+     * @return El número de contactos de cada grupo, por idGrupo.
+     */
+    public Map<Integer, Integer> contarContactosAgrupados() {
+        return conteosPorGrupo;
+    }
+
+    /**
+     * Obtiene el `idContacto` de la posición indicada sin decodificar el
+     * resto del contacto.
+     *
+     * @param posicion La posición del contacto, en orden de `idContacto`.
+     * @return El ID del contacto.
+     */
+    public int idContacto(int posicion) {
+        return datos.getInt(inicioIndice + posicion * TAMANO_ENTRADA);
+    }
+
+    /**
+     * Decodifica el contacto de la posición indicada, con el nombre de su
+     * grupo.
+     *
+     * @param posicion La posición del contacto, en orden de `idContacto`.
+     * @return El contacto.
+     * @throws IndexOutOfBoundsException Si la posición está fuera de la
+     * instantánea.
+     */
+    public Contacto contacto(int posicion) {
+        if (posicion < 0 || posicion >= numeroContactos) {
+            throw new IndexOutOfBoundsException(posicion);
+        }
+        int entrada = inicioIndice + posicion * TAMANO_ENTRADA;
+        int idContacto = datos.getInt(entrada);
+        int inicio = datos.getInt(entrada + 4);
+        try {
+            int idGrupo = datos.getInt(inicio);
+            int cursor = inicio + 4;
+            String[] textos = new String[4];
+            for (int i = 0; i < textos.length; i++) {
+                textos[i] = leerTexto(datos, cursor);
+                cursor += 4 + (textos[i] == null ? 0 : datos.getInt(cursor));
+            }
+            return new Contacto(idContacto, textos[0], textos[1], textos[2], textos[3], idGrupo,
+                    nombresGrupo.get(idGrupo));
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IllegalStateException("El contacto " + idContacto + " de la instantánea está dañado", e);
+        }
+    }
+
+    /**
+     * Agrega los contactos de un rango de posiciones al contenedor indicado.
+     *
+     * @param desde La primera posición.
+     * @param cantidad El número máximo de contactos.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados.
+     */
+    public int leer(int desde, int cantidad, Collection<? super Contacto> destino) {
+        int hasta = (int) Math.min(numeroContactos, (long) desde + cantidad);
+        for (int posicion = Math.max(0, desde); posicion < hasta; posicion++) {
+            destino.add(contacto(posicion));
+        }
+        return Math.max(0, hasta - Math.max(0, desde));
+    }
+
+    /**
+     * Entrega todos los contactos, en orden de `idContacto`, a la acción
+     * indicada.
+     *
+     * @param accion Recibe cada contacto.
+     * @return El número de contactos recorridos.
+     */
+    public int recorrer(Consumer<? super Contacto> accion) {
+        for (int posicion = 0; posicion < numeroContactos; posicion++) {
+            accion.accept(contacto(posicion));
+        }
+        return numeroContactos;
+    }
+}
@@ -4,11 +4,12 @@
  */
 package com.mycompany.basesdedatospproyecto;
 
-import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.table.DefaultTableModel;
 
 /**
  *
@@ -16,7 +17,50 @@ import javax.swing.table.DefaultTableModel;
  */
 public class Interfaz extends javax.swing.JFrame {
 
-    MYSQL db = new MYSQL();
+    // Repositorio elegido al iniciar: el servidor MySQL o el almacén local (-Dcontactos.repositorio=archivos).
+    // Se abre en segundo plano; hasta que llega, los controles que lo usan están deshabilitados
+    RepositorioContactos db;
+
+    // Ejecuta las consultas fuera del hilo de la interfaz; mientras trabaja se muestra el cursor de espera
+    EjecutorTareasBD ejecutor = new EjecutorTareasBD(this::mostrarOcupado);
+    // Claves de las lecturas que se reemplazan entre sí: una búsqueda nueva descarta la anterior
+    private static final String CLAVE_BUSQUEDA = "busqueda";
+    private static final String CLAVE_SELECCION = "seleccion";
+
+    // MODELOS DE LA TABLA
+    // Listado completo: se carga por páginas a medida que el usuario se desplaza
+    private static final int TAMANO_PAGINA = 200;
+    private static final int MAXIMO_PAGINAS_EN_MEMORIA = 20;
+    ModeloTablaPaginado modeloPaginado;
+    // Resultados de búsquedas: se cargan completos
+    ModeloTablaResultados modeloResultados = new ModeloTablaResultados();
+    // Máximo de resultados de una búsqueda por nombre; se muestran los más relevantes
+    private static final int LIMITE_RESULTADOS_POR_NOMBRE = 1_000;
+    // Cada cuánto se consultan los cambios hechos por otros clientes
+    private static final long INTERVALO_SINCRONIZACION_MS = 2_000;
+    // Pausa en la escritura del filtro por nombre tras la cual se busca automáticamente
+    private static final int RETARDO_BUSQUEDA_AL_ESCRIBIR_MS = 250;
+    // Propiedad del sistema que activa la escritura diferida de las actualizaciones (-Dcontactos.escrituraDiferida=true)
+    private static final String PROPIEDAD_ESCRITURA_DIFERIDA = "contactos.escrituraDiferida";
+    // Cada cuánto se guarda la instantánea con la que se pinta la ventana al iniciar
+    private static final int PERIODO_INSTANTANEA_MS = 10 * 60 * 1000;
+    // Antigüedad máxima de una instantánea usable: el registro de cambios se purga a los 7 días
+    private static final long EDAD_MAXIMA_INSTANTANEA_MS = 6L * 24 * 60 * 60 * 1000;
+
+    // Búsqueda por nombre mientras se escribe: se lanza cuando el usuario deja de teclear
+    javax.swing.Timer temporizadorBusqueda;
+    // Texto normalizado de la búsqueda por nombre cuyos resultados completos se muestran;
+    // null si la tabla muestra otra cosa o si los resultados se recortaron
+    private String busquedaNombreMostrada;
+    // Condición que cumplen los resultados mostrados, para agregar los contactos nuevos que también la
+    // cumplan; null si la tabla muestra el listado completo o resultados sin una condición conocida
+    private Predicate<Contacto> filtroMostrado;
+
+    // Aplica a la tabla los cambios que otros clientes hacen en la base de datos;
+    // null con el almacén local, que solo usa esta aplicación
+    SincronizadorCambios sincronizador;
+    // Guarda la instantánea periódicamente; null si no hay sincronizador
+    private javax.swing.Timer temporizadorInstantanea;
 
     // VARIABLES
     String dataNombres;
@@ -30,10 +74,264 @@ public class Interfaz extends javax.swing.JFrame {
      * Creates new form Interfaz
      */
     public Interfaz() {
+        this(CompletableFuture.completedFuture(RepositorioContactos.abrir()));
+    }
+
+    /**
+     * Crea la ventana sin esperar al repositorio. La ventana se puede mostrar
+     * de inmediato, con los controles que consultan datos deshabilitados; al
+     * abrirse el repositorio se habilitan y se empiezan a cargar la tabla y
+     * los contadores.
+     *
+     * @param repositorio El repositorio que se está abriendo en segundo
+     * plano.
+     */
+    public Interfaz(CompletableFuture<RepositorioContactos> repositorio) {
         initComponents();
+        habilitarControles(false);
+        obtenerElIDConClick();
+        buscarAlEscribir();
+        repositorio.whenComplete((abierto, error) -> java.awt.EventQueue.invokeLater(() -> {
+            if (error != null) {
+                Registro.error("No se pudo abrir el repositorio de contactos: " + error.getMessage());
+            } else {
+                usarRepositorio(abierto);
+            }
+        }));
+    }
+
+    /**
+     * Empieza a usar el repositorio ya abierto: crea el modelo paginado y el
+     * sincronizador, habilita los controles y carga la tabla y los contadores
+     * desde la instantánea o desde la base de datos. Se invoca en el hilo de
+     * la interfaz.
+     *
+     * @param repositorio El repositorio abierto.
+     */
+    private void usarRepositorio(RepositorioContactos repositorio) {
+        long inicio = System.nanoTime();
+        this.db = repositorio;
+        modeloPaginado = new ModeloTablaPaginado(db, ejecutor, TAMANO_PAGINA, MAXIMO_PAGINAS_EN_MEMORIA);
+        medirPrimerasFilas(inicio);
+        sincronizador = db instanceof MYSQL mysql
+                ? new SincronizadorCambios(mysql, INTERVALO_SINCRONIZACION_MS,
+                        cambios -> java.awt.EventQueue.invokeLater(() -> aplicarCambiosExternos(cambios)))
+                : null;
+        // Con el almacén local las escrituras ya no esperan a la red, así que no se difieren
+        if (Boolean.getBoolean(PROPIEDAD_ESCRITURA_DIFERIDA) && db instanceof MYSQL mysql) {
+            mysql.activarEscrituraDiferida();
+        }
+        // Sin servidor los datos ya están en memoria; con MySQL se intenta pintar desde la instantánea
+        InstantaneaContactos instantanea = sincronizador != null
+                ? InstantaneaContactos.abrir(InstantaneaContactos.archivoPredeterminado()) : null;
+        if (instantanea != null && System.currentTimeMillis() - instantanea.creada() > EDAD_MAXIMA_INSTANTANEA_MS) {
+            Registro.info("La instantánea de contactos es demasiado antigua; se carga desde la base de datos.");
+            instantanea = null;
+        }
+        if (instantanea != null) {
+            iniciarDesdeInstantanea(instantanea);
+        } else {
+            iniciarDesdeBaseDeDatos();
+        }
+        if (sincronizador != null) {
+            guardarInstantaneaPeriodicamente();
+        }
+        cerrarAlSalir();
+        habilitarControles(true);
+    }
+
+    /**
+     * Habilita o deshabilita los botones y filtros que consultan o modifican
+     * los contactos.
+     *
+     * @param habilitar {@code true} para habilitarlos.
+     */
+    private void habilitarControles(boolean habilitar) {
+        for (javax.swing.JComponent control : new javax.swing.JComponent[]{btnBuscarPorNombre, btnBuscarPorGrupo,
+            jButton3, FiltrarNombre, FiltrarIDContecto, filtrarGrupo}) {
+            control.setEnabled(habilitar);
+        }
+        // Mientras la tabla muestra una instantánea no aplica las escrituras, así que se esperan a la base de datos
+        habilitarEscrituras(habilitar && !modeloPaginado.mostrandoInstantanea());
+    }
+
+    /**
+     * Habilita o deshabilita los botones que agregan, actualizan o eliminan
+     * contactos.
+     *
+     * @param habilitar {@code true} para habilitarlos.
+     */
+    private void habilitarEscrituras(boolean habilitar) {
+        btnAgregarContacto.setEnabled(habilitar);
+        btnActualizarContacto.setEnabled(habilitar);
+        btnEliminarContacto.setEnabled(habilitar);
+    }
+
+    /**
+     * Registra en {@link TiemposInicio} cuándo la tabla muestra sus primeras
+     * filas, vengan de la instantánea o de la base de datos, junto con el
+     * resumen de las fases del inicio.
+     *
+     * @param inicio El instante en que se empezó a usar el repositorio.
+     */
+    private void medirPrimerasFilas(long inicio) {
+        modeloPaginado.addTableModelListener(new javax.swing.event.TableModelListener() {
+            @Override
+            public void tableChanged(javax.swing.event.TableModelEvent evento) {
+                if (modeloPaginado.getRowCount() > 0 && modeloPaginado.obtenerContacto(0) != null) {
+                    modeloPaginado.removeTableModelListener(this);
+                    TiemposInicio.registrar("pintar las primeras filas", inicio);
+                    Registro.info(TiemposInicio.resumen());
+                }
+            }
+        });
+    }
+
+    /**
+     * Carga los contadores, el índice de nombres y la tabla desde la base de
+     * datos, todo en segundo plano, y empieza a recibir los cambios de otros
+     * clientes.
+     */
+    private void iniciarDesdeBaseDeDatos() {
+        // Cargar los contadores en segundo plano y mostrarlos en cuanto estén listos. Con el seguimiento de
+        // cambios los carga el sincronizador, que también los reconcilia; si no, las propias estadísticas
+        ejecutor.ejecutarLectura(null, () -> {
+            long inicio = System.nanoTime();
+            boolean sincronizado = sincronizador != null && sincronizador.iniciar();
+            if (!sincronizado) {
+                db.obtenerEstadisticas().iniciar();
+            }
+            TiemposInicio.registrar("cargar los contadores", inicio);
+            return sincronizado;
+        }, sincronizado -> {
+            if (sincronizador != null && !sincronizado) {
+                Registro.info("Sin seguimiento de cambios: los cambios de otros clientes se verán al recargar.");
+            }
+            actualizarNumeroRegistros();
+        }, null);
+        // Construir el índice de nombres en segundo plano; mientras tanto se busca en la base de datos
+        ejecutor.ejecutarLectura(null, () -> {
+            long inicio = System.nanoTime();
+            boolean construido = db.obtenerIndiceNombres().construir(db);
+            TiemposInicio.registrar("construir el índice de nombres", inicio);
+            return construido;
+        }, null, null);
+        ejecutor.ejecutarLectura(null, () -> {
+            long inicio = System.nanoTime();
+            boolean construido = db.obtenerIndiceTelefonos().construir(db);
+            TiemposInicio.registrar("construir el índice de teléfonos", inicio);
+            return construido;
+        }, null, null);
         limpiaLaTabla();
         actualizarTablaConBD();
-        obtenerElIDConClick();
+    }
+
+    /**
+     * Pinta la tabla y los contadores desde una instantánea, sin esperar a la
+     * base de datos, y la reconcilia en segundo plano.
+     *
+     * La reconciliación construye los índices de nombres y teléfonos desde la
+     * instantánea y aplica solo los cambios registrados después de ella (a los
+     * índices, a los contadores y a la caché, como cualquier cambio de otro
+     * cliente). Luego
+     * lee los conteos reales y la tabla pasa a leer de la base de datos. Si
+     * los cambios no se pueden leer, se carga todo desde la base de datos
+     * como sin instantánea. Los botones que modifican contactos se habilitan
+     * solo entonces, porque la tabla no aplica las escrituras mientras
+     * muestra la instantánea.
+     *
+     * @param instantanea La instantánea abierta.
+     */
+    private void iniciarDesdeInstantanea(InstantaneaContactos instantanea) {
+        this.Tabla.setModel(modeloPaginado);
+        modeloPaginado.mostrarInstantanea(instantanea);
+        db.obtenerEstadisticas().cargar(instantanea.contarContactosAgrupados());
+        actualizarNumeroRegistros();
+        ejecutor.ejecutarLectura(null, () -> {
+            long inicio = System.nanoTime();
+            db.obtenerIndiceNombres().construir(instantanea);
+            db.obtenerIndiceTelefonos().construir(instantanea);
+            // Además de aplicar los cambios, lee los conteos reales
+            if (!sincronizador.iniciar(instantanea.versionCambios())) {
+                return false;
+            }
+            TiemposInicio.registrar("reconciliar la instantánea", inicio);
+            return true;
+        }, reconciliada -> {
+            if (reconciliada) {
+                modeloPaginado.usarBaseDeDatos();
+                actualizarNumeroRegistros();
+            } else {
+                Registro.aviso("No se pudieron leer los cambios posteriores a la instantánea; se carga desde la base de datos.");
+                iniciarDesdeBaseDeDatos();
+            }
+            habilitarEscrituras(true);
+        }, null);
+    }
+
+    /**
+     * Guarda la instantánea de los contactos cada
+     * {@link #PERIODO_INSTANTANEA_MS} ms en segundo plano. La última se
+     * guarda al cerrar la ventana ({@link #cerrarAlSalir()}).
+     */
+    private void guardarInstantaneaPeriodicamente() {
+        temporizadorInstantanea = new javax.swing.Timer(PERIODO_INSTANTANEA_MS,
+                evento -> ejecutor.ejecutarLectura(null, this::guardarInstantanea, null, null));
+        temporizadorInstantanea.start();
+    }
+
+    /**
+     * Al cerrar la ventana, la oculta y, en un hilo aparte fuera del EDT,
+     * guarda la última instantánea (si hay sincronizador), deja de consultar
+     * los cambios y cierra el repositorio, para que sus escrituras queden en
+     * disco y sus archivos y conexiones se liberen. La aplicación termina al
+     * acabar.
+     */
+    private void cerrarAlSalir() {
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent evento) {
+                if (temporizadorInstantanea != null) {
+                    temporizadorInstantanea.stop();
+                }
+                // La ventana se oculta enseguida; la aplicación termina cuando se cierra el repositorio
+                setDefaultCloseOperation(javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE);
+                setVisible(false);
+                Thread hilo = new Thread(() -> {
+                    try {
+                        if (sincronizador != null) {
+                            guardarInstantanea();
+                            sincronizador.detener();
+                        }
+                        db.cerrar();
+                    } finally {
+                        System.exit(0);
+                    }
+                }, "cierre-aplicacion");
+                hilo.start();
+            }
+        });
+    }
+
+    /**
+     * Guarda una instantánea con los contactos del índice de nombres, que
+     * está en memoria y al día, así que no consulta la base de datos. Los
+     * contactos y su versión se leen juntos con
+     * {@link SincronizadorCambios#copiarContactos}, sin que el sincronizador
+     * aplique cambios entre una lectura y otra, así que reproducir desde esa
+     * versión al iniciar no omite ni duplica ningún cambio. Si el índice o el
+     * sincronizador no están listos no se guarda nada.
+     *
+     * @return {@code true} si se guardó la instantánea.
+     */
+    private synchronized boolean guardarInstantanea() {
+        List<Contacto> contactos = new java.util.ArrayList<>();
+        long version = sincronizador.copiarContactos(contactos);
+        if (version < 0) {
+            return false;
+        }
+        return InstantaneaContactos.guardar(InstantaneaContactos.archivoPredeterminado(), version, contactos,
+                db::obtenerNombreGrupo);
     }
 
     /**
@@ -483,11 +781,11 @@ public class Interfaz extends javax.swing.JFrame {
      * Este método se ejecuta cuando el usuario hace clic en el botón de agregar
      * un nuevo contacto. Primero obtiene los datos ingresados en el formulario,
      * luego determina el ID del grupo basado en el nombre del grupo
-     * seleccionado. Después intenta insertar los valores del nuevo contacto en
-     * la base de datos a través de un método en la clase `db`. Si la inserción
-     * es exitosa, actualiza la tabla con los datos más recientes y limpia los
-     * campos del formulario. Si ocurre algún error durante la inserción,
-     * muestra un mensaje de error en la consola.
+     * seleccionado. Después envía la inserción a segundo plano a través del
+     * `ejecutor`, para no bloquear la interfaz mientras responde la base de
+     * datos. Cuando la inserción termina, agrega a la tabla solo la fila del
+     * nuevo contacto, con el ID generado, y limpia los campos del formulario. Si ocurre algún error
+     * durante la inserción, muestra un mensaje de error en la consola.
      */
     private void btnAgregarContactoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnAgregarContactoActionPerformed
         // TODO add your handling code here:
@@ -497,22 +795,30 @@ public class Interfaz extends javax.swing.JFrame {
             obtenerDatos();
             // Obtener el ID del grupo según el nombre del grupo seleccionado
             int idGrupo = obtenerIdGrupo(this.dataGrupo);
-
-            try {
-                // Insertar los datos del nuevo contacto en la base de datos
-                db.insertarValores(this.dataNombres, this.dataApellidoPaterno, this.dataApellidoMaterno, this.dataNumeroTelefono, idGrupo);
-                // Actualizar la tabla con los datos más recientes
-                actualizarTablaConBD();
+            String nombre = this.dataNombres;
+            String apellidoPaterno = this.dataApellidoPaterno;
+            String apellidoMaterno = this.dataApellidoMaterno;
+            String telefono = this.dataNumeroTelefono;
+            String nombreGrupo = this.dataGrupo;
+
+            // Insertar los datos del nuevo contacto en la base de datos, fuera del hilo de la interfaz
+            ejecutor.ejecutarEscritura(() -> db.insertarValores(nombre, apellidoPaterno, apellidoMaterno, telefono,
+                    idGrupo), idContacto -> {
+                if (idContacto >= 0) {
+                    // Agregar solo la fila del nuevo contacto
+                    agregarRegistroInsertado(new Contacto(idContacto, nombre, apellidoPaterno, apellidoMaterno,
+                            telefono, idGrupo, nombreGrupo));
+                }
                 // Limpiar los campos del formulario
                 limpiarEntradas();
-            } catch (SQLException ex) {
+            }, ex -> {
                 // Si ocurre un error al agregar el contacto, mostrar el error en consola
-                System.out.println("Error al agregar un dato");
+                Registro.error("Error al agregar un dato");
                 Logger.getLogger(Interfaz.class.getName()).log(Level.SEVERE, null, ex);
-            }
+            });
         } catch (Exception e) {
             // Si ocurre un error al obtener los datos, mostrar el error en consola
-            System.out.println("Error al agregar un usuario a la base de datos");
+            Registro.error("Error al agregar un usuario a la base de datos");
         }
 
     }//GEN-LAST:event_btnAgregarContactoActionPerformed
@@ -523,11 +829,12 @@ public class Interfaz extends javax.swing.JFrame {
      * Este método se ejecuta cuando el usuario hace clic en el botón de
      * actualizar un contacto. Verifica si se ha seleccionado un contacto válido
      * (basado en el ID del contacto) y, si es así, obtiene los datos del
-     * formulario, actualiza la información del contacto en la base de datos y
-     * luego actualiza la tabla con los registros más recientes. Después de la
-     * actualización, limpia los campos de entrada. Si ocurre algún error
-     * durante el proceso de actualización, muestra un mensaje de error en la
-     * consola.
+     * formulario y envía la actualización a segundo plano. Cuando termina,
+     * reemplaza la fila del contacto con los datos del formulario, sin
+     * recargar la tabla, y limpia los campos de entrada. Con la escritura
+     * diferida activa la actualización solo se encola, pero la fila se
+     * reemplaza igual. Si ocurre algún error durante el proceso de actualización,
+     * muestra un mensaje de error en la consola.
      */
     private void btnActualizarContactoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnActualizarContactoActionPerformed
         // TODO add your handling code here:
@@ -537,13 +844,26 @@ public class Interfaz extends javax.swing.JFrame {
             if (this.dataIDContacto != null) {
                 obtenerDatos(); // Obtener los datos del formulario
                 int indexGrupo = obtenerIdGrupo(this.dataGrupo); // Obtener el ID del grupo basado en el nombre del grupo
-                // Actualizar el contacto en la base de datos
-                db.actualizarContacto(this.dataIDContacto, this.dataNombres, this.dataApellidoPaterno, this.dataApellidoMaterno, this.dataNumeroTelefono, indexGrupo);
-                actualizarTablaConBD(); // Actualizar la tabla con los datos más recientes
-                limpiarEntradas(); // Limpiar los campos de entrada
+                int idContacto = this.dataIDContacto;
+                String nombre = this.dataNombres;
+                String apellidoPaterno = this.dataApellidoPaterno;
+                String apellidoMaterno = this.dataApellidoMaterno;
+                String telefono = this.dataNumeroTelefono;
+
+                // Actualizar el contacto en la base de datos, fuera del hilo de la interfaz
+                String nombreGrupo = this.dataGrupo;
+                ejecutor.ejecutarEscritura(() -> db.actualizarContacto(idContacto, nombre, apellidoPaterno,
+                        apellidoMaterno, telefono, indexGrupo), actualizado -> {
+                    if (actualizado) {
+                        // Reemplazar solo la fila del contacto con los datos del formulario
+                        reemplazarRegistroEnTabla(new Contacto(idContacto, nombre, apellidoPaterno, apellidoMaterno,
+                                telefono, indexGrupo, nombreGrupo));
+                    }
+                    limpiarEntradas(); // Limpiar los campos de entrada
+                }, ex -> Registro.error("Error al actualizar el registro"));
             }
         } catch (Exception e) {
-            System.out.println("Error al actualizar el registro"); // Mostrar mensaje de error si falla la actualización
+            Registro.error("Error al actualizar el registro"); // Mostrar mensaje de error si falla la actualización
         }
 
     }//GEN-LAST:event_btnActualizarContactoActionPerformed
@@ -553,22 +873,26 @@ public class Interfaz extends javax.swing.JFrame {
      *
      * Este método se ejecuta cuando el usuario hace clic en el botón de
      * eliminar contacto. Verifica si se ha seleccionado un contacto válido
-     * (basado en el ID del contacto) y, si es así, elimina ese contacto de la
-     * base de datos. Luego, actualiza la tabla con los registros más recientes
-     * y limpia los campos de entrada. Si ocurre algún error durante la
-     * eliminación, muestra un mensaje de error en la consola.
+     * (basado en el ID del contacto) y, si es así, envía la eliminación a
+     * segundo plano. Cuando termina, quita de la tabla solo la fila del
+     * contacto y limpia los campos de entrada. Si ocurre algún error durante
+     * la eliminación, muestra un mensaje de error en la consola.
      */
     private void btnEliminarContactoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnEliminarContactoActionPerformed
         // TODO add your handling code here:
         try {
             // Verificar si se ha seleccionado un contacto válido
             if (this.dataIDContacto != null) {
-                db.eliminarContacto(this.dataIDContacto); // Eliminar el contacto de la base de datos
-                actualizarTablaConBD(); // Actualizar la tabla con los datos más recientes
-                limpiarEntradas(); // Limpiar los campos de entrada
+                int idContacto = this.dataIDContacto;
+                ejecutor.ejecutarEscritura(() -> db.eliminarContacto(idContacto), eliminado -> { // Eliminar el contacto de la base de datos
+                    if (eliminado) {
+                        quitarRegistroDeTabla(idContacto); // Quitar solo la fila del contacto
+                    }
+                    limpiarEntradas(); // Limpiar los campos de entrada
+                }, ex -> Registro.error("No se logró eliminar el usuario"));
             }
         } catch (Exception e) {
-            System.out.println("No se logró eliminar el usuario"); // Mostrar mensaje de error si falla la eliminación
+            Registro.error("No se logró eliminar el usuario"); // Mostrar mensaje de error si falla la eliminación
         }
     }//GEN-LAST:event_btnEliminarContactoActionPerformed
 
@@ -577,35 +901,20 @@ public class Interfaz extends javax.swing.JFrame {
      *
      * Este método se ejecuta cuando el usuario hace clic en el botón de
      * búsqueda por nombre. Recupera el valor ingresado en el campo de texto
-     * `FiltrarNombre`, y busca contactos similares en la base de datos que
-     * coincidan con el nombre proporcionado. Si se encuentran contactos, los
-     * agrega a la tabla. Si no se encuentran resultados o si el campo está
-     * vacío, se limpia la tabla. En caso de error, se vuelve a actualizar la
-     * tabla con todos los registros.
+     * `FiltrarNombre`, y busca en segundo plano los contactos cuyo nombre o
+     * apellidos lo contienen, usando el índice de nombres en memoria. Los
+     * resultados, ordenados por relevancia, se muestran en la tabla con
+     * `mostrarResultados()`. Si el campo está vacío, se muestran todos los
+     * registros. La misma búsqueda se lanza sola al dejar de escribir en el
+     * campo; el botón la adelanta.
      */
     private void btnBuscarPorNombreActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnBuscarPorNombreActionPerformed
         // TODO add your handling code here:
 
         try {
             String nombre = this.FiltrarNombre.getText(); // Obtener el nombre ingresado por el usuario
-
-            if (nombre != null && !nombre.isEmpty()) {
-                // Verificar que el nombre no sea nulo o vacío
-                List<String[]> contactos = db.obtenerContactosSimilaresPorNombre(nombre); // Buscar contactos similares por nombre
-
-                if (contactos == null || contactos.isEmpty()) {
-                    limpiaLaTabla(); // Limpiar la tabla si no se encuentran resultados
-                } else { // Si se encuentran contactos
-                    limpiaLaTabla(); // Limpiar la tabla actual
-                    for (String[] persona : contactos) { // Iterar sobre cada contacto encontrado
-                        String nombreGrupo = db.obtenerNombreGrupo(Integer.parseInt(persona[5])); // Obtener el nombre del grupo
-                        agregarUnRegistroEnTabla(persona[0], persona[1], persona[2], persona[3], persona[4], nombreGrupo); // Agregar cada persona como una fila en la tabla
-                    }
-                    actualizarNumeroRegistros(); // Actualizar el número de registros en la interfaz
-                }
-            } else {
-                actualizarTablaConBD();
-            }
+            temporizadorBusqueda.stop(); // La búsqueda pendiente por lo escrito se hace ahora
+            buscarPorNombre(nombre); // Buscar por nombre y apellidos en el índice
         } catch (Exception e) {
             actualizarTablaConBD(); // Si ocurre algún error, actualizar la tabla con todos los contactos
         }
@@ -617,9 +926,9 @@ public class Interfaz extends javax.swing.JFrame {
      * Este método se ejecuta cuando el usuario hace clic en el botón
      * correspondiente. Recupera el valor ingresado en el campo de texto
      * `FiltrarIDContecto`, interpreta el valor como un ID de contacto y busca
-     * contactos similares en la base de datos. Si se encuentran contactos
-     * similares, los agrega a la tabla. Si no se encuentran contactos o si hay
-     * un error, la tabla se limpia o se actualiza con todos los registros.
+     * en segundo plano contactos similares en la base de datos. Los resultados
+     * se muestran en la tabla con `mostrarResultados()`. Si el valor no es un
+     * número, la tabla se actualiza con todos los registros.
      */
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
         // TODO add your handling code here:
@@ -627,18 +936,7 @@ public class Interfaz extends javax.swing.JFrame {
         try {
             String idContacto = this.FiltrarIDContecto.getText(); // Obtener el ID de contacto ingresado por el usuario
             Integer id = Integer.parseInt(idContacto); // Convertir el valor ingresado a un número entero
-            List<String[]> contactos = db.obtenerContactosSimilaresPorId(id); // Buscar contactos similares por ID
-
-            if (contactos == null || contactos.isEmpty()) { // Si no se encuentran contactos, limpiar la tabla
-                limpiaLaTabla();
-            } else {
-                limpiaLaTabla(); // Limpiar la tabla actual
-                for (String[] persona : contactos) { // Iterar sobre cada registro de persona
-                    String nombreGrupo = db.obtenerNombreGrupo(Integer.parseInt(persona[5])); // Obtener nombre del grupo
-                    agregarUnRegistroEnTabla(persona[0], persona[1], persona[2], persona[3], persona[4], nombreGrupo); // Agregar cada persona como una fila en la tabla
-                }
-                actualizarNumeroRegistros(); // Actualizar el número de registros en la interfaz
-            }
+            buscar(() -> db.obtenerContactosConGrupoPorId(id), contacto -> contacto.idContacto() == id); // Buscar contactos similares por ID (con su grupo)
         } catch (Exception e) {
             actualizarTablaConBD(); // Si ocurre algún error, actualizar la tabla con todos los contactos
         }
@@ -654,9 +952,9 @@ public class Interfaz extends javax.swing.JFrame {
      * por Grupo". Obtiene el valor seleccionado en el combo `filtrarGrupo` y,
      * dependiendo de la opción seleccionada, ya sea "Todos" o un grupo
      * específico, actualiza la tabla de contactos con los datos
-     * correspondientes. Si se selecciona un grupo específico, se recuperan los
-     * contactos asociados a ese grupo de la base de datos y se muestran en la
-     * tabla. Si no hay contactos, se limpia la tabla.
+     * correspondientes. Si se selecciona un grupo específico, se recuperan en
+     * segundo plano los contactos asociados a ese grupo y se muestran en la
+     * tabla.
      */
     private void btnBuscarPorGrupoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnBuscarPorGrupoActionPerformed
         // TODO add your handling code here:
@@ -667,18 +965,7 @@ public class Interfaz extends javax.swing.JFrame {
                 actualizarTablaConBD(); // Actualizar la tabla con todos los contactos
             } else {
                 Integer idGrupo = obtenerIdGrupo(grupo);  // Obtener el ID del grupo seleccionado
-                List<String[]> contactos = db.obtenerContactosPorIdGrupo(idGrupo); // Obtener los contactos por grupo
-
-                if (contactos == null || contactos.isEmpty()) { // Si no hay contactos, limpiar la tabla
-                    limpiaLaTabla();
-                } else {
-                    limpiaLaTabla(); // Limpiar la tabla actual
-                    for (String[] persona : contactos) { // Iterar sobre cada registro de persona
-                        String nombreGrupo = db.obtenerNombreGrupo(Integer.parseInt(persona[5])); // Obtener nombre del grupo
-                        agregarUnRegistroEnTabla(persona[0], persona[1], persona[2], persona[3], persona[4], nombreGrupo); // Agregar cada persona como una fila en la tabla
-                    }
-                    actualizarNumeroRegistros(); // Actualizar el número de registros en la interfaz
-                }
+                buscar(() -> db.obtenerContactosConGrupoPorIdGrupo(idGrupo), contacto -> contacto.idGrupo() == idGrupo); // Obtener los contactos por grupo (con su grupo)
             }
         } catch (Exception e) {
             actualizarTablaConBD(); // Si ocurre algún error, actualizar la tabla con todos los contactos
@@ -687,6 +974,105 @@ public class Interfaz extends javax.swing.JFrame {
     }//GEN-LAST:event_btnBuscarPorGrupoActionPerformed
 
     // DEFINE LAS FUNCIONES AUXILIARES PARA LA INTERFAZ
+    /**
+     * Ejecuta una búsqueda en segundo plano y muestra sus resultados en la
+     * tabla.
+     *
+     * Todas las búsquedas comparten la misma clave en el `ejecutor`, así que
+     * una búsqueda nueva cancela a la anterior y el resultado de una búsqueda
+     * ya superada nunca llega a la tabla. Si la búsqueda falla, se muestran
+     * todos los registros.
+     *
+     * @param busqueda La consulta a ejecutar fuera del hilo de la interfaz.
+     * @param filtro La condición que cumplen los contactos encontrados.
+     */
+    private void buscar(Callable<List<Contacto>> busqueda, Predicate<Contacto> filtro) {
+        busquedaNombreMostrada = null;
+        ejecutor.ejecutarLectura(CLAVE_BUSQUEDA, busqueda, contactos -> mostrarResultados(contactos, filtro),
+                ex -> actualizarTablaConBD());
+    }
+
+    /**
+     * Muestra los contactos cuyo nombre completo contiene el texto indicado.
+     *
+     * Si la tabla ya muestra todos los resultados de una búsqueda cuyo texto
+     * está contenido en el nuevo (por ejemplo, "jua" después de "ju"), los
+     * nuevos resultados son un subconjunto de los mostrados, así que se
+     * filtran en memoria sin consultar el índice ni la base de datos. En otro
+     * caso se busca en segundo plano, cancelando la búsqueda anterior. Si el
+     * texto está vacío, se muestran todos los registros.
+     *
+     * @param nombre El texto escrito por el usuario.
+     */
+    private void buscarPorNombre(String nombre) {
+        String normalizado = IndiceNombres.normalizar(nombre);
+        if (normalizado.isEmpty()) {
+            actualizarTablaConBD();
+            return;
+        }
+        String anterior = busquedaNombreMostrada;
+        if (anterior != null && this.Tabla.getModel() == modeloResultados && normalizado.contains(anterior)) {
+            ejecutor.cancelar(CLAVE_BUSQUEDA);
+            filtroMostrado = contacto -> IndiceNombres.coincide(contacto, normalizado);
+            modeloResultados.filtrar(filtroMostrado);
+            busquedaNombreMostrada = normalizado;
+            return;
+        }
+        busquedaNombreMostrada = null;
+        ejecutor.ejecutarLectura(CLAVE_BUSQUEDA, () -> db.buscarContactosPorNombre(nombre, LIMITE_RESULTADOS_POR_NOMBRE),
+                contactos -> {
+                    mostrarResultados(contactos, contacto -> IndiceNombres.coincide(contacto, normalizado));
+                    // Con el límite alcanzado pudo quedar fuera algún resultado: no se filtra en memoria
+                    busquedaNombreMostrada = contactos.size() < LIMITE_RESULTADOS_POR_NOMBRE ? normalizado : null;
+                }, ex -> actualizarTablaConBD());
+    }
+
+    /**
+     * Busca por nombre automáticamente cuando el usuario deja de escribir en
+     * `FiltrarNombre` durante {@value #RETARDO_BUSQUEDA_AL_ESCRIBIR_MS} ms.
+     * Cada tecla reinicia la espera, de modo que escribir un nombre completo
+     * lanza una sola búsqueda y no una por letra.
+     */
+    private void buscarAlEscribir() {
+        temporizadorBusqueda = new javax.swing.Timer(RETARDO_BUSQUEDA_AL_ESCRIBIR_MS,
+                e -> buscarPorNombre(this.FiltrarNombre.getText()));
+        temporizadorBusqueda.setRepeats(false);
+        this.FiltrarNombre.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                // Solo cambian atributos del texto, no su contenido
+            }
+        });
+    }
+
+    /**
+     * Reemplaza el contenido de la tabla por los resultados de una búsqueda y
+     * actualiza los contadores.
+     *
+     * @param contactos Los contactos encontrados, con el nombre de su grupo.
+     * @param filtro La condición que cumplen los contactos encontrados; los
+     * contactos que se inserten después y la cumplan se agregan a la tabla.
+     */
+    private void mostrarResultados(List<Contacto> contactos, Predicate<Contacto> filtro) {
+        filtroMostrado = filtro;
+        if (this.Tabla.getModel() != modeloResultados) {
+            this.Tabla.setModel(modeloResultados);
+        }
+        // Reemplazar todas las filas de una vez; la tabla se repinta una sola vez
+        modeloResultados.reemplazarContactos(contactos);
+        actualizarNumeroRegistros(); // Actualizar el número de registros en la interfaz
+    }
+
     /**
      * Obtiene los datos de los campos del formulario y los almacena en
      * variables de instancia.
@@ -709,23 +1095,17 @@ public class Interfaz extends javax.swing.JFrame {
     }
 
     /**
-     * Esta función limpia por completo la tabla de datos (JTable), eliminando
-     * todas sus filas. Se obtiene el modelo de la tabla, que es responsable de
-     * gestionar los datos de la tabla, y luego se eliminan todas las filas de
-     * la misma.
+     * Esta función limpia por completo la tabla de resultados de búsqueda,
+     * eliminando todas sus filas con un solo aviso a la tabla, y hace que la
+     * tabla (JTable) la muestre en lugar del listado completo paginado.
      */
     private void limpiaLaTabla() {
-        // Obtener el modelo de la tabla, el cual es responsable de almacenar y manipular los datos de la JTable
-        DefaultTableModel modeloTabla = (DefaultTableModel) this.Tabla.getModel();
-
-        // Obtener el número actual de filas en el modelo de la tabla
-        int rowCount = modeloTabla.getRowCount();
-
-        // Eliminar filas de abajo hacia arriba para evitar errores de indexación durante el proceso de eliminación
-        for (int i = rowCount - 1; i >= 0; i--) {
-            // Eliminar la fila en la posición 'i' del modelo de la tabla
-            modeloTabla.removeRow(i);
+        // El modelo de resultados es el responsable de almacenar y manipular los datos de las búsquedas
+        if (this.Tabla.getModel() != modeloResultados) {
+            this.Tabla.setModel(modeloResultados);
         }
+        filtroMostrado = null;
+        modeloResultados.limpiar();
     }
 
     /**
@@ -734,17 +1114,19 @@ public class Interfaz extends javax.swing.JFrame {
      *
      * Este método obtiene la cantidad total de contactos y la cantidad de
      * contactos pertenecientes a los diferentes grupos ("Familia", "Amigos",
-     * "Escuela", "Otros") desde la base de datos. Luego, actualiza los
-     * contadores en la interfaz gráfica con los valores obtenidos para cada
-     * categoría.
+     * "Escuela", "Otros") desde las estadísticas en memoria de `db`, que se
+     * mantienen al día con cada escritura, por lo que no consulta la base de
+     * datos. Luego, actualiza los contadores en la interfaz gráfica con los
+     * valores obtenidos para cada categoría.
      */
     private void actualizarNumeroRegistros() {
 
-        int numContactos = db.contarElementosContactos();
-        int numFamilia = db.contarElementosContactosPorGrupo(1);
-        int numAmigos = db.contarElementosContactosPorGrupo(2);
-        int numEscuela = db.contarElementosContactosPorGrupo(3);
-        int numOtros = db.contarElementosContactosPorGrupo(4);
+        EstadisticasContactos estadisticas = db.obtenerEstadisticas();
+        int numContactos = estadisticas.contarContactos();
+        int numFamilia = estadisticas.contarContactosPorGrupo(1);
+        int numAmigos = estadisticas.contarContactosPorGrupo(2);
+        int numEscuela = estadisticas.contarContactosPorGrupo(3);
+        int numOtros = estadisticas.contarContactosPorGrupo(4);
 
         this.contadorTotal.setText(String.valueOf(numContactos));
         this.contadorFamilia.setText(String.valueOf(numFamilia));
@@ -755,52 +1137,121 @@ public class Interfaz extends javax.swing.JFrame {
     }
 
     /**
-     * Esta función agrega un nuevo registro a la tabla JTable. Los datos del
-     * registro son pasados como parámetros y se añaden como una nueva fila en
-     * el modelo de la tabla (DefaultTableModel).
+     * Agrega a la tabla que se está mostrando la fila de un contacto recién
+     * insertado, sin consultar la base de datos, y actualiza los contadores.
+     * En los resultados de una búsqueda solo se agrega si cumple su
+     * condición.
+     *
+     * @param contacto El contacto insertado, con su ID generado y el nombre
+     * de su grupo.
+     */
+    private void agregarRegistroInsertado(Contacto contacto) {
+        if (Tabla.getModel() == modeloPaginado) {
+            modeloPaginado.agregarContacto(contacto);
+        } else if (filtroMostrado != null && filtroMostrado.test(contacto)) {
+            modeloResultados.agregarContacto(contacto);
+        }
+        actualizarNumeroRegistros();
+    }
+
+    /**
+     * Reemplaza en la tabla la fila de un contacto por su nueva versión, sin
+     * consultar la base de datos, y actualiza los contadores. Si el contacto
+     * no se está mostrando no cambia la tabla.
+     *
+     * @param contacto La nueva versión del contacto, con el nombre de su
+     * grupo.
+     */
+    private void reemplazarRegistroEnTabla(Contacto contacto) {
+        if (Tabla.getModel() == modeloPaginado) {
+            modeloPaginado.reemplazarContacto(contacto);
+        } else {
+            modeloResultados.reemplazarContacto(contacto);
+        }
+        actualizarNumeroRegistros();
+    }
+
+    /**
+     * Quita de la tabla la fila de un contacto eliminado, sin consultar la
+     * base de datos, y actualiza los contadores. Si el contacto no se está
+     * mostrando no cambia la tabla.
+     *
+     * @param idContacto El ID del contacto eliminado.
+     */
+    private void quitarRegistroDeTabla(int idContacto) {
+        if (Tabla.getModel() == modeloPaginado) {
+            modeloPaginado.quitarContacto(idContacto);
+        } else {
+            modeloResultados.quitarContacto(idContacto);
+        }
+        actualizarNumeroRegistros();
+    }
+
+    /**
+     * Aplica a la tabla los cambios que otros clientes hicieron en la base de
+     * datos, sin recargarla: agrega al listado los contactos insertados y
+     * reemplaza o quita las filas de los actualizados y eliminados. En los
+     * resultados de una búsqueda solo se agregan los contactos nuevos que
+     * cumplen su condición. Si se elimina el contacto que está en el
+     * formulario, el formulario se limpia. Se invoca en el hilo de la
+     * interfaz.
      *
-     * @param nombre Nombre de la persona.
-     * @param apellidoPaterno Apellido paterno de la persona.
-     * @param apellidoMaterno Apellido materno de la persona.
-     * @param fechaNacimiento Fecha de nacimiento de la persona en formato
-     * "yyyy-MM-dd".
-     * @param entidad Entidad federativa de la persona.
-     * @param genero Género de la persona (por ejemplo: "H" para masculino, "M"
-     * para femenino).
-     * @param curp CURP de la persona.
+     * @param cambios Los cambios, uno por contacto.
      */
-    private void agregarUnRegistroEnTabla(String id, String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, String idGrupo) {
-        DefaultTableModel model = (DefaultTableModel) Tabla.getModel(); // Obtener el modelo de la tabla (DefaultTableModel)
-        model.addRow(new Object[]{id, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo}); // Agregar una nueva fila con los datos proporcionados
+    private void aplicarCambiosExternos(List<CambioContacto> cambios) {
+        boolean paginado = this.Tabla.getModel() == modeloPaginado;
+        for (CambioContacto cambio : cambios) {
+            switch (cambio.tipo()) {
+                case INSERCION -> {
+                    if (paginado) {
+                        modeloPaginado.agregarContacto(cambio.contacto());
+                    } else if (filtroMostrado != null && filtroMostrado.test(cambio.contacto())) {
+                        modeloResultados.agregarContacto(cambio.contacto());
+                    }
+                }
+                case ACTUALIZACION -> {
+                    if (paginado) {
+                        modeloPaginado.reemplazarContacto(cambio.contacto());
+                    } else {
+                        modeloResultados.reemplazarContacto(cambio.contacto());
+                    }
+                }
+                case ELIMINACION -> {
+                    if (paginado) {
+                        modeloPaginado.quitarContacto(cambio.idContacto());
+                    } else {
+                        modeloResultados.quitarContacto(cambio.idContacto());
+                    }
+                    if (this.dataIDContacto != null && this.dataIDContacto == cambio.idContacto()) {
+                        limpiarEntradas();
+                    }
+                }
+            }
+        }
+        actualizarNumeroRegistros();
     }
 
     /**
      * Actualiza el contenido de la tabla JTable con los datos más recientes
      * obtenidos desde la base de datos.
      *
-     * Este método realiza una actualización completa de la tabla, primero
-     * limpiando la tabla actual y luego recuperando los registros de personas
-     * almacenados en la base de datos. Para cada registro, se consulta el
-     * nombre del grupo de la persona y se agrega una nueva fila en la tabla con
-     * la información de esa persona.
-     *
-     * El flujo de ejecución es el siguiente: 1. Se obtiene la lista de
-     * contactos (personas) desde la base de datos a través del método
-     * `db.obtenerContactos()`. 2. Se limpia la tabla actual llamando a
-     * `limpiaLaTabla()`. 3. Se itera sobre cada persona recuperada y se
-     * consulta el nombre del grupo de la persona a través de
-     * `db.obtenerNombreGrupo()`. 4. Cada registro de persona se agrega a la
-     * tabla utilizando el método `agregarUnRegistroEnTabla()`. 5. Finalmente,
-     * se actualiza el número de registros en la tabla llamando a
+     * La tabla pasa a mostrar el modelo paginado (`modeloPaginado`), que
+     * declara una fila por cada contacto pero solo pide a la base de datos las
+     * páginas que se van pintando, con el nombre del grupo ya incluido en cada
+     * fila. Recargarlo descarta las páginas en memoria y vuelve a contar los
+     * contactos en segundo plano, por lo que el costo no depende del tamaño de
+     * la tabla. Cualquier búsqueda pendiente se cancela.
+     * Finalmente, se actualiza el número de registros llamando a
      * `actualizarNumeroRegistros()`.
      */
     private void actualizarTablaConBD() {
-        List<String[]> personas = db.obtenerContactos(); // Obtener la lista de personas desde la base de datos
-        limpiaLaTabla(); // Limpiar la tabla actual
-        for (String[] persona : personas) { // Iterar sobre cada registro de persona
-            String nombreGrupo = db.obtenerNombreGrupo(Integer.parseInt(persona[5]));
-            agregarUnRegistroEnTabla(persona[0], persona[1], persona[2], persona[3], persona[4], nombreGrupo); // Agregar cada persona como una fila en la tabla
+        ejecutor.cancelar(CLAVE_BUSQUEDA); // Una búsqueda pendiente ya no debe reemplazar al listado completo
+        busquedaNombreMostrada = null;
+        filtroMostrado = null;
+        if (this.Tabla.getModel() != modeloPaginado) {
+            this.Tabla.setModel(modeloPaginado);
         }
+        modeloPaginado.recargar(); // Descartar las páginas cargadas; se volverán a pedir al pintar
         actualizarNumeroRegistros();
     }
 
@@ -872,9 +1323,11 @@ public class Interfaz extends javax.swing.JFrame {
      * Agrega un `ListSelectionListener` a la tabla `JTable`. El listener se
      * activa cuando el usuario hace clic sobre una fila de la tabla, y obtiene
      * el valor de la columna 0 (que corresponde al ID del contacto) de la fila
-     * seleccionada. Este valor se utiliza para obtener los detalles del
-     * contacto desde la base de datos y los muestra en los campos de texto
-     * correspondientes en la interfaz.
+     * seleccionada. Este valor se utiliza para obtener en segundo plano los
+     * detalles del contacto desde la base de datos, que luego se muestran en
+     * los campos de texto correspondientes en la interfaz. Si el usuario
+     * selecciona otra fila antes de que lleguen los datos, la consulta
+     * anterior se descarta.
      *
      * El valor obtenido se utiliza para completar los campos `formNombre`,
      * `formApellidoPaterno`, `formApellidoMaterno`, `formTelefono` y
@@ -895,28 +1348,57 @@ public class Interfaz extends javax.swing.JFrame {
                 if (row != -1) {
                     int column = 0;  // Indicar la columna 6 que contiene el valor de la CURP
                     // Recuperar el valor de la celda correspondiente a la CURP en la fila seleccionada
-                    String valor = this.Tabla.getValueAt(row, column).toString();
+                    Object valor = this.Tabla.getValueAt(row, column);
 
                     if (valor != null) {
-                        String[] persona = db.obtenerContactoPorId(Integer.parseInt(valor));
-                        this.dataIDContacto = Integer.parseInt(persona[0]);
-                        this.formNombre.setText(persona[1]);
-                        this.formApellidoPaterno.setText(persona[2]);
-                        this.formApellidoMaterno.setText(persona[3]);
-                        this.formTelefono.setText(persona[4]);
-                        String nombreGrupo = db.obtenerNombreGrupo(Integer.parseInt(persona[5]));
-                        this.formGrupo.setSelectedItem(nombreGrupo);
+                        int idContacto = Integer.parseInt(valor.toString());
+                        // Consultar el contacto en segundo plano; una selección más reciente descarta esta
+                        ejecutor.ejecutarLectura(CLAVE_SELECCION, () -> {
+                            Contacto persona = db.obtenerContactoPorId(idContacto);
+                            if (persona == null) {
+                                return null; // El contacto ya no existe
+                            }
+                            String nombreGrupo = db.obtenerNombreGrupo(persona.idGrupo());
+                            return new Contacto(persona.idContacto(), persona.nombre(), persona.apellidoPaterno(),
+                                    persona.apellidoMaterno(), persona.telefono(), persona.idGrupo(), nombreGrupo);
+                        }, persona -> {
+                            if (persona == null) {
+                                return;
+                            }
+                            this.dataIDContacto = persona.idContacto();
+                            this.formNombre.setText(persona.nombre());
+                            this.formApellidoPaterno.setText(persona.apellidoPaterno());
+                            this.formApellidoMaterno.setText(persona.apellidoMaterno());
+                            this.formTelefono.setText(persona.telefono());
+                            this.formGrupo.setSelectedItem(persona.nombreGrupo());
+                        }, null);
                     }
 
-                    System.out.println("VALOR:: " + valor);
+                    if (Registro.activo(Registro.Nivel.DEPURACION)) {
+                        Registro.depurar("VALOR:: " + valor);
+                    }
                 } else {
                     // Si no hay una fila seleccionada, se puede mostrar un mensaje en consola o manejarlo de alguna forma
-                    System.out.println("No se ha seleccionado ninguna fila.");
+                    Registro.aviso("No se ha seleccionado ninguna fila.");
                 }
             }
         });
     }
 
+    /**
+     * Muestra u oculta el indicador de ocupado mientras hay consultas en
+     * segundo plano. Se invoca en el hilo de la interfaz.
+     *
+     * @param ocupado {@code true} si hay consultas pendientes.
+     */
+    private void mostrarOcupado(boolean ocupado) {
+        java.awt.Cursor cursor = ocupado
+                ? java.awt.Cursor.getPredefinedCursor(java.awt.Cursor.WAIT_CURSOR)
+                : java.awt.Cursor.getDefaultCursor();
+        setCursor(cursor);
+        this.Tabla.setCursor(cursor);
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -3,14 +3,30 @@ package com.mycompany.basesdedatospproyecto;
 import java.util.List;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Clase que gestiona las operaciones de conexión, inserción, consulta,
  * actualización y eliminación de registros en la base de datos MySQL para el
  * sistema de registro de usuarios. Los métodos aquí permiten manipular la tabla
  * 'contactos' y 'grupos' en la base de datos 'contactosdb'.
+ *
+ * Es la implementación de {@link RepositorioContactos} para el servidor
+ * MySQL.
  */
-public class MYSQL {
+public class MYSQL implements RepositorioContactos {
 
     // CONSTANTES DE LA CONEXIÓN A MYSQL
     // URL de conexión, usuario y contraseña de la base de datos
@@ -18,48 +34,508 @@ public class MYSQL {
     // 2. localhost: El nombre del host o la dirección del servidor donde está ejecutándose la base de datos MySQL. "localhost" significa que la base de datos está en la misma máquina que el programa.
     // 3. 3306: Es el puerto por defecto en el que MySQL escucha las conexiones entrantes. Si se utiliza un puerto diferente, este valor debe ser modificado.
     // 4. contactosdb: Es el nombre de la base de datos a la que se desea conectar. En este caso, la base de datos llamada "contactosdb" es la que contiene la tabla "contactos" y "grupos".
-    private static final String URL = "jdbc:mysql://localhost:3306/contactosdb";
+    // 5. rewriteBatchedStatements=true: Permite al driver enviar un lote de INSERT como una sola sentencia de varias filas.
+    // 6. useServerPrepStmts=true: Prepara las sentencias en el servidor, que así analiza cada SQL una sola vez por conexión.
+    private static final String URL = "jdbc:mysql://localhost:3306/contactosdb?rewriteBatchedStatements=true&useServerPrepStmts=true";
     private static final String USER = "root"; // Usuario de la base de datos
     private static final String PASSWORD = "54628"; // Contraseña de la base de datos
 
+    // PARÁMETROS DEL POOL DE CONEXIONES
+    private static final int MAXIMO_CONEXIONES = 8; // Conexiones prestadas a la vez como máximo
+    private static final long TIEMPO_MAXIMO_ESPERA_MS = 5_000; // Espera máxima por una conexión libre
+    private static final long TIEMPO_MAXIMO_INACTIVIDAD_MS = 60_000; // Inactividad tras la cual se cierra una conexión
+    private static final long VALIDACION_TRAS_INACTIVIDAD_MS = 1_000; // Inactividad a partir de la cual se valida al prestar
+    private static final int MAXIMO_SENTENCIAS_POR_CONEXION = 64; // Sentencias preparadas que conserva cada conexión
+
+    // RÉPLICAS DE LECTURA
+    // URLs de las réplicas, separadas por comas, con el mismo usuario y contraseña que el principal
+    private static final String PROPIEDAD_REPLICAS = "contactos.replicas";
+    // Tiempo tras una escritura durante el que se lee del principal; 0 para leer siempre de las réplicas
+    private static final String PROPIEDAD_VENTANA_LECTURA_PROPIA = "contactos.replicas.lecturaPropiaMs";
+    private static final long VENTANA_LECTURA_PROPIA_MS = 2_000;
+    private static final long INTERVALO_COMPROBACION_REPLICAS_MS = 5_000;
+
+    // Filas que se piden al servidor a la vez al recorrer una tabla completa con drivers distintos de MySQL
+    private static final int FILAS_POR_LECTURA_EN_FLUJO = 1_000;
+
+    static {
+        // Cargamos el driver de MySQL una sola vez, necesario para establecer las conexiones.
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            Registro.aviso("Driver no encontrado: " + e.getMessage());
+        }
+    }
+
+    // Sentencia de inserción de un contacto, compartida por la inserción individual y la masiva
+    private static final String SQL_INSERTAR_CONTACTO = "INSERT INTO contactos (nombre, telefono, idGrupo, apellidoPaterno, apellidoMaterno) VALUES(?, ?, ?, ?, ?)";
+    // Número de contactos por lote cuando no se indica otro en la inserción masiva
+    public static final int TAMANO_LOTE_PREDETERMINADO = 500;
+
+    // Sentencia de actualización de un contacto, compartida por la actualización inmediata y la diferida
+    private static final String SQL_ACTUALIZAR_CONTACTO = "UPDATE contactos SET nombre = ?, telefono = ?, idGrupo = ?, apellidoPaterno = ?, apellidoMaterno = ? WHERE idContacto = ?";
+
+    // PARÁMETROS PREDETERMINADOS DE LA ESCRITURA DIFERIDA
+    private static final int CAPACIDAD_ESCRITURA_DIFERIDA = 10_000; // Contactos distintos en espera como máximo
+    private static final int LOTE_ESCRITURA_DIFERIDA = 200; // Actualizaciones por transacción
+    private static final long INTERVALO_ESCRITURA_DIFERIDA_MS = 1_000; // Espera máxima de una actualización
+
+    // Seguimiento de cambios: cada escritura en `contactos` queda registrada, con una versión creciente,
+    // en `cambios_contactos` por medio de disparadores. La variable de sesión identifica a esta instancia.
+    private static final String SQL_CAMBIOS_DESDE = "SELECT cc.version, cc.operacion, cc.idContacto AS idCambiado, "
+            + "cc.idGrupoAnterior, cc.idGrupoNuevo, cc.origen, "
+            + "c.idContacto, c.nombre, c.apellidoPaterno, c.apellidoMaterno, c.telefono, c.idGrupo, g.nombreGrupo "
+            + "FROM cambios_contactos cc LEFT JOIN contactos c ON c.idContacto = cc.idContacto "
+            + "LEFT JOIN grupos g ON g.idGrupo = c.idGrupo WHERE cc.version > ? ORDER BY cc.version LIMIT ?";
+
+    // Caché de contactos por ID. La capacidad se puede cambiar con la propiedad del sistema indicada.
+    private static final String PROPIEDAD_CAPACIDAD_CACHE = "contactos.cache.capacidad";
+    private static final int CAPACIDAD_CACHE_CONTACTOS = 1_000;
+
+    // Consulta base de contactos con el nombre de su grupo. Se usa LEFT JOIN para no perder
+    // los contactos sin grupo asignado (idGrupo es opcional en la tabla).
+    private static final String SQL_CONTACTOS_CON_GRUPO = "SELECT c.idContacto, c.nombre, c.apellidoPaterno, c.apellidoMaterno, c.telefono, c.idGrupo, g.nombreGrupo "
+            + "FROM contactos c LEFT JOIN grupos g ON g.idGrupo = c.idGrupo";
+
+    // Consultas que la interfaz hace al iniciar; se preparan por adelantado en precalentar()
+    private static final String SQL_PAGINA_CONTACTOS_CON_GRUPO = SQL_CONTACTOS_CON_GRUPO
+            + " WHERE c.idContacto > ? ORDER BY c.idContacto LIMIT ?";
+    private static final String SQL_CONTAR_CONTACTOS = "SELECT COUNT(*) AS total FROM contactos";
+    private static final String SQL_CONTAR_CONTACTOS_AGRUPADOS = "SELECT idGrupo, COUNT(*) AS total FROM contactos GROUP BY idGrupo";
+    private static final String SQL_VERSION_CAMBIOS = "SELECT COALESCE(MAX(version), 0) FROM cambios_contactos";
+    // Cambios sin el contacto, para saber cuáles incluyen los conteos leídos en la misma transacción
+    private static final String SQL_VERSIONES_DESDE = "SELECT version, operacion, idContacto, idGrupoAnterior, idGrupoNuevo, origen "
+            + "FROM cambios_contactos WHERE version > ? ORDER BY version";
+    private static final List<String> SENTENCIAS_INICIO = List.of(SQL_PAGINA_CONTACTOS_CON_GRUPO,
+            SQL_CONTAR_CONTACTOS, SQL_CONTAR_CONTACTOS_AGRUPADOS, SQL_VERSION_CAMBIOS, SQL_CAMBIOS_DESDE);
+    // Conexiones de lectura que se abren a la vez al precalentar, una por hilo de lectura de la interfaz
+    private static final int CONEXIONES_PRECALENTADAS = 4;
+
+    // Pool de conexiones con el servidor principal, donde se escribe
+    private final PoolConexiones pool;
+
+    // Reparte las conexiones: escrituras al principal, lecturas a las réplicas
+    private final EnrutadorConexiones enrutador;
+
+    // Identifica los cambios hechos por esta instancia en `cambios_contactos`
+    private final String origen = UUID.randomUUID().toString();
+
+    // Componentes avisados de cada escritura hecha a través de esta clase
+    private final List<OyenteCambiosContactos> oyentes = new CopyOnWriteArrayList<>();
+
+    // Conteos de contactos mantenidos en memoria y actualizados con cada escritura
+    private final EstadisticasContactos estadisticas = new EstadisticasContactos(this);
+
+    // Índice de trigramas para buscar por nombre y apellidos sin consultar la base de datos
+    private final IndiceNombres indiceNombres = new IndiceNombres();
+
+    // Números de teléfono normalizados, para identificar llamadas sin consultar la base de datos
+    private final IndiceTelefonos indiceTelefonos = new IndiceTelefonos();
+
+    // Últimos contactos consultados por ID, invalidados con cada actualización y eliminación
+    private final CacheContactos cacheContactos;
+
+    // Cola de actualizaciones diferidas; null mientras no se active
+    private volatile EscrituraDiferida escrituraDiferida;
+
+    // Nombres de los grupos ya consultados, por idGrupo. Los grupos casi nunca cambian.
+    private final Map<Integer, String> nombresGrupo = new ConcurrentHashMap<>();
+
+    // Latencias, llamadas, errores y filas de cada operación, publicadas por JMX
+    private final MetricasBD metricas;
+
+    /**
+     * Crea el acceso a la base de datos `contactosdb` local con el usuario y
+     * la contraseña configurados en esta clase. Las réplicas de lectura se
+     * toman de la propiedad del sistema `contactos.replicas` (URLs JDBC
+     * separadas por comas); sin ella, todo se lee del servidor principal.
+     */
+    public MYSQL() {
+        this(URL, replicasConfiguradas(), USER, PASSWORD);
+    }
+
     /**
-     * Establece la conexión con la base de datos MySQL.
+     * Crea el acceso a otra base de datos con las mismas tablas, por ejemplo
+     * una base de pruebas o de mediciones de rendimiento. También registra
+     * como oyentes de cambios a las estadísticas, al índice de nombres y a la
+     * caché de contactos, cuya capacidad se toma de la propiedad del sistema
+     * `contactos.cache.capacidad` (1000 contactos si no se indica), y publica
+     * las métricas de las operaciones por JMX.
+     *
+     * @param url URL JDBC de la base de datos.
+     * @param usuario Usuario de la base de datos.
+     * @param contrasena Contraseña del usuario.
+     */
+    public MYSQL(String url, String usuario, String contrasena) {
+        this(url, List.of(), usuario, contrasena);
+    }
+
+    /**
+     * Crea el acceso a una base de datos con réplicas de solo lectura. Las
+     * inserciones, actualizaciones y eliminaciones se hacen en el servidor
+     * principal; las consultas y conteos se reparten entre las réplicas
+     * ({@link EnrutadorConexiones}). Durante un momento después de cada
+     * escritura (por defecto {@value #VENTANA_LECTURA_PROPIA_MS} ms,
+     * configurable con la propiedad del sistema
+     * `contactos.replicas.lecturaPropiaMs`) se lee del principal, para que
+     * las consultas reflejen las escrituras propias aunque las réplicas vayan
+     * atrasadas.
+     *
+     * @param url URL JDBC del servidor principal.
+     * @param urlsReplicas URLs JDBC de las réplicas; puede estar vacía.
+     * @param usuario Usuario de la base de datos, el mismo en todos los
+     * servidores.
+     * @param contrasena Contraseña del usuario.
+     */
+    public MYSQL(String url, List<String> urlsReplicas, String usuario, String contrasena) {
+        this.pool = new PoolConexiones(url, usuario, contrasena, MAXIMO_CONEXIONES, TIEMPO_MAXIMO_ESPERA_MS,
+                TIEMPO_MAXIMO_INACTIVIDAD_MS, VALIDACION_TRAS_INACTIVIDAD_MS, MAXIMO_SENTENCIAS_POR_CONEXION,
+                "SET @origen_contactos = '" + origen + "'");
+        Map<String, PoolConexiones> replicas = new LinkedHashMap<>();
+        for (String urlReplica : urlsReplicas) {
+            replicas.put(urlReplica, new PoolConexiones(urlReplica, usuario, contrasena, MAXIMO_CONEXIONES,
+                    TIEMPO_MAXIMO_ESPERA_MS, TIEMPO_MAXIMO_INACTIVIDAD_MS, VALIDACION_TRAS_INACTIVIDAD_MS,
+                    MAXIMO_SENTENCIAS_POR_CONEXION, null));
+        }
+        this.enrutador = new EnrutadorConexiones(pool, replicas,
+                Long.getLong(PROPIEDAD_VENTANA_LECTURA_PROPIA, VENTANA_LECTURA_PROPIA_MS),
+                INTERVALO_COMPROBACION_REPLICAS_MS);
+        agregarOyente(estadisticas);
+        agregarOyente(indiceNombres);
+        agregarOyente(indiceTelefonos);
+        this.cacheContactos = new CacheContactos(
+                Integer.getInteger(PROPIEDAD_CAPACIDAD_CACHE, CAPACIDAD_CACHE_CONTACTOS));
+        agregarOyente(cacheContactos);
+        this.metricas = new MetricasBD(enrutador::obtenerEstadisticasPools);
+        metricas.registrarJmx();
+    }
+
+    /**
+     * Obtiene una conexión con la base de datos MySQL desde el pool de
+     * conexiones.
+     *
+     * La conexión se reutiliza entre operaciones, por lo que solo se abre una
+     * conexión física nueva cuando no hay ninguna libre. Toda conexión obtenida
+     * con este método debe liberarse con {@link #cerrarConexion(Connection)}.
+     *
+     * La conexión es siempre del servidor principal y se considera de
+     * escritura: mientras está prestada, y durante un momento después, las
+     * consultas también se hacen en el principal.
      *
      * @return La conexión a la base de datos o null si ocurre un error.
      */
     public Connection conectar() {
         Connection conexion = null;
         try {
-            // Cargamos el driver de MySQL, necesario para establecer la conexión.
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            conexion = enrutador.obtenerEscritura();
+        } catch (SQLException e) {
+            Registro.error("Error de conexión: " + e.getMessage());
+        }
+        return conexion;
+    }
 
-            // Establecemos la conexión usando los parámetros definidos anteriormente.
-            conexion = DriverManager.getConnection(URL, USER, PASSWORD);
-            System.out.println("Conexión exitosa a la base de datos.");
+    /**
+     * Obtiene una conexión para consultar, de una réplica si las hay. Debe
+     * liberarse con {@link #cerrarConexion(Connection)}.
+     *
+     * @return La conexión o null si ocurre un error.
+     */
+    private Connection conectarLectura() {
+        Connection conexion = null;
+        try {
+            conexion = enrutador.obtenerLectura();
         } catch (SQLException e) {
-            System.out.println("Error de conexión: " + e.getMessage());
-        } catch (ClassNotFoundException e) {
-            System.out.println("Driver no encontrado: " + e.getMessage());
+            Registro.error("Error de conexión: " + e.getMessage());
+        }
+        return conexion;
+    }
+
+    /**
+     * Obtiene una conexión del servidor principal para consultar, sin que
+     * cuente como escritura: las demás consultas siguen yendo a las réplicas.
+     * Debe liberarse con {@link #cerrarConexion(Connection)}.
+     *
+     * @return La conexión o null si ocurre un error.
+     */
+    private Connection conectarLecturaPrincipal() {
+        Connection conexion = null;
+        try {
+            conexion = enrutador.obtenerLecturaPrincipal();
+        } catch (SQLException e) {
+            Registro.error("Error de conexión: " + e.getMessage());
         }
         return conexion;
     }
 
     /**
-     * Cierra la conexión a la base de datos si está abierta.
+     * Libera una conexión obtenida con {@link #conectar()}, devolviéndola al
+     * pool para que otra operación pueda reutilizarla.
      *
-     * @param conexion La conexión que se desea cerrar.
+     * @param conexion La conexión que se desea liberar.
      */
     public void cerrarConexion(Connection conexion) {
-        if (conexion != null) {
-            try {
-                conexion.close();
-                System.out.println("Conexión cerrada.");
-            } catch (SQLException e) {
-                System.out.println("Error al cerrar la conexión: " + e.getMessage());
+        enrutador.devolver(conexion);
+    }
+
+    /**
+     * Obtiene la sentencia preparada de un SQL sobre una conexión obtenida con
+     * {@link #conectar()}. Cada conexión guarda sus sentencias preparadas, así
+     * que el mismo SQL solo se prepara la primera vez que se usa con ella.
+     *
+     * La sentencia no debe cerrarse (pertenece a la conexión); sí deben
+     * cerrarse los {@link ResultSet} que produzca.
+     *
+     * @param conexion La conexión obtenida con {@link #conectar()}.
+     * @param sql El texto SQL de la sentencia.
+     * @return La sentencia, lista para asignarle parámetros.
+     *
+     * @throws SQLException Si ocurre un error al preparar la sentencia.
+     */
+    private PreparedStatement preparar(Connection conexion, String sql) throws SQLException {
+        return enrutador.prepararSentencia(conexion, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Igual que {@link #preparar(Connection, String)}, indicando si la
+     * sentencia debe devolver las claves generadas.
+     */
+    private PreparedStatement preparar(Connection conexion, String sql, int clavesGeneradas) throws SQLException {
+        return enrutador.prepararSentencia(conexion, sql, clavesGeneradas);
+    }
+
+    /**
+     * Prepara una consulta cuyo resultado se lee en flujo, fila por fila, en
+     * lugar de cargarse completo en memoria. Con MySQL esto se pide con un
+     * tamaño de lectura de {@link Integer#MIN_VALUE}; con otros drivers, con
+     * un tamaño de lectura positivo.
+     *
+     * La sentencia no se guarda en la caché de la conexión, porque su tamaño
+     * de lectura afectaría a las demás consultas: debe cerrarse al terminar.
+     */
+    private static PreparedStatement prepararLecturaEnFlujo(Connection conexion, String sql) throws SQLException {
+        PreparedStatement statement = conexion.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            boolean mysql = conexion.getMetaData().getURL().startsWith("jdbc:mysql:");
+            statement.setFetchSize(mysql ? Integer.MIN_VALUE : FILAS_POR_LECTURA_EN_FLUJO);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * Obtiene las estadísticas del pool de conexiones (conexiones activas,
+     * inactivas, préstamos, tiempos de espera y aciertos y fallos de la caché
+     * de sentencias preparadas).
+     *
+     * @return Las estadísticas actuales del pool.
+     */
+    public PoolConexiones.EstadisticasPool obtenerEstadisticasPool() {
+        return pool.obtenerEstadisticas();
+    }
+
+    /**
+     * Obtiene el estado de las réplicas de lectura: si responden, cuántas
+     * lecturas atendieron y las estadísticas de su pool.
+     *
+     * @return Una entrada por réplica; vacía si no hay réplicas.
+     */
+    public List<EnrutadorConexiones.EstadoReplica> obtenerEstadoReplicas() {
+        return enrutador.obtenerEstadoReplicas();
+    }
+
+    /**
+     * Obtiene las métricas de las operaciones de esta clase: llamadas,
+     * errores, filas devueltas y percentiles de latencia de cada una, además
+     * de los conteos de conexiones del pool. Las mismas métricas se publican
+     * por JMX.
+     *
+     * @return Las métricas de las operaciones.
+     */
+    public MetricasBD obtenerMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Obtiene el componente que mantiene en memoria los conteos de contactos
+     * total y por grupo. Sus contadores se actualizan con cada escritura hecha
+     * a través de esta clase.
+     *
+     * @return Las estadísticas de contactos.
+     */
+    @Override
+    public EstadisticasContactos obtenerEstadisticas() {
+        return estadisticas;
+    }
+
+    /**
+     * Obtiene el índice en memoria usado por
+     * {@link #buscarContactosPorNombre(String, int)}. El índice se debe
+     * construir con {@link IndiceNombres#construir(RepositorioContactos)};
+     * mientras tanto, las búsquedas se hacen en la base de datos.
+     *
+     * @return El índice de nombres.
+     */
+    @Override
+    public IndiceNombres obtenerIndiceNombres() {
+        return indiceNombres;
+    }
+
+    /**
+     * Obtiene el índice en memoria de los números de teléfono. Se debe
+     * construir con {@link IndiceTelefonos#construir(RepositorioContactos)};
+     * mientras tanto, sus búsquedas devuelven {@code null}.
+     *
+     * @return El índice de teléfonos.
+     */
+    @Override
+    public IndiceTelefonos obtenerIndiceTelefonos() {
+        return indiceTelefonos;
+    }
+
+    /**
+     * Obtiene la caché usada por {@link #obtenerContactoPorId(int)} y
+     * {@link #obtenerContactosSimilaresPorId(int, Collection)}, por ejemplo
+     * para consultar sus aciertos y fallos.
+     *
+     * @return La caché de contactos.
+     */
+    public CacheContactos obtenerCacheContactos() {
+        return cacheContactos;
+    }
+
+    /**
+     * Registra un componente para que reciba cada inserción, actualización y
+     * eliminación de contactos hecha a través de esta clase.
+     *
+     * @param oyente El componente a registrar.
+     */
+    @Override
+    public void agregarOyente(OyenteCambiosContactos oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Deja de avisar los cambios de contactos a un componente.
+     *
+     * @param oyente El componente registrado.
+     */
+    @Override
+    public void quitarOyente(OyenteCambiosContactos oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Cierra el pool de conexiones y todas las conexiones inactivas. Debe
+     * llamarse cuando la aplicación ya no vaya a usar la base de datos.
+     */
+    @Override
+    public void cerrar() {
+        EscrituraDiferida cola = escrituraDiferida;
+        if (cola != null) {
+            // Las actualizaciones pendientes se escriben antes de cerrar las conexiones
+            cola.cerrar();
+        }
+        estadisticas.detener();
+        enrutador.cerrar();
+        metricas.cerrar();
+    }
+
+    /**
+     * Abre a la vez, cada una en su hilo, {@value #CONEXIONES_PRECALENTADAS}
+     * conexiones de lectura y prepara en cada una las consultas que la
+     * interfaz hace al iniciar (la primera página, los conteos y la versión de
+     * los cambios). Las conexiones se devuelven al pool con las sentencias ya
+     * preparadas en su caché, así que las primeras consultas no esperan a
+     * conectarse. Si el servidor no responde, solo se informa en el registro.
+     */
+    @Override
+    public void precalentar() {
+        ExecutorService hilos = Executors.newFixedThreadPool(CONEXIONES_PRECALENTADAS, tarea -> {
+            Thread hilo = new Thread(tarea, "precalentar-conexiones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        List<Future<Connection>> abiertas = new ArrayList<>(CONEXIONES_PRECALENTADAS);
+        try {
+            for (int i = 0; i < CONEXIONES_PRECALENTADAS; i++) {
+                // Cada conexión se retiene hasta abrir todas, para que no se reutilice la misma
+                abiertas.add(hilos.submit(() -> {
+                    Connection conexion = enrutador.obtenerLectura();
+                    try {
+                        for (String sql : SENTENCIAS_INICIO) {
+                            preparar(conexion, sql);
+                        }
+                    } catch (SQLException e) {
+                        // La consulta que falle al usarse informará el error; la conexión sigue sirviendo
+                        Registro.depurar("No se pudo preparar una consulta al precalentar: " + e.getMessage());
+                    }
+                    return conexion;
+                }));
+            }
+            for (Future<Connection> abierta : abiertas) {
+                try {
+                    cerrarConexion(abierta.get());
+                } catch (ExecutionException e) {
+                    Registro.aviso("No se pudo abrir una conexión al precalentar: " + e.getCause().getMessage());
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    /**
+     * Activa la escritura diferida con los parámetros predeterminados.
+     *
+     * @see #activarEscrituraDiferida(int, int, long)
+     */
+    public void activarEscrituraDiferida() {
+        activarEscrituraDiferida(CAPACIDAD_ESCRITURA_DIFERIDA, LOTE_ESCRITURA_DIFERIDA, INTERVALO_ESCRITURA_DIFERIDA_MS);
+    }
+
+    /**
+     * Activa la escritura diferida de las actualizaciones. A partir de aquí,
+     * {@link #actualizarContacto} no ejecuta el `UPDATE`: deja el cambio en
+     * una {@link EscrituraDiferida}, que combina las actualizaciones del mismo
+     * contacto y las escribe por lotes en segundo plano. Las búsquedas por ID
+     * devuelven la versión pendiente mientras no se ha escrito. Si ya estaba
+     * activa, no tiene efecto.
+     *
+     * @param capacidad Número máximo de contactos distintos en espera; al
+     * llegar a él, las actualizaciones esperan a que se libere espacio.
+     * @param tamanoLote Número de actualizaciones por transacción.
+     * @param intervaloMs Tiempo máximo, en milisegundos, que una actualización
+     * espera antes de escribirse.
+     */
+    public synchronized void activarEscrituraDiferida(int capacidad, int tamanoLote, long intervaloMs) {
+        if (escrituraDiferida == null) {
+            escrituraDiferida = new EscrituraDiferida(this, capacidad, tamanoLote, intervaloMs);
         }
     }
 
+    /**
+     * Indica si las actualizaciones se escriben de forma diferida.
+     *
+     * @return {@code true} si la escritura diferida está activa.
+     */
+    public boolean usaEscrituraDiferida() {
+        return escrituraDiferida != null;
+    }
+
+    /**
+     * Obtiene la cola de escritura diferida, por ejemplo para consultar sus
+     * estadísticas o vaciarla.
+     *
+     * @return La cola, o {@code null} si la escritura diferida no está activa.
+     */
+    public EscrituraDiferida obtenerEscrituraDiferida() {
+        return escrituraDiferida;
+    }
+
     /**
      * Inserta un nuevo registro en la tabla `contactos` de la base de datos con
      * los valores proporcionados.
@@ -84,18 +560,22 @@ public class MYSQL {
      * {@code null}.
      * @param IDGrupo El ID del grupo al que pertenece el contacto. Este valor
      * debe ser un número entero.
+     * @return El `idContacto` generado para el nuevo registro, o -1 si no se
+     * pudo insertar.
      *
      * @throws SQLException Si ocurre un error al conectar con la base de datos
      * o ejecutar la sentencia SQL.
      */
-    public void insertarValores(String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int IDGrupo) throws SQLException {
+    @Override
+    public int insertarValores(String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int IDGrupo) throws SQLException {
+        long inicio = System.nanoTime();
+        int idGenerado = -1;
         Connection conexion = conectar();
 
         if (conexion != null) {
-            String sql = "INSERT INTO contactos (nombre, telefono, idGrupo, apellidoPaterno, apellidoMaterno) VALUES(?, ?, ?, ?, ?)";
-
             // Usamos un PreparedStatement para prevenir inyecciones SQL.
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
+            try {
+                PreparedStatement statement = preparar(conexion, SQL_INSERTAR_CONTACTO, Statement.RETURN_GENERATED_KEYS);
                 // Establecemos los valores a insertar
                 statement.setString(1, nombre);
                 statement.setString(2, telefono);
@@ -106,397 +586,1117 @@ public class MYSQL {
                 // Ejecutamos la inserción
                 int filasInsertadas = statement.executeUpdate();
                 if (filasInsertadas > 0) {
-                    System.out.println("Se insertó correctamente el registro en la tabla personas.");
+                    try (ResultSet claves = statement.getGeneratedKeys()) {
+                        if (claves.next()) {
+                            idGenerado = claves.getInt(1);
+                        }
+                    }
+                    Registro.depurar("Se insertó correctamente el registro en la tabla personas.");
+                }
+
+            } catch (SQLException e) {
+                Registro.error("Error al insertar registro: " + e.getMessage());
+            } finally {
+                cerrarConexion(conexion);
+            }
+        }
+        if (idGenerado >= 0) {
+            Contacto nuevo = conNombreGrupo(new Contacto(idGenerado, nombre, apellidoPaterno, apellidoMaterno, telefono, IDGrupo));
+            avisar(oyente -> oyente.contactoInsertado(nuevo));
+        }
+        medir("insertarValores", inicio, idGenerado >= 0 ? 1 : 0, idGenerado < 0);
+        return idGenerado;
+    }
+
+    /**
+     * Inserta muchos contactos a la vez usando lotes de JDBC, con el tamaño de
+     * lote predeterminado ({@value #TAMANO_LOTE_PREDETERMINADO}).
+     *
+     * @param contactos Los contactos a insertar; se ignora su `idContacto`.
+     * @return Los IDs generados y los contactos que no se pudieron insertar.
+     *
+     * @see #insertarContactos(Collection, int)
+     */
+    @Override
+    public ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactos) {
+        return insertarContactos(contactos, TAMANO_LOTE_PREDETERMINADO);
+    }
+
+    /**
+     * Inserta muchos contactos a la vez usando lotes de JDBC.
+     *
+     * Todos los contactos se insertan con una sola conexión y una sola
+     * sentencia preparada. Los contactos se agrupan en lotes de `tamanoLote`
+     * que se envían al servidor con `executeBatch()`; cada lote es una
+     * transacción que se confirma al terminar. Si un lote falla, se revierte y
+     * sus contactos se vuelven a insertar uno por uno dentro de la misma
+     * transacción, de modo que solo quedan fuera los contactos que realmente
+     * fallan y se sabe cuáles son.
+     *
+     * @param contactos Los contactos a insertar; se ignora su `idContacto`.
+     * @param tamanoLote El número de contactos por lote (y por transacción).
+     * @return Los IDs generados, en el mismo orden de `contactos`, y los
+     * contactos que no se pudieron insertar con el motivo.
+     */
+    @Override
+    public ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactos, int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        long inicio = System.nanoTime();
+        int[] idsGenerados = new int[contactos.size()];
+        Arrays.fill(idsGenerados, -1);
+        List<ResultadoInsercionMasiva.Fallo> fallos = new ArrayList<>();
+        List<Contacto> lote = new ArrayList<>(Math.min(tamanoLote, contactos.size()));
+        // Contactos ya confirmados, con su ID, para avisar a los oyentes al terminar
+        List<Contacto> insertados = new ArrayList<>(contactos.size());
+        int inicioLote = 0;
+
+        boolean error = false;
+        Connection conexion = conectar();
+        if (conexion == null) {
+            registrarFallos(contactos, 0, "No se pudo conectar con la base de datos", fallos);
+            medir("insertarContactos", inicio, 0, true);
+            return new ResultadoInsercionMasiva(idsGenerados, fallos);
+        }
+        try {
+            PreparedStatement statement = preparar(conexion, SQL_INSERTAR_CONTACTO, Statement.RETURN_GENERATED_KEYS);
+            conexion.setAutoCommit(false);
+            for (Contacto contacto : contactos) {
+                lote.add(contacto);
+                if (lote.size() == tamanoLote) {
+                    insertarLote(conexion, statement, lote, inicioLote, idsGenerados, fallos, insertados);
+                    inicioLote += lote.size();
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) {
+                insertarLote(conexion, statement, lote, inicioLote, idsGenerados, fallos, insertados);
+                inicioLote += lote.size();
+            }
+            conexion.setAutoCommit(true);
+            Registro.info("Inserción masiva: " + (inicioLote - fallos.size()) + " registros insertados, " + fallos.size() + " fallidos.");
+        } catch (SQLException e) {
+            // Error de la conexión: los contactos que faltaban por enviar no se insertaron
+            error = true;
+            Registro.error("Error en la inserción masiva: " + e.getMessage());
+            int primerPendiente = inicioLote;
+            Arrays.fill(idsGenerados, primerPendiente, idsGenerados.length, -1);
+            fallos.removeIf(fallo -> fallo.posicion() >= primerPendiente);
+            List<Contacto> pendientes = new ArrayList<>(contactos).subList(primerPendiente, contactos.size());
+            registrarFallos(pendientes, primerPendiente, e.getMessage(), fallos);
+        } finally {
+            cerrarConexion(conexion);
+        }
+        for (Contacto contacto : insertados) {
+            Contacto nuevo = conNombreGrupo(contacto);
+            avisar(oyente -> oyente.contactoInsertado(nuevo));
+        }
+        medir("insertarContactos", inicio, insertados.size(), error);
+        return new ResultadoInsercionMasiva(idsGenerados, fallos);
+    }
+
+    /**
+     * Inserta un lote de contactos en una transacción y la confirma. Si el
+     * lote falla, se revierte y se reintenta contacto por contacto para
+     * aislar los que fallan. Los contactos confirmados se agregan, con su ID
+     * generado, a `insertados`.
+     *
+     * @throws SQLException Si falla la conexión (al confirmar o revertir).
+     */
+    private void insertarLote(Connection conexion, PreparedStatement statement, List<Contacto> lote, int inicioLote,
+            int[] idsGenerados, List<ResultadoInsercionMasiva.Fallo> fallos, List<Contacto> insertados) throws SQLException {
+        try {
+            for (Contacto contacto : lote) {
+                asignarParametrosInsercion(statement, contacto);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            try (ResultSet claves = statement.getGeneratedKeys()) {
+                for (int i = 0; i < lote.size() && claves.next(); i++) {
+                    idsGenerados[inicioLote + i] = claves.getInt(1);
+                }
+            }
+            conexion.commit();
+            for (int i = 0; i < lote.size(); i++) {
+                if (idsGenerados[inicioLote + i] >= 0) {
+                    insertados.add(conId(lote.get(i), idsGenerados[inicioLote + i]));
+                }
+            }
+        } catch (SQLException errorLote) {
+            conexion.rollback();
+            statement.clearBatch();
+            Arrays.fill(idsGenerados, inicioLote, inicioLote + lote.size(), -1);
+
+            // MySQL solo revierte la sentencia que falla, así que las demás filas siguen en la transacción
+            for (int i = 0; i < lote.size(); i++) {
+                Contacto contacto = lote.get(i);
+                try {
+                    asignarParametrosInsercion(statement, contacto);
+                    statement.executeUpdate();
+                    try (ResultSet claves = statement.getGeneratedKeys()) {
+                        if (claves.next()) {
+                            idsGenerados[inicioLote + i] = claves.getInt(1);
+                        }
+                    }
+                } catch (SQLException errorFila) {
+                    fallos.add(new ResultadoInsercionMasiva.Fallo(inicioLote + i, contacto, errorFila.getMessage()));
+                }
+            }
+            conexion.commit();
+            for (int i = 0; i < lote.size(); i++) {
+                if (idsGenerados[inicioLote + i] >= 0) {
+                    insertados.add(conId(lote.get(i), idsGenerados[inicioLote + i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Asigna los valores de un contacto a la sentencia de inserción
+     * {@link #SQL_INSERTAR_CONTACTO}.
+     */
+    private static void asignarParametrosInsercion(PreparedStatement statement, Contacto contacto) throws SQLException {
+        statement.setString(1, contacto.nombre());
+        statement.setString(2, contacto.telefono());
+        statement.setInt(3, contacto.idGrupo());
+        statement.setString(4, contacto.apellidoPaterno());
+        statement.setString(5, contacto.apellidoMaterno());
+    }
+
+    /**
+     * Crea una copia de un contacto con el ID indicado.
+     */
+    private static Contacto conId(Contacto contacto, int idContacto) {
+        return new Contacto(idContacto, contacto.nombre(), contacto.apellidoPaterno(), contacto.apellidoMaterno(),
+                contacto.telefono(), contacto.idGrupo(), contacto.nombreGrupo());
+    }
+
+    /**
+     * Registra como fallidos todos los contactos indicados.
+     */
+    private static void registrarFallos(Collection<Contacto> contactos, int primeraPosicion, String mensaje,
+            List<ResultadoInsercionMasiva.Fallo> fallos) {
+        int posicion = primeraPosicion;
+        for (Contacto contacto : contactos) {
+            fallos.add(new ResultadoInsercionMasiva.Fallo(posicion++, contacto, mensaje));
+        }
+    }
+
+    /**
+     * Actualiza los detalles de un contacto existente en la tabla `contactos`
+     * de la base de datos.
+     *
+     * Este método establece una conexión con la base de datos y utiliza una
+     * sentencia SQL preparada para actualizar los valores de nombre, apellido
+     * paterno, apellido materno, teléfono e ID de grupo de un contacto
+     * específico, identificado por su ID en la tabla `contactos`.
+     *
+     * Si no se encuentra un contacto con el ID proporcionado, el método muestra
+     * un mensaje indicando que no se actualizó ningún registro. La conexión a
+     * la base de datos se cierra automáticamente después de la ejecución,
+     * independientemente de si la operación fue exitosa o si ocurrió un error.
+     *
+     * Con la escritura diferida activa ({@link #activarEscrituraDiferida()}),
+     * el cambio solo se encola y el método regresa sin esperar a la base de
+     * datos, salvo que la cola esté llena.
+     *
+     * @param idContacto El ID del contacto a actualizar. Este valor debe ser un
+     * número entero que corresponde al registro del contacto en la base de
+     * datos.
+     * @param nombre El nuevo nombre del contacto. No puede ser {@code null}.
+     * @param apellidoPaterno El nuevo apellido paterno del contacto. No puede
+     * ser {@code null}.
+     * @param apellidoMaterno El nuevo apellido materno del contacto. No puede
+     * ser {@code null}.
+     * @param telefono El nuevo número de teléfono del contacto. No puede ser
+     * {@code null}.
+     * @param idGrupo El nuevo ID del grupo al que pertenece el contacto. Este
+     * valor debe ser un número entero.
+     * @return {@code true} si el contacto se actualizó o, con la escritura
+     * diferida, si el cambio quedó encolado.
+     *
+     * @throws SQLException Si ocurre un error al conectar con la base de datos
+     * o ejecutar la sentencia SQL.
+     */
+    @Override
+    public boolean actualizarContacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo) {
+        long inicio = System.nanoTime();
+        EscrituraDiferida cola = escrituraDiferida;
+        if (cola != null) {
+            try {
+                if (cola.encolar(new Contacto(idContacto, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo))) {
+                    medir("actualizarContacto", inicio, 1, false);
+                    return true;
+                }
+                Registro.error("Error al actualizar el registro: la cola de escritura diferida está llena.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Registro.error("Error al actualizar el registro: interrumpido mientras se esperaba la cola.");
+            }
+            medir("actualizarContacto", inicio, 0, true);
+            return false;
+        }
+
+        Contacto anterior = null;
+        boolean actualizado = false;
+        Connection conexion = conectar();
+        boolean error = conexion == null;
+
+        if (conexion != null) {
+            String sql = SQL_ACTUALIZAR_CONTACTO;
+
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
+                // Leemos y bloqueamos el contacto actual en la misma transacción
+                // que la actualización, para avisar a los oyentes el estado
+                // que realmente se sustituye
+                conexion.setAutoCommit(false);
+                anterior = obtenerContactoConGrupo(conexion, idContacto);
+
+                // Establecemos los valores para la actualización
+                statement.setString(1, nombre);
+                statement.setString(2, telefono);
+                statement.setInt(3, idGrupo);
+                statement.setString(4, apellidoPaterno);
+                statement.setString(5, apellidoMaterno);
+                statement.setInt(6, idContacto);
+
+                // Ejecutamos la actualización
+                int filasActualizadas = statement.executeUpdate();
+                conexion.commit();
+                conexion.setAutoCommit(true);
+                if (filasActualizadas > 0) {
+                    actualizado = true;
+                    Registro.depurar("El registro fue actualizado correctamente.");
+                } else {
+                    Registro.aviso("No se encontró ningún registro con el id proporcionado.");
+                }
+            } catch (SQLException e) {
+                error = true;
+                Registro.error("Error al actualizar el registro: " + e.getMessage());
+            } finally {
+                cerrarConexion(conexion);
+            }
+        }
+        if (actualizado && anterior != null) {
+            Contacto previo = anterior;
+            Contacto nuevo = conNombreGrupo(new Contacto(idContacto, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo));
+            avisar(oyente -> oyente.contactoActualizado(previo, nuevo));
+        }
+        medir("actualizarContacto", inicio, actualizado ? 1 : 0, error);
+        return actualizado;
+    }
+
+    /**
+     * Escribe un lote de actualizaciones de la escritura diferida en una sola
+     * transacción.
+     *
+     * Primero se leen, bloqueándolas, las versiones actuales de los contactos
+     * con una sola consulta, para avisar los cambios a los oyentes. Después se
+     * envían todos los `UPDATE` con `executeBatch()`. Si el lote falla, se
+     * revierte y las actualizaciones se repiten una por una en la misma
+     * transacción; las que fallan de nuevo se descartan e informan en consola.
+     *
+     * @param cambios Las nuevas versiones de los contactos, sin repetidos.
+     * @return El número de contactos actualizados.
+     *
+     * @throws SQLException Si no se pudo conectar o falla la conexión; en ese
+     * caso no se escribió ninguna actualización.
+     */
+    int escribirActualizaciones(List<Contacto> cambios) throws SQLException {
+        if (cambios.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Contacto> anteriores = new HashMap<>();
+        List<Contacto> actualizados = new ArrayList<>(cambios.size());
+        Connection conexion = conectar();
+        if (conexion == null) {
+            throw new SQLException("No se pudo conectar con la base de datos");
+        }
+        try {
+            conexion.setAutoCommit(false);
+            leerAnteriores(conexion, cambios, anteriores);
+
+            PreparedStatement statement = preparar(conexion, SQL_ACTUALIZAR_CONTACTO);
+            try {
+                for (Contacto cambio : cambios) {
+                    asignarParametrosActualizacion(statement, cambio);
+                    statement.addBatch();
+                }
+                int[] filas = statement.executeBatch();
+                for (int i = 0; i < cambios.size(); i++) {
+                    if (i >= filas.length || filas[i] != 0) {
+                        actualizados.add(cambios.get(i));
+                    }
+                }
+            } catch (SQLException errorLote) {
+                conexion.rollback();
+                statement.clearBatch();
+                actualizados.clear();
+                leerAnteriores(conexion, cambios, anteriores);
+                for (Contacto cambio : cambios) {
+                    try {
+                        asignarParametrosActualizacion(statement, cambio);
+                        if (statement.executeUpdate() > 0) {
+                            actualizados.add(cambio);
+                        }
+                    } catch (SQLException errorFila) {
+                        Registro.error("Error al actualizar el registro " + cambio.idContacto() + ": " + errorFila.getMessage());
+                    }
                 }
+            }
+            conexion.commit();
+            conexion.setAutoCommit(true);
+        } finally {
+            cerrarConexion(conexion);
+        }
+
+        for (Contacto cambio : actualizados) {
+            Contacto anterior = anteriores.get(cambio.idContacto());
+            if (anterior != null) {
+                Contacto nuevo = conNombreGrupo(cambio);
+                avisar(oyente -> oyente.contactoActualizado(anterior, nuevo));
+            }
+        }
+        return actualizados.size();
+    }
+
+    /**
+     * Lee y bloquea (`FOR UPDATE`) las versiones actuales de los contactos
+     * indicados con una sola consulta `IN`. La lista de parámetros se rellena
+     * hasta la siguiente potencia de dos para que la caché de sentencias solo
+     * guarde unas pocas variantes de la consulta.
+     */
+    private void leerAnteriores(Connection conexion, List<Contacto> contactos, Map<Integer, Contacto> anteriores) throws SQLException {
+        int parametros = contactos.size() <= 1 ? 1 : Integer.highestOneBit(contactos.size() - 1) << 1;
+        StringBuilder sql = new StringBuilder(SQL_CONTACTOS_CON_GRUPO).append(" WHERE c.idContacto IN (?");
+        for (int i = 1; i < parametros; i++) {
+            sql.append(", ?");
+        }
+        String consulta = sql.append(") FOR UPDATE").toString();
+
+        PreparedStatement statement = preparar(conexion, consulta);
+        for (int i = 0; i < parametros; i++) {
+            // Los IDs son positivos, así que -1 no coincide con ningún contacto
+            statement.setInt(i + 1, i < contactos.size() ? contactos.get(i).idContacto() : -1);
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+            MapeadorContactos mapeador = MapeadorContactos.para(consulta, resultSet);
+            while (resultSet.next()) {
+                Contacto anterior = mapeador.mapear(resultSet);
+                anteriores.put(anterior.idContacto(), anterior);
+            }
+        }
+    }
+
+    /**
+     * Asigna los valores de un contacto a la sentencia de actualización
+     * {@link #SQL_ACTUALIZAR_CONTACTO}.
+     */
+    private static void asignarParametrosActualizacion(PreparedStatement statement, Contacto contacto) throws SQLException {
+        statement.setString(1, contacto.nombre());
+        statement.setString(2, contacto.telefono());
+        statement.setInt(3, contacto.idGrupo());
+        statement.setString(4, contacto.apellidoPaterno());
+        statement.setString(5, contacto.apellidoMaterno());
+        statement.setInt(6, contacto.idContacto());
+    }
+
+    /**
+     * Elimina un contacto de la tabla `contactos` en la base de datos
+     * utilizando su ID.
+     *
+     * Este método establece una conexión con la base de datos y utiliza una
+     * sentencia SQL preparada para eliminar un contacto específico de la tabla
+     * `contactos`, identificado por su ID. Si no se encuentra un contacto con
+     * el ID proporcionado, el método muestra un mensaje indicando que no se
+     * eliminó ningún registro. La conexión a la base de datos se cierra
+     * automáticamente después de la ejecución, independientemente de si la
+     * operación fue exitosa o si ocurrió un error.
+     *
+     * @param idContacto El ID del contacto a eliminar. Este valor debe ser un
+     * número entero que corresponde al registro del contacto en la base de
+     * datos.
+     * @return {@code true} si se eliminó el contacto.
+     *
+     * @throws SQLException Si ocurre un error al conectar con la base de datos
+     * o ejecutar la sentencia SQL.
+     */
+    @Override
+    public boolean eliminarContacto(int idContacto) {
+        long inicio = System.nanoTime();
+        EscrituraDiferida cola = escrituraDiferida;
+        if (cola != null) {
+            // Una actualización pendiente ya no tiene sentido para un contacto eliminado
+            cola.descartar(idContacto);
+        }
+        Contacto anterior = null;
+        boolean eliminado = false;
+        Connection conexion = conectar();
+        boolean error = conexion == null;
+
+        if (conexion != null) {
+            String sql = "DELETE FROM contactos WHERE idContacto = ?";
+
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
+                // Leemos y bloqueamos el contacto actual en la misma transacción
+                // que la eliminación, para avisar a los oyentes el estado que
+                // realmente se elimina
+                conexion.setAutoCommit(false);
+                anterior = obtenerContactoConGrupo(conexion, idContacto);
 
+                // Establecemos el valor del idContacto a eliminar
+                statement.setInt(1, idContacto);
+
+                // Ejecutamos la eliminación
+                int filasEliminadas = statement.executeUpdate();
+                conexion.commit();
+                conexion.setAutoCommit(true);
+                if (filasEliminadas > 0) {
+                    eliminado = true;
+                    Registro.depurar("El contacto fue eliminado correctamente.");
+                } else {
+                    Registro.aviso("No se encontró ningún contacto con el id proporcionado.");
+                }
             } catch (SQLException e) {
-                System.out.println("Error al insertar registro: " + e.getMessage());
+                error = true;
+                Registro.error("Error al eliminar el contacto: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
+        if (eliminado && anterior != null) {
+            Contacto previo = anterior;
+            avisar(oyente -> oyente.contactoEliminado(previo));
+        }
+        medir("eliminarContacto", inicio, eliminado ? 1 : 0, error);
+        return eliminado;
+    }
+
+    /**
+     * Obtiene una lista de contactos cuya coincidencia parcial en el nombre
+     * coincide con el valor proporcionado.
+     *
+     * Este método establece una conexión con la base de datos y ejecuta una
+     * consulta SQL utilizando el operador `LIKE` para encontrar contactos cuyo
+     * nombre contenga la cadena proporcionada, permitiendo coincidencias
+     * parciales.
+     *
+     * @param nombre El nombre (o parte de él) del contacto a buscar. Este valor
+     * se usa para realizar una búsqueda con coincidencias parciales en la base
+     * de datos. No puede ser {@code null}.
+     *
+     * @return Una lista con los contactos encontrados. Si no se encuentran
+     * contactos, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosSimilaresPorNombre(String nombre) {
+        List<Contacto> contactosSimilares = new ArrayList<>();
+        obtenerContactosSimilaresPorNombre(nombre, contactosSimilares);
+        return contactosSimilares;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosSimilaresPorNombre(String)}, pero
+     * agrega los contactos encontrados al contenedor indicado en lugar de
+     * crear una lista nueva.
+     *
+     * @param nombre El nombre (o parte de él) del contacto a buscar.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactosSimilaresPorNombre(String nombre, Collection<? super Contacto> destino) {
+        // Usamos el operador LIKE con % para permitir coincidencias parciales
+        return consultarContactos("obtenerContactosSimilaresPorNombre", "SELECT * FROM contactos WHERE nombre LIKE ?", destino, "%" + nombre + "%");
+    }
+
+    /**
+     * Obtiene una lista de contactos que coinciden exactamente con el ID
+     * proporcionado.
+     *
+     * Este método establece una conexión con la base de datos y ejecuta una
+     * consulta SQL para encontrar contactos cuyo ID coincida exactamente con el
+     * valor proporcionado.
+     *
+     * @param idContacto El ID del contacto que se busca. Este valor debe ser un
+     * número entero que corresponde al registro del contacto en la base de
+     * datos.
+     *
+     * @return Una lista con los contactos encontrados. Si no se encuentran
+     * contactos con el ID proporcionado, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosSimilaresPorId(int idContacto) {
+        List<Contacto> contactosSimilares = new ArrayList<>();
+        obtenerContactosSimilaresPorId(idContacto, contactosSimilares);
+        return contactosSimilares;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosSimilaresPorId(int)}, pero agrega los
+     * contactos encontrados al contenedor indicado.
+     *
+     * @param idContacto El ID del contacto que se busca.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados.
+     */
+    @Override
+    public int obtenerContactosSimilaresPorId(int idContacto, Collection<? super Contacto> destino) {
+        long inicio = System.nanoTime();
+        Contacto contacto = obtenerPendiente(idContacto);
+        if (contacto == null) {
+            contacto = cacheContactos.obtener(idContacto, this::consultarContactoPorId);
+        }
+        if (contacto != null) {
+            destino.add(contacto);
+        }
+        medir("obtenerContactosSimilaresPorId", inicio, contacto == null ? 0 : 1, false);
+        return contacto == null ? 0 : 1;
+    }
+
+    /**
+     * Obtiene una lista de contactos que pertenecen al grupo con el ID
+     * proporcionado.
+     *
+     * Este método establece una conexión con la base de datos y ejecuta una
+     * consulta SQL para encontrar los contactos que están asociados con el
+     * grupo identificado por el `idGrupo` proporcionado.
+     *
+     * @param idGrupo El ID del grupo al que pertenecen los contactos que se
+     * desean obtener. Este valor debe ser un número entero que corresponde a la
+     * columna `idGrupo` en la base de datos.
+     *
+     * @return Una lista con los contactos del grupo. Si no se encuentran
+     * contactos con el `idGrupo` proporcionado, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosPorIdGrupo(int idGrupo) {
+        List<Contacto> contactosGrupo = new ArrayList<>();
+        obtenerContactosPorIdGrupo(idGrupo, contactosGrupo);
+        return contactosGrupo;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosPorIdGrupo(int)}, pero agrega los
+     * contactos encontrados al contenedor indicado.
+     *
+     * @param idGrupo El ID del grupo cuyos contactos se desean obtener.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactosPorIdGrupo(int idGrupo, Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerContactosPorIdGrupo", "SELECT * FROM contactos WHERE idGrupo = ?", destino, idGrupo);
+    }
+
+    /**
+     * Obtiene todos los registros de la tabla 'contactos'.
+     *
+     * Este método establece una conexión con la base de datos y ejecuta una
+     * consulta SQL para obtener todos los registros de la tabla 'contactos'.
+     * Cada registro se convierte en un {@link Contacto} y se agrega a una
+     * lista, que es retornada al final.
+     *
+     * @return Una lista con todos los contactos. Si no existen registros en la
+     * tabla, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactos() {
+        List<Contacto> personas = new ArrayList<>();
+        obtenerContactos(personas);
+        return personas;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactos()}, pero agrega los contactos al
+     * contenedor indicado. Permite, por ejemplo, reutilizar una lista ya
+     * dimensionada entre recargas.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactos(Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerContactos", "SELECT * FROM contactos", destino);
+    }
+
+    /**
+     * Obtiene los detalles de un contacto específico basado en su ID.
+     *
+     * Este método establece una conexión con la base de datos y ejecuta una
+     * consulta SQL para obtener los detalles del contacto cuya columna
+     * `idContacto` coincide con el valor proporcionado. Si no se encuentra
+     * ningún contacto con ese ID, se retorna `null`.
+     *
+     * Los contactos ya consultados se responden desde {@link CacheContactos}
+     * sin acceder a la base de datos, hasta que se actualizan o eliminan.
+     *
+     * @param idContacto El ID del contacto que se desea obtener. Este valor
+     * corresponde al campo `idContacto` en la base de datos.
+     *
+     * @return El contacto solicitado. Si no se encuentra ningún contacto con el
+     * `idContacto` proporcionado, se retorna `null`.
+     */
+    @Override
+    public Contacto obtenerContactoPorId(int idContacto) {
+        long inicio = System.nanoTime();
+        Contacto contacto = obtenerPendiente(idContacto);
+        if (contacto == null) {
+            contacto = cacheContactos.obtener(idContacto, this::consultarContactoPorId);
+        }
+        medir("obtenerContactoPorId", inicio, contacto == null ? 0 : 1, false);
+        return contacto;
+    }
+
+    /**
+     * Lee un contacto de la base de datos sin pasar por la caché.
+     *
+     * @param idContacto El ID del contacto.
+     * @return El contacto, o null si no existe o si ocurre un error.
+     */
+    private Contacto consultarContactoPorId(int idContacto) {
+        List<Contacto> encontrados = new ArrayList<>(1);
+        consultarContactos("consultarContactoPorId", "SELECT * FROM contactos WHERE idContacto = ?", encontrados, idContacto);
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    /**
+     * Obtiene todos los contactos junto con el nombre de su grupo.
+     *
+     * A diferencia de {@link #obtenerContactos()}, este método une la tabla
+     * `contactos` con la tabla `grupos` en la misma consulta, por lo que no es
+     * necesario llamar a {@link #obtenerNombreGrupo(int)} por cada fila: el
+     * listado completo cuesta una sola consulta sin importar cuántos contactos
+     * existan.
+     *
+     * @return Una lista con todos los contactos, cada uno con el nombre de su
+     * grupo. Si no existen registros, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosConGrupo() {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupo(contactos);
+        return contactos;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosConGrupo()}, pero agrega los contactos
+     * al contenedor indicado.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactosConGrupo(Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerContactosConGrupo", SQL_CONTACTOS_CON_GRUPO, destino);
+    }
+
+    /**
+     * Obtiene, junto con el nombre de su grupo, los contactos cuyo nombre
+     * contiene el valor proporcionado.
+     *
+     * Es la versión con `JOIN` de
+     * {@link #obtenerContactosSimilaresPorNombre(String)}.
+     *
+     * @param nombre El nombre (o parte de él) del contacto a buscar. No puede
+     * ser {@code null}.
+     *
+     * @return Una lista con los contactos encontrados, cada uno con el nombre
+     * de su grupo. Si no se encuentran contactos, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosConGrupoPorNombre(String nombre) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupoPorNombre(nombre, contactos);
+        return contactos;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosConGrupoPorNombre(String)}, pero
+     * agrega los contactos al contenedor indicado.
+     *
+     * @param nombre El nombre (o parte de él) del contacto a buscar.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactosConGrupoPorNombre(String nombre, Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerContactosConGrupoPorNombre", SQL_CONTACTOS_CON_GRUPO + " WHERE c.nombre LIKE ?", destino, "%" + nombre + "%");
+    }
+
+    /**
+     * Busca, junto con el nombre de su grupo, los contactos cuyo nombre,
+     * apellido paterno o apellido materno contienen el texto indicado.
+     *
+     * La búsqueda se responde desde el {@link IndiceNombres} en memoria, sin
+     * consultar la base de datos; no distingue mayúsculas ni acentos y ordena
+     * los resultados por relevancia. Si el índice todavía no está construido,
+     * se busca en la base de datos con `LIKE` sobre las tres columnas.
+     *
+     * @param texto El texto (o parte de él) a buscar. No puede ser
+     * {@code null}.
+     * @param limite El número máximo de contactos a devolver.
+     *
+     * @return Una lista con los contactos encontrados. Si no se encuentran
+     * contactos, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> buscarContactosPorNombre(String texto, int limite) {
+        long inicio = System.nanoTime();
+        List<Contacto> encontrados = indiceNombres.buscar(texto, limite);
+        if (encontrados != null) {
+            medir("buscarContactosPorNombre", inicio, encontrados.size(), false);
+        } else {
+            encontrados = new ArrayList<>();
+            String patron = "%" + texto + "%";
+            consultarContactos("buscarContactosPorNombre", SQL_CONTACTOS_CON_GRUPO
+                    + " WHERE c.nombre LIKE ? OR c.apellidoPaterno LIKE ? OR c.apellidoMaterno LIKE ? LIMIT ?",
+                    encontrados, patron, patron, patron, limite);
+        }
+        return encontrados;
     }
 
     /**
-     * Actualiza los detalles de un contacto existente en la tabla `contactos`
-     * de la base de datos.
+     * Recorre todos los contactos, junto con el nombre de su grupo, sin
+     * guardarlos en una lista: cada fila se entrega a `accion` a medida que se
+     * lee.
      *
-     * Este método establece una conexión con la base de datos y utiliza una
-     * sentencia SQL preparada para actualizar los valores de nombre, apellido
-     * paterno, apellido materno, teléfono e ID de grupo de un contacto
-     * específico, identificado por su ID en la tabla `contactos`.
+     * El resultado se lee en flujo, de solo avance: con MySQL, el driver
+     * entrega las filas una a una a medida que llegan del servidor en lugar
+     * de cargar el resultado completo en memoria, así que la memoria usada no
+     * depende del número de contactos. Mientras dura el recorrido, la
+     * conexión queda ocupada.
      *
-     * Si no se encuentra un contacto con el ID proporcionado, el método muestra
-     * un mensaje indicando que no se actualizó ningún registro. La conexión a
-     * la base de datos se cierra automáticamente después de la ejecución,
-     * independientemente de si la operación fue exitosa o si ocurrió un error.
+     * A diferencia de los métodos de consulta, los errores no se ocultan,
+     * para que quien recorre la tabla sepa si la leyó completa.
      *
-     * @param idContacto El ID del contacto a actualizar. Este valor debe ser un
-     * número entero que corresponde al registro del contacto en la base de
-     * datos.
-     * @param nombre El nuevo nombre del contacto. No puede ser {@code null}.
-     * @param apellidoPaterno El nuevo apellido paterno del contacto. No puede
-     * ser {@code null}.
-     * @param apellidoMaterno El nuevo apellido materno del contacto. No puede
-     * ser {@code null}.
-     * @param telefono El nuevo número de teléfono del contacto. No puede ser
-     * {@code null}.
-     * @param idGrupo El nuevo ID del grupo al que pertenece el contacto. Este
-     * valor debe ser un número entero.
+     * @param accion Recibe cada contacto.
+     * @return El número de contactos recorridos.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o ejecutar la sentencia SQL.
+     * @throws SQLException Si no se pudo conectar o si ocurre un error al
+     * leer los contactos.
      */
-    public void actualizarContacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo) {
-        Connection conexion = conectar();
-
-        if (conexion != null) {
-            String sql = "UPDATE contactos SET nombre = ?, telefono = ?, idGrupo = ?, apellidoPaterno = ?, apellidoMaterno = ? WHERE idContacto = ?";
-
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos los valores para la actualización
-                statement.setString(1, nombre);
-                statement.setString(2, telefono);
-                statement.setInt(3, idGrupo);
-                statement.setString(4, apellidoPaterno);
-                statement.setString(5, apellidoMaterno);
-                statement.setInt(6, idContacto);
-
-                // Ejecutamos la actualización
-                int filasActualizadas = statement.executeUpdate();
-                if (filasActualizadas > 0) {
-                    System.out.println("El registro fue actualizado correctamente.");
-                } else {
-                    System.out.println("No se encontró ningún registro con el id proporcionado.");
-                }
-            } catch (SQLException e) {
-                System.out.println("Error al actualizar el registro: " + e.getMessage());
-            } finally {
-                cerrarConexion(conexion);
+    @Override
+    public int recorrerContactosConGrupo(Consumer<? super Contacto> accion) throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion = conectarLectura();
+        if (conexion == null) {
+            medir("recorrerContactosConGrupo", inicio, 0, true);
+            throw new SQLException("No se pudo conectar con la base de datos");
+        }
+        int filas = 0;
+        boolean error = true;
+        try (PreparedStatement statement = prepararLecturaEnFlujo(conexion, SQL_CONTACTOS_CON_GRUPO);
+                ResultSet resultSet = statement.executeQuery()) {
+            MapeadorContactos mapeador = MapeadorContactos.para(SQL_CONTACTOS_CON_GRUPO, resultSet);
+            while (resultSet.next()) {
+                accion.accept(mapeador.mapear(resultSet));
+                filas++;
             }
+            error = false;
+        } finally {
+            cerrarConexion(conexion);
+            medir("recorrerContactosConGrupo", inicio, filas, error);
         }
+        return filas;
     }
 
     /**
-     * Elimina un contacto de la tabla `contactos` en la base de datos
-     * utilizando su ID.
+     * Obtiene, junto con el nombre de su grupo, los contactos cuyo ID coincide
+     * exactamente con el valor proporcionado.
      *
-     * Este método establece una conexión con la base de datos y utiliza una
-     * sentencia SQL preparada para eliminar un contacto específico de la tabla
-     * `contactos`, identificado por su ID. Si no se encuentra un contacto con
-     * el ID proporcionado, el método muestra un mensaje indicando que no se
-     * eliminó ningún registro. La conexión a la base de datos se cierra
-     * automáticamente después de la ejecución, independientemente de si la
-     * operación fue exitosa o si ocurrió un error.
+     * Es la versión con `JOIN` de {@link #obtenerContactosSimilaresPorId(int)}.
      *
-     * @param idContacto El ID del contacto a eliminar. Este valor debe ser un
-     * número entero que corresponde al registro del contacto en la base de
-     * datos.
+     * @param idContacto El ID del contacto que se busca.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o ejecutar la sentencia SQL.
+     * @return Una lista con los contactos encontrados, cada uno con el nombre
+     * de su grupo. Si no se encuentran contactos, se retorna una lista vacía.
      */
-    public void eliminarContacto(int idContacto) {
-        Connection conexion = conectar();
-
-        if (conexion != null) {
-            String sql = "DELETE FROM contactos WHERE idContacto = ?";
-
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos el valor del idContacto a eliminar
-                statement.setInt(1, idContacto);
+    @Override
+    public List<Contacto> obtenerContactosConGrupoPorId(int idContacto) {
+        List<Contacto> contactos = new ArrayList<>(1);
+        obtenerContactosConGrupoPorId(idContacto, contactos);
+        return contactos;
+    }
 
-                // Ejecutamos la eliminación
-                int filasEliminadas = statement.executeUpdate();
-                if (filasEliminadas > 0) {
-                    System.out.println("El contacto fue eliminado correctamente.");
-                } else {
-                    System.out.println("No se encontró ningún contacto con el id proporcionado.");
-                }
-            } catch (SQLException e) {
-                System.out.println("Error al eliminar el contacto: " + e.getMessage());
-            } finally {
-                cerrarConexion(conexion);
-            }
+    /**
+     * Igual que {@link #obtenerContactosConGrupoPorId(int)}, pero agrega los
+     * contactos al contenedor indicado.
+     *
+     * @param idContacto El ID del contacto que se busca.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerContactosConGrupoPorId(int idContacto, Collection<? super Contacto> destino) {
+        Contacto pendiente = obtenerPendiente(idContacto);
+        if (pendiente != null) {
+            long inicio = System.nanoTime();
+            destino.add(conNombreGrupo(pendiente));
+            medir("obtenerContactosConGrupoPorId", inicio, 1, false);
+            return 1;
         }
+        return consultarContactos("obtenerContactosConGrupoPorId", SQL_CONTACTOS_CON_GRUPO + " WHERE c.idContacto = ?", destino, idContacto);
     }
 
     /**
-     * Obtiene una lista de contactos cuya coincidencia parcial en el nombre
-     * coincide con el valor proporcionado.
+     * Obtiene, junto con el nombre de su grupo, los contactos que pertenecen
+     * al grupo con el ID proporcionado.
      *
-     * Este método establece una conexión con la base de datos y ejecuta una
-     * consulta SQL utilizando el operador `LIKE` para encontrar contactos cuyo
-     * nombre contenga la cadena proporcionada, permitiendo coincidencias
-     * parciales. Los resultados de la consulta, que incluyen el ID, nombre,
-     * apellido paterno, apellido materno, teléfono e ID de grupo de cada
-     * contacto, se almacenan en una lista de arreglos de cadenas, que luego se
-     * retorna.
+     * Es la versión con `JOIN` de {@link #obtenerContactosPorIdGrupo(int)}.
      *
-     * @param nombre El nombre (o parte de él) del contacto a buscar. Este valor
-     * se usa para realizar una búsqueda con coincidencias parciales en la base
-     * de datos. No puede ser {@code null}.
+     * @param idGrupo El ID del grupo cuyos contactos se desean obtener.
      *
-     * @return Una lista de arreglos de cadenas, donde cada arreglo contiene los
-     * detalles de un contacto (ID, nombre, apellido paterno, apellido materno,
-     * teléfono e ID de grupo). Si no se encuentran contactos, se retorna una
-     * lista vacía.
+     * @return Una lista con los contactos del grupo, cada uno con el nombre de
+     * su grupo. Si no se encuentran contactos, se retorna una lista vacía.
+     */
+    @Override
+    public List<Contacto> obtenerContactosConGrupoPorIdGrupo(int idGrupo) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupoPorIdGrupo(idGrupo, contactos);
+        return contactos;
+    }
+
+    /**
+     * Igual que {@link #obtenerContactosConGrupoPorIdGrupo(int)}, pero agrega
+     * los contactos al contenedor indicado.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o ejecutar la consulta SQL.
+     * @param idGrupo El ID del grupo cuyos contactos se desean obtener.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
      */
-    public List<String[]> obtenerContactosSimilaresPorNombre(String nombre) {
-        List<String[]> contactosSimilares = new ArrayList<>();
-        Connection conexion = conectar();
+    @Override
+    public int obtenerContactosConGrupoPorIdGrupo(int idGrupo, Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerContactosConGrupoPorIdGrupo", SQL_CONTACTOS_CON_GRUPO + " WHERE c.idGrupo = ?", destino, idGrupo);
+    }
 
-        if (conexion != null) {
-            // Usamos el operador LIKE con % para permitir coincidencias parciales
-            String sql = "SELECT * FROM contactos WHERE nombre LIKE ?";
+    /**
+     * Obtiene una página de contactos, junto con el nombre de su grupo,
+     * usando paginación por clave (keyset).
+     *
+     * En lugar de `LIMIT ... OFFSET`, que obliga al servidor a recorrer y
+     * descartar todas las filas anteriores, la consulta continúa a partir del
+     * último `idContacto` de la página anterior (`WHERE idContacto > ?`), de
+     * modo que cada página cuesta lo mismo sin importar su posición.
+     *
+     * @param despuesDeId El `idContacto` del último contacto de la página
+     * anterior; 0 para obtener la primera página.
+     * @param limite El número máximo de contactos de la página.
+     * @param destino El contenedor donde se agregan los contactos, ordenados
+     * por `idContacto`.
+     * @return El número de contactos agregados; si es menor que `limite`, es
+     * la última página. Si ocurre un error se devuelve -1, para no confundirlo
+     * con una página vacía.
+     */
+    @Override
+    public int obtenerPaginaContactosConGrupo(int despuesDeId, int limite, Collection<? super Contacto> destino) {
+        return consultarContactos("obtenerPaginaContactosConGrupo",
+                SQL_PAGINA_CONTACTOS_CON_GRUPO,
+                destino, despuesDeId, limite);
+    }
 
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos el valor de nombre para la búsqueda, añadiendo '%' para permitir coincidencias parciales
-                statement.setString(1, "%" + nombre + "%");
+    /**
+     * Obtiene el `idContacto` que ocupa una posición dada a partir de otro ID,
+     * en orden ascendente.
+     *
+     * Sirve para ubicar el inicio de una página lejana sin transferir las
+     * páginas intermedias: la consulta devuelve un único valor. Aun así, con
+     * `LIMIT 1 OFFSET ?` el servidor recorre las `desplazamiento` entradas
+     * del índice de la clave primaria que preceden al resultado, así que el
+     * costo crece con la distancia del salto (O(desplazamiento)), no es
+     * constante.
+     *
+     * @param despuesDeId El ID a partir del cual se cuenta (exclusivo).
+     * @param desplazamiento La posición buscada, empezando en 0 para el primer
+     * ID mayor que `despuesDeId`.
+     * @return El ID en esa posición, 0 si no existe o -1 si ocurre un error.
+     */
+    @Override
+    public int obtenerIdContactoDespuesDe(int despuesDeId, int desplazamiento) {
+        long inicio = System.nanoTime();
+        int idContacto = 0;
+        Connection conexion = conectarLectura();
+        boolean error = conexion == null;
+        if (conexion != null) {
+            String sql = "SELECT idContacto FROM contactos WHERE idContacto > ? ORDER BY idContacto LIMIT 1 OFFSET ?";
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
+                statement.setInt(1, despuesDeId);
+                statement.setInt(2, desplazamiento);
 
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    // Iteramos sobre los resultados y agregamos cada contacto a la lista
-                    while (resultSet.next()) {
-                        String id = String.valueOf(resultSet.getInt("idContacto"));
-                        String nombreContacto = resultSet.getString("nombre");
-                        String telefono = resultSet.getString("telefono");
-                        String idGrupo = String.valueOf(resultSet.getInt("idGrupo"));
-                        String apellidoPaterno = resultSet.getString("apellidoPaterno");
-                        String apellidoMaterno = resultSet.getString("apellidoMaterno");
-
-                        // Agregamos los datos de cada contacto a la lista
-                        String[] contacto = new String[]{id, nombreContacto, apellidoPaterno, apellidoMaterno, telefono, idGrupo};
-                        contactosSimilares.add(contacto);
+                    if (resultSet.next()) {
+                        idContacto = resultSet.getInt(1);
                     }
                 }
             } catch (SQLException e) {
-                System.out.println("Error al obtener los contactos: " + e.getMessage());
+                error = true;
+                Registro.error("Error al ubicar la página de contactos: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
-        return contactosSimilares;
+        medir("obtenerIdContactoDespuesDe", inicio, idContacto > 0 ? 1 : 0, error);
+        return error ? -1 : idContacto;
     }
 
     /**
-     * Obtiene una lista de contactos que coinciden exactamente con el ID
-     * proporcionado.
+     * Obtiene la versión del último cambio registrado en la tabla
+     * `cambios_contactos`. Los cambios posteriores se leen con
+     * {@link #obtenerCambiosDesde(long, int, Collection)}.
      *
-     * Este método establece una conexión con la base de datos y ejecuta una
-     * consulta SQL para encontrar contactos cuyo ID coincida exactamente con el
-     * valor proporcionado. Los resultados de la consulta, que incluyen el ID,
-     * nombre, apellido paterno, apellido materno, teléfono e ID de grupo de
-     * cada contacto, se almacenan en una lista de arreglos de cadenas, que
-     * luego se retorna.
-     *
-     * @param idContacto El ID del contacto que se busca. Este valor debe ser un
-     * número entero que corresponde al registro del contacto en la base de
-     * datos.
-     *
-     * @return Una lista de arreglos de cadenas, donde cada arreglo contiene los
-     * detalles de un contacto (ID, nombre, apellido paterno, apellido materno,
-     * teléfono e ID de grupo). Si no se encuentran contactos con el ID
-     * proporcionado, se retorna una lista vacía.
-     *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o ejecutar la consulta SQL.
+     * @return La versión del último cambio (0 si no hay ninguno), o -1 si
+     * ocurre un error, por ejemplo si la base de datos no tiene el seguimiento
+     * de cambios.
      */
-    public List<String[]> obtenerContactosSimilaresPorId(int idContacto) {
-        List<String[]> contactosSimilares = new ArrayList<>();
-        Connection conexion = conectar();
-
+    public long obtenerVersionCambios() {
+        long inicio = System.nanoTime();
+        long version = -1;
+        Connection conexion = conectarLectura();
         if (conexion != null) {
-            // Consulta para obtener contactos con idContacto similar
-            String sql = "SELECT * FROM contactos WHERE idContacto = ?";
-
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos el valor de idContacto para la búsqueda
-                statement.setInt(1, idContacto);
-
-                try (ResultSet resultSet = statement.executeQuery()) {
-                    // Iteramos sobre los resultados y agregamos cada contacto a la lista
-                    while (resultSet.next()) {
-                        String id = String.valueOf(resultSet.getInt("idContacto"));
-                        String nombre = resultSet.getString("nombre");
-                        String telefono = resultSet.getString("telefono");
-                        String idGrupo = String.valueOf(resultSet.getInt("idGrupo"));
-                        String apellidoPaterno = resultSet.getString("apellidoPaterno");
-                        String apellidoMaterno = resultSet.getString("apellidoMaterno");
-
-                        // Agregamos los datos de cada contacto a la lista
-                        String[] contacto = new String[]{id, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo};
-                        contactosSimilares.add(contacto);
-                    }
+            try (ResultSet resultSet = preparar(conexion, SQL_VERSION_CAMBIOS).executeQuery()) {
+                if (resultSet.next()) {
+                    version = resultSet.getLong(1);
                 }
             } catch (SQLException e) {
-                System.out.println("Error al obtener los contactos: " + e.getMessage());
+                Registro.error("Error al consultar la versión de los cambios: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
-        return contactosSimilares;
+        medir("obtenerVersionCambios", inicio, version >= 0 ? 1 : 0, version < 0);
+        return version;
     }
 
     /**
-     * Obtiene una lista de contactos que pertenecen al grupo con el ID
-     * proporcionado.
-     *
-     * Este método establece una conexión con la base de datos y ejecuta una
-     * consulta SQL para encontrar los contactos que están asociados con el
-     * grupo identificado por el `idGrupo` proporcionado. Los resultados de la
-     * consulta, que incluyen el ID, nombre, apellido paterno, apellido materno,
-     * teléfono e ID de grupo de cada contacto, se almacenan en una lista de
-     * arreglos de cadenas, que luego se retorna.
+     * Obtiene los cambios registrados después de una versión, en orden de
+     * versión, cada uno con la versión actual del contacto. Se leen como
+     * máximo los cambios indicados; si se leen todos, puede haber más después
+     * del último.
      *
-     * @param idGrupo El ID del grupo al que pertenecen los contactos que se
-     * desean obtener. Este valor debe ser un número entero que corresponde a la
-     * columna `idGrupo` en la base de datos.
-     *
-     * @return Una lista de arreglos de cadenas, donde cada arreglo contiene los
-     * detalles de un contacto (ID, nombre, apellido paterno, apellido materno,
-     * teléfono e ID de grupo). Si no se encuentran contactos con el `idGrupo`
-     * proporcionado, se retorna una lista vacía.
+     * La consulta solo recorre las filas nuevas de `cambios_contactos` (por su
+     * clave primaria) y los contactos que cambiaron, así que su costo depende
+     * del número de cambios y no del tamaño de la tabla `contactos`. Como se
+     * lee con una sola consulta, los contactos corresponden al mismo momento
+     * que los cambios.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o ejecutar la consulta SQL.
+     * @param version La versión a partir de la cual se leen los cambios
+     * (exclusiva).
+     * @param limite El número máximo de cambios a leer.
+     * @param destino El contenedor donde se agregan los cambios.
+     * @return El número de cambios agregados, o -1 si ocurre un error.
      */
-    public List<String[]> obtenerContactosPorIdGrupo(int idGrupo) {
-        List<String[]> contactosGrupo = new ArrayList<>();
-        Connection conexion = conectar();
-
+    public int obtenerCambiosDesde(long version, int limite, Collection<? super CambioContacto> destino) {
+        long inicio = System.nanoTime();
+        int filas = -1;
+        Connection conexion = conectarLectura();
         if (conexion != null) {
-            // Consulta para obtener contactos que pertenecen al mismo idGrupo
-            String sql = "SELECT * FROM contactos WHERE idGrupo = ?";
-
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos el valor de idGrupo para la búsqueda
-                statement.setInt(1, idGrupo);
+            try {
+                PreparedStatement statement = preparar(conexion, SQL_CAMBIOS_DESDE);
+                statement.setLong(1, version);
+                statement.setInt(2, limite);
 
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    // Iteramos sobre los resultados y agregamos cada contacto a la lista
+                    MapeadorContactos mapeador = MapeadorContactos.para(SQL_CAMBIOS_DESDE, resultSet);
+                    filas = 0;
                     while (resultSet.next()) {
-                        String id = String.valueOf(resultSet.getInt("idContacto"));
-                        String nombre = resultSet.getString("nombre");
-                        String telefono = resultSet.getString("telefono");
-                        String idGrupoDb = String.valueOf(resultSet.getInt("idGrupo"));
-                        String apellidoPaterno = resultSet.getString("apellidoPaterno");
-                        String apellidoMaterno = resultSet.getString("apellidoMaterno");
-
-                        // Agregamos los datos de cada contacto a la lista
-                        String[] contacto = new String[]{id, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupoDb};
-                        contactosGrupo.add(contacto);
+                        // Columnas 1 a 6: el cambio; a partir de la 7: el contacto actual, nulo si ya no existe
+                        resultSet.getInt(7);
+                        Contacto contacto = resultSet.wasNull() ? null : mapeador.mapear(resultSet);
+                        destino.add(new CambioContacto(resultSet.getLong(1),
+                                CambioContacto.Tipo.deCodigo(resultSet.getString(2).charAt(0)),
+                                resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5),
+                                origen.equals(resultSet.getString(6)), contacto));
+                        filas++;
                     }
                 }
             } catch (SQLException e) {
-                System.out.println("Error al obtener los contactos: " + e.getMessage());
+                filas = -1;
+                Registro.error("Error al consultar los cambios de contactos: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
-        return contactosGrupo;
+        medir("obtenerCambiosDesde", inicio, filas, filas < 0);
+        return filas;
     }
 
     /**
-     * Obtiene todos los registros de la tabla 'contactos'.
+     * Avisa a los oyentes los cambios hechos por otros clientes, para que las
+     * estadísticas, el índice de nombres y la caché de contactos los reflejen.
      *
-     * Este método establece una conexión con la base de datos y ejecuta una
-     * consulta SQL para obtener todos los registros de la tabla 'contactos'.
-     * Cada registro, que incluye los campos `idContacto`, `nombre`,
-     * `apellidoPaterno`, `apellidoMaterno`, `telefono`, e `idGrupo`, se
-     * almacena en un arreglo de cadenas y luego se agrega a una lista, que es
-     * retornada al final.
+     * Cada cambio debe resumir todos los cambios de un contacto: su grupo
+     * anterior es el que tenía antes del primero y su contacto, la versión
+     * actual. Como del contacto anterior solo se conoce el grupo, el resto de
+     * sus datos se avisa vacío.
      *
-     * @return Una lista de arreglos de cadenas, donde cada arreglo contiene los
-     * detalles de un contacto (ID, nombre, apellido paterno, apellido materno,
-     * teléfono e ID de grupo). Si no existen registros en la tabla, se retorna
-     * una lista vacía.
+     * Las {@link EstadisticasContactos} no reciben estos avisos: el
+     * {@link SincronizadorCambios} les aplica cada cambio sin resumir, con
+     * los grupos que registró la base de datos.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o al ejecutar la consulta SQL.
+     * @param cambios Los cambios resumidos, uno por contacto.
      */
-    public List<String[]> obtenerContactos() {
-        List<String[]> personas = new ArrayList<>();
-        Connection conexion = conectar();
-        if (conexion != null) {
-            String sql = "SELECT * FROM contactos";
-            try (PreparedStatement statement = conexion.prepareStatement(sql); ResultSet resultSet = statement.executeQuery()) {
-
-                // Iteramos sobre los resultados y agregamos cada registro a la lista
-                while (resultSet.next()) {
-                    String id = String.valueOf(resultSet.getInt("idContacto"));
-                    String nombre = resultSet.getString("nombre");
-                    String telefono = resultSet.getString("telefono");
-                    String idGrupo = String.valueOf(resultSet.getInt("idGrupo"));
-                    String apellidoPaterno = resultSet.getString("apellidoPaterno");
-                    String apellidoMaterno = resultSet.getString("apellidoMaterno");
-
-                    // Agregamos los datos de cada persona a la lista
-                    String[] persona = new String[]{id, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo};
-                    personas.add(persona);
+    void avisarCambiosExternos(Collection<CambioContacto> cambios) {
+        for (CambioContacto cambio : cambios) {
+            Contacto anterior = new Contacto(cambio.idContacto(), null, null, null, null, cambio.idGrupoAnterior());
+            switch (cambio.tipo()) {
+                case INSERCION -> avisarExterno(oyente -> oyente.contactoInsertado(cambio.contacto()));
+                case ACTUALIZACION -> avisarExterno(oyente -> oyente.contactoActualizado(anterior, cambio.contacto()));
+                case ELIMINACION -> {
+                    // Una actualización diferida pendiente ya no tiene sentido para un contacto eliminado
+                    EscrituraDiferida cola = escrituraDiferida;
+                    if (cola != null) {
+                        cola.descartar(cambio.idContacto());
+                    }
+                    avisarExterno(oyente -> oyente.contactoEliminado(anterior));
                 }
-            } catch (SQLException e) {
-                System.out.println("Error al obtener los registros: " + e.getMessage());
-            } finally {
-                cerrarConexion(conexion);
             }
         }
-        return personas;
     }
 
     /**
-     * Obtiene los detalles de un contacto específico basado en su ID.
-     *
-     * Este método establece una conexión con la base de datos y ejecuta una
-     * consulta SQL para obtener los detalles del contacto cuya columna
-     * `idContacto` coincide con el valor proporcionado. Si se encuentra un
-     * contacto con el ID especificado, los datos (ID, nombre, apellido paterno,
-     * apellido materno, teléfono e ID de grupo) se almacenan en un arreglo de
-     * cadenas que luego se retorna. Si no se encuentra ningún contacto con ese
-     * ID, se retorna `null`.
+     * Ejecuta una consulta de contactos y agrega cada fila, convertida en
+     * {@link Contacto}, al contenedor indicado.
      *
-     * @param idContacto El ID del contacto que se desea obtener. Este valor
-     * corresponde al campo `idContacto` en la base de datos.
+     * Las filas se convierten con un {@link MapeadorContactos}, que resuelve
+     * las posiciones de las columnas una sola vez por consulta.
      *
-     * @return Un arreglo de cadenas que contiene los detalles del contacto
-     * solicitado (ID, nombre, apellido paterno, apellido materno, teléfono e ID
-     * de grupo). Si no se encuentra ningún contacto con el `idContacto`
-     * proporcionado, se retorna `null`.
+     * @param operacion El nombre con el que se mide la consulta en
+     * {@link MetricasBD}.
+     * @param sql La consulta a ejecutar.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @param parametros Los valores de los parámetros de la consulta, en
+     * orden.
      *
-     * @throws SQLException Si ocurre un error al conectar con la base de datos
-     * o al ejecutar la consulta SQL.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
      */
-    public String[] obtenerContactoPorId(int idContacto) {
-        String[] contacto = null;
-        Connection conexion = conectar();
+    private int consultarContactos(String operacion, String sql, Collection<? super Contacto> destino, Object... parametros) {
+        long inicio = System.nanoTime();
+        int filas = 0;
+        Connection conexion = conectarLectura();
+        boolean error = conexion == null;
         if (conexion != null) {
-            String sql = "SELECT * FROM contactos WHERE idContacto = ?";
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
-                // Establecemos el parámetro idContacto en la consulta
-                statement.setInt(1, idContacto);
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
+                for (int i = 0; i < parametros.length; i++) {
+                    statement.setObject(i + 1, parametros[i]);
+                }
 
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    if (resultSet.next()) {
-                        String id = String.valueOf(resultSet.getInt("idContacto"));
-                        String nombre = resultSet.getString("nombre");
-                        String telefono = resultSet.getString("telefono");
-                        String idGrupo = String.valueOf(resultSet.getInt("idGrupo"));
-                        String apellidoPaterno = resultSet.getString("apellidoPaterno");
-                        String apellidoMaterno = resultSet.getString("apellidoMaterno");
-
-                        // Creamos el arreglo con los datos del contacto
-                        contacto = new String[]{id, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo};
-                    }
+                    filas = MapeadorContactos.para(sql, resultSet).llenar(resultSet, destino);
                 }
             } catch (SQLException e) {
-                System.out.println("Error al obtener el contacto: " + e.getMessage());
+                error = true;
+                Registro.error("Error al obtener los contactos: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
-        return contacto;
+        medir(operacion, inicio, filas, error);
+        return error ? -1 : filas;
     }
 
     /**
@@ -506,7 +1706,9 @@ public class MYSQL {
      * consulta SQL para obtener el nombre del grupo cuya columna `idGrupo`
      * coincide con el valor proporcionado. Si se encuentra un grupo con el ID
      * especificado, el nombre del grupo se retorna como una cadena. Si no se
-     * encuentra ningún grupo con ese ID, se retorna `null`.
+     * encuentra ningún grupo con ese ID, se retorna `null`. Los nombres
+     * encontrados se guardan en memoria, por lo que cada grupo se consulta una
+     * sola vez.
      *
      * @param idGrupo El ID del grupo cuyo nombre se desea obtener. Este valor
      * corresponde al campo `idGrupo` en la base de datos.
@@ -517,26 +1719,39 @@ public class MYSQL {
      * @throws SQLException Si ocurre un error al conectar con la base de datos
      * o al ejecutar la consulta SQL.
      */
+    @Override
     public String obtenerNombreGrupo(int idGrupo) {
-        String nombreGrupo = null;
-        Connection conexion = conectar();
+        long inicio = System.nanoTime();
+        String nombreGrupo = nombresGrupo.get(idGrupo);
+        if (nombreGrupo != null) {
+            medir("obtenerNombreGrupo", inicio, 1, false);
+            return nombreGrupo;
+        }
+        Connection conexion = conectarLectura();
+        boolean error = conexion == null;
         if (conexion != null) {
             String sql = "SELECT nombreGrupo FROM grupos WHERE idGrupo = ?";
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
                 // Establecemos el parámetro idGrupo en la consulta
                 statement.setInt(1, idGrupo);
 
                 try (ResultSet resultSet = statement.executeQuery()) {
                     if (resultSet.next()) {
                         nombreGrupo = resultSet.getString("nombreGrupo");
+                        if (nombreGrupo != null) {
+                            nombresGrupo.put(idGrupo, nombreGrupo);
+                        }
                     }
                 }
             } catch (SQLException e) {
-                System.out.println("Error al obtener el nombre del grupo: " + e.getMessage());
+                error = true;
+                Registro.error("Error al obtener el nombre del grupo: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
+        medir("obtenerNombreGrupo", inicio, nombreGrupo == null ? 0 : 1, error);
         return nombreGrupo;
     }
 
@@ -555,22 +1770,26 @@ public class MYSQL {
      * @throws SQLException Si ocurre un error al conectar con la base de datos
      * o al ejecutar la consulta SQL.
      */
+    @Override
     public int contarElementosContactos() {
+        long inicio = System.nanoTime();
         int totalElementos = 0;
-        Connection conexion = conectar();
+        Connection conexion = conectarLectura();
+        boolean error = conexion == null;
         if (conexion != null) {
-            String sql = "SELECT COUNT(*) AS total FROM contactos";
-            try (PreparedStatement statement = conexion.prepareStatement(sql); ResultSet resultSet = statement.executeQuery()) {
+            try (ResultSet resultSet = preparar(conexion, SQL_CONTAR_CONTACTOS).executeQuery()) {
 
                 if (resultSet.next()) {
                     totalElementos = resultSet.getInt("total");
                 }
             } catch (SQLException e) {
-                System.out.println("Error al contar los elementos: " + e.getMessage());
+                error = true;
+                Registro.error("Error al contar los elementos: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
+        medir("contarElementosContactos", inicio, error ? 0 : 1, error);
         return totalElementos;
     }
 
@@ -595,12 +1814,16 @@ public class MYSQL {
      * @throws SQLException Si ocurre un error al conectar con la base de datos
      * o al ejecutar la consulta SQL.
      */
+    @Override
     public int contarElementosContactosPorGrupo(int idGrupo) {
+        long inicio = System.nanoTime();
         int totalElementos = 0;
-        Connection conexion = conectar();
+        Connection conexion = conectarLectura();
+        boolean error = conexion == null;
         if (conexion != null) {
             String sql = "SELECT COUNT(*) AS total FROM contactos WHERE idGrupo = ?";
-            try (PreparedStatement statement = conexion.prepareStatement(sql)) {
+            try {
+                PreparedStatement statement = preparar(conexion, sql);
                 // Establecemos el parámetro idGrupo en la consulta
                 statement.setInt(1, idGrupo);
 
@@ -610,12 +1833,203 @@ public class MYSQL {
                     }
                 }
             } catch (SQLException e) {
-                System.out.println("Error al contar los elementos: " + e.getMessage());
+                error = true;
+                Registro.error("Error al contar los elementos: " + e.getMessage());
             } finally {
                 cerrarConexion(conexion);
             }
         }
+        medir("contarElementosContactosPorGrupo", inicio, error ? 0 : 1, error);
         return totalElementos;
     }
 
+    /**
+     * Cuenta los contactos de todos los grupos con una sola consulta.
+     *
+     * Este método ejecuta `SELECT idGrupo, COUNT(*) ... GROUP BY idGrupo`, de
+     * modo que obtener los conteos de todos los grupos cuesta una única
+     * consulta en lugar de una por grupo. Los contactos sin grupo se cuentan
+     * con la clave 0. Se lee en el servidor principal, porque los conteos
+     * reemplazan a los de {@link EstadisticasContactos} y una réplica
+     * atrasada desharía los cambios recientes.
+     *
+     * @return Un mapa del ID de cada grupo al número de contactos que tiene, o
+     * {@code null} si ocurre un error o no se pudo conectar.
+     */
+    @Override
+    public Map<Integer, Integer> contarContactosAgrupados() {
+        long inicio = System.nanoTime();
+        Map<Integer, Integer> conteos = null;
+        Connection conexion = conectarLecturaPrincipal();
+        if (conexion != null) {
+            try (ResultSet resultSet = preparar(conexion, SQL_CONTAR_CONTACTOS_AGRUPADOS).executeQuery()) {
+                Map<Integer, Integer> resultado = new HashMap<>();
+                while (resultSet.next()) {
+                    resultado.merge(resultSet.getInt("idGrupo"), resultSet.getInt("total"), Integer::sum);
+                }
+                conteos = resultado;
+            } catch (SQLException e) {
+                Registro.error("Error al contar los elementos por grupo: " + e.getMessage());
+            } finally {
+                cerrarConexion(conexion);
+            }
+        }
+        medir("contarContactosAgrupados", inicio, conteos == null ? 0 : conteos.size(), conteos == null);
+        return conteos;
+    }
+
+    /**
+     * Lee, en el servidor principal y dentro de una misma transacción, los
+     * conteos de todos los grupos y los cambios registrados después de una
+     * versión. Como las dos consultas ven el mismo instante, los cambios
+     * leídos son exactamente los que ya están incluidos en los conteos entre
+     * los posteriores a la versión; los que falten se confirmaron después.
+     *
+     * @param version La versión a partir de la cual se leen los cambios
+     * (exclusiva).
+     * @param conteos El mapa donde se guarda el número de contactos de cada
+     * grupo.
+     * @param cambios El contenedor donde se agregan los cambios, sin el
+     * contacto.
+     * @return El número de cambios agregados, o -1 si ocurre un error.
+     */
+    int leerConteosConCambios(long version, Map<Integer, Integer> conteos, Collection<? super CambioContacto> cambios) {
+        long inicio = System.nanoTime();
+        int filas = -1;
+        Connection conexion = conectarLecturaPrincipal();
+        if (conexion != null) {
+            int aislamiento = -1;
+            try {
+                aislamiento = conexion.getTransactionIsolation();
+                conexion.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                conexion.setAutoCommit(false);
+                try (ResultSet resultSet = preparar(conexion, SQL_CONTAR_CONTACTOS_AGRUPADOS).executeQuery()) {
+                    while (resultSet.next()) {
+                        conteos.merge(resultSet.getInt("idGrupo"), resultSet.getInt("total"), Integer::sum);
+                    }
+                }
+                PreparedStatement statement = preparar(conexion, SQL_VERSIONES_DESDE);
+                statement.setLong(1, version);
+                List<CambioContacto> leidos = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        leidos.add(new CambioContacto(resultSet.getLong(1),
+                                CambioContacto.Tipo.deCodigo(resultSet.getString(2).charAt(0)),
+                                resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5),
+                                origen.equals(resultSet.getString(6)), null));
+                    }
+                }
+                conexion.commit();
+                cambios.addAll(leidos);
+                filas = leidos.size();
+            } catch (SQLException e) {
+                conteos.clear();
+                Registro.error("Error al leer los conteos con sus cambios: " + e.getMessage());
+            } finally {
+                try {
+                    if (aislamiento >= 0) {
+                        conexion.setTransactionIsolation(aislamiento);
+                    }
+                } catch (SQLException e) {
+                    Registro.depurar("No se pudo restablecer el aislamiento de la conexión: " + e.getMessage());
+                }
+                cerrarConexion(conexion);
+            }
+        }
+        medir("leerConteosConCambios", inicio, filas, filas < 0);
+        return filas;
+    }
+
+    /**
+     * Obtiene y bloquea (`FOR UPDATE`) un contacto, con el nombre de su grupo,
+     * usando una conexión ya abierta. Debe llamarse dentro de la transacción
+     * que va a modificar el contacto, para que ninguna otra escritura lo cambie
+     * entre la lectura y la modificación.
+     *
+     * @param conexion La conexión sobre la que se hace la consulta.
+     * @param idContacto El ID del contacto.
+     * @return El contacto, o {@code null} si no existe.
+     *
+     * @throws SQLException Si ocurre un error al ejecutar la consulta.
+     */
+    private Contacto obtenerContactoConGrupo(Connection conexion, int idContacto) throws SQLException {
+        String sql = SQL_CONTACTOS_CON_GRUPO + " WHERE c.idContacto = ? FOR UPDATE";
+        PreparedStatement statement = preparar(conexion, sql);
+        statement.setInt(1, idContacto);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? MapeadorContactos.para(sql, resultSet).mapear(resultSet) : null;
+        }
+    }
+
+    /**
+     * Obtiene la actualización de un contacto que todavía está en la cola de
+     * escritura diferida, para que las búsquedas por ID la reflejen.
+     *
+     * @return La versión pendiente, o {@code null} si no hay ninguna o la
+     * escritura diferida no está activa.
+     */
+    private Contacto obtenerPendiente(int idContacto) {
+        EscrituraDiferida cola = escrituraDiferida;
+        return cola == null ? null : cola.obtenerPendiente(idContacto);
+    }
+
+    /**
+     * Completa el nombre del grupo de un contacto que no lo tiene.
+     */
+    private Contacto conNombreGrupo(Contacto contacto) {
+        if (contacto.nombreGrupo() != null) {
+            return contacto;
+        }
+        return new Contacto(contacto.idContacto(), contacto.nombre(), contacto.apellidoPaterno(),
+                contacto.apellidoMaterno(), contacto.telefono(), contacto.idGrupo(), obtenerNombreGrupo(contacto.idGrupo()));
+    }
+
+    /**
+     * Registra en las métricas una llamada a una operación que terminó en
+     * este momento.
+     */
+    private void medir(String operacion, long inicioNanos, long filas, boolean error) {
+        metricas.operacion(operacion).registrar(inicioNanos, filas, error);
+    }
+
+    /**
+     * Lee las URLs de las réplicas de la propiedad del sistema
+     * `contactos.replicas`.
+     */
+    private static List<String> replicasConfiguradas() {
+        List<String> urls = new ArrayList<>();
+        for (String url : System.getProperty(PROPIEDAD_REPLICAS, "").split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Avisa un cambio de otro cliente a todos los oyentes salvo las
+     * estadísticas.
+     */
+    private void avisarExterno(Consumer<OyenteCambiosContactos> aviso) {
+        avisar(oyente -> {
+            if (oyente != estadisticas) {
+                aviso.accept(oyente);
+            }
+        });
+    }
+
+    /**
+     * Avisa un cambio a todos los oyentes. Un error en un oyente no impide
+     * avisar a los demás ni afecta a la escritura, que ya se confirmó.
+     */
+    private void avisar(Consumer<OyenteCambiosContactos> aviso) {
+        for (OyenteCambiosContactos oyente : oyentes) {
+            try {
+                aviso.accept(oyente);
+            } catch (RuntimeException e) {
+                Registro.error("Error al avisar un cambio de contactos: " + e.getMessage());
+            }
+        }
+    }
+
 }
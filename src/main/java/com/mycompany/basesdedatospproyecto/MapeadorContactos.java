@@ -0,0 +1,120 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Convierte las filas de un {@link ResultSet} de la tabla `contactos` en
+ * objetos {@link Contacto}.
+ *
+ * Buscar una columna por nombre (`resultSet.getString("nombre")`) obliga al
+ * driver a resolver el nombre en cada fila. El mapeador resuelve las
+ * posiciones de las columnas una sola vez por cada consulta distinta y las
+ * guarda en caché, de modo que leer cada fila solo accede por índice. Los
+ * identificadores se leen como enteros primitivos.
+ */
+final class MapeadorContactos {
+
+    // Posiciones de columnas ya resueltas, por texto SQL de la consulta
+    private static final Map<String, MapeadorContactos> POR_CONSULTA = new ConcurrentHashMap<>();
+
+    private final int columnaId;
+    private final int columnaNombre;
+    private final int columnaApellidoPaterno;
+    private final int columnaApellidoMaterno;
+    private final int columnaTelefono;
+    private final int columnaIdGrupo; // 0 si la consulta no la incluye
+    private final int columnaNombreGrupo; // 0 si la consulta no la incluye
+
+    private MapeadorContactos(ResultSetMetaData metadatos) throws SQLException {
+        int id = 0, nombre = 0, paterno = 0, materno = 0, telefono = 0, idGrupo = 0, nombreGrupo = 0;
+        for (int i = 1; i <= metadatos.getColumnCount(); i++) {
+            switch (metadatos.getColumnLabel(i)) {
+                case "idContacto" -> id = i;
+                case "nombre" -> nombre = i;
+                case "apellidoPaterno" -> paterno = i;
+                case "apellidoMaterno" -> materno = i;
+                case "telefono" -> telefono = i;
+                case "idGrupo" -> idGrupo = i;
+                case "nombreGrupo" -> nombreGrupo = i;
+                default -> {
+                    // Columnas adicionales que no forman parte del contacto
+                }
+            }
+        }
+        if (id == 0 || nombre == 0 || paterno == 0 || materno == 0 || telefono == 0) {
+            throw new SQLException("La consulta no incluye todas las columnas de un contacto");
+        }
+        this.columnaId = id;
+        this.columnaNombre = nombre;
+        this.columnaApellidoPaterno = paterno;
+        this.columnaApellidoMaterno = materno;
+        this.columnaTelefono = telefono;
+        this.columnaIdGrupo = idGrupo;
+        this.columnaNombreGrupo = nombreGrupo;
+    }
+
+    /**
+     * Obtiene el mapeador de una consulta, resolviendo las posiciones de sus
+     * columnas la primera vez que se ejecuta.
+     *
+     * @param sql El texto SQL de la consulta; identifica al mapeador en la
+     * caché.
+     * @param resultSet El resultado de la consulta, usado para resolver las
+     * columnas si todavía no están en caché.
+     * @return El mapeador de la consulta.
+     *
+     * @throws SQLException Si la consulta no incluye las columnas de un
+     * contacto.
+     */
+    static MapeadorContactos para(String sql, ResultSet resultSet) throws SQLException {
+        MapeadorContactos mapeador = POR_CONSULTA.get(sql);
+        if (mapeador == null) {
+            mapeador = new MapeadorContactos(resultSet.getMetaData());
+            POR_CONSULTA.putIfAbsent(sql, mapeador);
+        }
+        return mapeador;
+    }
+
+    /**
+     * Convierte la fila actual del resultado en un contacto.
+     *
+     * @param resultSet El resultado, posicionado sobre una fila.
+     * @return El contacto de la fila actual.
+     *
+     * @throws SQLException Si ocurre un error al leer la fila.
+     */
+    Contacto mapear(ResultSet resultSet) throws SQLException {
+        return new Contacto(
+                resultSet.getInt(columnaId),
+                resultSet.getString(columnaNombre),
+                resultSet.getString(columnaApellidoPaterno),
+                resultSet.getString(columnaApellidoMaterno),
+                resultSet.getString(columnaTelefono),
+                columnaIdGrupo == 0 ? 0 : resultSet.getInt(columnaIdGrupo),
+                columnaNombreGrupo == 0 ? null : resultSet.getString(columnaNombreGrupo));
+    }
+
+    /**
+     * Convierte todas las filas restantes del resultado y las agrega al
+     * contenedor indicado.
+     *
+     * @param resultSet El resultado a recorrer.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados.
+     *
+     * @throws SQLException Si ocurre un error al leer las filas.
+     */
+    int llenar(ResultSet resultSet, Collection<? super Contacto> destino) throws SQLException {
+        int filas = 0;
+        while (resultSet.next()) {
+            destino.add(mapear(resultSet));
+            filas++;
+        }
+        return filas;
+    }
+}
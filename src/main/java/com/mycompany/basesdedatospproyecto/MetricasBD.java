@@ -0,0 +1,256 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * Mediciones de las operaciones de {@link MYSQL}: por cada operación, el
+ * número de llamadas, de errores y de filas devueltas, y un
+ * {@link HistogramaLatencias} con sus tiempos. Incluye también los conteos de
+ * conexiones de los {@link PoolConexiones} del principal y de las réplicas,
+ * sumados.
+ *
+ * Medir una llamada cuesta dos lecturas de {@link System#nanoTime()} y unos
+ * pocos incrementos sin bloqueos. Las mediciones se publican como un MBean
+ * en el servidor JMX de la plataforma ({@link #registrarJmx()}) para
+ * observarlas en vivo, y también se pueden leer desde el código con
+ * {@link #obtenerResumen()}.
+ */
+public class MetricasBD implements MetricasBDMBean {
+
+    private static final String DOMINIO_JMX = "com.mycompany.basesdedatospproyecto";
+    // Numera las instancias registradas, para que varias bases de datos en la misma JVM no choquen
+    private static final AtomicInteger instancias = new AtomicInteger();
+
+    // Estructura de cada fila de la tabla de operaciones publicada por JMX
+    private static final String[] CAMPOS = {"operacion", "llamadas", "errores", "filas", "p50Ms", "p99Ms", "p999Ms", "maximoMs"};
+    private static final TabularType TIPO_OPERACIONES;
+
+    static {
+        try {
+            OpenType<?>[] tipos = {SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG,
+                SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE};
+            CompositeType fila = new CompositeType("Operacion", "Mediciones de una operación", CAMPOS, CAMPOS, tipos);
+            TIPO_OPERACIONES = new TabularType("Operaciones", "Mediciones por operación", fila, new String[]{"operacion"});
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, Operacion> operaciones = new ConcurrentHashMap<>();
+    private final Supplier<PoolConexiones.EstadisticasPool> estadisticasPool;
+    private ObjectName nombreJmx;
+
+    /**
+     * Crea las mediciones, vacías.
+     *
+     * @param estadisticasPool Obtiene las estadísticas actuales de las
+     * conexiones, por ejemplo las de todos los pools sumadas
+     * ({@link EnrutadorConexiones#obtenerEstadisticasPools()}).
+     */
+    public MetricasBD(Supplier<PoolConexiones.EstadisticasPool> estadisticasPool) {
+        this.estadisticasPool = estadisticasPool;
+    }
+
+    /**
+     * Obtiene las mediciones de una operación, creándolas la primera vez.
+     *
+     * @param nombre El nombre de la operación, normalmente el del método.
+     * @return Las mediciones de la operación.
+     */
+    public Operacion operacion(String nombre) {
+        Operacion operacion = operaciones.get(nombre);
+        return operacion != null ? operacion : operaciones.computeIfAbsent(nombre, clave -> new Operacion());
+    }
+
+    /**
+     * Obtiene una fotografía de las mediciones de todas las operaciones,
+     * ordenadas por nombre.
+     *
+     * @return Las mediciones de cada operación llamada al menos una vez.
+     */
+    public List<ResumenOperacion> obtenerResumen() {
+        List<ResumenOperacion> resumen = new ArrayList<>(operaciones.size());
+        operaciones.forEach((nombre, operacion) -> resumen.add(operacion.resumir(nombre)));
+        resumen.sort(Comparator.comparing(ResumenOperacion::operacion));
+        return resumen;
+    }
+
+    /**
+     * Publica estas mediciones en el servidor JMX de la plataforma. Un error
+     * al registrarlas se informa en consola y no impide usar la base de
+     * datos.
+     */
+    public synchronized void registrarJmx() {
+        if (nombreJmx != null) {
+            return;
+        }
+        try {
+            ObjectName nombre = new ObjectName(DOMINIO_JMX + ":type=MetricasBD,name=" + instancias.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, nombre);
+            nombreJmx = nombre;
+        } catch (JMException e) {
+            Registro.error("Error al publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retira estas mediciones del servidor JMX, si estaban publicadas.
+     */
+    public synchronized void cerrar() {
+        if (nombreJmx == null) {
+            return;
+        }
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            servidor.unregisterMBean(nombreJmx);
+        } catch (JMException e) {
+            Registro.error("Error al retirar las métricas de JMX: " + e.getMessage());
+        }
+        nombreJmx = null;
+    }
+
+    @Override
+    public long getConexionesAbiertas() {
+        return estadisticasPool.get().creadas();
+    }
+
+    @Override
+    public long getConexionesCerradas() {
+        return estadisticasPool.get().descartadas();
+    }
+
+    @Override
+    public long getPrestamosConexion() {
+        return estadisticasPool.get().prestamos();
+    }
+
+    @Override
+    public int getConexionesActivas() {
+        return estadisticasPool.get().activas();
+    }
+
+    @Override
+    public int getConexionesInactivas() {
+        return estadisticasPool.get().inactivas();
+    }
+
+    @Override
+    public long getEsperasAgotadas() {
+        return estadisticasPool.get().esperasAgotadas();
+    }
+
+    @Override
+    public TabularData getOperaciones() {
+        TabularDataSupport tabla = new TabularDataSupport(TIPO_OPERACIONES);
+        for (ResumenOperacion resumen : obtenerResumen()) {
+            Object[] valores = {resumen.operacion(), resumen.llamadas(), resumen.errores(), resumen.filas(),
+                enMilisegundos(resumen.p50Nanos()), enMilisegundos(resumen.p99Nanos()),
+                enMilisegundos(resumen.p999Nanos()), enMilisegundos(resumen.maximoNanos())};
+            try {
+                tabla.put(new CompositeDataSupport(TIPO_OPERACIONES.getRowType(), CAMPOS, valores));
+            } catch (OpenDataException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return tabla;
+    }
+
+    @Override
+    public void reiniciar() {
+        operaciones.values().forEach(Operacion::reiniciar);
+    }
+
+    private static double enMilisegundos(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Mediciones de una operación. Es segura para usarse desde varios hilos a
+     * la vez.
+     */
+    public static final class Operacion {
+
+        private final HistogramaLatencias latencias = new HistogramaLatencias();
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+
+        private Operacion() {
+        }
+
+        /**
+         * Registra una llamada a la operación que terminó en este momento.
+         *
+         * @param inicioNanos El valor de {@link System#nanoTime()} al empezar
+         * la llamada.
+         * @param filasDevueltas Las filas devueltas o modificadas.
+         * @param error {@code true} si la llamada falló.
+         */
+        public void registrar(long inicioNanos, long filasDevueltas, boolean error) {
+            latencias.registrar(System.nanoTime() - inicioNanos);
+            llamadas.increment();
+            if (error) {
+                errores.increment();
+            }
+            if (filasDevueltas > 0) {
+                filas.add(filasDevueltas);
+            }
+        }
+
+        private ResumenOperacion resumir(String nombre) {
+            return new ResumenOperacion(nombre, llamadas.sum(), errores.sum(), filas.sum(),
+                    latencias.percentil(0.5), latencias.percentil(0.99), latencias.percentil(0.999),
+                    latencias.maximo());
+        }
+
+        private void reiniciar() {
+            latencias.reiniciar();
+            llamadas.reset();
+            errores.reset();
+            filas.reset();
+        }
+    }
+
+    /**
+     * Mediciones de una operación en un instante dado.
+     *
+     * @param operacion El nombre de la operación.
+     * @param llamadas Llamadas registradas.
+     * @param errores Llamadas que fallaron.
+     * @param filas Filas devueltas o modificadas en total.
+     * @param p50Nanos Latencia mediana.
+     * @param p99Nanos Latencia del percentil 99.
+     * @param p999Nanos Latencia del percentil 99.9.
+     * @param maximoNanos Latencia máxima observada.
+     */
+    public record ResumenOperacion(String operacion, long llamadas, long errores, long filas, long p50Nanos,
+            long p99Nanos, long p999Nanos, long maximoNanos) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d llamadas, %d errores, %d filas, p50 %.3f ms, p99 %.3f ms, "
+                    + "p999 %.3f ms, máx. %.3f ms",
+                    operacion, llamadas, errores, filas, enMilisegundos(p50Nanos), enMilisegundos(p99Nanos),
+                    enMilisegundos(p999Nanos), enMilisegundos(maximoNanos));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mycompany.basesdedatospproyecto;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * Interfaz de administración (JMX) de {@link MetricasBD}. Sus atributos se
+ * pueden consultar en vivo con JConsole, VisualVM o cualquier cliente JMX,
+ * bajo el nombre `com.mycompany.basesdedatospproyecto:type=MetricasBD,name=N`,
+ * donde `N` numera las bases de datos abiertas en la JVM (1 para la primera).
+ *
+ * Los atributos de conexiones suman los pools del servidor principal y de
+ * todas las réplicas.
+ */
+public interface MetricasBDMBean {
+
+    /**
+     * @return Conexiones físicas abiertas con la base de datos.
+     */
+    long getConexionesAbiertas();
+
+    /**
+     * @return Conexiones físicas cerradas (por inactividad, por no ser
+     * válidas o por cierre de un pool).
+     */
+    long getConexionesCerradas();
+
+    /**
+     * @return Conexiones prestadas por los pools a las operaciones.
+     */
+    long getPrestamosConexion();
+
+    /**
+     * @return Conexiones prestadas en este momento.
+     */
+    int getConexionesActivas();
+
+    /**
+     * @return Conexiones abiertas a la espera de reutilizarse.
+     */
+    int getConexionesInactivas();
+
+    /**
+     * @return Préstamos que fallaron por agotarse el tiempo de espera.
+     */
+    long getEsperasAgotadas();
+
+    /**
+     * @return Una fila por operación con sus llamadas, errores, filas
+     * devueltas y latencias (p50, p99, p999 y máxima, en milisegundos).
+     */
+    TabularData getOperaciones();
+
+    /**
+     * Descarta las mediciones de todas las operaciones, por ejemplo para
+     * medir solo a partir de un momento dado.
+     */
+    void reiniciar();
+}
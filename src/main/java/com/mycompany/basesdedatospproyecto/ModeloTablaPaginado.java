@@ -0,0 +1,568 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla virtual que muestra todos los contactos sin cargarlos en
+ * memoria.
+ *
+ * La tabla declara tantas filas como contactos existen, pero los datos se
+ * piden a la base de datos por páginas, solo cuando la tabla necesita pintar
+ * una fila (es decir, a medida que el usuario se desplaza). Las páginas se
+ * obtienen con paginación por clave ({@link RepositorioContactos#obtenerPaginaContactosConGrupo})
+ * y se guardan en una caché LRU de tamaño fijo: al superar `maximoPaginas`, la
+ * página usada hace más tiempo se descarta.
+ *
+ * Para la paginación por clave, cada página necesita el último `idContacto`
+ * de la página anterior. Esos límites se recuerdan a medida que se cargan
+ * páginas; si el usuario salta a una página lejana, su límite se obtiene con
+ * una única consulta sobre el índice de la clave primaria
+ * ({@link RepositorioContactos#obtenerIdContactoDespuesDe}) contada desde el
+ * límite conocido más cercano. Esa consulta no transfiere las páginas
+ * intermedias, pero el servidor sí recorre sus entradas del índice, así que
+ * un salto lejano cuesta en proporción a su distancia.
+ *
+ * Las consultas se hacen en segundo plano con un {@link EjecutorTareasBD}:
+ * mientras una página se carga, sus filas se muestran vacías y, al llegar los
+ * datos, se repintan. Salvo los límites, todo el estado del modelo se usa solo
+ * desde el EDT.
+ *
+ * Las escrituras hechas desde la interfaz no obligan a recargar el modelo: un
+ * contacto nuevo se agrega al final (su ID es el mayor), uno actualizado se
+ * reemplaza en su página y uno eliminado se quita, recorriendo una fila las
+ * páginas cargadas que le siguen. La fila de un contacto se localiza con los
+ * límites de las páginas, que funcionan como índice de `idContacto` a página.
+ * Las páginas que estaban en camino durante una escritura se vuelven a pedir,
+ * porque pudieron leerse antes de ella.
+ *
+ * Al iniciar, el modelo puede mostrar una {@link InstantaneaContactos} en
+ * lugar de la base de datos ({@link #mostrarInstantanea}): sus páginas se
+ * decodifican en el EDT desde los bytes del archivo, sin esperar a ninguna
+ * consulta. Mientras tanto las escrituras no se aplican al modelo. Al pasar a
+ * la base de datos ({@link #usarBaseDeDatos()}), las páginas de la
+ * instantánea se siguen mostrando hasta que llega cada página de la base de
+ * datos, para que la tabla no se vacíe.
+ */
+public class ModeloTablaPaginado extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"ID", "Nombre", "A Paterno", "A Materno", "Telefono", "Grupo"};
+
+    private final RepositorioContactos db;
+    private final EjecutorTareasBD ejecutor;
+    private final int tamanoPagina;
+    private final int maximoPaginas;
+
+    private int numeroFilas;
+    // Aumenta con cada recarga; las páginas pedidas antes de una recarga se descartan al llegar.
+    // Se modifica desde el EDT dentro de synchronized (limites) y se lee desde los hilos de lectura.
+    private volatile int generacion;
+    // Aumenta con cada escritura aplicada al modelo; las páginas pedidas antes se vuelven a pedir
+    private volatile int ediciones;
+    // Páginas cargadas, en orden de uso (la primera es la usada hace más tiempo)
+    private final LinkedHashMap<Integer, List<Contacto>> paginas;
+    // Páginas pedidas a la base de datos que todavía no llegan
+    private final Set<Integer> enCarga = new HashSet<>();
+    // Para cada página conocida, el idContacto inmediatamente anterior a su primera fila.
+    // Se consulta y completa desde los hilos de lectura, por eso se sincroniza.
+    private final TreeMap<Integer, Integer> limites = new TreeMap<>();
+    // Instantánea de la que se leen las páginas; null cuando se leen de la base de datos
+    private InstantaneaContactos instantanea;
+    // Páginas de la instantánea que se muestran mientras llega su versión de la base de datos
+    private final Map<Integer, List<Contacto>> provisionales = new HashMap<>();
+
+    /**
+     * Crea un modelo vacío. Los datos se cargan con {@link #recargar()}.
+     *
+     * @param db El repositorio del que se leen las páginas.
+     * @param ejecutor El ejecutor con el que se hacen las consultas fuera del
+     * EDT.
+     * @param tamanoPagina El número de contactos por página.
+     * @param maximoPaginas El número máximo de páginas que se conservan en
+     * memoria.
+     */
+    public ModeloTablaPaginado(RepositorioContactos db, EjecutorTareasBD ejecutor, int tamanoPagina, int maximoPaginas) {
+        this.db = db;
+        this.ejecutor = ejecutor;
+        this.tamanoPagina = tamanoPagina;
+        this.maximoPaginas = maximoPaginas;
+        this.paginas = new LinkedHashMap<>(maximoPaginas * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Contacto>> eldest) {
+                return size() > ModeloTablaPaginado.this.maximoPaginas;
+            }
+        };
+        this.limites.put(0, 0);
+    }
+
+    /**
+     * Descarta todas las páginas cargadas y vuelve a contar los contactos en
+     * segundo plano. Las filas se volverán a pedir a la base de datos cuando
+     * la tabla las pinte.
+     *
+     * La primera página se pide a la vez que el conteo, que en tablas grandes
+     * tarda más: si llega antes, sus filas se muestran enseguida y el resto
+     * aparece al llegar el total.
+     */
+    public void recargar() {
+        instantanea = null;
+        provisionales.clear();
+        contar(reiniciar());
+        pedirPagina(0);
+    }
+
+    /**
+     * Muestra los contactos de una instantánea sin consultar la base de
+     * datos. Las páginas se leen de la instantánea al pintarse, hasta llamar
+     * a {@link #usarBaseDeDatos()} o a {@link #recargar()}.
+     *
+     * @param instantanea La instantánea a mostrar.
+     */
+    public void mostrarInstantanea(InstantaneaContactos instantanea) {
+        provisionales.clear();
+        reiniciar();
+        this.instantanea = instantanea;
+        numeroFilas = instantanea.numeroContactos();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Deja de leer de la instantánea y pasa a leer de la base de datos. Las
+     * páginas de la instantánea que ya se pintaron se siguen mostrando hasta
+     * que llega su versión de la base de datos. Si el modelo ya lee de la base
+     * de datos no hace nada.
+     */
+    public void usarBaseDeDatos() {
+        if (instantanea == null) {
+            return;
+        }
+        Map<Integer, List<Contacto>> anteriores = new HashMap<>(paginas);
+        recargar();
+        provisionales.putAll(anteriores);
+    }
+
+    /**
+     * Indica si el modelo muestra una instantánea en lugar de la base de
+     * datos.
+     *
+     * @return {@code true} si las páginas se leen de una instantánea.
+     */
+    public boolean mostrandoInstantanea() {
+        return instantanea != null;
+    }
+
+    /**
+     * Descarta las páginas cargadas y los límites conocidos.
+     *
+     * @return La nueva generación del modelo.
+     */
+    private int reiniciar() {
+        paginas.clear();
+        enCarga.clear();
+        synchronized (limites) {
+            limites.clear();
+            limites.put(0, 0);
+            return ++generacion;
+        }
+    }
+
+    /**
+     * Cuenta los contactos en segundo plano y, al llegar el total, repinta la
+     * tabla. Si mientras tanto se aplicó una escritura al modelo, el total
+     * pudo contarse antes de ella y se vuelve a contar.
+     */
+    private void contar(int generacionConteo) {
+        int edicionesConteo = ediciones;
+        ejecutor.ejecutarLectura("modelo-paginado-conteo", db::contarElementosContactos, total -> {
+            if (generacionConteo != generacion) {
+                return;
+            }
+            if (edicionesConteo != ediciones) {
+                contar(generacionConteo);
+                return;
+            }
+            numeroFilas = total;
+            fireTableDataChanged();
+        }, null);
+    }
+
+    /**
+     * Obtiene el contacto que se muestra en una fila, si su página ya está
+     * cargada. En caso contrario, pide la página y devuelve {@code null}.
+     *
+     * @param fila El índice de la fila.
+     * @return El contacto de la fila, o {@code null} si todavía no se carga o
+     * si la fila ya no existe en la base de datos.
+     */
+    public Contacto obtenerContacto(int fila) {
+        int numeroPagina = fila / tamanoPagina;
+        List<Contacto> pagina = paginas.get(numeroPagina);
+        if (pagina == null && instantanea != null) {
+            pagina = leerDeInstantanea(numeroPagina);
+        } else if (pagina == null) {
+            pedirPagina(numeroPagina);
+            pagina = provisionales.get(numeroPagina);
+            if (pagina == null) {
+                return null;
+            }
+        }
+        int posicion = fila % tamanoPagina;
+        return posicion < pagina.size() ? pagina.get(posicion) : null;
+    }
+
+    /**
+     * Agrega al final de la tabla un contacto recién insertado, sin volver a
+     * consultar la base de datos. El contacto debe tener un `idContacto`
+     * mayor que el de todos los demás, como ocurre con las claves
+     * autoincrementales. Si la última página está cargada y termina en un ID
+     * mayor (porque otro cliente insertó al mismo tiempo), el modelo se
+     * recarga para respetar el orden.
+     *
+     * @param contacto El contacto insertado, con el nombre de su grupo.
+     */
+    public void agregarContacto(Contacto contacto) {
+        if (instantanea != null) {
+            return; // Se verá al pasar a la base de datos
+        }
+        if (numeroFilas > 0) {
+            List<Contacto> ultimaPagina = paginas.get((numeroFilas - 1) / tamanoPagina);
+            if (ultimaPagina != null && !ultimaPagina.isEmpty()
+                    && ultimaPagina.get(ultimaPagina.size() - 1).idContacto() >= contacto.idContacto()) {
+                recargar();
+                return;
+            }
+        }
+        registrarEdicion();
+        int fila = numeroFilas++;
+        List<Contacto> pagina = paginas.get(fila / tamanoPagina);
+        if (pagina != null && pagina.size() == fila % tamanoPagina) {
+            pagina.add(contacto);
+        }
+        if (fila % tamanoPagina == 0 && fila > 0) {
+            // El contacto abre una página nueva; su límite es el último ID de la página anterior
+            List<Contacto> anterior = paginas.get(fila / tamanoPagina - 1);
+            if (anterior != null && anterior.size() == tamanoPagina) {
+                synchronized (limites) {
+                    limites.put(fila / tamanoPagina, anterior.get(tamanoPagina - 1).idContacto());
+                }
+            }
+        }
+        fireTableRowsInserted(fila, fila);
+    }
+
+    /**
+     * Reemplaza un contacto en la página cargada que lo contiene, sin volver
+     * a consultar la base de datos, y repinta su fila. Si la página del
+     * contacto no está cargada no hace nada: se leerá actualizada cuando se
+     * pinte.
+     *
+     * @param contacto La nueva versión del contacto.
+     */
+    public void reemplazarContacto(Contacto contacto) {
+        if (instantanea != null) {
+            return;
+        }
+        registrarEdicion();
+        Posicion posicion = localizar(contacto.idContacto());
+        if (posicion != null && posicion.indice() >= 0) {
+            paginas.get(posicion.pagina()).set(posicion.indice(), contacto);
+            int fila = posicion.pagina() * tamanoPagina + posicion.indice();
+            fireTableRowsUpdated(fila, fila);
+        }
+    }
+
+    /**
+     * Quita un contacto eliminado, sin volver a consultar la base de datos.
+     *
+     * Las filas siguientes suben una posición: en cada página cargada, la
+     * primera fila pasa al final de la página anterior. Donde la cadena de
+     * páginas cargadas se corta, las páginas restantes se descartan y se
+     * volverán a pedir al pintarse.
+     *
+     * @param idContacto El ID del contacto eliminado.
+     */
+    public void quitarContacto(int idContacto) {
+        if (instantanea != null) {
+            return;
+        }
+        Posicion posicion = localizar(idContacto);
+        if (posicion == null || numeroFilas == 0) {
+            return; // El contacto no está en la tabla
+        }
+        registrarEdicion();
+        numeroFilas--;
+        int ultimaPagina = numeroFilas == 0 ? 0 : (numeroFilas - 1) / tamanoPagina;
+        int numeroPagina = posicion.pagina();
+        if (posicion.indice() < 0) {
+            // La página del contacto no está cargada: no se sabe su fila exacta, así que se
+            // descartan esa página y las siguientes y se repinta desde ella hasta el final
+            descartarDesde(numeroPagina);
+            fireTableRowsDeleted(numeroFilas, numeroFilas);
+            int primeraFila = numeroPagina * tamanoPagina;
+            if (primeraFila < numeroFilas) {
+                fireTableRowsUpdated(primeraFila, numeroFilas - 1);
+            }
+            return;
+        }
+
+        List<Contacto> pagina = paginas.get(numeroPagina);
+        pagina.remove(posicion.indice());
+        while (numeroPagina < ultimaPagina) {
+            List<Contacto> siguiente = paginas.get(numeroPagina + 1);
+            if (siguiente == null || siguiente.isEmpty()) {
+                break;
+            }
+            pagina.add(siguiente.remove(0));
+            synchronized (limites) {
+                limites.put(numeroPagina + 1, pagina.get(pagina.size() - 1).idContacto());
+            }
+            numeroPagina++;
+            pagina = siguiente;
+        }
+        // La última página recorrida queda incompleta si no es la última de la tabla
+        descartarDesde(numeroPagina < ultimaPagina ? numeroPagina : numeroPagina + 1);
+        int fila = posicion.pagina() * tamanoPagina + posicion.indice();
+        fireTableRowsDeleted(fila, fila);
+    }
+
+    /**
+     * Descarta las páginas cargadas a partir de una, y los límites de las
+     * páginas que le siguen.
+     */
+    private void descartarDesde(int numeroPagina) {
+        paginas.keySet().removeIf(pagina -> pagina >= numeroPagina);
+        synchronized (limites) {
+            limites.tailMap(numeroPagina, false).clear();
+        }
+    }
+
+    /**
+     * Marca que el modelo cambió por una escritura. Las páginas en camino se
+     * volverán a pedir al llegar, y los límites que calculen se descartan.
+     */
+    private void registrarEdicion() {
+        provisionales.clear(); // Ya no corresponden a las filas
+        synchronized (limites) {
+            ediciones++;
+        }
+    }
+
+    /**
+     * Localiza un contacto en la tabla a partir de los límites de las
+     * páginas, que crecen junto con el número de página.
+     *
+     * @param idContacto El ID del contacto.
+     * @return La página en la que está o estaría el contacto y su posición en
+     * ella; la posición es -1 si la página no está cargada. {@code null} si la
+     * página está cargada y el contacto no está en ella.
+     */
+    private Posicion localizar(int idContacto) {
+        int numeroPagina = 0;
+        synchronized (limites) {
+            for (Map.Entry<Integer, Integer> limite : limites.entrySet()) {
+                if (limite.getValue() >= idContacto) {
+                    break;
+                }
+                numeroPagina = limite.getKey();
+            }
+        }
+        // Entre dos límites conocidos puede haber páginas cargadas sin límite; se revisan las cargadas
+        for (Map.Entry<Integer, List<Contacto>> entrada : paginas.entrySet()) {
+            List<Contacto> pagina = entrada.getValue();
+            if (entrada.getKey() < numeroPagina || pagina.isEmpty()
+                    || pagina.get(0).idContacto() > idContacto
+                    || pagina.get(pagina.size() - 1).idContacto() < idContacto) {
+                continue;
+            }
+            // Las páginas están ordenadas por idContacto
+            int indice = Collections.binarySearch(new AbstractList<Integer>() {
+                @Override
+                public Integer get(int i) {
+                    return pagina.get(i).idContacto();
+                }
+
+                @Override
+                public int size() {
+                    return pagina.size();
+                }
+            }, idContacto);
+            return indice >= 0 ? new Posicion(entrada.getKey(), indice) : null;
+        }
+        return paginas.containsKey(numeroPagina) ? null : new Posicion(numeroPagina, -1);
+    }
+
+    /**
+     * Página de un contacto y su posición dentro de ella.
+     */
+    private record Posicion(int pagina, int indice) {
+
+    }
+
+    @Override
+    public int getRowCount() {
+        return numeroFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        Contacto contacto = obtenerContacto(fila);
+        if (contacto == null) {
+            return null;
+        }
+        return switch (columna) {
+            case 0 -> contacto.idContacto();
+            case 1 -> contacto.nombre();
+            case 2 -> contacto.apellidoPaterno();
+            case 3 -> contacto.apellidoMaterno();
+            case 4 -> contacto.telefono();
+            default -> contacto.nombreGrupo();
+        };
+    }
+
+    /**
+     * Pide una página a la base de datos en segundo plano, salvo que ya se
+     * haya pedido. Al llegar, se guarda en la caché y se repintan sus filas.
+     */
+    private void pedirPagina(int numeroPagina) {
+        if (!enCarga.add(numeroPagina)) {
+            return;
+        }
+        int generacionPedido = generacion;
+        int edicionesPedido = ediciones;
+        ejecutor.ejecutarLectura(null, () -> cargarPagina(numeroPagina, generacionPedido, edicionesPedido), pagina -> {
+            if (generacionPedido != generacion) {
+                return;
+            }
+            enCarga.remove(numeroPagina);
+            if (edicionesPedido != ediciones) {
+                // La página pudo leerse antes de una escritura: se vuelve a pedir
+                if (numeroPagina == 0 || numeroPagina * tamanoPagina < numeroFilas) {
+                    pedirPagina(numeroPagina);
+                }
+                return;
+            }
+            paginas.put(numeroPagina, pagina);
+            provisionales.remove(numeroPagina);
+            if (numeroPagina == 0 && pagina.size() > numeroFilas) {
+                // La primera página llegó antes que el conteo: sus filas se muestran ya
+                int filasAnteriores = numeroFilas;
+                numeroFilas = pagina.size();
+                fireTableRowsInserted(filasAnteriores, numeroFilas - 1);
+            }
+            int primeraFila = numeroPagina * tamanoPagina;
+            int ultimaFila = Math.min(primeraFila + tamanoPagina, numeroFilas) - 1;
+            if (ultimaFila >= primeraFila) {
+                fireTableRowsUpdated(primeraFila, ultimaFila);
+            }
+        }, error -> {
+            // No se guarda nada: la página se vuelve a pedir la próxima vez que se pinte
+            if (generacionPedido == generacion) {
+                enCarga.remove(numeroPagina);
+            }
+        });
+    }
+
+    /**
+     * Lee una página de la instantánea y la guarda en la caché junto con los
+     * límites de la página y de la siguiente.
+     */
+    private List<Contacto> leerDeInstantanea(int numeroPagina) {
+        List<Contacto> pagina = new ArrayList<>(tamanoPagina);
+        int primeraFila = numeroPagina * tamanoPagina;
+        instantanea.leer(primeraFila, tamanoPagina, pagina);
+        paginas.put(numeroPagina, pagina);
+        synchronized (limites) {
+            if (primeraFila > 0) {
+                limites.put(numeroPagina, instantanea.idContacto(primeraFila - 1));
+            }
+            if (pagina.size() == tamanoPagina) {
+                limites.put(numeroPagina + 1, pagina.get(tamanoPagina - 1).idContacto());
+            }
+        }
+        return pagina;
+    }
+
+    /**
+     * Carga una página de la base de datos. Se ejecuta fuera del EDT.
+     *
+     * @throws SQLException Si no se pudo leer la página; no se guarda nada y
+     * la página se vuelve a pedir la próxima vez que se pinte.
+     */
+    private List<Contacto> cargarPagina(int numeroPagina, int generacionPedido, int edicionesPedido) throws SQLException {
+        List<Contacto> pagina = new ArrayList<>(tamanoPagina);
+        int despuesDeId = obtenerLimite(numeroPagina, generacionPedido, edicionesPedido);
+        if (despuesDeId >= 0 && db.obtenerPaginaContactosConGrupo(despuesDeId, tamanoPagina, pagina) < 0) {
+            throw new SQLException("No se pudo leer la página " + numeroPagina + " de contactos");
+        }
+        if (pagina.size() == tamanoPagina) {
+            // El último ID de esta página es el límite de la siguiente
+            guardarLimite(numeroPagina + 1, pagina.get(tamanoPagina - 1).idContacto(), generacionPedido,
+                    edicionesPedido);
+        }
+        return pagina;
+    }
+
+    /**
+     * Guarda el límite de una página calculado en segundo plano, salvo que el
+     * modelo haya cambiado desde que se pidió la página. Se ejecuta fuera del
+     * EDT.
+     */
+    private void guardarLimite(int numeroPagina, int limite, int generacionPedido, int edicionesPedido) {
+        synchronized (limites) {
+            if (generacionPedido == generacion && edicionesPedido == ediciones) {
+                limites.put(numeroPagina, limite);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el idContacto anterior a la primera fila de una página. Si no se
+     * conoce, se calcula a partir del límite conocido más cercano. Se ejecuta
+     * fuera del EDT.
+     *
+     * @return El límite de la página, o -1 si la página queda fuera de la
+     * tabla.
+     *
+     * @throws SQLException Si no se pudo consultar el límite.
+     */
+    private int obtenerLimite(int numeroPagina, int generacionPedido, int edicionesPedido) throws SQLException {
+        Map.Entry<Integer, Integer> conocido;
+        synchronized (limites) {
+            conocido = limites.floorEntry(numeroPagina);
+        }
+        if (conocido.getKey() == numeroPagina) {
+            return conocido.getValue();
+        }
+        // Última fila de la página anterior, contada desde el límite conocido
+        int desplazamiento = (numeroPagina - conocido.getKey()) * tamanoPagina - 1;
+        int limite = db.obtenerIdContactoDespuesDe(conocido.getValue(), desplazamiento);
+        if (limite < 0) {
+            throw new SQLException("No se pudo ubicar la página " + numeroPagina + " de contactos");
+        }
+        if (limite == 0) {
+            return -1;
+        }
+        guardarLimite(numeroPagina, limite, generacionPedido, edicionesPedido);
+        return limite;
+    }
+}
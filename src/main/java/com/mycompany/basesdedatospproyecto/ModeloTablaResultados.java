@@ -0,0 +1,381 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de la tabla con los resultados de una búsqueda.
+ *
+ * Los contactos se guardan por columnas, en arreglos paralelos: los IDs de
+ * contacto y de grupo en arreglos de `int`, sin un objeto por celda, y los
+ * nombres de los grupos una sola vez por grupo. Una búsqueda reemplaza todas
+ * las filas con {@link #reemplazarContactos(List)}, que avisa a la tabla con
+ * un único evento, en lugar de uno por fila.
+ *
+ * Además de las filas, el modelo mantiene un índice de `idContacto` a
+ * posición en los arreglos, de modo que después de insertar, actualizar o
+ * eliminar un contacto se puede modificar solo su fila, sin volver a cargar la
+ * búsqueda desde la base de datos. El índice se mantiene al día con cada
+ * cambio, sin reconstruirlo.
+ *
+ * Quitar un contacto no desplaza los arreglos: su posición se marca como
+ * quitada y un árbol de Fenwick con las posiciones vivas traduce los números
+ * de fila a posiciones (y al revés) en O(log n). Las posiciones quitadas se
+ * compactan de una vez cuando superan a las vivas, así que cada eliminación
+ * cuesta O(log n) amortizado. Mientras no hay posiciones quitadas, la fila y
+ * la posición coinciden. Se usa solo desde el EDT.
+ */
+public class ModeloTablaResultados extends AbstractTableModel {
+
+    private static final String[] COLUMNAS = {"ID", "Nombre", "A Paterno", "A Materno", "Telefono", "Grupo"};
+    private static final int CAPACIDAD_INICIAL = 16;
+    // Valor de `ids` en una posición quitada; los IDs de contacto son positivos
+    private static final int QUITADA = 0;
+
+    // Posiciones usadas de los arreglos, incluidas las quitadas
+    private int numeroPosiciones;
+    // Filas visibles: posiciones usadas que no se han quitado
+    private int numeroFilas;
+    // COLUMNAS; solo las primeras `numeroPosiciones` posiciones son válidas
+    private int[] ids;
+    private String[] nombres;
+    private String[] apellidosPaternos;
+    private String[] apellidosMaternos;
+    private String[] telefonos;
+    private int[] idsGrupo;
+    // Árbol de Fenwick (base 1) con el número de posiciones vivas
+    private int[] vivas;
+
+    // Nombre de cada grupo mostrado, por idGrupo
+    private final Map<Integer, String> nombresGrupo = new HashMap<>();
+
+    // Posición de cada contacto mostrado, por idContacto
+    private Map<Integer, Integer> posicionesPorId = new HashMap<>();
+
+    /**
+     * Crea un modelo vacío con las columnas de la tabla de contactos.
+     */
+    public ModeloTablaResultados() {
+        crearColumnas(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Reemplaza todas las filas por los contactos indicados y avisa a la
+     * tabla una sola vez.
+     *
+     * @param contactos Los contactos a mostrar, con el nombre de su grupo.
+     */
+    public void reemplazarContactos(List<Contacto> contactos) {
+        // Arreglos nuevos del tamaño justo: los de una búsqueda grande anterior se liberan
+        crearColumnas(Math.max(contactos.size(), CAPACIDAD_INICIAL));
+        posicionesPorId = new HashMap<>(Math.max(CAPACIDAD_INICIAL, contactos.size() * 2));
+        numeroPosiciones = 0;
+        for (Contacto contacto : contactos) {
+            posicionesPorId.put(contacto.idContacto(), numeroPosiciones);
+            escribir(numeroPosiciones++, contacto);
+        }
+        numeroFilas = numeroPosiciones;
+        construirVivas();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Conserva solo las filas cuyos contactos cumplen una condición, en el
+     * mismo orden, sin consultar la base de datos. Avisa a la tabla una sola
+     * vez.
+     *
+     * @param condicion La condición que deben cumplir los contactos que se
+     * conservan.
+     */
+    public void filtrar(Predicate<Contacto> condicion) {
+        int filasAnteriores = numeroFilas;
+        compactar(condicion);
+        if (numeroFilas != filasAnteriores) {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Obtiene el contacto que se muestra en una fila.
+     *
+     * @param fila El índice de la fila.
+     * @return El contacto, con el nombre de su grupo.
+     */
+    public Contacto obtenerContacto(int fila) {
+        return contactoEn(posicion(fila));
+    }
+
+    /**
+     * Quita todas las filas.
+     */
+    public void limpiar() {
+        reemplazarContactos(List.of());
+    }
+
+    /**
+     * Agrega un contacto al final de la tabla.
+     *
+     * @param contacto El contacto, con el nombre de su grupo.
+     */
+    public void agregarContacto(Contacto contacto) {
+        asegurarCapacidad(numeroPosiciones + 1);
+        int posicion = numeroPosiciones++;
+        escribir(posicion, contacto);
+        agregarViva(posicion);
+        posicionesPorId.put(contacto.idContacto(), posicion);
+        int fila = numeroFilas++;
+        fireTableRowsInserted(fila, fila);
+    }
+
+    /**
+     * Reemplaza la fila de un contacto por su nueva versión. Si el contacto no
+     * se está mostrando no hace nada.
+     *
+     * @param contacto La nueva versión del contacto, con el nombre de su
+     * grupo.
+     * @return {@code true} si el contacto estaba en la tabla.
+     */
+    public boolean reemplazarContacto(Contacto contacto) {
+        Integer posicion = posicionesPorId.get(contacto.idContacto());
+        if (posicion == null) {
+            return false;
+        }
+        escribir(posicion, contacto);
+        int fila = fila(posicion);
+        fireTableRowsUpdated(fila, fila);
+        return true;
+    }
+
+    /**
+     * Quita la fila de un contacto. Si el contacto no se está mostrando no
+     * hace nada.
+     *
+     * @param idContacto El ID del contacto.
+     * @return {@code true} si el contacto estaba en la tabla.
+     */
+    public boolean quitarContacto(int idContacto) {
+        Integer posicion = posicionesPorId.remove(idContacto);
+        if (posicion == null) {
+            return false;
+        }
+        int fila = fila(posicion);
+        ids[posicion] = QUITADA;
+        // Soltar las cadenas de la posición quitada
+        nombres[posicion] = null;
+        apellidosPaternos[posicion] = null;
+        apellidosMaternos[posicion] = null;
+        telefonos[posicion] = null;
+        quitarViva(posicion);
+        numeroFilas--;
+        if (numeroPosiciones - numeroFilas > Math.max(CAPACIDAD_INICIAL, numeroFilas)) {
+            compactar(null);
+        }
+        fireTableRowsDeleted(fila, fila);
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return numeroFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return COLUMNAS[columna];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columna) {
+        return columna == 0 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        int posicion = posicion(fila);
+        return switch (columna) {
+            case 0 -> ids[posicion];
+            case 1 -> nombres[posicion];
+            case 2 -> apellidosPaternos[posicion];
+            case 3 -> apellidosMaternos[posicion];
+            case 4 -> telefonos[posicion];
+            default -> nombresGrupo.get(idsGrupo[posicion]);
+        };
+    }
+
+    /**
+     * Obtiene el contacto guardado en una posición de los arreglos.
+     */
+    private Contacto contactoEn(int posicion) {
+        return new Contacto(ids[posicion], nombres[posicion], apellidosPaternos[posicion], apellidosMaternos[posicion],
+                telefonos[posicion], idsGrupo[posicion], nombresGrupo.get(idsGrupo[posicion]));
+    }
+
+    /**
+     * Escribe un contacto en una posición de los arreglos, sin avisar a la
+     * tabla.
+     */
+    private void escribir(int posicion, Contacto contacto) {
+        ids[posicion] = contacto.idContacto();
+        nombres[posicion] = contacto.nombre();
+        apellidosPaternos[posicion] = contacto.apellidoPaterno();
+        apellidosMaternos[posicion] = contacto.apellidoMaterno();
+        telefonos[posicion] = contacto.telefono();
+        idsGrupo[posicion] = contacto.idGrupo();
+        if (contacto.nombreGrupo() != null) {
+            nombresGrupo.put(contacto.idGrupo(), contacto.nombreGrupo());
+        }
+    }
+
+    /**
+     * Reemplaza los arreglos de las columnas por arreglos vacíos.
+     */
+    private void crearColumnas(int capacidad) {
+        ids = new int[capacidad];
+        nombres = new String[capacidad];
+        apellidosPaternos = new String[capacidad];
+        apellidosMaternos = new String[capacidad];
+        telefonos = new String[capacidad];
+        idsGrupo = new int[capacidad];
+        vivas = new int[capacidad + 1];
+    }
+
+    /**
+     * Agranda los arreglos, si hace falta, para que quepan `filas` filas.
+     */
+    private void asegurarCapacidad(int filas) {
+        if (filas <= ids.length) {
+            return;
+        }
+        int capacidad = Math.max(filas, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacidad);
+        nombres = Arrays.copyOf(nombres, capacidad);
+        apellidosPaternos = Arrays.copyOf(apellidosPaternos, capacidad);
+        apellidosMaternos = Arrays.copyOf(apellidosMaternos, capacidad);
+        telefonos = Arrays.copyOf(telefonos, capacidad);
+        idsGrupo = Arrays.copyOf(idsGrupo, capacidad);
+        vivas = Arrays.copyOf(vivas, capacidad + 1);
+    }
+
+    /**
+     * Junta al principio de los arreglos las posiciones vivas cuyos contactos
+     * cumplen una condición, en el mismo orden, y descarta las demás junto con
+     * las quitadas. Solo actualiza en el índice los contactos que cambian de
+     * posición o se descartan. No avisa a la tabla.
+     *
+     * @param condicion La condición, o {@code null} para conservar todas las
+     * posiciones vivas.
+     */
+    private void compactar(Predicate<Contacto> condicion) {
+        int conservadas = 0;
+        for (int posicion = 0; posicion < numeroPosiciones; posicion++) {
+            if (ids[posicion] == QUITADA) {
+                continue;
+            }
+            if (condicion != null && !condicion.test(contactoEn(posicion))) {
+                posicionesPorId.remove(ids[posicion]);
+                continue;
+            }
+            if (conservadas != posicion) {
+                ids[conservadas] = ids[posicion];
+                nombres[conservadas] = nombres[posicion];
+                apellidosPaternos[conservadas] = apellidosPaternos[posicion];
+                apellidosMaternos[conservadas] = apellidosMaternos[posicion];
+                telefonos[conservadas] = telefonos[posicion];
+                idsGrupo[conservadas] = idsGrupo[posicion];
+                posicionesPorId.put(ids[conservadas], conservadas);
+            }
+            conservadas++;
+        }
+        if (conservadas == numeroPosiciones) {
+            return;
+        }
+        // Soltar las cadenas de las posiciones que ya no se usan
+        Arrays.fill(nombres, conservadas, numeroPosiciones, null);
+        Arrays.fill(apellidosPaternos, conservadas, numeroPosiciones, null);
+        Arrays.fill(apellidosMaternos, conservadas, numeroPosiciones, null);
+        Arrays.fill(telefonos, conservadas, numeroPosiciones, null);
+        numeroPosiciones = conservadas;
+        numeroFilas = conservadas;
+        construirVivas();
+    }
+
+    /**
+     * Obtiene la posición de los arreglos que se muestra en una fila.
+     */
+    private int posicion(int fila) {
+        if (numeroFilas == numeroPosiciones) {
+            return fila;
+        }
+        // Búsqueda descendente en el árbol: la posición con `fila` posiciones vivas antes que ella
+        int posicion = 0;
+        int restantes = fila + 1;
+        for (int paso = Integer.highestOneBit(numeroPosiciones); paso > 0; paso >>= 1) {
+            if (posicion + paso <= numeroPosiciones && vivas[posicion + paso] < restantes) {
+                posicion += paso;
+                restantes -= vivas[posicion];
+            }
+        }
+        return posicion;
+    }
+
+    /**
+     * Obtiene la fila en la que se muestra una posición viva de los arreglos.
+     */
+    private int fila(int posicion) {
+        return numeroFilas == numeroPosiciones ? posicion : contarVivas(posicion);
+    }
+
+    /**
+     * Cuenta las posiciones vivas entre las primeras `posiciones`.
+     */
+    private int contarVivas(int posiciones) {
+        int cuenta = 0;
+        for (int i = posiciones; i > 0; i -= i & -i) {
+            cuenta += vivas[i];
+        }
+        return cuenta;
+    }
+
+    /**
+     * Construye el árbol de posiciones vivas en O(n) a partir de los arreglos.
+     */
+    private void construirVivas() {
+        Arrays.fill(vivas, 0, numeroPosiciones + 1, 0);
+        for (int i = 1; i <= numeroPosiciones; i++) {
+            if (ids[i - 1] != QUITADA) {
+                vivas[i]++;
+            }
+            int padre = i + (i & -i);
+            if (padre <= numeroPosiciones) {
+                vivas[padre] += vivas[i];
+            }
+        }
+    }
+
+    /**
+     * Agrega al árbol la última posición usada, que está viva.
+     */
+    private void agregarViva(int posicion) {
+        int i = posicion + 1;
+        // El nodo cubre las posiciones (i - (i & -i), i]; todas menos la nueva ya están en el árbol
+        vivas[i] = 1 + contarVivas(i - 1) - contarVivas(i - (i & -i));
+    }
+
+    /**
+     * Descuenta del árbol una posición que se acaba de quitar.
+     */
+    private void quitarViva(int posicion) {
+        for (int i = posicion + 1; i <= numeroPosiciones; i += i & -i) {
+            vivas[i]--;
+        }
+    }
+}
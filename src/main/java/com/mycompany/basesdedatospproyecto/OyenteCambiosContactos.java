@@ -0,0 +1,37 @@
+package com.mycompany.basesdedatospproyecto;
+
+/**
+ * Recibe los cambios hechos en los contactos a través de un
+ * {@link RepositorioContactos}.
+ *
+ * Los componentes que mantienen datos derivados en memoria (conteos, índices,
+ * cachés) se registran con
+ * {@link RepositorioContactos#agregarOyente(OyenteCambiosContactos)} para mantenerse al día sin volver a consultar la base de datos. Los avisos
+ * llegan en el hilo que hizo la escritura, después de que esta se confirmó,
+ * por lo que las implementaciones deben ser rápidas y seguras entre hilos.
+ */
+public interface OyenteCambiosContactos {
+
+    /**
+     * Avisa que se insertó un contacto.
+     *
+     * @param nuevo El contacto insertado, con su `idContacto` generado y el
+     * nombre de su grupo.
+     */
+    void contactoInsertado(Contacto nuevo);
+
+    /**
+     * Avisa que se actualizó un contacto.
+     *
+     * @param anterior El contacto antes del cambio, con el nombre de su grupo.
+     * @param nuevo El contacto después del cambio, con el nombre de su grupo.
+     */
+    void contactoActualizado(Contacto anterior, Contacto nuevo);
+
+    /**
+     * Avisa que se eliminó un contacto.
+     *
+     * @param anterior El contacto eliminado, con el nombre de su grupo.
+     */
+    void contactoEliminado(Contacto anterior);
+}
@@ -0,0 +1,457 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC reutilizables.
+ *
+ * En lugar de abrir una conexión nueva (con su saludo TCP y autenticación) en
+ * cada operación, el pool conserva las conexiones devueltas y las vuelve a
+ * prestar. El número de conexiones prestadas a la vez nunca supera
+ * `maximoConexiones`; si todas están ocupadas, quien pide una conexión espera
+ * como máximo `tiempoMaximoEsperaMs` antes de recibir un
+ * {@link SQLTimeoutException}.
+ *
+ * Las conexiones inactivas se guardan en orden LIFO para que la conexión más
+ * recientemente usada (la más "caliente") sea la primera en reutilizarse. Al
+ * prestarse, una conexión que lleva inactiva más de
+ * `validacionTrasInactividadMs` se valida con {@link Connection#isValid(int)};
+ * si ya no sirve se descarta y se prueba con la siguiente. Un hilo de
+ * mantenimiento cierra periódicamente las conexiones que llevan más de
+ * `tiempoMaximoInactividadMs` sin usarse.
+ *
+ * Cada conexión física conserva además sus sentencias preparadas en una
+ * {@link CacheSentencias} de hasta `maximoSentenciasPorConexion` entradas, que
+ * se obtienen con {@link #prepararSentencia(Connection, String, int)} y se
+ * reutilizan en los siguientes préstamos de la misma conexión.
+ */
+public class PoolConexiones {
+
+    // Segundos que se concede a isValid() para responder antes de considerar la conexión rota
+    private static final int SEGUNDOS_VALIDACION = 2;
+
+    private final String url;
+    private final String usuario;
+    private final String contrasena;
+    private final int maximoConexiones;
+    private final long tiempoMaximoEsperaMs;
+    private final long tiempoMaximoInactividadMs;
+    private final long validacionTrasInactividadMs;
+    private final int maximoSentenciasPorConexion;
+    // Sentencia que se ejecuta en cada conexión física nueva; null si no hay ninguna
+    private final String sqlInicializacion;
+
+    // Cada permiso representa una conexión que se puede prestar
+    private final Semaphore permisos;
+    // Conexiones listas para reutilizarse; la cabeza es la más reciente
+    private final LinkedBlockingDeque<ConexionInactiva> inactivas = new LinkedBlockingDeque<>();
+    // Conexiones actualmente prestadas, para detectar devoluciones repetidas o ajenas
+    private final Set<Connection> prestadas = ConcurrentHashMap.newKeySet();
+    // Sentencias preparadas de cada conexión física abierta
+    private final Map<Connection, CacheSentencias> sentencias = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    // ESTADÍSTICAS
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder conexionesCreadas = new LongAdder();
+    private final LongAdder conexionesDescartadas = new LongAdder();
+    private final LongAdder esperasAgotadas = new LongAdder();
+    private final LongAdder tiempoEsperaTotalNanos = new LongAdder();
+    private final AtomicLong tiempoEsperaMaximoNanos = new AtomicLong();
+    private final LongAdder aciertosSentencias = new LongAdder();
+    private final LongAdder fallosSentencias = new LongAdder();
+    private final LongAdder sentenciasDesalojadas = new LongAdder();
+
+    /**
+     * Conexión guardada en el pool junto con el instante en que fue devuelta.
+     */
+    private record ConexionInactiva(Connection conexion, long devueltaNanos) {
+    }
+
+    /**
+     * Crea un pool de conexiones hacia la base de datos indicada. Las
+     * conexiones se abren de forma perezosa, a medida que se necesitan.
+     *
+     * @param url URL JDBC de la base de datos.
+     * @param usuario Usuario de la base de datos.
+     * @param contrasena Contraseña del usuario.
+     * @param maximoConexiones Número máximo de conexiones prestadas a la vez.
+     * @param tiempoMaximoEsperaMs Tiempo máximo, en milisegundos, que se espera
+     * a que se libere una conexión.
+     * @param tiempoMaximoInactividadMs Tiempo, en milisegundos, tras el cual
+     * una conexión inactiva se cierra.
+     * @param validacionTrasInactividadMs Tiempo de inactividad, en
+     * milisegundos, a partir del cual una conexión se valida antes de
+     * prestarse.
+     * @param maximoSentenciasPorConexion Número máximo de sentencias
+     * preparadas que cada conexión conserva para reutilizarlas.
+     * @param sqlInicializacion Sentencia que se ejecuta en cada conexión
+     * física al abrirla, por ejemplo para fijar variables de sesión; puede ser
+     * {@code null}.
+     */
+    public PoolConexiones(String url, String usuario, String contrasena, int maximoConexiones,
+            long tiempoMaximoEsperaMs, long tiempoMaximoInactividadMs, long validacionTrasInactividadMs,
+            int maximoSentenciasPorConexion, String sqlInicializacion) {
+        if (maximoConexiones <= 0) {
+            throw new IllegalArgumentException("El pool debe admitir al menos una conexión");
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.contrasena = contrasena;
+        this.maximoConexiones = maximoConexiones;
+        this.tiempoMaximoEsperaMs = tiempoMaximoEsperaMs;
+        this.tiempoMaximoInactividadMs = tiempoMaximoInactividadMs;
+        this.validacionTrasInactividadMs = validacionTrasInactividadMs;
+        this.maximoSentenciasPorConexion = maximoSentenciasPorConexion;
+        this.sqlInicializacion = sqlInicializacion;
+        this.permisos = new Semaphore(maximoConexiones, true);
+
+        // Hilo demonio que desaloja las conexiones inactivas; no impide que la aplicación termine
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "pool-conexiones-desalojo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, tiempoMaximoInactividadMs / 2);
+        this.mantenimiento.scheduleWithFixedDelay(this::desalojarInactivas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     *
+     * Si hay conexiones inactivas se reutiliza la más reciente (validándola si
+     * llevaba demasiado tiempo sin usarse); en caso contrario se abre una
+     * nueva, siempre que no se haya alcanzado el máximo. La conexión debe
+     * devolverse con {@link #devolverConexion(Connection)} y nunca cerrarse
+     * directamente.
+     *
+     * @return Una conexión lista para usarse.
+     *
+     * @throws SQLTimeoutException Si no se libera ninguna conexión dentro del
+     * tiempo máximo de espera.
+     * @throws SQLException Si el pool está cerrado o no se puede abrir una
+     * conexión nueva.
+     */
+    public Connection obtenerConexion() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(tiempoMaximoEsperaMs, TimeUnit.MILLISECONDS)) {
+                esperasAgotadas.increment();
+                throw new SQLTimeoutException("No se obtuvo una conexión libre en " + tiempoMaximoEsperaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión", e);
+        }
+        registrarEspera(System.nanoTime() - inicio);
+
+        try {
+            Connection conexion = tomarInactivaValida();
+            if (conexion == null) {
+                conexion = abrirConexion();
+            }
+            prestadas.add(conexion);
+            prestamos.increment();
+            return conexion;
+        } catch (SQLException | RuntimeException e) {
+            // El permiso no llegó a usarse, se devuelve para no reducir la capacidad del pool
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve al pool una conexión prestada.
+     *
+     * Si la conexión quedó dentro de una transacción, esta se revierte y se
+     * restablece el modo auto-commit antes de guardarla. Las conexiones
+     * cerradas, las que fallan al restablecerse y las devueltas después de
+     * {@link #cerrar()} se descartan, cerrando la conexión física. Devolver una
+     * conexión que no fue prestada por este pool (o devolverla dos veces) no
+     * tiene efecto.
+     *
+     * @param conexion La conexión que se devuelve. Puede ser {@code null}.
+     */
+    public void devolverConexion(Connection conexion) {
+        if (conexion == null || !prestadas.remove(conexion)) {
+            return;
+        }
+        try {
+            if (cerrado || conexion.isClosed()) {
+                descartar(conexion);
+            } else {
+                if (!conexion.getAutoCommit()) {
+                    conexion.rollback();
+                    conexion.setAutoCommit(true);
+                }
+                ConexionInactiva inactiva = new ConexionInactiva(conexion, System.nanoTime());
+                inactivas.offerFirst(inactiva);
+                // Si cerrar() vació la pila entre la comprobación anterior y la
+                // inserción, la conexión quedaría en un pool cerrado. Quien la
+                // saque de la pila (cerrar() o este hilo) es quien la cierra.
+                if (cerrado && inactivas.remove(inactiva)) {
+                    descartar(conexion);
+                }
+            }
+        } catch (SQLException e) {
+            descartar(conexion);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Obtiene una sentencia preparada sobre una conexión prestada por este
+     * pool, reutilizando la que la conexión ya tenía preparada para el mismo
+     * SQL si la hay.
+     *
+     * La sentencia pertenece a la caché de la conexión y no debe cerrarse;
+     * solo deben cerrarse los {@link java.sql.ResultSet} que produzca. Deja de
+     * usarse al devolver la conexión.
+     *
+     * @param conexion Una conexión prestada por este pool.
+     * @param sql El texto SQL de la sentencia.
+     * @param clavesGeneradas {@link java.sql.Statement#RETURN_GENERATED_KEYS}
+     * o {@link java.sql.Statement#NO_GENERATED_KEYS}.
+     * @return La sentencia, lista para asignarle parámetros.
+     *
+     * @throws SQLException Si la conexión no pertenece a este pool o si ocurre
+     * un error al preparar la sentencia.
+     */
+    public PreparedStatement prepararSentencia(Connection conexion, String sql, int clavesGeneradas) throws SQLException {
+        CacheSentencias cache = sentencias.get(conexion);
+        if (cache == null || !prestadas.contains(conexion)) {
+            throw new SQLException("La conexión no está prestada por este pool");
+        }
+        return cache.obtener(sql, clavesGeneradas);
+    }
+
+    /**
+     * Indica si una conexión está prestada por este pool.
+     *
+     * @param conexion La conexión.
+     * @return {@code true} si la prestó este pool y todavía no se devolvió.
+     */
+    public boolean esPrestada(Connection conexion) {
+        return prestadas.contains(conexion);
+    }
+
+    /**
+     * Obtiene el número de conexiones prestadas en este momento, sin armar
+     * todas las estadísticas.
+     *
+     * @return Las conexiones prestadas.
+     */
+    public int contarPrestadas() {
+        return prestadas.size();
+    }
+
+    /**
+     * Obtiene una fotografía de las estadísticas actuales del pool.
+     *
+     * @return Las estadísticas del pool en este instante.
+     */
+    public EstadisticasPool obtenerEstadisticas() {
+        long numeroPrestamos = prestamos.sum();
+        long esperaTotal = tiempoEsperaTotalNanos.sum();
+        return new EstadisticasPool(
+                prestadas.size(),
+                inactivas.size(),
+                maximoConexiones,
+                numeroPrestamos,
+                conexionesCreadas.sum(),
+                conexionesDescartadas.sum(),
+                esperasAgotadas.sum(),
+                numeroPrestamos == 0 ? 0 : esperaTotal / numeroPrestamos,
+                tiempoEsperaMaximoNanos.get(),
+                aciertosSentencias.sum(),
+                fallosSentencias.sum(),
+                sentenciasDesalojadas.sum());
+    }
+
+    /**
+     * Cierra el pool: detiene el hilo de mantenimiento y cierra todas las
+     * conexiones inactivas. Las conexiones prestadas se cierran cuando sean
+     * devueltas.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            descartar(inactiva.conexion());
+        }
+    }
+
+    /**
+     * Toma la conexión inactiva más reciente que siga siendo válida,
+     * descartando por el camino las que ya no respondan.
+     *
+     * @return Una conexión reutilizable o {@code null} si no hay ninguna.
+     */
+    private Connection tomarInactivaValida() {
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            long inactividadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inactiva.devueltaNanos());
+            if (inactividadMs < validacionTrasInactividadMs || esValida(inactiva.conexion())) {
+                return inactiva.conexion();
+            }
+            descartar(inactiva.conexion());
+        }
+        return null;
+    }
+
+    /**
+     * Abre una conexión física nueva con la base de datos y ejecuta en ella
+     * la sentencia de inicialización, si hay una.
+     */
+    private Connection abrirConexion() throws SQLException {
+        Connection conexion = DriverManager.getConnection(url, usuario, contrasena);
+        if (sqlInicializacion != null) {
+            try (Statement statement = conexion.createStatement()) {
+                statement.execute(sqlInicializacion);
+            } catch (SQLException e) {
+                conexion.close();
+                throw e;
+            }
+        }
+        conexionesCreadas.increment();
+        sentencias.put(conexion, new CacheSentencias(conexion, maximoSentenciasPorConexion,
+                aciertosSentencias, fallosSentencias, sentenciasDesalojadas));
+        Registro.depurar("Conexión exitosa a la base de datos.");
+        return conexion;
+    }
+
+    /**
+     * Comprueba si una conexión sigue abierta y responde.
+     */
+    private boolean esValida(Connection conexion) {
+        try {
+            return conexion.isValid(SEGUNDOS_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cierra definitivamente una conexión física.
+     */
+    private void descartar(Connection conexion) {
+        conexionesDescartadas.increment();
+        CacheSentencias cache = sentencias.remove(conexion);
+        if (cache != null) {
+            cache.cerrar();
+        }
+        try {
+            conexion.close();
+            Registro.depurar("Conexión cerrada.");
+        } catch (SQLException e) {
+            Registro.error("Error al cerrar la conexión: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra las conexiones que llevan más tiempo inactivas del permitido. Se
+     * recorre la cola desde el final, donde están las más antiguas.
+     */
+    private void desalojarInactivas() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(tiempoMaximoInactividadMs);
+        Iterator<ConexionInactiva> iterador = inactivas.descendingIterator();
+        while (iterador.hasNext()) {
+            ConexionInactiva inactiva = iterador.next();
+            if (inactiva.devueltaNanos() - limite > 0) {
+                // El resto de la cola es más reciente que esta
+                break;
+            }
+            // Solo se cierra si nadie la tomó mientras tanto
+            if (inactivas.removeFirstOccurrence(inactiva)) {
+                descartar(inactiva.conexion());
+            }
+        }
+    }
+
+    /**
+     * Acumula el tiempo de espera de un préstamo y actualiza el máximo.
+     */
+    private void registrarEspera(long esperaNanos) {
+        tiempoEsperaTotalNanos.add(esperaNanos);
+        tiempoEsperaMaximoNanos.accumulateAndGet(esperaNanos, Math::max);
+    }
+
+    /**
+     * Estadísticas del pool en un instante dado.
+     *
+     * @param activas Conexiones prestadas en este momento.
+     * @param inactivas Conexiones abiertas a la espera de reutilizarse.
+     * @param maximo Número máximo de conexiones prestadas a la vez.
+     * @param prestamos Total de conexiones prestadas desde que se creó el pool.
+     * @param creadas Conexiones físicas abiertas.
+     * @param descartadas Conexiones físicas cerradas (por inactividad, por no
+     * ser válidas o por cierre del pool).
+     * @param esperasAgotadas Préstamos que fallaron por agotarse el tiempo de
+     * espera.
+     * @param esperaPromedioNanos Tiempo medio de espera por préstamo.
+     * @param esperaMaximaNanos Tiempo máximo de espera observado.
+     * @param aciertosSentencias Sentencias preparadas reutilizadas de la caché
+     * de su conexión.
+     * @param fallosSentencias Sentencias que no estaban en la caché y hubo que
+     * preparar.
+     * @param sentenciasDesalojadas Sentencias cerradas por superar el tamaño
+     * de la caché.
+     */
+    public record EstadisticasPool(int activas, int inactivas, int maximo, long prestamos, long creadas,
+            long descartadas, long esperasAgotadas, long esperaPromedioNanos, long esperaMaximaNanos,
+            long aciertosSentencias, long fallosSentencias, long sentenciasDesalojadas) {
+
+        /**
+         * Suma estas estadísticas con las de otro pool, por ejemplo para
+         * tratar como uno solo los pools del principal y de las réplicas. La
+         * espera media se pondera por el número de préstamos de cada pool y la
+         * espera máxima es la mayor de las dos.
+         *
+         * @param otro Las estadísticas del otro pool.
+         * @return Las estadísticas combinadas.
+         */
+        public EstadisticasPool sumar(EstadisticasPool otro) {
+            long prestamosTotales = prestamos + otro.prestamos;
+            long esperaPromedio = prestamosTotales == 0 ? 0
+                    : (esperaPromedioNanos * prestamos + otro.esperaPromedioNanos * otro.prestamos) / prestamosTotales;
+            return new EstadisticasPool(activas + otro.activas, inactivas + otro.inactivas, maximo + otro.maximo,
+                    prestamosTotales, creadas + otro.creadas, descartadas + otro.descartadas,
+                    esperasAgotadas + otro.esperasAgotadas, esperaPromedio,
+                    Math.max(esperaMaximaNanos, otro.esperaMaximaNanos), aciertosSentencias + otro.aciertosSentencias,
+                    fallosSentencias + otro.fallosSentencias, sentenciasDesalojadas + otro.sentenciasDesalojadas);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Pool: %d activas, %d inactivas (máx. %d), %d préstamos, %d creadas, %d descartadas, "
+                    + "%d esperas agotadas, espera media %.3f ms, espera máxima %.3f ms, "
+                    + "sentencias: %d aciertos, %d fallos, %d desalojadas",
+                    activas, inactivas, maximo, prestamos, creadas, descartadas, esperasAgotadas,
+                    esperaPromedioNanos / 1_000_000.0, esperaMaximaNanos / 1_000_000.0,
+                    aciertosSentencias, fallosSentencias, sentenciasDesalojadas);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de mensajes de diagnóstico, asíncrono y filtrado por nivel.
+ *
+ * Los mensajes no se escriben en la consola desde el hilo que los produce:
+ * se guardan en un búfer circular acotado y un hilo de fondo los escribe por
+ * tandas. Guardar un mensaje nunca espera: si el búfer está lleno, el mensaje
+ * se descarta y se cuenta, y el número de descartados se informa cuando el
+ * hilo de fondo se pone al día. Así una operación de la base de datos no se
+ * detiene por la consola, aunque muchas escriban a la vez.
+ *
+ * El nivel mínimo se fija al iniciar con la propiedad del sistema
+ * `contactos.registro.nivel` (`DEPURACION`, `INFO`, `AVISO` o `ERROR`; por
+ * defecto `INFO`). Como es una constante, el compilador JIT elimina las
+ * llamadas de un nivel desactivado; los mensajes que se arman concatenando
+ * valores deben protegerse con {@link #activo(Nivel)} para no construirlos en
+ * vano.
+ */
+public final class Registro {
+
+    /**
+     * Niveles de los mensajes, de menor a mayor importancia.
+     */
+    public enum Nivel {
+        DEPURACION, INFO, AVISO, ERROR
+    }
+
+    private static final String PROPIEDAD_NIVEL = "contactos.registro.nivel";
+    private static final Nivel NIVEL_MINIMO = leerNivel();
+
+    // Mensajes que caben en el búfer; potencia de dos
+    private static final int CAPACIDAD = 8192;
+    // Espera del hilo de fondo cuando no hay mensajes
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    // BÚFER CIRCULAR (varios productores, un consumidor)
+    // La secuencia de cada posición indica si está libre para la escritura número `secuencia`
+    // o si contiene la entrada número `secuencia - 1`, lista para leerse.
+    private static final Entrada[] entradas = new Entrada[CAPACIDAD];
+    private static final AtomicLongArray secuencias = new AtomicLongArray(CAPACIDAD);
+    private static final AtomicLong siguienteEscritura = new AtomicLong();
+    // Solo la usa quien tiene el monitor de la clase
+    private static long siguienteLectura;
+
+    private static final LongAdder descartados = new LongAdder();
+    private static long descartadosInformados;
+    private static final PrintStream salida = System.out;
+
+    /**
+     * Mensaje guardado en el búfer.
+     */
+    private record Entrada(long instante, Nivel nivel, String hilo, String mensaje) {
+    }
+
+    static {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            secuencias.set(i, i);
+        }
+        Thread escritor = new Thread(Registro::escribirContinuamente, "registro-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+        // El hilo de fondo termina con la aplicación; lo pendiente se escribe al salir
+        Runtime.getRuntime().addShutdownHook(new Thread(Registro::vaciar, "registro-vaciado"));
+    }
+
+    private Registro() {
+    }
+
+    /**
+     * Indica si los mensajes de un nivel se registran.
+     *
+     * @param nivel El nivel.
+     * @return {@code true} si el nivel es igual o mayor que el mínimo.
+     */
+    public static boolean activo(Nivel nivel) {
+        return nivel.compareTo(NIVEL_MINIMO) >= 0;
+    }
+
+    /**
+     * Registra un mensaje de depuración, por ejemplo la apertura de una
+     * conexión o una fila escrita.
+     *
+     * @param mensaje El mensaje.
+     */
+    public static void depurar(String mensaje) {
+        registrar(Nivel.DEPURACION, mensaje);
+    }
+
+    /**
+     * Registra un mensaje informativo.
+     *
+     * @param mensaje El mensaje.
+     */
+    public static void info(String mensaje) {
+        registrar(Nivel.INFO, mensaje);
+    }
+
+    /**
+     * Registra un aviso: algo inesperado que no impidió la operación.
+     *
+     * @param mensaje El mensaje.
+     */
+    public static void aviso(String mensaje) {
+        registrar(Nivel.AVISO, mensaje);
+    }
+
+    /**
+     * Registra un error.
+     *
+     * @param mensaje El mensaje.
+     */
+    public static void error(String mensaje) {
+        registrar(Nivel.ERROR, mensaje);
+    }
+
+    /**
+     * Registra un mensaje si su nivel está activo. Nunca espera: si el búfer
+     * está lleno, el mensaje se descarta.
+     *
+     * @param nivel El nivel del mensaje.
+     * @param mensaje El mensaje.
+     */
+    public static void registrar(Nivel nivel, String mensaje) {
+        if (!activo(nivel)) {
+            return;
+        }
+        Entrada entrada = new Entrada(System.currentTimeMillis(), nivel, Thread.currentThread().getName(), mensaje);
+        while (true) {
+            long posicion = siguienteEscritura.get();
+            int indice = (int) posicion & (CAPACIDAD - 1);
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (siguienteEscritura.compareAndSet(posicion, posicion + 1)) {
+                    entradas[indice] = entrada;
+                    secuencias.lazySet(indice, posicion + 1);
+                    return;
+                }
+            } else if (diferencia < 0) {
+                // La posición todavía guarda un mensaje sin escribir: el búfer está lleno
+                descartados.increment();
+                return;
+            }
+            // Otro hilo tomó la posición; se intenta con la siguiente
+        }
+    }
+
+    /**
+     * Obtiene el número de mensajes descartados por encontrar el búfer lleno.
+     *
+     * @return Los mensajes descartados desde que inició la aplicación.
+     */
+    public static long obtenerDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Escribe en la consola todos los mensajes pendientes. Lo hace el hilo de
+     * fondo continuamente; llamarlo sirve para asegurar que todo lo
+     * registrado hasta ahora ya se escribió.
+     */
+    public static synchronized void vaciar() {
+        boolean escrito = false;
+        while (true) {
+            int indice = (int) siguienteLectura & (CAPACIDAD - 1);
+            if (secuencias.get(indice) != siguienteLectura + 1) {
+                break;
+            }
+            Entrada entrada = entradas[indice];
+            entradas[indice] = null;
+            secuencias.lazySet(indice, siguienteLectura + CAPACIDAD);
+            siguienteLectura++;
+            escribir(entrada);
+            escrito = true;
+        }
+        long totalDescartados = descartados.sum();
+        if (totalDescartados != descartadosInformados) {
+            salida.println("Registro: " + (totalDescartados - descartadosInformados)
+                    + " mensajes descartados por búfer lleno.");
+            descartadosInformados = totalDescartados;
+            escrito = true;
+        }
+        if (escrito) {
+            salida.flush();
+        }
+    }
+
+    /**
+     * Bucle del hilo de fondo: escribe los mensajes pendientes y espera un
+     * momento cuando no hay ninguno.
+     */
+    private static void escribirContinuamente() {
+        while (true) {
+            try {
+                vaciar();
+            } catch (RuntimeException e) {
+                salida.println("Error al escribir el registro: " + e.getMessage());
+            }
+            LockSupport.parkNanos(ESPERA_NANOS);
+        }
+    }
+
+    private static void escribir(Entrada entrada) {
+        salida.println(FORMATO_HORA.format(Instant.ofEpochMilli(entrada.instante())) + " " + entrada.nivel()
+                + " [" + entrada.hilo() + "] " + entrada.mensaje());
+    }
+
+    private static Nivel leerNivel() {
+        String valor = System.getProperty(PROPIEDAD_NIVEL);
+        if (valor != null) {
+            try {
+                return Nivel.valueOf(valor.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Nivel de registro desconocido: " + valor + "; se usa INFO.");
+            }
+        }
+        return Nivel.INFO;
+    }
+}
@@ -0,0 +1,1083 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Almacén de contactos local, sin servidor: todos los contactos se guardan
+ * en memoria y cada escritura se agrega al final de un archivo.
+ *
+ * Los archivos (segmentos) son registros de solo agregado: cada inserción,
+ * actualización o eliminación agrega un registro con su longitud y su suma de
+ * verificación CRC-32C, sin modificar nunca lo ya escrito. Cada escritura
+ * (un contacto o un lote de la inserción masiva) se fuerza a disco antes de
+ * confirmarse, así que una caída del sistema no pierde las escrituras ya
+ * confirmadas. Al abrir el almacén se leen los segmentos en orden para
+ * reconstruir los contactos en memoria; si la aplicación terminó a mitad de
+ * una escritura, el registro incompleto del último segmento se descarta. Cuando el segmento activo
+ * supera {@value #TAMANO_MAXIMO_SEGMENTO} bytes se empieza otro.
+ *
+ * Como las versiones viejas de cada contacto se quedan en los segmentos, un
+ * hilo de fondo compacta el almacén cuando los registros escritos superan al
+ * doble de los vigentes: escribe un segmento nuevo con solo los contactos
+ * actuales, lo pone en lugar de los anteriores con un renombrado atómico y
+ * borra estos. Mientras compacta, las escrituras siguen en un segmento
+ * aparte, así que no esperan.
+ *
+ * Las consultas se responden desde memoria, en microsegundos. Los archivos
+ * solo los puede abrir un proceso a la vez.
+ */
+public class RepositorioArchivos implements RepositorioContactos {
+
+    // Tamaño a partir del cual se empieza un segmento nuevo
+    private static final long TAMANO_MAXIMO_SEGMENTO = 16L * 1024 * 1024;
+    // Registros escritos a partir de los cuales se considera compactar
+    private static final long REGISTROS_MINIMOS_COMPACTACION = 10_000;
+    // Caracteres máximos de cada texto de un contacto, para que quepa en un registro
+    private static final int LONGITUD_MAXIMA_TEXTO = 10_000;
+    // Contactos que se entregan por cada bloqueo de lectura al recorrer el almacén
+    private static final int CONTACTOS_POR_BLOQUE = 1_024;
+    // Grupos con los que se crea un almacén vacío, los mismos que en la base de datos
+    private static final String[] GRUPOS_INICIALES = {"Familia", "Amigos", "Escuela", "Otros"};
+
+    private static final String PREFIJO_SEGMENTO = "segmento-";
+    private static final String EXTENSION_SEGMENTO = ".log";
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+
+    // TIPOS DE REGISTRO
+    // Descarta todo lo anterior y fija el siguiente ID; inicia cada segmento compactado
+    private static final byte REGISTRO_INICIO = 'I';
+    private static final byte REGISTRO_GRUPO = 'G';
+    private static final byte REGISTRO_CONTACTO = 'C';
+    private static final byte REGISTRO_ELIMINACION = 'E';
+
+    private final Path directorio;
+    private final FileChannel canalBloqueo;
+    private final FileLock bloqueo;
+
+    // Protege los contactos, los grupos y el segmento activo
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    // Contactos vigentes por idContacto, ya con el nombre de su grupo
+    private final TreeMap<Integer, Contacto> contactos = new TreeMap<>();
+    private final TreeMap<Integer, String> grupos = new TreeMap<>();
+    private int siguienteId = 1;
+
+    // Segmento donde se agregan las escrituras
+    private FileChannel activo;
+    private long numeroActivo;
+    private long tamanoActivo;
+    // Registros escritos en cada segmento, para decidir cuándo compactar
+    private final TreeMap<Long, Long> registrosPorSegmento = new TreeMap<>();
+    private long registrosTotales;
+    private boolean compactando;
+    private boolean cerrado;
+
+    // Registros de una escritura, listos para agregarse al segmento activo
+    private final ByteArrayOutputStream pendiente = new ByteArrayOutputStream();
+    private final Codificador codificador = new Codificador();
+
+    private final ExecutorService compactacion = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "almacen-compactacion");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Componentes avisados de cada escritura
+    private final List<OyenteCambiosContactos> oyentes = new CopyOnWriteArrayList<>();
+    private final EstadisticasContactos estadisticas = new EstadisticasContactos(this);
+    private final IndiceNombres indiceNombres = new IndiceNombres();
+    private final IndiceTelefonos indiceTelefonos = new IndiceTelefonos();
+
+    /**
+     * Abre el almacén guardado en un directorio, o lo crea con los grupos
+     * predeterminados si el directorio no tiene segmentos.
+     *
+     * @param directorio El directorio del almacén; se crea si no existe.
+     *
+     * @throws IOException Si no se pudieron leer o crear los segmentos, o si
+     * otro proceso tiene abierto el almacén.
+     */
+    public RepositorioArchivos(Path directorio) throws IOException {
+        this.directorio = directorio;
+        Files.createDirectories(directorio);
+        this.canalBloqueo = FileChannel.open(directorio.resolve("bloqueo"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock tomado;
+        try {
+            tomado = canalBloqueo.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Esta misma aplicación ya lo tiene abierto
+            tomado = null;
+        }
+        this.bloqueo = tomado;
+        if (bloqueo == null) {
+            canalBloqueo.close();
+            throw new IOException("Otro proceso tiene abierto el almacén de contactos en " + directorio);
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            List<Long> numeros = listarSegmentos();
+            for (int i = 0; i < numeros.size(); i++) {
+                leerSegmento(numeros.get(i), i == numeros.size() - 1);
+            }
+            if (numeros.isEmpty()) {
+                crearAlmacenVacio();
+            } else {
+                numeroActivo = numeros.get(numeros.size() - 1);
+                activo = FileChannel.open(rutaSegmento(numeroActivo), StandardOpenOption.WRITE);
+                tamanoActivo = activo.size();
+                activo.position(tamanoActivo);
+            }
+        } catch (IOException | RuntimeException e) {
+            bloqueo.release();
+            canalBloqueo.close();
+            throw e;
+        }
+        Registro.info("Almacén de contactos abierto en " + directorio + " con " + contactos.size()
+                + " contactos en " + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+
+        agregarOyente(estadisticas);
+        agregarOyente(indiceNombres);
+        agregarOyente(indiceTelefonos);
+    }
+
+    @Override
+    public int insertarValores(String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo) {
+        Contacto nuevo;
+        candado.writeLock().lock();
+        try {
+            Contacto contacto = new Contacto(siguienteId, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo);
+            String problema = validar(contacto);
+            if (problema != null) {
+                Registro.error("Error al insertar registro: " + problema);
+                return -1;
+            }
+            nuevo = conGrupo(contacto);
+            codificador.contacto(nuevo, pendiente);
+            if (!escribirPendiente("Error al insertar registro: ")) {
+                return -1;
+            }
+            contactos.put(nuevo.idContacto(), nuevo);
+            siguienteId++;
+            programarCompactacion();
+        } finally {
+            candado.writeLock().unlock();
+        }
+        Registro.depurar("Se insertó correctamente el registro en la tabla personas.");
+        avisar(oyente -> oyente.contactoInsertado(nuevo));
+        return nuevo.idContacto();
+    }
+
+    @Override
+    public ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactosNuevos) {
+        return insertarContactos(contactosNuevos, MYSQL.TAMANO_LOTE_PREDETERMINADO);
+    }
+
+    /**
+     * Inserta muchos contactos a la vez. Los registros de cada lote se
+     * agregan al segmento con una sola escritura; si esta falla, ninguno de
+     * los contactos del lote queda insertado.
+     */
+    @Override
+    public ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactosNuevos, int tamanoLote) {
+        if (tamanoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        int[] idsGenerados = new int[contactosNuevos.size()];
+        List<ResultadoInsercionMasiva.Fallo> fallos = new ArrayList<>();
+        List<Contacto> lote = new ArrayList<>(Math.min(tamanoLote, contactosNuevos.size()));
+        int posicion = 0;
+        int inicioLote = 0;
+        for (Contacto contacto : contactosNuevos) {
+            lote.add(contacto);
+            posicion++;
+            if (lote.size() == tamanoLote || posicion == idsGenerados.length) {
+                insertarLote(lote, inicioLote, idsGenerados, fallos);
+                lote.clear();
+                inicioLote = posicion;
+            }
+        }
+        Registro.info("Inserción masiva: " + (idsGenerados.length - fallos.size()) + " registros insertados, "
+                + fallos.size() + " fallidos.");
+        return new ResultadoInsercionMasiva(idsGenerados, fallos);
+    }
+
+    @Override
+    public boolean actualizarContacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo) {
+        Contacto anterior;
+        Contacto nuevo;
+        candado.writeLock().lock();
+        try {
+            anterior = contactos.get(idContacto);
+            if (anterior == null) {
+                Registro.aviso("No se encontró ningún contacto con el id proporcionado.");
+                return false;
+            }
+            Contacto contacto = new Contacto(idContacto, nombre, apellidoPaterno, apellidoMaterno, telefono, idGrupo);
+            String problema = validar(contacto);
+            if (problema != null) {
+                Registro.error("Error al actualizar el registro: " + problema);
+                return false;
+            }
+            nuevo = conGrupo(contacto);
+            codificador.contacto(nuevo, pendiente);
+            if (!escribirPendiente("Error al actualizar el registro: ")) {
+                return false;
+            }
+            contactos.put(idContacto, nuevo);
+            programarCompactacion();
+        } finally {
+            candado.writeLock().unlock();
+        }
+        Registro.depurar("El registro fue actualizado correctamente.");
+        avisar(oyente -> oyente.contactoActualizado(anterior, nuevo));
+        return true;
+    }
+
+    @Override
+    public boolean eliminarContacto(int idContacto) {
+        Contacto anterior;
+        candado.writeLock().lock();
+        try {
+            anterior = contactos.get(idContacto);
+            if (anterior == null) {
+                Registro.aviso("No se encontró ningún contacto con el id proporcionado.");
+                return false;
+            }
+            codificador.eliminacion(idContacto, pendiente);
+            if (!escribirPendiente("Error al eliminar el contacto: ")) {
+                return false;
+            }
+            contactos.remove(idContacto);
+            programarCompactacion();
+        } finally {
+            candado.writeLock().unlock();
+        }
+        Registro.depurar("El contacto fue eliminado correctamente.");
+        avisar(oyente -> oyente.contactoEliminado(anterior));
+        return true;
+    }
+
+    @Override
+    public Contacto obtenerContactoPorId(int idContacto) {
+        candado.readLock().lock();
+        try {
+            return contactos.get(idContacto);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int obtenerContactos(Collection<? super Contacto> destino) {
+        return filtrar(contacto -> true, destino);
+    }
+
+    @Override
+    public int obtenerContactosPorIdGrupo(int idGrupo, Collection<? super Contacto> destino) {
+        return filtrar(contacto -> contacto.idGrupo() == idGrupo, destino);
+    }
+
+    @Override
+    public int obtenerContactosSimilaresPorNombre(String nombre, Collection<? super Contacto> destino) {
+        String buscado = nombre.toLowerCase(Locale.ROOT);
+        return filtrar(contacto -> contiene(contacto.nombre(), buscado), destino);
+    }
+
+    @Override
+    public int obtenerContactosSimilaresPorId(int idContacto, Collection<? super Contacto> destino) {
+        return obtenerContactosConGrupoPorId(idContacto, destino);
+    }
+
+    @Override
+    public int obtenerContactosConGrupo(Collection<? super Contacto> destino) {
+        return obtenerContactos(destino);
+    }
+
+    @Override
+    public int obtenerContactosConGrupoPorNombre(String nombre, Collection<? super Contacto> destino) {
+        return obtenerContactosSimilaresPorNombre(nombre, destino);
+    }
+
+    @Override
+    public int obtenerContactosConGrupoPorId(int idContacto, Collection<? super Contacto> destino) {
+        Contacto contacto = obtenerContactoPorId(idContacto);
+        if (contacto == null) {
+            return 0;
+        }
+        destino.add(contacto);
+        return 1;
+    }
+
+    @Override
+    public int obtenerContactosConGrupoPorIdGrupo(int idGrupo, Collection<? super Contacto> destino) {
+        return obtenerContactosPorIdGrupo(idGrupo, destino);
+    }
+
+    /**
+     * Busca por nombre y apellidos en el {@link IndiceNombres}; si todavía no
+     * está construido, recorre los contactos en memoria.
+     */
+    @Override
+    public List<Contacto> buscarContactosPorNombre(String texto, int limite) {
+        List<Contacto> encontrados = indiceNombres.buscar(texto, limite);
+        if (encontrados != null) {
+            return encontrados;
+        }
+        List<Contacto> coincidencias = new ArrayList<>();
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        candado.readLock().lock();
+        try {
+            for (Contacto contacto : contactos.values()) {
+                if (coincidencias.size() >= limite) {
+                    break;
+                }
+                if (contiene(contacto.nombre(), buscado) || contiene(contacto.apellidoPaterno(), buscado)
+                        || contiene(contacto.apellidoMaterno(), buscado)) {
+                    coincidencias.add(contacto);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return coincidencias;
+    }
+
+    /**
+     * Recorre los contactos por bloques de {@value #CONTACTOS_POR_BLOQUE}: la
+     * acción se llama fuera del bloqueo, así que un recorrido lento (por
+     * ejemplo una exportación) no detiene las escrituras. Los cambios hechos
+     * durante el recorrido se ven si afectan a contactos todavía no
+     * entregados.
+     */
+    @Override
+    public int recorrerContactosConGrupo(Consumer<? super Contacto> accion) {
+        List<Contacto> bloque = new ArrayList<>(CONTACTOS_POR_BLOQUE);
+        int ultimoId = 0;
+        int filas = 0;
+        do {
+            bloque.clear();
+            obtenerPaginaContactosConGrupo(ultimoId, CONTACTOS_POR_BLOQUE, bloque);
+            for (Contacto contacto : bloque) {
+                accion.accept(contacto);
+            }
+            filas += bloque.size();
+            if (!bloque.isEmpty()) {
+                ultimoId = bloque.get(bloque.size() - 1).idContacto();
+            }
+        } while (bloque.size() == CONTACTOS_POR_BLOQUE);
+        return filas;
+    }
+
+    @Override
+    public int obtenerPaginaContactosConGrupo(int despuesDeId, int limite, Collection<? super Contacto> destino) {
+        int filas = 0;
+        candado.readLock().lock();
+        try {
+            for (Contacto contacto : contactos.tailMap(despuesDeId, false).values()) {
+                if (filas >= limite) {
+                    break;
+                }
+                destino.add(contacto);
+                filas++;
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return filas;
+    }
+
+    @Override
+    public int obtenerIdContactoDespuesDe(int despuesDeId, int desplazamiento) {
+        int restantes = desplazamiento;
+        candado.readLock().lock();
+        try {
+            for (Integer idContacto : contactos.tailMap(despuesDeId, false).keySet()) {
+                if (restantes-- == 0) {
+                    return idContacto;
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return 0;
+    }
+
+    @Override
+    public String obtenerNombreGrupo(int idGrupo) {
+        candado.readLock().lock();
+        try {
+            return grupos.get(idGrupo);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contarElementosContactos() {
+        candado.readLock().lock();
+        try {
+            return contactos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contarElementosContactosPorGrupo(int idGrupo) {
+        return filtrar(contacto -> contacto.idGrupo() == idGrupo, null);
+    }
+
+    @Override
+    public Map<Integer, Integer> contarContactosAgrupados() {
+        Map<Integer, Integer> conteos = new HashMap<>();
+        candado.readLock().lock();
+        try {
+            for (Contacto contacto : contactos.values()) {
+                conteos.merge(contacto.idGrupo(), 1, Integer::sum);
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return conteos;
+    }
+
+    @Override
+    public void agregarOyente(OyenteCambiosContactos oyente) {
+        oyentes.add(oyente);
+    }
+
+    @Override
+    public void quitarOyente(OyenteCambiosContactos oyente) {
+        oyentes.remove(oyente);
+    }
+
+    @Override
+    public EstadisticasContactos obtenerEstadisticas() {
+        return estadisticas;
+    }
+
+    @Override
+    public IndiceNombres obtenerIndiceNombres() {
+        return indiceNombres;
+    }
+
+    @Override
+    public IndiceTelefonos obtenerIndiceTelefonos() {
+        return indiceTelefonos;
+    }
+
+    /**
+     * Espera a que termine una compactación en curso, escribe en disco el
+     * segmento activo y libera el directorio para otros procesos.
+     */
+    @Override
+    public void cerrar() {
+        estadisticas.detener();
+        compactacion.shutdown();
+        try {
+            compactacion.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        candado.writeLock().lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            activo.force(false);
+            activo.close();
+            bloqueo.release();
+            canalBloqueo.close();
+        } catch (IOException e) {
+            Registro.error("Error al cerrar el almacén de contactos: " + e.getMessage());
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserta un lote de contactos con una sola escritura. Se llama sin el
+     * bloqueo tomado.
+     */
+    private void insertarLote(List<Contacto> lote, int inicioLote, int[] idsGenerados, List<ResultadoInsercionMasiva.Fallo> fallos) {
+        List<Contacto> insertados = new ArrayList<>(lote.size());
+        candado.writeLock().lock();
+        try {
+            int id = siguienteId;
+            for (int i = 0; i < lote.size(); i++) {
+                Contacto original = lote.get(i);
+                Contacto contacto = new Contacto(id, original.nombre(), original.apellidoPaterno(),
+                        original.apellidoMaterno(), original.telefono(), original.idGrupo());
+                String problema = validar(contacto);
+                if (problema != null) {
+                    idsGenerados[inicioLote + i] = -1;
+                    fallos.add(new ResultadoInsercionMasiva.Fallo(inicioLote + i, original, problema));
+                    continue;
+                }
+                Contacto nuevo = conGrupo(contacto);
+                codificador.contacto(nuevo, pendiente);
+                insertados.add(nuevo);
+                idsGenerados[inicioLote + i] = id++;
+            }
+            if (insertados.isEmpty()) {
+                return;
+            }
+            if (!escribirPendiente("Error al insertar el lote: ")) {
+                for (int i = 0; i < lote.size(); i++) {
+                    if (idsGenerados[inicioLote + i] >= 0) {
+                        idsGenerados[inicioLote + i] = -1;
+                        fallos.add(new ResultadoInsercionMasiva.Fallo(inicioLote + i, lote.get(i),
+                                "No se pudo escribir en el almacén"));
+                    }
+                }
+                insertados.clear();
+                return;
+            }
+            for (Contacto nuevo : insertados) {
+                contactos.put(nuevo.idContacto(), nuevo);
+            }
+            siguienteId = id;
+            programarCompactacion();
+        } finally {
+            candado.writeLock().unlock();
+            for (Contacto nuevo : insertados) {
+                avisar(oyente -> oyente.contactoInsertado(nuevo));
+            }
+        }
+    }
+
+    /**
+     * Agrega los contactos de memoria que cumplen una condición al
+     * contenedor indicado, si no es nulo.
+     *
+     * @return El número de contactos que cumplen la condición.
+     */
+    private int filtrar(Predicate<Contacto> condicion, Collection<? super Contacto> destino) {
+        int filas = 0;
+        candado.readLock().lock();
+        try {
+            for (Contacto contacto : contactos.values()) {
+                if (condicion.test(contacto)) {
+                    if (destino != null) {
+                        destino.add(contacto);
+                    }
+                    filas++;
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return filas;
+    }
+
+    /**
+     * Indica si un texto contiene a otro ya en minúsculas, sin distinguir
+     * mayúsculas, como `LIKE` en MySQL.
+     */
+    private static boolean contiene(String texto, String buscadoEnMinusculas) {
+        return texto != null && texto.toLowerCase(Locale.ROOT).contains(buscadoEnMinusculas);
+    }
+
+    /**
+     * Comprueba las mismas restricciones que la tabla `contactos`: nombre y
+     * apellidos obligatorios y un grupo existente; además, que los textos no
+     * sean tan largos que no quepan en un registro. Se llama con el bloqueo
+     * tomado.
+     *
+     * @return La descripción del problema, o {@code null} si el contacto es
+     * válido.
+     */
+    private String validar(Contacto contacto) {
+        if (contacto.nombre() == null || contacto.apellidoPaterno() == null || contacto.apellidoMaterno() == null) {
+            return "el nombre y los apellidos son obligatorios";
+        }
+        if (demasiadoLargo(contacto.nombre()) || demasiadoLargo(contacto.apellidoPaterno())
+                || demasiadoLargo(contacto.apellidoMaterno()) || demasiadoLargo(contacto.telefono())) {
+            return "un texto supera los " + LONGITUD_MAXIMA_TEXTO + " caracteres";
+        }
+        if (!grupos.containsKey(contacto.idGrupo())) {
+            return "no existe el grupo " + contacto.idGrupo();
+        }
+        return null;
+    }
+
+    private static boolean demasiadoLargo(String texto) {
+        return texto != null && texto.length() > LONGITUD_MAXIMA_TEXTO;
+    }
+
+    /**
+     * Completa el nombre del grupo de un contacto. Se llama con el bloqueo
+     * tomado.
+     */
+    private Contacto conGrupo(Contacto contacto) {
+        return new Contacto(contacto.idContacto(), contacto.nombre(), contacto.apellidoPaterno(),
+                contacto.apellidoMaterno(), contacto.telefono(), contacto.idGrupo(), grupos.get(contacto.idGrupo()));
+    }
+
+    /**
+     * Agrega al segmento activo los registros codificados desde la última
+     * escritura, los fuerza a disco y empieza otro segmento si el activo se
+     * llenó. Si la escritura falla, el segmento se recorta a su tamaño anterior para no
+     * dejar un registro a medias antes de los siguientes. Se llama con el
+     * bloqueo de escritura tomado.
+     *
+     * @param mensajeError El inicio del mensaje que se registra si falla.
+     * @return {@code true} si los registros quedaron escritos.
+     */
+    private boolean escribirPendiente(String mensajeError) {
+        ByteBuffer registros = ByteBuffer.wrap(pendiente.toByteArray());
+        int cantidad = codificador.cantidad;
+        pendiente.reset();
+        codificador.cantidad = 0;
+        if (cerrado) {
+            Registro.error(mensajeError + "el almacén está cerrado.");
+            return false;
+        }
+        try {
+            while (registros.hasRemaining()) {
+                activo.write(registros);
+            }
+            // La escritura se da por hecha solo cuando está en disco, para que una caída del sistema no la pierda
+            activo.force(false);
+        } catch (IOException e) {
+            Registro.error(mensajeError + e.getMessage());
+            try {
+                activo.truncate(tamanoActivo);
+                activo.position(tamanoActivo);
+            } catch (IOException errorRecorte) {
+                Registro.error("Error al recortar el segmento " + numeroActivo + ": " + errorRecorte.getMessage());
+            }
+            return false;
+        }
+        tamanoActivo += registros.capacity();
+        registrosTotales += cantidad;
+        registrosPorSegmento.merge(numeroActivo, (long) cantidad, Long::sum);
+        if (tamanoActivo >= TAMANO_MAXIMO_SEGMENTO) {
+            try {
+                rotarSegmento();
+            } catch (IOException e) {
+                // Se sigue escribiendo en el segmento lleno; se volverá a intentar en la siguiente escritura
+                Registro.error("Error al crear un segmento nuevo: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cierra el segmento activo, ya escrito en disco, y empieza uno nuevo. Se
+     * llama con el bloqueo de escritura tomado.
+     */
+    private void rotarSegmento() throws IOException {
+        FileChannel nuevo = FileChannel.open(rutaSegmento(numeroActivo + 1), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        activo.force(false);
+        activo.close();
+        activo = nuevo;
+        numeroActivo++;
+        tamanoActivo = 0;
+        registrosPorSegmento.put(numeroActivo, 0L);
+    }
+
+    /**
+     * Programa una compactación si los registros escritos superan al doble
+     * de los vigentes. Se llama con el bloqueo de escritura tomado.
+     */
+    private void programarCompactacion() {
+        long vigentes = contactos.size() + grupos.size() + 1;
+        if (!compactando && !cerrado && registrosTotales >= REGISTROS_MINIMOS_COMPACTACION && registrosTotales > 2 * vigentes) {
+            compactando = true;
+            compactacion.execute(this::compactar);
+        }
+    }
+
+    /**
+     * Reemplaza todos los segmentos cerrados por uno con solo los contactos
+     * vigentes. Se ejecuta en el hilo de fondo.
+     *
+     * Con el bloqueo tomado solo se empieza un segmento nuevo para las
+     * escrituras que lleguen y se copian las referencias a los contactos; el
+     * segmento compacto se escribe después, sin bloquear. Se escribe en un
+     * archivo temporal que reemplaza con un renombrado atómico al último
+     * segmento cerrado, y luego se borran los anteriores. Como empieza con un
+     * registro de inicio, si la aplicación termina antes de borrarlos, al
+     * abrir se descarta lo leído de ellos.
+     */
+    private void compactar() {
+        long inicio = System.nanoTime();
+        long numeroCompacto;
+        List<Contacto> vigentes;
+        Map<Integer, String> gruposVigentes;
+        int siguiente;
+        long registrosAntes;
+        candado.writeLock().lock();
+        try {
+            if (cerrado) {
+                compactando = false;
+                return;
+            }
+            numeroCompacto = numeroActivo;
+            rotarSegmento();
+            vigentes = new ArrayList<>(contactos.values());
+            gruposVigentes = new TreeMap<>(grupos);
+            siguiente = siguienteId;
+            registrosAntes = registrosTotales;
+        } catch (IOException e) {
+            Registro.error("Error al compactar el almacén de contactos: " + e.getMessage());
+            compactando = false;
+            return;
+        } finally {
+            candado.writeLock().unlock();
+        }
+
+        Path temporal = directorio.resolve(PREFIJO_SEGMENTO + numeroCompacto + EXTENSION_TEMPORAL);
+        long registrosCompactos;
+        try {
+            registrosCompactos = escribirCompacto(temporal, vigentes, gruposVigentes, siguiente);
+            try {
+                Files.move(temporal, rutaSegmento(numeroCompacto), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, rutaSegmento(numeroCompacto), StandardCopyOption.REPLACE_EXISTING);
+            }
+            for (long numero : listarSegmentos()) {
+                if (numero < numeroCompacto) {
+                    Files.deleteIfExists(rutaSegmento(numero));
+                }
+            }
+        } catch (IOException e) {
+            Registro.error("Error al compactar el almacén de contactos: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException errorBorrado) {
+                Registro.error("Error al borrar " + temporal + ": " + errorBorrado.getMessage());
+            }
+            candado.writeLock().lock();
+            try {
+                compactando = false;
+            } finally {
+                candado.writeLock().unlock();
+            }
+            return;
+        }
+
+        candado.writeLock().lock();
+        try {
+            registrosPorSegmento.headMap(numeroCompacto, false).clear();
+            registrosPorSegmento.put(numeroCompacto, registrosCompactos);
+            registrosTotales = 0;
+            for (long cantidad : registrosPorSegmento.values()) {
+                registrosTotales += cantidad;
+            }
+            compactando = false;
+        } finally {
+            candado.writeLock().unlock();
+        }
+        Registro.info("Almacén de contactos compactado de " + registrosAntes + " a " + registrosCompactos
+                + " registros en " + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Escribe un segmento con un registro de inicio, los grupos y los
+     * contactos indicados, y lo fuerza a disco.
+     *
+     * @return El número de registros escritos.
+     */
+    private static long escribirCompacto(Path archivo, List<Contacto> vigentes, Map<Integer, String> gruposVigentes,
+            int siguiente) throws IOException {
+        Codificador local = new Codificador();
+        ByteArrayOutputStream bufer = new ByteArrayOutputStream(64 * 1024);
+        long registros = 0;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            local.inicio(siguiente, bufer);
+            registros++;
+            for (Map.Entry<Integer, String> grupo : gruposVigentes.entrySet()) {
+                local.grupo(grupo.getKey(), grupo.getValue(), bufer);
+                registros++;
+            }
+            for (Contacto contacto : vigentes) {
+                local.contacto(contacto, bufer);
+                registros++;
+                if (bufer.size() >= 64 * 1024) {
+                    escribirTodo(canal, bufer);
+                }
+            }
+            escribirTodo(canal, bufer);
+            canal.force(true);
+        }
+        return registros;
+    }
+
+    private static void escribirTodo(FileChannel canal, ByteArrayOutputStream bufer) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(bufer.toByteArray());
+        while (datos.hasRemaining()) {
+            canal.write(datos);
+        }
+        bufer.reset();
+    }
+
+    /**
+     * Crea el primer segmento con un registro de inicio y los grupos
+     * predeterminados.
+     */
+    private void crearAlmacenVacio() throws IOException {
+        numeroActivo = 1;
+        activo = FileChannel.open(rutaSegmento(numeroActivo), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        registrosPorSegmento.put(numeroActivo, 0L);
+        codificador.inicio(siguienteId, pendiente);
+        for (int i = 0; i < GRUPOS_INICIALES.length; i++) {
+            grupos.put(i + 1, GRUPOS_INICIALES[i]);
+            codificador.grupo(i + 1, GRUPOS_INICIALES[i], pendiente);
+        }
+        if (!escribirPendiente("Error al crear el almacén de contactos: ")) {
+            throw new IOException("No se pudo escribir el primer segmento en " + directorio);
+        }
+        activo.force(true);
+    }
+
+    /**
+     * Lee los registros de un segmento y los aplica a los contactos en
+     * memoria. Si encuentra un registro incompleto o dañado deja de leer el
+     * segmento; si es el último, lo recorta ahí, porque es una escritura que
+     * la aplicación no alcanzó a terminar.
+     */
+    private void leerSegmento(long numero, boolean ultimo) throws IOException {
+        Path ruta = rutaSegmento(numero);
+        long posicion = 0;
+        long registros = 0;
+        boolean danado = false;
+        byte[] cabecera = new byte[8];
+        CRC32C crc = new CRC32C();
+        try (InputStream entrada = new BufferedInputStream(Files.newInputStream(ruta), 64 * 1024)) {
+            while (true) {
+                int leidos = entrada.readNBytes(cabecera, 0, cabecera.length);
+                if (leidos == 0) {
+                    break;
+                }
+                ByteBuffer campos = ByteBuffer.wrap(cabecera);
+                int longitud = campos.getInt();
+                int suma = campos.getInt();
+                if (leidos < cabecera.length || longitud <= 0 || longitud > TAMANO_MAXIMO_SEGMENTO) {
+                    danado = true;
+                    break;
+                }
+                byte[] datos = entrada.readNBytes(longitud);
+                crc.reset();
+                crc.update(datos);
+                if (datos.length < longitud || (int) crc.getValue() != suma) {
+                    danado = true;
+                    break;
+                }
+                aplicar(datos);
+                posicion += cabecera.length + longitud;
+                registros++;
+            }
+        }
+        if (danado) {
+            if (ultimo) {
+                Registro.aviso("Se descartó un registro incompleto al final del segmento " + numero + ".");
+                try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.WRITE)) {
+                    canal.truncate(posicion);
+                }
+            } else {
+                Registro.error("El segmento " + numero + " está dañado a partir del byte " + posicion
+                        + "; se ignora el resto.");
+            }
+        }
+        registrosPorSegmento.put(numero, registros);
+        registrosTotales += registros;
+    }
+
+    /**
+     * Aplica un registro leído de un segmento a los contactos en memoria.
+     */
+    private void aplicar(byte[] datos) throws IOException {
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos));
+        byte tipo = entrada.readByte();
+        switch (tipo) {
+            case REGISTRO_INICIO -> {
+                contactos.clear();
+                grupos.clear();
+                siguienteId = entrada.readInt();
+            }
+            case REGISTRO_GRUPO -> grupos.put(entrada.readInt(), entrada.readUTF());
+            case REGISTRO_CONTACTO -> {
+                int idContacto = entrada.readInt();
+                int idGrupo = entrada.readInt();
+                Contacto contacto = new Contacto(idContacto, leerTexto(entrada), leerTexto(entrada),
+                        leerTexto(entrada), leerTexto(entrada), idGrupo, grupos.get(idGrupo));
+                contactos.put(idContacto, contacto);
+                siguienteId = Math.max(siguienteId, idContacto + 1);
+            }
+            case REGISTRO_ELIMINACION -> contactos.remove(entrada.readInt());
+            default -> throw new IOException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    private static String leerTexto(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    /**
+     * Obtiene los números de los segmentos del directorio, en orden. Borra
+     * los archivos temporales de una compactación interrumpida.
+     */
+    private List<Long> listarSegmentos() throws IOException {
+        List<Long> numeros = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO_SEGMENTO + "*")) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(EXTENSION_TEMPORAL)) {
+                    if (!compactando) {
+                        Files.deleteIfExists(archivo);
+                    }
+                } else if (nombre.endsWith(EXTENSION_SEGMENTO)) {
+                    try {
+                        numeros.add(Long.parseLong(nombre.substring(PREFIJO_SEGMENTO.length(),
+                                nombre.length() - EXTENSION_SEGMENTO.length())));
+                    } catch (NumberFormatException e) {
+                        Registro.aviso("Se ignora el archivo " + archivo + ".");
+                    }
+                }
+            }
+        }
+        numeros.sort(null);
+        return numeros;
+    }
+
+    private Path rutaSegmento(long numero) {
+        return directorio.resolve(String.format("%s%08d%s", PREFIJO_SEGMENTO, numero, EXTENSION_SEGMENTO));
+    }
+
+    /**
+     * Avisa un cambio a todos los oyentes. Un error en un oyente no impide
+     * avisar a los demás ni afecta a la escritura, que ya se guardó.
+     */
+    private void avisar(Consumer<OyenteCambiosContactos> aviso) {
+        for (OyenteCambiosContactos oyente : oyentes) {
+            try {
+                aviso.accept(oyente);
+            } catch (RuntimeException e) {
+                Registro.error("Error al avisar un cambio de contactos: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Codifica registros con su longitud y su CRC-32C. Cuenta los registros
+     * codificados desde la última vez que se puso a cero.
+     *
+     * Escribe en memoria, así que solo puede fallar con un texto de más de
+     * 65535 bytes, que la validación de los contactos ya descartó.
+     */
+    private static final class Codificador {
+
+        private final ByteArrayOutputStream registro = new ByteArrayOutputStream(256);
+        private final DataOutputStream datos = new DataOutputStream(registro);
+        private final CRC32C crc = new CRC32C();
+        private int cantidad;
+
+        void inicio(int siguienteId, ByteArrayOutputStream destino) {
+            registro.reset();
+            try {
+                datos.writeByte(REGISTRO_INICIO);
+                datos.writeInt(siguienteId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            cerrar(destino);
+        }
+
+        void grupo(int idGrupo, String nombre, ByteArrayOutputStream destino) {
+            registro.reset();
+            try {
+                datos.writeByte(REGISTRO_GRUPO);
+                datos.writeInt(idGrupo);
+                datos.writeUTF(nombre);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            cerrar(destino);
+        }
+
+        void contacto(Contacto contacto, ByteArrayOutputStream destino) {
+            registro.reset();
+            try {
+                datos.writeByte(REGISTRO_CONTACTO);
+                datos.writeInt(contacto.idContacto());
+                datos.writeInt(contacto.idGrupo());
+                escribirTexto(contacto.nombre());
+                escribirTexto(contacto.apellidoPaterno());
+                escribirTexto(contacto.apellidoMaterno());
+                escribirTexto(contacto.telefono());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            cerrar(destino);
+        }
+
+        void eliminacion(int idContacto, ByteArrayOutputStream destino) {
+            registro.reset();
+            try {
+                datos.writeByte(REGISTRO_ELIMINACION);
+                datos.writeInt(idContacto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            cerrar(destino);
+        }
+
+        private void escribirTexto(String texto) throws IOException {
+            datos.writeBoolean(texto != null);
+            if (texto != null) {
+                datos.writeUTF(texto);
+            }
+        }
+
+        /**
+         * Agrega al destino la longitud, el CRC y el contenido del registro.
+         */
+        private void cerrar(ByteArrayOutputStream destino) {
+            byte[] contenido = registro.toByteArray();
+            crc.reset();
+            crc.update(contenido);
+            ByteBuffer cabecera = ByteBuffer.allocate(8).putInt(contenido.length).putInt((int) crc.getValue());
+            destino.write(cabecera.array(), 0, cabecera.capacity());
+            destino.write(contenido, 0, contenido.length);
+            cantidad++;
+        }
+    }
+}
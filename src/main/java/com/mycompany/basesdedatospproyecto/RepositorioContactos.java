@@ -0,0 +1,426 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones sobre los contactos y los grupos, independientes de dónde se
+ * guardan.
+ *
+ * Hay dos implementaciones: {@link MYSQL}, que trabaja contra el servidor
+ * MySQL, y {@link RepositorioArchivos}, que guarda los contactos en archivos
+ * locales y los responde desde memoria, sin servidor. La que usa la
+ * aplicación se elige al iniciar con {@link #abrir()}.
+ *
+ * Los métodos de consulta no lanzan excepciones: si ocurre un error lo
+ * informan en el {@link Registro} y devuelven un valor vacío, igual que
+ * {@link MYSQL}.
+ */
+public interface RepositorioContactos {
+
+    // Propiedades del sistema con las que se elige el repositorio al iniciar
+    String PROPIEDAD_REPOSITORIO = "contactos.repositorio";
+    String PROPIEDAD_DIRECTORIO = "contactos.repositorio.directorio";
+
+    /**
+     * Abre el repositorio elegido con la propiedad del sistema
+     * `contactos.repositorio`: `mysql` (el predeterminado) para el servidor
+     * MySQL, o `archivos` para el almacén local, que se guarda en el
+     * directorio indicado por `contactos.repositorio.directorio` (por defecto
+     * `.contactos` en la carpeta del usuario).
+     *
+     * @return El repositorio abierto.
+     *
+     * @throws IllegalArgumentException Si el repositorio indicado no existe.
+     * @throws UncheckedIOException Si no se pudo abrir el almacén local.
+     */
+    static RepositorioContactos abrir() {
+        String tipo = System.getProperty(PROPIEDAD_REPOSITORIO, "mysql").trim().toLowerCase();
+        return switch (tipo) {
+            case "mysql" -> new MYSQL();
+            case "archivos" -> {
+                Path directorio = Path.of(System.getProperty(PROPIEDAD_DIRECTORIO,
+                        Path.of(System.getProperty("user.home"), ".contactos").toString()));
+                try {
+                    yield new RepositorioArchivos(directorio);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo abrir el almacén de contactos en " + directorio, e);
+                }
+            }
+            default -> throw new IllegalArgumentException("Repositorio de contactos desconocido: " + tipo);
+        };
+    }
+
+    /**
+     * Inserta un contacto.
+     *
+     * @param nombre El nombre del contacto.
+     * @param apellidoPaterno El apellido paterno del contacto.
+     * @param apellidoMaterno El apellido materno del contacto.
+     * @param telefono El número de teléfono del contacto.
+     * @param idGrupo El ID del grupo al que pertenece el contacto.
+     * @return El `idContacto` generado, o -1 si no se pudo insertar.
+     *
+     * @throws SQLException Si ocurre un error en la base de datos que no se
+     * pudo manejar.
+     */
+    int insertarValores(String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo) throws SQLException;
+
+    /**
+     * Inserta muchos contactos a la vez, con el tamaño de lote
+     * predeterminado.
+     *
+     * @param contactos Los contactos a insertar; se ignora su `idContacto`.
+     * @return Los IDs generados y los contactos que no se pudieron insertar.
+     */
+    ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactos);
+
+    /**
+     * Inserta muchos contactos a la vez, en lotes del tamaño indicado.
+     *
+     * @param contactos Los contactos a insertar; se ignora su `idContacto`.
+     * @param tamanoLote El número de contactos por lote.
+     * @return Los IDs generados, en el mismo orden de `contactos`, y los
+     * contactos que no se pudieron insertar con el motivo.
+     */
+    ResultadoInsercionMasiva insertarContactos(Collection<Contacto> contactos, int tamanoLote);
+
+    /**
+     * Actualiza todos los datos de un contacto.
+     *
+     * @param idContacto El ID del contacto a actualizar.
+     * @param nombre El nuevo nombre.
+     * @param apellidoPaterno El nuevo apellido paterno.
+     * @param apellidoMaterno El nuevo apellido materno.
+     * @param telefono El nuevo número de teléfono.
+     * @param idGrupo El nuevo ID de grupo.
+     * @return {@code true} si el contacto se actualizó.
+     */
+    boolean actualizarContacto(int idContacto, String nombre, String apellidoPaterno, String apellidoMaterno, String telefono, int idGrupo);
+
+    /**
+     * Elimina un contacto.
+     *
+     * @param idContacto El ID del contacto a eliminar.
+     * @return {@code true} si se eliminó el contacto.
+     */
+    boolean eliminarContacto(int idContacto);
+
+    /**
+     * Obtiene un contacto por su ID.
+     *
+     * @param idContacto El ID del contacto.
+     * @return El contacto, o {@code null} si no existe.
+     */
+    Contacto obtenerContactoPorId(int idContacto);
+
+    /**
+     * Agrega todos los contactos al contenedor indicado.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactos(Collection<? super Contacto> destino);
+
+    /**
+     * Agrega los contactos de un grupo al contenedor indicado.
+     *
+     * @param idGrupo El ID del grupo.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactosPorIdGrupo(int idGrupo, Collection<? super Contacto> destino);
+
+    /**
+     * Agrega los contactos cuyo nombre contiene el texto indicado.
+     *
+     * @param nombre El nombre (o parte de él).
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactosSimilaresPorNombre(String nombre, Collection<? super Contacto> destino);
+
+    /**
+     * Agrega el contacto con el ID indicado, si existe.
+     *
+     * @param idContacto El ID del contacto.
+     * @param destino El contenedor donde se agrega el contacto.
+     * @return El número de contactos agregados (0 o 1).
+     */
+    int obtenerContactosSimilaresPorId(int idContacto, Collection<? super Contacto> destino);
+
+    /**
+     * Agrega todos los contactos, con el nombre de su grupo.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactosConGrupo(Collection<? super Contacto> destino);
+
+    /**
+     * Agrega, con el nombre de su grupo, los contactos cuyo nombre contiene
+     * el texto indicado.
+     *
+     * @param nombre El nombre (o parte de él).
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactosConGrupoPorNombre(String nombre, Collection<? super Contacto> destino);
+
+    /**
+     * Agrega, con el nombre de su grupo, el contacto con el ID indicado.
+     *
+     * @param idContacto El ID del contacto.
+     * @param destino El contenedor donde se agrega el contacto.
+     * @return El número de contactos agregados (0 o 1), o -1 si ocurre un
+     * error.
+     */
+    int obtenerContactosConGrupoPorId(int idContacto, Collection<? super Contacto> destino);
+
+    /**
+     * Agrega, con el nombre de su grupo, los contactos de un grupo.
+     *
+     * @param idGrupo El ID del grupo.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados, o -1 si ocurre un error.
+     */
+    int obtenerContactosConGrupoPorIdGrupo(int idGrupo, Collection<? super Contacto> destino);
+
+    /**
+     * Busca, con el nombre de su grupo, los contactos cuyo nombre o apellidos
+     * contienen el texto indicado, ordenados por relevancia.
+     *
+     * @param texto El texto (o parte de él) a buscar.
+     * @param limite El número máximo de contactos a devolver.
+     * @return Los contactos encontrados.
+     */
+    List<Contacto> buscarContactosPorNombre(String texto, int limite);
+
+    /**
+     * Recorre todos los contactos, con el nombre de su grupo, sin guardarlos
+     * en una lista. A diferencia de las consultas, los errores no se ocultan,
+     * para que quien recorre sepa si leyó todos los contactos.
+     *
+     * @param accion Recibe cada contacto.
+     * @return El número de contactos recorridos.
+     *
+     * @throws SQLException Si ocurre un error al leer los contactos.
+     */
+    int recorrerContactosConGrupo(Consumer<? super Contacto> accion) throws SQLException;
+
+    /**
+     * Agrega una página de contactos, con el nombre de su grupo, ordenados
+     * por `idContacto`.
+     *
+     * @param despuesDeId El `idContacto` del último contacto de la página
+     * anterior; 0 para la primera página.
+     * @param limite El número máximo de contactos de la página.
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return El número de contactos agregados; si es menor que `limite`, es
+     * la última página. Devuelve -1 si ocurre un error, para no confundirlo
+     * con una página vacía.
+     */
+    int obtenerPaginaContactosConGrupo(int despuesDeId, int limite, Collection<? super Contacto> destino);
+
+    /**
+     * Obtiene el `idContacto` que ocupa una posición dada a partir de otro
+     * ID, en orden ascendente. Las implementaciones recorren los IDs
+     * intermedios, así que el costo crece con `desplazamiento`.
+     *
+     * @param despuesDeId El ID a partir del cual se cuenta (exclusivo).
+     * @param desplazamiento La posición buscada, empezando en 0.
+     * @return El ID en esa posición, 0 si no existe (los IDs son positivos) o
+     * -1 si ocurre un error.
+     */
+    int obtenerIdContactoDespuesDe(int despuesDeId, int desplazamiento);
+
+    /**
+     * Obtiene el nombre de un grupo.
+     *
+     * @param idGrupo El ID del grupo.
+     * @return El nombre del grupo, o {@code null} si no existe.
+     */
+    String obtenerNombreGrupo(int idGrupo);
+
+    /**
+     * Cuenta todos los contactos.
+     *
+     * @return El número de contactos, o 0 si ocurre un error.
+     */
+    int contarElementosContactos();
+
+    /**
+     * Cuenta los contactos de un grupo.
+     *
+     * @param idGrupo El ID del grupo.
+     * @return El número de contactos del grupo, o 0 si ocurre un error.
+     */
+    int contarElementosContactosPorGrupo(int idGrupo);
+
+    /**
+     * Cuenta los contactos de todos los grupos a la vez. Los contactos sin
+     * grupo se cuentan con la clave 0.
+     *
+     * @return Un mapa del ID de cada grupo a su número de contactos, o
+     * {@code null} si ocurre un error.
+     */
+    Map<Integer, Integer> contarContactosAgrupados();
+
+    /**
+     * Registra un componente para que reciba cada inserción, actualización y
+     * eliminación hecha a través de este repositorio.
+     *
+     * @param oyente El componente a registrar.
+     */
+    void agregarOyente(OyenteCambiosContactos oyente);
+
+    /**
+     * Deja de avisar los cambios a un componente.
+     *
+     * @param oyente El componente registrado.
+     */
+    void quitarOyente(OyenteCambiosContactos oyente);
+
+    /**
+     * Obtiene los conteos de contactos en memoria, total y por grupo, que se
+     * actualizan con cada escritura hecha a través de este repositorio.
+     *
+     * @return Las estadísticas de contactos.
+     */
+    EstadisticasContactos obtenerEstadisticas();
+
+    /**
+     * Obtiene el índice en memoria usado por
+     * {@link #buscarContactosPorNombre(String, int)}. Se construye con
+     * {@link IndiceNombres#construir(RepositorioContactos)}.
+     *
+     * @return El índice de nombres.
+     */
+    IndiceNombres obtenerIndiceNombres();
+
+    /**
+     * Obtiene el índice en memoria para buscar contactos por número de
+     * teléfono, exacto o por terminación, sin consultar la base de datos. Se
+     * construye con {@link IndiceTelefonos#construir(RepositorioContactos)}.
+     *
+     * @return El índice de teléfonos.
+     */
+    IndiceTelefonos obtenerIndiceTelefonos();
+
+    /**
+     * Prepara por adelantado lo que necesitan las primeras consultas, por
+     * ejemplo abrir conexiones, para que no esperen al usarse. Por omisión no
+     * hace nada.
+     */
+    default void precalentar() {
+    }
+
+    /**
+     * Libera los recursos del repositorio (conexiones, archivos e hilos de
+     * fondo). Debe llamarse cuando la aplicación ya no vaya a usarlo.
+     */
+    void cerrar();
+
+    /**
+     * Obtiene todos los contactos.
+     *
+     * @return Una lista con todos los contactos.
+     */
+    default List<Contacto> obtenerContactos() {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactos(contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene los contactos de un grupo.
+     *
+     * @param idGrupo El ID del grupo.
+     * @return Una lista con los contactos del grupo.
+     */
+    default List<Contacto> obtenerContactosPorIdGrupo(int idGrupo) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosPorIdGrupo(idGrupo, contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene los contactos cuyo nombre contiene el texto indicado.
+     *
+     * @param nombre El nombre (o parte de él).
+     * @return Una lista con los contactos encontrados.
+     */
+    default List<Contacto> obtenerContactosSimilaresPorNombre(String nombre) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosSimilaresPorNombre(nombre, contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene el contacto con el ID indicado, en una lista.
+     *
+     * @param idContacto El ID del contacto.
+     * @return Una lista con el contacto, o vacía si no existe.
+     */
+    default List<Contacto> obtenerContactosSimilaresPorId(int idContacto) {
+        List<Contacto> contactos = new ArrayList<>(1);
+        obtenerContactosSimilaresPorId(idContacto, contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene todos los contactos, con el nombre de su grupo.
+     *
+     * @return Una lista con todos los contactos.
+     */
+    default List<Contacto> obtenerContactosConGrupo() {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupo(contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene, con el nombre de su grupo, los contactos cuyo nombre contiene
+     * el texto indicado.
+     *
+     * @param nombre El nombre (o parte de él).
+     * @return Una lista con los contactos encontrados.
+     */
+    default List<Contacto> obtenerContactosConGrupoPorNombre(String nombre) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupoPorNombre(nombre, contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene, con el nombre de su grupo, el contacto con el ID indicado, en
+     * una lista.
+     *
+     * @param idContacto El ID del contacto.
+     * @return Una lista con el contacto, o vacía si no existe.
+     */
+    default List<Contacto> obtenerContactosConGrupoPorId(int idContacto) {
+        List<Contacto> contactos = new ArrayList<>(1);
+        obtenerContactosConGrupoPorId(idContacto, contactos);
+        return contactos;
+    }
+
+    /**
+     * Obtiene, con el nombre de su grupo, los contactos de un grupo.
+     *
+     * @param idGrupo El ID del grupo.
+     * @return Una lista con los contactos del grupo.
+     */
+    default List<Contacto> obtenerContactosConGrupoPorIdGrupo(int idGrupo) {
+        List<Contacto> contactos = new ArrayList<>();
+        obtenerContactosConGrupoPorIdGrupo(idGrupo, contactos);
+        return contactos;
+    }
+}
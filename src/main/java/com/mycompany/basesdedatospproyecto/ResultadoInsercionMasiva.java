@@ -0,0 +1,33 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.List;
+
+/**
+ * Resultado de una inserción masiva de contactos hecha con
+ * {@link MYSQL#insertarContactos(java.util.Collection, int)}.
+ *
+ * @param idsGenerados El `idContacto` generado para cada contacto, en el mismo
+ * orden en que se recibieron; -1 para los contactos que no se insertaron.
+ * @param fallos Los contactos que no se pudieron insertar y el motivo.
+ */
+public record ResultadoInsercionMasiva(int[] idsGenerados, List<Fallo> fallos) {
+
+    /**
+     * Un contacto que no se pudo insertar.
+     *
+     * @param posicion La posición del contacto en la colección recibida.
+     * @param contacto El contacto que no se insertó.
+     * @param mensaje El mensaje de error de la base de datos.
+     */
+    public record Fallo(int posicion, Contacto contacto, String mensaje) {
+    }
+
+    /**
+     * Obtiene el número de contactos insertados correctamente.
+     *
+     * @return El número de contactos insertados.
+     */
+    public int insertados() {
+        return idsGenerados.length - fallos.size();
+    }
+}
@@ -0,0 +1,320 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene al día la aplicación con los cambios que otros clientes hacen en
+ * la tabla `contactos`.
+ *
+ * Un hilo de fondo consulta periódicamente los cambios registrados en
+ * `cambios_contactos` después de la última versión leída
+ * ({@link MYSQL#obtenerCambiosDesde(long, int, java.util.Collection)}), de
+ * modo que cada consulta cuesta en proporción al número de cambios y no al
+ * tamaño de la tabla. Los cambios se leen y se entregan en lotes de
+ * {@value #CAMBIOS_POR_CONSULTA}, para que ponerse al día tras una pausa
+ * larga o desde una instantánea antigua no los cargue todos a la vez. Los cambios hechos por esta misma aplicación se ignoran,
+ * porque ya se aplicaron al escribirlos. El resto se resume en un cambio por
+ * contacto, se avisa a los oyentes de {@link MYSQL} (estadísticas, índice de
+ * nombres y caché) y se entrega al consumidor indicado, por ejemplo para
+ * actualizar la tabla de la interfaz.
+ *
+ * Las versiones se asignan al escribir, pero se vuelven visibles al confirmar
+ * la transacción, así que una versión menor puede aparecer después que una
+ * mayor. Las versiones que faltan se recuerdan como huecos y se vuelven a
+ * buscar en las consultas siguientes; si un hueco no se llena en
+ * {@value #TIEMPO_MAXIMO_HUECO_MS} ms se descarta, porque corresponde a una
+ * transacción revertida.
+ *
+ * Las {@link EstadisticasContactos} reciben cada cambio ajeno por separado,
+ * sin resumir, con los grupos anterior y nuevo que registró la base de datos.
+ * Su reconciliación periódica también se hace en el hilo de fondo: los
+ * conteos se leen en el servidor principal junto con los cambios que ya
+ * incluyen ({@link MYSQL#leerConteosConCambios(long, Map, java.util.Collection)}),
+ * y esos cambios no se vuelven a sumar al recibirlos.
+ */
+public class SincronizadorCambios {
+
+    private static final long TIEMPO_MAXIMO_HUECO_MS = 60_000;
+    // Cambios leídos y entregados juntos como máximo
+    private static final int CAMBIOS_POR_CONSULTA = 1_000;
+    // Más huecos que estos indican un salto de versiones (por ejemplo tras purgar la tabla), no transacciones en curso
+    private static final int MAXIMO_HUECOS = 10_000;
+
+    private final MYSQL db;
+    private final EstadisticasContactos estadisticas;
+    private final long intervaloMs;
+    private final Consumer<List<CambioContacto>> alRecibir;
+    private ScheduledExecutorService consultas;
+
+    // Estado de la lectura; solo se usa desde el hilo de fondo, o antes de iniciarlo
+    private long ultimaVersion;
+    // Versiones que faltan, con el instante (System.nanoTime) en que se detectaron
+    private final TreeMap<Long, Long> huecos = new TreeMap<>();
+    // Versión hasta la que todo está aplicado, sin contar los huecos; se lee desde otro hilo al guardar instantáneas
+    private volatile long versionAplicada = -1;
+    // Versiones ajenas todavía no recibidas que ya están incluidas en los últimos conteos leídos
+    private final Set<Long> yaContadas = new HashSet<>();
+    // Se toma para avisar un lote a los oyentes y publicar su versión como un solo paso
+    private final Object candadoAplicacion = new Object();
+
+    /**
+     * Crea el sincronizador. No consulta nada hasta llamar a
+     * {@link #iniciar()}.
+     *
+     * @param db La base de datos de la que se leen los cambios.
+     * @param intervaloMs Tiempo entre consultas, en milisegundos.
+     * @param alRecibir Recibe, en el hilo de fondo, cada lote de cambios ajenos
+     * ya resumidos, uno por contacto y en orden de versión.
+     */
+    public SincronizadorCambios(MYSQL db, long intervaloMs, Consumer<List<CambioContacto>> alRecibir) {
+        this.db = db;
+        this.estadisticas = db.obtenerEstadisticas();
+        this.intervaloMs = intervaloMs;
+        this.alRecibir = alRecibir;
+    }
+
+    /**
+     * Lee la versión actual de los cambios y los conteos de
+     * {@link EstadisticasContactos}, y empieza a consultar los cambios
+     * posteriores y a reconciliar los conteos en segundo plano. Llamarlo más
+     * de una vez no tiene efecto.
+     *
+     * @return {@code false} si no se pudo leer la versión, por ejemplo porque
+     * la base de datos no tiene la tabla `cambios_contactos`.
+     */
+    public synchronized boolean iniciar() {
+        if (consultas != null) {
+            return true;
+        }
+        long version = db.obtenerVersionCambios();
+        if (version < 0) {
+            return false;
+        }
+        ultimaVersion = version;
+        versionAplicada = version;
+        reconciliarConteos();
+        programar();
+        return true;
+    }
+
+    /**
+     * Aplica, en el hilo que llama, los cambios posteriores a una versión ya
+     * conocida (por ejemplo la de una {@link InstantaneaContactos}) y después
+     * sigue consultando los cambios en segundo plano. Los conteos de
+     * {@link EstadisticasContactos} se leen después de aplicar los cambios.
+     * Llamarlo más de una vez no tiene efecto.
+     *
+     * @param desdeVersion La versión hasta la que ya se conocen los cambios.
+     * @return {@code false} si no se pudieron leer los cambios; en ese caso
+     * no se programan las consultas.
+     */
+    public synchronized boolean iniciar(long desdeVersion) {
+        if (consultas != null) {
+            return true;
+        }
+        ultimaVersion = desdeVersion;
+        huecos.clear();
+        if (!sincronizar()) {
+            return false;
+        }
+        reconciliarConteos();
+        programar();
+        return true;
+    }
+
+    /**
+     * Copia los contactos del índice de nombres junto con la versión hasta la
+     * que incluyen todos los cambios ajenos. Ningún lote se aplica al índice
+     * durante la copia, así que la versión corresponde exactamente a lo
+     * copiado; los cambios posteriores a un hueco que ya estén en el índice se
+     * vuelven a aplicar al reproducir desde esa versión, sin efecto.
+     *
+     * @param destino El contenedor donde se agregan los contactos.
+     * @return La versión de la copia, o -1 si el sincronizador no se ha
+     * iniciado o el índice todavía no está construido.
+     */
+    public long copiarContactos(Collection<? super Contacto> destino) {
+        synchronized (candadoAplicacion) {
+            long version = versionAplicada;
+            if (version < 0 || db.obtenerIndiceNombres().copiarContactos(destino) < 0) {
+                return -1;
+            }
+            return version;
+        }
+    }
+
+    /**
+     * Programa las consultas periódicas y la reconciliación de los conteos en
+     * el hilo de fondo.
+     */
+    private void programar() {
+        // Las estadísticas ya no se reconcilian por su cuenta
+        estadisticas.detener();
+        consultas = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "sincronizador-cambios");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        consultas.scheduleWithFixedDelay(() -> {
+            try {
+                sincronizar();
+            } catch (RuntimeException e) {
+                // Una excepción cancelaría las consultas siguientes
+                Registro.error("Error al aplicar los cambios de contactos: " + e.getMessage());
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+        consultas.scheduleWithFixedDelay(() -> {
+            try {
+                reconciliarConteos();
+            } catch (RuntimeException e) {
+                Registro.error("Error al reconciliar los conteos de contactos: " + e.getMessage());
+            }
+        }, EstadisticasContactos.PERIODO_RECONCILIACION_MINUTOS, EstadisticasContactos.PERIODO_RECONCILIACION_MINUTOS,
+                TimeUnit.MINUTES);
+    }
+
+    /**
+     * Lee los conteos reales junto con los cambios posteriores a los ya
+     * aplicados que incluyen, y reemplaza los de
+     * {@link EstadisticasContactos}. Los cambios ajenos incluidos que todavía
+     * no se recibieron se recuerdan para no sumarlos dos veces; los propios
+     * incluidos no se vuelven a aplicar si se avisaron durante la lectura. Se
+     * ejecuta en el hilo de fondo, así que ningún cambio ajeno se aplica
+     * mientras tanto.
+     */
+    private void reconciliarConteos() {
+        long desde = huecos.isEmpty() ? ultimaVersion : Math.min(ultimaVersion, huecos.firstKey() - 1);
+        Map<Integer, Integer> conteos = new HashMap<>();
+        List<CambioContacto> incluidos = new ArrayList<>();
+        estadisticas.empezarLectura();
+        if (db.leerConteosConCambios(desde, conteos, incluidos) < 0) {
+            estadisticas.terminarLectura(null, List.of());
+            return; // Se reintenta en la siguiente reconciliación
+        }
+        List<CambioContacto> propios = new ArrayList<>();
+        for (CambioContacto cambio : incluidos) {
+            if (cambio.propio()) {
+                propios.add(cambio);
+            } else if (cambio.version() > ultimaVersion || huecos.containsKey(cambio.version())) {
+                yaContadas.add(cambio.version());
+            }
+        }
+        estadisticas.terminarLectura(conteos, propios);
+    }
+
+    /**
+     * Deja de consultar los cambios.
+     */
+    public synchronized void detener() {
+        if (consultas != null) {
+            consultas.shutdownNow();
+            consultas = null;
+        }
+    }
+
+    /**
+     * Consulta y aplica los cambios nuevos, lote por lote hasta leer un lote
+     * incompleto. Se ejecuta en el hilo de fondo.
+     *
+     * @return {@code false} si no se pudieron leer los cambios.
+     */
+    private boolean sincronizar() {
+        long desde = huecos.isEmpty() ? ultimaVersion : Math.min(ultimaVersion, huecos.firstKey() - 1);
+        while (true) {
+            List<CambioContacto> leidos = new ArrayList<>();
+            int filas = db.obtenerCambiosDesde(desde, CAMBIOS_POR_CONSULTA, leidos);
+            if (filas < 0) {
+                return false; // Se reintenta en la siguiente consulta
+            }
+            aplicar(leidos);
+            if (filas < CAMBIOS_POR_CONSULTA) {
+                return true;
+            }
+            desde = leidos.get(leidos.size() - 1).version();
+        }
+    }
+
+    /**
+     * Aplica un lote de cambios leídos, en orden de versión: avisa los
+     * nuevos y los que llenan huecos, y recuerda las versiones que faltan.
+     */
+    private void aplicar(List<CambioContacto> leidos) {
+        long ahora = System.nanoTime();
+        huecos.values().removeIf(detectado -> ahora - detectado > TimeUnit.MILLISECONDS.toNanos(TIEMPO_MAXIMO_HUECO_MS));
+        Map<Integer, CambioContacto> porContacto = new LinkedHashMap<>();
+        for (CambioContacto cambio : leidos) {
+            long version = cambio.version();
+            if (version <= ultimaVersion) {
+                if (huecos.remove(version) == null) {
+                    continue; // Ya se había aplicado
+                }
+            } else {
+                if (version - ultimaVersion - 1 + huecos.size() <= MAXIMO_HUECOS) {
+                    for (long faltante = ultimaVersion + 1; faltante < version; faltante++) {
+                        huecos.put(faltante, ahora);
+                    }
+                }
+                ultimaVersion = version;
+            }
+            if (!cambio.propio()) {
+                if (!yaContadas.remove(version)) {
+                    estadisticas.aplicarCambioExterno(cambio);
+                }
+                porContacto.merge(cambio.idContacto(), cambio, SincronizadorCambios::combinar);
+            }
+        }
+
+        List<CambioContacto> resumidos = new ArrayList<>(porContacto.size());
+        for (CambioContacto cambio : porContacto.values()) {
+            // Un contacto que sigue existiendo según el registro, pero no en la consulta, se eliminó
+            // en una transacción que todavía no es visible: su eliminación llegará después
+            if (cambio.tipo() == CambioContacto.Tipo.ELIMINACION || cambio.contacto() != null) {
+                resumidos.add(cambio);
+            }
+        }
+        synchronized (candadoAplicacion) {
+            if (!resumidos.isEmpty()) {
+                db.avisarCambiosExternos(resumidos);
+            }
+            versionAplicada = huecos.isEmpty() ? ultimaVersion : Math.min(ultimaVersion, huecos.firstKey() - 1);
+        }
+        if (!resumidos.isEmpty()) {
+            alRecibir.accept(resumidos);
+        }
+        // Las versiones ya aplicadas o descartadas no volverán a llegar
+        yaContadas.removeIf(version -> version <= versionAplicada);
+    }
+
+    /**
+     * Resume dos cambios consecutivos del mismo contacto en uno solo.
+     *
+     * @return El cambio resumido, o {@code null} si el contacto se insertó y
+     * se eliminó, con lo que no hay nada que aplicar.
+     */
+    private static CambioContacto combinar(CambioContacto primero, CambioContacto siguiente) {
+        CambioContacto.Tipo tipo;
+        if (primero.tipo() == CambioContacto.Tipo.INSERCION) {
+            if (siguiente.tipo() == CambioContacto.Tipo.ELIMINACION) {
+                return null;
+            }
+            tipo = CambioContacto.Tipo.INSERCION;
+        } else {
+            tipo = siguiente.tipo() == CambioContacto.Tipo.ELIMINACION
+                    ? CambioContacto.Tipo.ELIMINACION : CambioContacto.Tipo.ACTUALIZACION;
+        }
+        return new CambioContacto(siguiente.version(), tipo, siguiente.idContacto(), primero.idGrupoAnterior(),
+                siguiente.idGrupoNuevo(), false, siguiente.contacto());
+    }
+}
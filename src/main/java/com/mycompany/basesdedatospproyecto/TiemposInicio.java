@@ -0,0 +1,67 @@
+package com.mycompany.basesdedatospproyecto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Mide las fases del inicio de la aplicación: abrir el repositorio,
+ * precalentar las conexiones, mostrar la ventana, pintar las primeras filas,
+ * etc. Como varias fases corren a la vez en hilos distintos, de cada una se
+ * guarda cuánto duró y en qué momento terminó, contado desde el arranque.
+ *
+ * Cada fase se informa en el {@link Registro} al terminar, y
+ * {@link #resumen()} las reúne en una sola línea.
+ */
+final class TiemposInicio {
+
+    // Instante de referencia: la primera vez que se usa la clase, al comenzar main
+    private static final long ARRANQUE = System.nanoTime();
+    // Duración y fin de cada fase en milisegundos, en el orden en que terminaron
+    private static final Map<String, long[]> FASES = new LinkedHashMap<>();
+
+    private TiemposInicio() {
+    }
+
+    /**
+     * Fija el instante del arranque. Debe llamarse al comenzar la
+     * aplicación; las llamadas siguientes no tienen efecto.
+     *
+     * @return El instante del arranque, en nanosegundos de
+     * {@link System#nanoTime()}.
+     */
+    static long arrancar() {
+        return ARRANQUE;
+    }
+
+    /**
+     * Registra el fin de una fase y lo informa en el registro.
+     *
+     * @param fase El nombre de la fase.
+     * @param inicio El instante en que comenzó la fase, en nanosegundos de
+     * {@link System#nanoTime()}.
+     */
+    static void registrar(String fase, long inicio) {
+        long fin = System.nanoTime();
+        long duracionMs = (fin - inicio) / 1_000_000;
+        long desdeArranqueMs = (fin - ARRANQUE) / 1_000_000;
+        synchronized (FASES) {
+            FASES.put(fase, new long[]{duracionMs, desdeArranqueMs});
+        }
+        Registro.info("Inicio: " + fase + " en " + duracionMs + " ms (a los " + desdeArranqueMs + " ms del arranque).");
+    }
+
+    /**
+     * Resume las fases registradas hasta ahora.
+     *
+     * @return Una línea con cada fase, su duración y su fin desde el
+     * arranque.
+     */
+    static String resumen() {
+        StringJoiner resumen = new StringJoiner(", ", "Fases del inicio: ", "");
+        synchronized (FASES) {
+            FASES.forEach((fase, tiempos) -> resumen.add(fase + " " + tiempos[0] + " ms (fin " + tiempos[1] + " ms)"));
+        }
+        return resumen.toString();
+    }
+}